@@ -21,4 +21,9 @@ class StubTask extends JavaExec {
     def setClasses(List classes){
         setArgs(getArgs() + classes)
     }
+
+    def setBundle(File bundle){
+        setArgs(['--bundle=' + bundle] + getArgs())
+        outputs.file bundle
+    }
 }
\ No newline at end of file
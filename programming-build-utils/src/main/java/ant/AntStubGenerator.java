@@ -53,6 +53,8 @@ public class AntStubGenerator extends Java {
 
     private String dstDir;
 
+    private String bundle;
+
     public AntStubGenerator() {
         this.setFork(true);
         this.setFailonerror(true);
@@ -67,6 +69,14 @@ public class AntStubGenerator extends Java {
         this.srcDir = dir;
     }
 
+    /**
+     * Also writes the stubs and the invokers into a versioned and checksummed jar, loaded at
+     * runtime through the <code>proactive.mop.generatedclasses.bundles</code> property.
+     */
+    public void setBundle(String jar) {
+        this.bundle = jar;
+    }
+
     public void setRefclasspath(Reference ref) {
         this.setClasspathRef(ref);
     }
@@ -83,6 +93,10 @@ public class AntStubGenerator extends Java {
 
         // Generate the arguments
         StringBuilder sb = new StringBuilder();
+        if (this.bundle != null) {
+            sb.append(protectWithQuote(BUNDLE_OPTION + this.bundle));
+            sb.append(" ");
+        }
         sb.append(protectWithQuote(this.srcDir));
         sb.append(" ");
         sb.append(protectWithQuote(this.dstDir));
@@ -95,6 +109,8 @@ public class AntStubGenerator extends Java {
         super.execute();
     }
 
+    static final String BUNDLE_OPTION = "--bundle=";
+
     static private String protectWithQuote(String str) {
         return "\"" + str + "\"";
     }
@@ -110,6 +126,8 @@ public class AntStubGenerator extends Java {
 
         private File dstDir;
 
+        private File bundle;
+
         private List<String> classNames = new LinkedList<String>();
 
         // Called by the java ant task
@@ -118,10 +136,15 @@ public class AntStubGenerator extends Java {
         }
 
         public Main(String[] args) {
-            this.srcDir = new File(args[0]);
-            this.dstDir = new File(args[1]);
+            int first = 0;
+            if ((args.length > 0) && args[0].startsWith(BUNDLE_OPTION)) {
+                this.bundle = new File(args[0].substring(BUNDLE_OPTION.length()));
+                first = 1;
+            }
+            this.srcDir = new File(args[first]);
+            this.dstDir = new File(args[first + 1]);
 
-            for (int i = 2; i < args.length; i++) {
+            for (int i = first + 2; i < args.length; i++) {
                 this.classNames.add(args[i]);
             }
 
@@ -130,6 +153,9 @@ public class AntStubGenerator extends Java {
             for (String className : classNames) {
                 this.generateClass(className);
             }
+            if (this.bundle != null) {
+                this.generateBundle();
+            }
         }
 
         private void quiet() {
@@ -192,6 +218,19 @@ public class AntStubGenerator extends Java {
 
         }
 
+        public void generateBundle() throws BuildException {
+            try {
+                // Do not import the class since Utils must not depends on the core
+                Class<?> cl = Class.forName("org.objectweb.proactive.core.mop.GeneratedClassCache");
+                Method m = cl.getMethod("writeBundle", File.class, List.class);
+                m.invoke(null, this.bundle, this.classNames);
+                System.out.println("Wrote " + this.bundle);
+            } catch (Throwable e) {
+                e.printStackTrace();
+                throw new BuildException("Failed to write the bundle of generated classes " + this.bundle, e);
+            }
+        }
+
         private byte[] createStub(String className) throws Exception {
             // Do not import the class since Utils must not depends on the core
             Class<?> cl = Class.forName("org.objectweb.proactive.core.mop.JavassistByteCodeStubBuilder");
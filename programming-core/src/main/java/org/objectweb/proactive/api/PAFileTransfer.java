@@ -226,11 +226,16 @@ public class PAFileTransfer {
     protected static List<RemoteFile> internalTransfer(Node srcNode, File[] srcFile, Node dstNode, File[] dstFile,
             int bsize, int numFlyingBlocks) throws IOException {
         FileTransferServiceSend ftsSrc;
-        FileTransferServiceReceive ftsDst;
+        List<FileTransferServiceReceive> ftsDsts = new ArrayList<FileTransferServiceReceive>();
 
         try {
             ftsSrc = FileTransferEngine.getFileTransferEngine(srcNode).getFTS();
-            ftsDst = FileTransferEngine.getFileTransferEngine(dstNode).getFTS();
+            ftsDsts.add(FileTransferEngine.getFileTransferEngine(dstNode).getFTS());
+            if (FileTransferService.DEFAULT_STREAMS > 1) {
+                //spread the transfer over the services currently available on the destination
+                ftsDsts.addAll(FileTransferEngine.getFileTransferEngine(dstNode)
+                                                 .getAvailableFTS(FileTransferService.DEFAULT_STREAMS - 1));
+            }
         } catch (Exception e) {
             //TODO change when moving to Java 1.6
             //throw new IOException("Unable to connect or use ProActive Node: " + srcNode + " -> " + dstNode, e);
@@ -241,12 +246,12 @@ public class PAFileTransfer {
         ArrayList<RemoteFile> rfile = new ArrayList<RemoteFile>(srcFile.length);
 
         for (int i = 0; i < srcFile.length; i++) {
-            OperationStatus status = ftsSrc.send(srcFile[i], ftsDst, dstFile[i], bsize, numFlyingBlocks);
+            OperationStatus status = ftsSrc.send(srcFile[i], ftsDsts, dstFile[i], bsize, numFlyingBlocks);
 
             rfile.add(new RemoteFileImpl(dstNode, dstFile[i], status));
         }
 
-        ftsSrc.putBackInPool(ftsDst);
+        ftsSrc.putBackInPool(ftsDsts);
 
         return rfile;
     }
@@ -25,16 +25,22 @@
  */
 package org.objectweb.proactive.api;
 
+import java.lang.reflect.InvocationTargetException;
 import java.util.Iterator;
 import java.util.List;
 
 import org.apache.log4j.Logger;
 import org.objectweb.proactive.ActiveObjectCreationException;
 import org.objectweb.proactive.annotation.PublicAPI;
+import org.objectweb.proactive.core.ProActiveRuntimeException;
 import org.objectweb.proactive.core.body.future.FutureProxy;
 import org.objectweb.proactive.core.group.DispatchMode;
+import org.objectweb.proactive.core.group.DispatchMonitor;
 import org.objectweb.proactive.core.group.Group;
 import org.objectweb.proactive.core.group.ProxyForGroup;
+import org.objectweb.proactive.core.group.reduction.PartialReduction;
+import org.objectweb.proactive.core.group.reduction.Reduction;
+import org.objectweb.proactive.core.group.tree.BroadcastTree;
 import org.objectweb.proactive.core.mop.ClassNotReifiableException;
 import org.objectweb.proactive.core.mop.ConstructionOfProxyObjectFailedException;
 import org.objectweb.proactive.core.mop.ConstructionOfReifiedObjectFailedException;
@@ -1171,6 +1177,8 @@ public class PAGroup {
 
     /**
      * Allows the typed group to make an unique serialization of parameters when a broadcast call occurs.
+     * This is the default: the parameters are serialized once and shared by the requests sent to the
+     * members, provided at least two of them are active objects.
      * @param ogroup the typed group who will change his semantic of communication.
      */
     public static void setUniqueSerialization(Object ogroup) {
@@ -1181,7 +1189,8 @@ public class PAGroup {
     }
 
     /**
-     * Removes the ability of a typed group to make an unique serialization
+     * Removes the ability of a typed group to make an unique serialization: the parameters are then
+     * serialized for each member.
      * @param ogroup the typed group who will change his semantic of communication.
      */
     public static void unsetUniqueSerialization(Object ogroup) {
@@ -1191,6 +1200,115 @@ public class PAGroup {
         }
     }
 
+    /**
+     * Makes the members of a typed group relay the calls on the group along a tree, instead of
+     * the caller sending a request to every member. The caller only contacts the roots of its
+     * subtrees and a call reaches all the members in a logarithmic number of hops; the results are
+     * gathered back up the tree, and the caller still gets a group of futures.
+     * <p>
+     * A call is relayed only when all the members are active objects and it does not scatter its
+     * parameters; the parameters are then serialized once for the whole tree. A member serving a
+     * relayed call that returns a result waits for the results of its subtree before replying, so
+     * the members should not call each other synchronously while serving it. The exceptions raised
+     * while relaying a one way call below the roots of the subtrees are logged by the relays.
+     * @param ogroup the typed group who will change his semantic of communication.
+     * @param tree the shape of the tree, for instance a
+     *        {@link org.objectweb.proactive.core.group.tree.KAryTree} or a
+     *        {@link org.objectweb.proactive.core.group.tree.BinomialTree}
+     */
+    public static void setTreeBroadcast(Object ogroup, BroadcastTree tree) {
+        ProxyForGroup<?> proxytmp = PAGroup.findProxyForGroup(ogroup);
+        if (proxytmp != null) {
+            proxytmp.setBroadcastTree(tree);
+        }
+    }
+
+    /**
+     * Makes the caller send the calls on a typed group to every member (the default).
+     * @param ogroup the typed group who will change his semantic of communication.
+     */
+    public static void unsetTreeBroadcast(Object ogroup) {
+        ProxyForGroup<?> proxytmp = PAGroup.findProxyForGroup(ogroup);
+        if (proxytmp != null) {
+            proxytmp.setBroadcastTree(null);
+        }
+    }
+
+    /**
+     * Checks if the calls on a typed group are relayed along a tree.
+     * @param ogroup the typed group to check.
+     * @return <code>true</code> if a broadcast tree is set on the group.
+     */
+    public static boolean isTreeBroadcastOn(Object ogroup) {
+        ProxyForGroup<?> proxytmp = PAGroup.findProxyForGroup(ogroup);
+        if (proxytmp != null) {
+            return proxytmp.getBroadcastTree() != null;
+        } else {
+            return false;
+        }
+    }
+
+    /**
+     * Makes the calls on a typed group that return a result return a single future on the results
+     * of the members folded by a reduction, instead of a group of futures. The results are folded
+     * in the order of the members, as soon as they arrive, so that the caller never holds all of
+     * them; along a broadcast tree (see {@link #setTreeBroadcast(Object, BroadcastTree)}) every
+     * relay folds the results of its subtree and only partial results travel up the tree.
+     * <p>
+     * The reduction must be associative, and the type returned by the calls must be reifiable. The
+     * future raises the first exception raised by a member, or by the reduction.
+     * @param ogroup the typed group who will change his semantic of communication.
+     * @param reduction the reduction, for instance one of the
+     *        {@link org.objectweb.proactive.core.group.reduction.ReduceMode}
+     */
+    public static void setReduction(Object ogroup, Reduction<?> reduction) {
+        ProxyForGroup<?> proxytmp = PAGroup.findProxyForGroup(ogroup);
+        if (proxytmp != null) {
+            proxytmp.setReduction(reduction);
+        }
+    }
+
+    /**
+     * Makes the calls on a typed group return a group of futures (the default).
+     * @param ogroup the typed group who will change his semantic of communication.
+     */
+    public static void unsetReduction(Object ogroup) {
+        ProxyForGroup<?> proxytmp = PAGroup.findProxyForGroup(ogroup);
+        if (proxytmp != null) {
+            proxytmp.setReduction(null);
+        }
+    }
+
+    /**
+     * Folds the results of a call on a typed group into a single future, updated when all the
+     * results have arrived. The results are folded in the order of the group, as they arrive.
+     * @param ogroupOfResults the typed group of results, whose type must be reifiable.
+     * @param reduction an associative reduction.
+     * @return a future on the reduced result, which raises the first exception of the group or of
+     *         the reduction.
+     */
+    public static Object reduce(Object ogroupOfResults, Reduction<?> reduction) {
+        ProxyForGroup<?> proxytmp = PAGroup.findProxyForGroup(ogroupOfResults);
+        if (proxytmp == null) {
+            throw new IllegalArgumentException("The argument must be a group");
+        }
+        try {
+            Object[] results = proxytmp.toArray();
+            PartialReduction partialReduction = new PartialReduction(reduction,
+                                                                     results.length,
+                                                                     PAActiveObject.getBodyOnThis()
+                                                                             .getFuturePool(),
+                                                                     proxytmp.getTypeName());
+            for (int i = 0; i < results.length; i++) {
+                partialReduction.addValue(i, results[i]);
+            }
+            return partialReduction.getFuture();
+        } catch (InvocationTargetException e) {
+            throw new ProActiveRuntimeException("Cannot reduce a group of " + proxytmp.getTypeName(), e
+                    .getTargetException());
+        }
+    }
+
     /**
      * Checks if the object <code>o</code> is an object representing a Group (future or not).
      * @param o the Object to check.
@@ -1207,6 +1325,21 @@ public class PAGroup {
         }
     }
 
+    /**
+     * Returns the monitor of the last call on a typed group dispatched in the
+     * {@link DispatchMode#DYNAMIC} or {@link DispatchMode#WORK_STEALING} mode, which reports the
+     * number of tasks completed by each member and its throughput.
+     * @param group the typed group.
+     * @return the monitor of the last call, or <code>null</code> if no call was dispatched dynamically.
+     */
+    public static DispatchMonitor getLastDispatchMonitor(Object group) {
+        ProxyForGroup<?> proxytmp = PAGroup.findProxyForGroup(group);
+        if (proxytmp != null) {
+            return proxytmp.getLastDispatchMonitor();
+        }
+        return null;
+    }
+
     /**
      * By default, when a rendez-vous fails an exception is thrown. Instead,
      * when the automatic purge is enabled, failing objects are removed from
@@ -54,6 +54,7 @@ import org.objectweb.proactive.core.body.tags.MessageTagsFactory;
 import org.objectweb.proactive.core.config.CentralPAPropertyRepository;
 import org.objectweb.proactive.core.group.spmd.ProActiveSPMDGroupManager;
 import org.objectweb.proactive.core.jmx.mbean.BodyWrapperMBean;
+import org.objectweb.proactive.core.jmx.metrics.BodyMetrics;
 import org.objectweb.proactive.core.mop.MethodCall;
 import org.objectweb.proactive.core.util.HeartbeatResponse;
 import org.objectweb.proactive.core.util.ThreadStore;
@@ -111,6 +112,9 @@ public abstract class AbstractBody extends AbstractUniversalBody implements Body
     /** The MBean representing this body */
     protected BodyWrapperMBean mbean;
 
+    /** The metrics of the requests served by this body, null if they are not collected */
+    protected BodyMetrics metrics;
+
     protected boolean isProActiveInternalObject = false;
 
     // MESSAGE-TAGS Factory
@@ -175,6 +179,13 @@ public abstract class AbstractBody extends AbstractUniversalBody implements Body
         return this.mbean;
     }
 
+    /**
+     * @return the metrics of the requests served by this body, or null if they are not collected
+     */
+    public BodyMetrics getMetrics() {
+        return this.metrics;
+    }
+
     public String getReifiedClassName() {
         return this.localBodyStrategy.getReifiedObject().getClass().getName();
     }
@@ -51,10 +51,14 @@ import org.objectweb.proactive.core.body.reply.ReplyImpl;
 import org.objectweb.proactive.core.body.reply.ReplyReceiver;
 import org.objectweb.proactive.core.body.request.*;
 import org.objectweb.proactive.core.body.tags.MessageTags;
+import org.objectweb.proactive.core.body.tags.RequestTrace;
+import org.objectweb.proactive.core.body.tags.RequestTracer;
 import org.objectweb.proactive.core.body.tags.Tag;
 import org.objectweb.proactive.core.body.tags.tag.DsiTag;
+import org.objectweb.proactive.core.body.tags.tag.TraceTag;
 import org.objectweb.proactive.core.config.CentralPAPropertyRepository;
 import org.objectweb.proactive.core.jmx.mbean.BodyWrapper;
+import org.objectweb.proactive.core.jmx.metrics.BodyMetrics;
 import org.objectweb.proactive.core.jmx.naming.FactoryName;
 import org.objectweb.proactive.core.jmx.notification.NotificationType;
 import org.objectweb.proactive.core.jmx.notification.RequestNotificationData;
@@ -155,6 +159,10 @@ public abstract class BodyImpl extends AbstractBody implements java.io.Serializa
 
         // JMX registration
         if (!super.isProActiveInternalObject) {
+            if (CentralPAPropertyRepository.PA_BODY_METRICS.isTrue()) {
+                super.metrics = new BodyMetrics(this.bodyID);
+            }
+
             MBeanServer mbs = ManagementFactory.getPlatformMBeanServer();
             ObjectName oname = FactoryName.createActiveObjectName(this.bodyID);
             if (!mbs.isRegistered(oname)) {
@@ -188,8 +196,14 @@ public abstract class BodyImpl extends AbstractBody implements java.io.Serializa
      */
     @Override
     protected void internalReceiveRequest(Request request) throws java.io.IOException {
+        if (this.metrics != null) {
+            this.metrics.requestReceived();
+        }
+        RequestTracer.record(request.getTags(), RequestTrace.Event.ENQUEUE);
+
         // JMX Notification
-        if (!isProActiveInternalObject && (this.mbean != null)) {
+        if (!isProActiveInternalObject && (this.mbean != null) &&
+            BodyMetrics.isTraced(request.getSequenceNumber())) {
             String tagNotification = createTagNotification(request.getTags());
             RequestNotificationData requestNotificationData = new RequestNotificationData(request.getSourceBodyID(),
                                                                                           request.getSenderNodeURL(),
@@ -218,8 +232,11 @@ public abstract class BodyImpl extends AbstractBody implements java.io.Serializa
      */
     @Override
     protected void internalReceiveReply(Reply reply) throws java.io.IOException {
+        RequestTracer.finish(reply.getTags(), RequestTrace.Event.REPLY_RECEIVED);
+
         // JMX Notification
-        if (!isProActiveInternalObject && (this.mbean != null) && reply.getResult().getException() == null) {
+        if (!isProActiveInternalObject && (this.mbean != null) && reply.getResult().getException() == null &&
+            BodyMetrics.isTraced(reply.getSequenceNumber())) {
             String tagNotification = createTagNotification(reply.getTags());
             RequestNotificationData requestNotificationData = new RequestNotificationData(BodyImpl.this.bodyID,
                                                                                           BodyImpl.this.getNodeURL(),
@@ -511,8 +528,15 @@ public abstract class BodyImpl extends AbstractBody implements java.io.Serializa
                 return;
             }
 
+            long servingStartMillis = System.currentTimeMillis();
+            long servingStartTime = System.nanoTime();
+            MessageTags requestTags = request.getTags();
+            RequestTracer.record(requestTags, RequestTrace.Event.SERVE_START);
+            boolean traced = !isProActiveInternalObject && (mbean != null) &&
+                             BodyMetrics.isTraced(request.getSequenceNumber());
+
             // JMX Notification
-            if (!isProActiveInternalObject && (mbean != null)) {
+            if (traced) {
                 String tagNotification = createTagNotification(request.getTags());
                 RequestNotificationData data = new RequestNotificationData(request.getSourceBodyID(),
                                                                            request.getSenderNodeURL(),
@@ -562,6 +586,19 @@ public abstract class BodyImpl extends AbstractBody implements java.io.Serializa
                 }
             }
 
+            if (metrics != null) {
+                // The time stamp of a request is set when it is received, in milliseconds
+                metrics.requestServed(request.getMethodName(),
+                                      (servingStartMillis - request.getTimeStamp()) * 1000,
+                                      (System.nanoTime() - servingStartTime) / 1000);
+            }
+            if (request.isOneWay()) {
+                // no reply will close the trace on the caller side
+                RequestTracer.finish(requestTags, RequestTrace.Event.SERVE_END);
+            } else {
+                RequestTracer.record(requestTags, RequestTrace.Event.SERVE_END);
+            }
+
             if (reply == null) {
                 if (!isActive()) {
                     return; // test if active in case of terminate() method
@@ -569,7 +606,7 @@ public abstract class BodyImpl extends AbstractBody implements java.io.Serializa
                 }
 
                 // JMX Notification
-                if (!isProActiveInternalObject && (mbean != null)) {
+                if (traced) {
                     String tagNotification = createTagNotification(request.getTags());
                     RequestNotificationData data = new RequestNotificationData(request.getSourceBodyID(),
                                                                                request.getSenderNodeURL(),
@@ -587,7 +624,7 @@ public abstract class BodyImpl extends AbstractBody implements java.io.Serializa
             }
 
             // JMX Notification
-            if (!isProActiveInternalObject && (mbean != null) && reply.getResult().getException() == null) {
+            if (traced && reply.getResult().getException() == null) {
                 String tagNotification = createTagNotification(request.getTags());
                 RequestNotificationData data = new RequestNotificationData(request.getSourceBodyID(),
                                                                            request.getSenderNodeURL(),
@@ -630,6 +667,13 @@ public abstract class BodyImpl extends AbstractBody implements java.io.Serializa
 
             }
 
+            if (metrics != null && BodyMetrics.isReplySizeSampled(request.getSequenceNumber())) {
+                long replySize = BodyMetrics.serializedSize(reply.getResult());
+                if (replySize >= 0) {
+                    metrics.replySent(replySize);
+                }
+            }
+
             // if the reply cannot be sent, try to sent the thrown exception
             // as result
             // Useful if the exception is due to the content of the result
@@ -697,6 +741,7 @@ public abstract class BodyImpl extends AbstractBody implements java.io.Serializa
             long sequenceID = getNextSequenceID();
 
             MessageTags tags = applyTags(sequenceID);
+            RequestTracer.requestCreated(tags, bodyID, sequenceID, methodCall.getName());
 
             Request request = this.internalRequestFactory.newRequest(methodCall,
                                                                      BodyImpl.this,
@@ -713,7 +758,7 @@ public abstract class BodyImpl extends AbstractBody implements java.io.Serializa
             // TODO Write this section, after the commit of Arnaud
             // TODO Send a notification only if the destination doesn't
             // implement ProActiveInternalObject
-            if (!isProActiveInternalObject && (mbean != null)) {
+            if (!isProActiveInternalObject && (mbean != null) && BodyMetrics.isTraced(sequenceID)) {
                 ServerConnector serverConnector = ProActiveRuntimeImpl.getProActiveRuntime().getJMXServerConnector();
 
                 // If the connector server is not active the connectorID can be
@@ -739,6 +784,7 @@ public abstract class BodyImpl extends AbstractBody implements java.io.Serializa
 
             // END JMX Notification
 
+            RequestTracer.record(tags, RequestTrace.Event.SEND);
             request.send(destinationBody);
         }
 
@@ -798,6 +844,13 @@ public abstract class BodyImpl extends AbstractBody implements java.io.Serializa
                     nextTags.addTag(new DsiTag(bodyID, sequenceID));
                 }
             }
+            // Start a new trace if the request does not belong to one
+            if (!nextTags.check(TraceTag.IDENTIFIER)) {
+                TraceTag traceTag = RequestTracer.newRootTag(bodyID, sequenceID);
+                if (traceTag != null) {
+                    nextTags.addTag(traceTag);
+                }
+            }
             return nextTags;
         }
     }
@@ -39,7 +39,10 @@ import org.objectweb.proactive.core.body.request.Request;
 import org.objectweb.proactive.core.body.request.RequestFactory;
 import org.objectweb.proactive.core.body.request.RequestQueue;
 import org.objectweb.proactive.core.body.tags.MessageTags;
+import org.objectweb.proactive.core.body.tags.RequestTrace;
+import org.objectweb.proactive.core.body.tags.RequestTracer;
 import org.objectweb.proactive.core.body.tags.tag.DsiTag;
+import org.objectweb.proactive.core.body.tags.tag.TraceTag;
 import org.objectweb.proactive.core.config.CentralPAPropertyRepository;
 import org.objectweb.proactive.core.mop.MethodCall;
 import org.objectweb.proactive.core.node.NodeException;
@@ -121,6 +124,7 @@ public class HalfBody extends AbstractBody {
      */
     @Override
     protected void internalReceiveReply(Reply reply) throws java.io.IOException {
+        RequestTracer.finish(reply.getTags(), RequestTrace.Event.REPLY_RECEIVED);
         this.replyReceiver.receiveReply(reply, this, getFuturePool());
     }
 
@@ -215,6 +219,14 @@ public class HalfBody extends AbstractBody {
                 tags = messageTagsFactory.newMessageTags();
                 tags.addTag(new DsiTag(bodyID, sequenceID));
             }
+            TraceTag traceTag = RequestTracer.newRootTag(bodyID, sequenceID);
+            if (traceTag != null) {
+                if (tags == null) {
+                    tags = messageTagsFactory.newMessageTags();
+                }
+                tags.addTag(traceTag);
+                RequestTracer.requestCreated(tags, bodyID, sequenceID, methodCall.getName());
+            }
 
             Request request = this.internalRequestFactory.newRequest(methodCall,
                                                                      HalfBody.this,
@@ -227,6 +239,7 @@ public class HalfBody extends AbstractBody {
                 this.futures.receiveFuture(future);
             }
 
+            RequestTracer.record(tags, RequestTrace.Event.SEND);
             request.send(destinationBody);
         }
 
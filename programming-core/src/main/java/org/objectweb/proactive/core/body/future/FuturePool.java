@@ -33,6 +33,7 @@ import java.util.Map;
 
 import org.apache.log4j.Logger;
 import org.objectweb.proactive.Body;
+import org.objectweb.proactive.core.Constants;
 import org.objectweb.proactive.core.ProActiveException;
 import org.objectweb.proactive.core.UniqueID;
 import org.objectweb.proactive.core.body.AbstractBody;
@@ -42,6 +43,9 @@ import org.objectweb.proactive.core.body.UniversalBody;
 import org.objectweb.proactive.core.body.reply.Reply;
 import org.objectweb.proactive.core.body.reply.ReplyImpl;
 import org.objectweb.proactive.core.config.CentralPAPropertyRepository;
+import org.objectweb.proactive.core.mop.MOP;
+import org.objectweb.proactive.core.mop.MOPException;
+import org.objectweb.proactive.core.mop.StubObject;
 import org.objectweb.proactive.core.mop.Utils;
 import org.objectweb.proactive.core.util.log.Loggers;
 import org.objectweb.proactive.core.util.log.ProActiveLogger;
@@ -140,6 +144,34 @@ public class FuturePool extends Object implements java.io.Serializable {
         return (incomingFutures.get());
     }
 
+    // this table is set while serializing arguments shared by the requests sent to several bodies
+    // (e.g. group broadcast): futures cannot be part of them, since a future needs to know the
+    // destination of the request it is serialized with
+    static private ThreadLocal<Boolean> sharedArgumentsSerialization;
+
+    // to enter or leave the serialization of shared arguments
+    static public void setSerializingSharedArguments(boolean shared) {
+        if (shared) {
+            sharedArgumentsSerialization.set(Boolean.TRUE);
+        } else {
+            sharedArgumentsSerialization.remove();
+        }
+    }
+
+    // to know if shared arguments are being serialized
+    static public boolean isSerializingSharedArguments() {
+        return sharedArgumentsSerialization.get() != null;
+    }
+
+    /**
+     * Thrown by a future serialized within arguments shared by several requests.
+     */
+    public static class SharedFutureException extends java.io.IOException {
+        public SharedFutureException() {
+            super("A future cannot be serialized within arguments shared by several requests");
+        }
+    }
+
     // body forwarders
 
     // map of threads that are running a body forwarder
@@ -162,6 +194,7 @@ public class FuturePool extends Object implements java.io.Serializable {
 
     static {
         bodiesDestination = new ThreadLocal<ArrayList<UniversalBody>>();
+        sharedArgumentsSerialization = new ThreadLocal<Boolean>();
         incomingFutures = new ThreadLocal<ArrayList<Future>>() {
             @Override
             protected synchronized ArrayList<Future> initialValue() {
@@ -337,6 +370,41 @@ public class FuturePool extends Object implements java.io.Serializable {
         }
     }
 
+    /**
+     * Creates a future owned by the body of this pool which is not the result of a request: it is
+     * updated by {@link #updateLocalFuture(Object, MethodCallResult)}, with the same semantics
+     * (automatic continuations included) as a future updated by a reply.
+     * @param className the class of the future, which must be reifiable
+     * @return the future
+     */
+    public Object newLocalFuture(String className) throws MOPException, ClassNotFoundException {
+        StubObject future = (StubObject) MOP.newInstance(className,
+                                                         null,
+                                                         null,
+                                                         Constants.DEFAULT_FUTURE_PROXY_CLASS_NAME,
+                                                         null);
+        FutureProxy fp = (FutureProxy) future.getProxy();
+        fp.setCreatorID(this.ownerBody.getID());
+        fp.setUpdater(this.ownerBody);
+        fp.setID(this.ownerBody.getNextSequenceID());
+        receiveFuture(fp);
+        return future;
+    }
+
+    /**
+     * Updates a future created by {@link #newLocalFuture(String)}.
+     * @param future the future to update
+     * @param result the value of the future
+     */
+    public void updateLocalFuture(Object future, MethodCallResult result) {
+        FutureProxy fp = (FutureProxy) ((StubObject) future).getProxy();
+        try {
+            receiveFutureValue(fp.getID(), fp.getCreatorID(), result, null);
+        } catch (IOException e) {
+            logger.error("Could not update the local future " + fp.getFutureID(), e);
+        }
+    }
+
     /**
      * To add an automatic contiunation, ie a destination body, for a particular future.
      * @param id sequence id of the corresponding future
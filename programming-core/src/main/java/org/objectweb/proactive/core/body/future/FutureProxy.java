@@ -28,6 +28,7 @@ package org.objectweb.proactive.core.body.future;
 import java.lang.reflect.InvocationTargetException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 
 import org.apache.log4j.Logger;
 import org.objectweb.proactive.Body;
@@ -127,6 +128,9 @@ public class FutureProxy implements Future, Proxy, java.io.Serializable {
     // returns future update info used during dynamic dispatch for groups
     private transient DispatchMonitor dispatchMonitor;
 
+    /** Local listeners notified when the value arrives, in the order they were added */
+    private transient List<LocalFutureUpdateListener> updateListeners;
+
     // the context stack when this future was created, the context stack is only filled when the property
     // proactive.stack_trace is set
     protected StackTraceElement[] callerContext;
@@ -232,6 +236,13 @@ public class FutureProxy implements Future, Proxy, java.io.Serializable {
             this.callbacks = null;
         }
 
+        if (this.updateListeners != null) {
+            for (LocalFutureUpdateListener listener : this.updateListeners) {
+                listener.futureUpdated(obj);
+            }
+            this.updateListeners = null;
+        }
+
         this.notifyAll();
     }
 
@@ -447,6 +458,9 @@ public class FutureProxy implements Future, Proxy, java.io.Serializable {
             result = c.execute(resultObject);
         } catch (MethodCallExecutionFailedException e) {
             throw new ProActiveRuntimeException("FutureProxy: Illegal arguments in call " + c.getName());
+        } finally {
+            // the call was served by this thread, nothing else refers to it
+            MethodCall.setMethodCall(c);
         }
 
         // If target of this future is another future, make a shortcut !
@@ -499,6 +513,10 @@ public class FutureProxy implements Future, Proxy, java.io.Serializable {
     // -- PRIVATE METHODS FOR SERIALIZATION -----------------------------------------------
     //
     private synchronized void writeObject(java.io.ObjectOutputStream out) throws java.io.IOException {
+        if (FuturePool.isSerializingSharedArguments()) {
+            // checked first: the future would otherwise wait for its value
+            throw new FuturePool.SharedFutureException();
+        }
         UniversalBody writtenUpdater = this.updater;
 
         if (!FuturePool.isInsideABodyForwarder()) {
@@ -658,4 +676,26 @@ public class FutureProxy implements Future, Proxy, java.io.Serializable {
     public synchronized void setDispatchMonitor(DispatchMonitor dispatchMonitor) {
         this.dispatchMonitor = dispatchMonitor;
     }
+
+    /**
+     * Adds a listener to notify when the value of this future arrives, or notifies it now if
+     * the value has already arrived. A future may have several listeners, for instance when it is
+     * the result of a member of several reduced groups.
+     * @param listener the listener to notify
+     */
+    public void addUpdateListener(LocalFutureUpdateListener listener) {
+        MethodCallResult arrived;
+        synchronized (this) {
+            arrived = this.target;
+            if (arrived == null) {
+                if (this.updateListeners == null) {
+                    this.updateListeners = new ArrayList<LocalFutureUpdateListener>(1);
+                }
+                this.updateListeners.add(listener);
+                return;
+            }
+        }
+        // not notified under the lock of the future, as for an update
+        listener.futureUpdated(arrived);
+    }
 }
@@ -118,11 +118,11 @@ public abstract class AbstractBodyProxy extends AbstractProxy implements BodyPro
      * log4j inside log4j, so for now, we disable the message for toString().
      */
     private static boolean isToString(MethodCall methodCall) {
-        return (methodCall.getNumberOfParameter() == 0) && "toString".equals(methodCall.getName());
+        return "toString".equals(methodCall.getName()) && (methodCall.getNumberOfParameter() == 0);
     }
 
     private static boolean isHashCode(MethodCall methodCall) {
-        return (methodCall.getNumberOfParameter() == 0) && "hashCode".equals(methodCall.getName());
+        return "hashCode".equals(methodCall.getName()) && (methodCall.getNumberOfParameter() == 0);
     }
 
     private static Set<String> loggedSyncCalls = Collections.synchronizedSet(new HashSet<String>());
@@ -38,6 +38,7 @@ import org.objectweb.proactive.core.group.spmd.MethodBarrier;
 import org.objectweb.proactive.core.group.spmd.MethodCallBarrierWithMethodName;
 import org.objectweb.proactive.core.group.spmd.ProActiveSPMDGroupManager;
 import org.objectweb.proactive.core.jmx.mbean.BodyWrapperMBean;
+import org.objectweb.proactive.core.jmx.metrics.BodyMetrics;
 import org.objectweb.proactive.core.jmx.notification.NotificationType;
 import org.objectweb.proactive.core.mop.MethodCall;
 import org.objectweb.proactive.utils.TimeoutAccounter;
@@ -181,8 +182,11 @@ public class BlockingRequestQueueImpl extends RequestQueueImpl implements java.i
         // JMX Notification
         Body body = LocalBodyStore.getInstance().getLocalBody(ownerID);
         if (body != null) {
+            BodyMetrics metrics = (body instanceof AbstractBody) ? ((AbstractBody) body).getMetrics() : null;
+            long waits = (metrics != null) ? metrics.waitForRequest() : 0;
+
             BodyWrapperMBean mbean = body.getMBean();
-            if (mbean != null) {
+            if (mbean != null && BodyMetrics.isTraced(waits)) {
                 mbean.sendNotification(NotificationType.waitForRequest);
             }
         }
@@ -203,6 +203,12 @@ public class RequestImpl extends MessageImpl implements Request, java.io.Seriali
     protected MethodCallResult serveInternal(Body targetBody) throws ServeException {
         Object result = null;
         Throwable exception = null;
+        if (this.methodCall.hasSerializedEffectiveArguments()) {
+            // arguments sent as a byte[] (e.g. group broadcast) are deserialized lazily, by the
+            // thread serving the request; they never contain futures, which are always
+            // serialized with the request itself
+            this.methodCall.getEffectiveArguments();
+        }
         try {
             result = this.methodCall.execute(targetBody.getReifiedObject());
         } catch (MethodCallExecutionFailedException e) {
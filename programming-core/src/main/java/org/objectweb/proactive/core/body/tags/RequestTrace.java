@@ -0,0 +1,189 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.objectweb.proactive.core.body.tags;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+
+
+/**
+ * The timestamps collected along the path of one sampled request.
+ *
+ * A trace is identified by the span of its request ("bodyID::sequenceNumber"). All the
+ * requests sent while serving a traced request share the trace id of the root request and
+ * reference the span of the served request as parent span.
+ *
+ * Timestamps are microseconds since the epoch as given by
+ * {@link RequestTracer#currentTimeMicros()}. They are taken on the host where the event occurs:
+ * the events recorded by the callee ({@link Event#UNMARSHAL} to {@link Event#SERVE_END}) are
+ * subject to the clock skew between the two hosts, durations between events of the same host
+ * are not.
+ */
+public class RequestTrace implements Serializable {
+
+    /**
+     * The events recorded for a request, in the order they normally occur
+     */
+    public enum Event {
+        /** the method call has been reified and is handed to the body of the caller */
+        REIFY,
+        /** the request is handed to the transport layer */
+        SEND,
+        /** the request is serialized by the caller */
+        MARSHAL,
+        /** the request is deserialized by the callee */
+        UNMARSHAL,
+        /** the request is put in the request queue of the callee */
+        ENQUEUE,
+        /** the callee starts serving the request */
+        SERVE_START,
+        /** the callee has served the request */
+        SERVE_END,
+        /** the reply has been received by the caller */
+        REPLY_RECEIVED;
+    }
+
+    private static final Event[] EVENTS = Event.values();
+
+    private final String traceId;
+
+    private final String parentSpanId;
+
+    private String spanId;
+
+    private String methodName;
+
+    private final long[] times;
+
+    public RequestTrace(String traceId, String parentSpanId) {
+        this.traceId = traceId;
+        this.parentSpanId = parentSpanId;
+        this.times = new long[EVENTS.length];
+    }
+
+    public String getTraceId() {
+        return this.traceId;
+    }
+
+    /**
+     * @return the span of the request being served when this request was sent, or null for the
+     *         root request of a trace
+     */
+    public String getParentSpanId() {
+        return this.parentSpanId;
+    }
+
+    public String getSpanId() {
+        return this.spanId;
+    }
+
+    public String getMethodName() {
+        return this.methodName;
+    }
+
+    void setRequest(String spanId, String methodName) {
+        this.spanId = spanId;
+        this.methodName = methodName;
+    }
+
+    /**
+     * @return the time of the event in microseconds, 0 if it has not been recorded
+     */
+    public long getTime(Event event) {
+        return this.times[event.ordinal()];
+    }
+
+    /**
+     * Records the current time for an event, unless it has already been recorded. Replies carry
+     * the trace of their request so a trace can be serialized more than once: only the first
+     * occurrence of an event is kept.
+     */
+    public void record(Event event) {
+        int i = event.ordinal();
+        if (this.times[i] == 0) {
+            this.times[i] = RequestTracer.currentTimeMicros();
+        }
+    }
+
+    /**
+     * @return the elapsed time between two events in microseconds, -1 if one of them has not
+     *         been recorded
+     */
+    public long getDuration(Event from, Event to) {
+        long start = getTime(from);
+        long end = getTime(to);
+        if (start == 0 || end == 0) {
+            return -1;
+        }
+        return end - start;
+    }
+
+    /**
+     * @return the header line matching {@link #toExportString()}
+     */
+    public static String getExportHeader() {
+        StringBuilder sb = new StringBuilder("#traceId\tparentSpanId\tspanId\tmethod");
+        for (Event e : EVENTS) {
+            sb.append('\t').append(e.name());
+        }
+        return sb.toString();
+    }
+
+    /**
+     * @return the trace as a tab separated line, missing values are left empty
+     */
+    public String toExportString() {
+        StringBuilder sb = new StringBuilder(160);
+        sb.append(this.traceId).append('\t');
+        sb.append(this.parentSpanId == null ? "" : this.parentSpanId).append('\t');
+        sb.append(this.spanId).append('\t');
+        sb.append(this.methodName);
+        for (long t : this.times) {
+            sb.append('\t');
+            if (t != 0) {
+                sb.append(t);
+            }
+        }
+        return sb.toString();
+    }
+
+    @Override
+    public String toString() {
+        return this.traceId + "::" + this.spanId + "::" + this.parentSpanId;
+    }
+
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        record(Event.MARSHAL);
+        out.defaultWriteObject();
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        record(Event.UNMARSHAL);
+    }
+}
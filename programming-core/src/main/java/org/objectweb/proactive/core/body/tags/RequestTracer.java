@@ -0,0 +1,237 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.objectweb.proactive.core.body.tags;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.apache.log4j.Logger;
+import org.objectweb.proactive.core.UniqueID;
+import org.objectweb.proactive.core.body.tags.RequestTrace.Event;
+import org.objectweb.proactive.core.body.tags.tag.TraceTag;
+import org.objectweb.proactive.core.config.CentralPAPropertyRepository;
+import org.objectweb.proactive.core.config.PAProperty;
+import org.objectweb.proactive.core.config.PAPropertyListener;
+import org.objectweb.proactive.core.util.log.Loggers;
+import org.objectweb.proactive.core.util.log.ProActiveLogger;
+
+
+/**
+ * Sampled tracing of the latency of requests.
+ *
+ * One request out of {@link CentralPAPropertyRepository#PA_TAG_TRACE_SAMPLING} gets a
+ * {@link TraceTag}, which is propagated to the requests sent while serving it. The bodies record
+ * the {@link Event}s of the requests carrying such a tag and the trace is exported once complete:
+ * when the reply is received by the caller, or when a one way request has been served. Exported
+ * traces are kept in a bounded in memory buffer and, if
+ * {@link CentralPAPropertyRepository#PA_TAG_TRACE_FILE} is set, appended to that file.
+ *
+ * Requests which are not sampled only pay a lookup in their message tags.
+ */
+public final class RequestTracer {
+
+    /** Message Tagging Logger */
+    private static Logger logger = ProActiveLogger.getLogger(Loggers.MESSAGE_TAGGING);
+
+    private static final long BASE_MICROS = System.currentTimeMillis() * 1000;
+
+    private static final long BASE_NANOS = System.nanoTime();
+
+    private static final AtomicReferenceArray<RequestTrace> recent = new AtomicReferenceArray<RequestTrace>(Math.max(1,
+                                                                                                                     CentralPAPropertyRepository.PA_TAG_TRACE_BUFFER_SIZE.getValue()));
+
+    private static final AtomicLong exported = new AtomicLong();
+
+    private static PrintWriter writer;
+
+    private static String writerPath;
+
+    /** One request out of sampling is traced, none if 0. Updated when the property changes. */
+    private static volatile int sampling;
+
+    static {
+        CentralPAPropertyRepository.PA_TAG_TRACE_SAMPLING.addListener(new PAPropertyListener() {
+            public void valueChanged(PAProperty property) {
+                updateSampling();
+            }
+        });
+        updateSampling();
+    }
+
+    private RequestTracer() {
+    }
+
+    private static void updateSampling() {
+        sampling = Math.max(0, CentralPAPropertyRepository.PA_TAG_TRACE_SAMPLING.getValue());
+    }
+
+    /**
+     * @return the current time in microseconds since the epoch. The value is derived from
+     *         {@link System#nanoTime()} so that it is monotonic inside this VM.
+     */
+    public static long currentTimeMicros() {
+        return BASE_MICROS + (System.nanoTime() - BASE_NANOS) / 1000;
+    }
+
+    /**
+     * @return whether a new trace has to be started for the request with this sequence number
+     */
+    public static boolean isSampled(long sequenceNumber) {
+        int sampling = RequestTracer.sampling;
+        return sampling > 0 && (sequenceNumber % sampling) == 0;
+    }
+
+    /**
+     * Starts a new trace for a request if it is sampled.
+     *
+     * @return the tag to attach to the request, or null if the request is not sampled
+     */
+    public static TraceTag newRootTag(UniqueID bodyID, long sequenceNumber) {
+        if (!isSampled(sequenceNumber)) {
+            return null;
+        }
+        return new TraceTag(spanId(bodyID, sequenceNumber), null);
+    }
+
+    /**
+     * Identifies the request traced by these tags, if any. To be called by the caller once the
+     * tags of the request are known.
+     */
+    public static void requestCreated(MessageTags tags, UniqueID bodyID, long sequenceNumber,
+            String methodName) {
+        RequestTrace trace = getTrace(tags);
+        if (trace != null) {
+            trace.setRequest(spanId(bodyID, sequenceNumber), methodName);
+        }
+    }
+
+    /**
+     * Records an event for the request traced by these tags, if any.
+     */
+    public static void record(MessageTags tags, Event event) {
+        RequestTrace trace = getTrace(tags);
+        if (trace != null) {
+            trace.record(event);
+        }
+    }
+
+    /**
+     * Records the last event for the request traced by these tags, if any, and exports its
+     * trace.
+     */
+    public static void finish(MessageTags tags, Event event) {
+        RequestTrace trace = getTrace(tags);
+        if (trace != null) {
+            trace.record(event);
+            export(trace);
+        }
+    }
+
+    /**
+     * @return the trace carried by these tags, or null
+     */
+    public static RequestTrace getTrace(MessageTags tags) {
+        if (tags == null) {
+            return null;
+        }
+        Tag tag = tags.getTag(TraceTag.IDENTIFIER);
+        if (tag instanceof TraceTag) {
+            return ((TraceTag) tag).getTrace();
+        }
+        return null;
+    }
+
+    /**
+     * @return the most recently exported traces, oldest first
+     */
+    public static List<RequestTrace> getRecentTraces() {
+        int size = recent.length();
+        long last = exported.get();
+        long first = Math.max(0, last - size);
+        List<RequestTrace> traces = new ArrayList<RequestTrace>((int) (last - first));
+        for (long i = first; i < last; i++) {
+            RequestTrace trace = recent.get((int) (i % size));
+            if (trace != null) {
+                traces.add(trace);
+            }
+        }
+        return traces;
+    }
+
+    /**
+     * Empties the in memory buffer of traces
+     */
+    public static void clearRecentTraces() {
+        for (int i = 0; i < recent.length(); i++) {
+            recent.set(i, null);
+        }
+    }
+
+    static void export(RequestTrace trace) {
+        long index = exported.getAndIncrement();
+        recent.set((int) (index % recent.length()), trace);
+
+        String path = CentralPAPropertyRepository.PA_TAG_TRACE_FILE.getValue();
+        if (path != null) {
+            write(path, trace);
+        }
+    }
+
+    private static synchronized void write(String path, RequestTrace trace) {
+        if (!path.equals(writerPath)) {
+            if (writer != null) {
+                writer.close();
+                writer = null;
+            }
+            writerPath = path;
+            try {
+                File file = new File(path);
+                boolean newFile = !file.exists() || file.length() == 0;
+                writer = new PrintWriter(new BufferedWriter(new FileWriter(file, true)));
+                if (newFile) {
+                    writer.println(RequestTrace.getExportHeader());
+                }
+            } catch (IOException e) {
+                logger.warn("Cannot write the request traces to " + path, e);
+            }
+        }
+        if (writer != null) {
+            writer.println(trace.toExportString());
+            writer.flush();
+        }
+    }
+
+    private static String spanId(UniqueID bodyID, long sequenceNumber) {
+        return bodyID.getCanonString() + "::" + sequenceNumber;
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.objectweb.proactive.core.body.tags.tag;
+
+import org.objectweb.proactive.core.body.tags.RequestTrace;
+import org.objectweb.proactive.core.body.tags.Tag;
+
+
+/**
+ * TraceTag carries the {@link RequestTrace} of a sampled request. It is
+ * propagated to the requests sent while serving the traced request, each of
+ * them getting its own trace with the same trace id.
+ *
+ * @see org.objectweb.proactive.core.body.tags.RequestTracer
+ */
+public class TraceTag extends Tag {
+
+    public static final String IDENTIFIER = "PA_TAG_TRACE";
+
+    /**
+     * Constructor setting the Tag name "PA_TAG_TRACE" and a new
+     * {@link RequestTrace} as the tag DATA. The {@link RequestTrace.Event#REIFY}
+     * event is recorded.
+     *
+     * @param traceId - the trace id, the span of the root request
+     * @param parentSpanId - the span of the request being served, null for a root request
+     */
+    public TraceTag(String traceId, String parentSpanId) {
+        super(IDENTIFIER, new RequestTrace(traceId, parentSpanId));
+        getTrace().record(RequestTrace.Event.REIFY);
+    }
+
+    /**
+     * @return the trace of the request carrying this tag
+     */
+    public RequestTrace getTrace() {
+        return (RequestTrace) this.data;
+    }
+
+    /**
+     * Return a new tag in the same trace, child of the request carrying this tag.
+     */
+    public Tag apply() {
+        RequestTrace trace = getTrace();
+        return new TraceTag(trace.getTraceId(), trace.getSpanId());
+    }
+}
@@ -34,6 +34,7 @@ import org.apache.log4j.Logger;
 import org.objectweb.proactive.core.ProActiveException;
 import org.objectweb.proactive.core.runtime.ProActiveRuntime;
 import org.objectweb.proactive.core.runtime.RuntimeFactory;
+import org.objectweb.proactive.core.util.ClassDataPrefetcher;
 import org.objectweb.proactive.core.util.log.Loggers;
 import org.objectweb.proactive.core.util.log.ProActiveLogger;
 
@@ -86,7 +87,8 @@ public class AbstractHandler extends URLStreamHandler {
         if (classname != null) {
             try {
                 ProActiveRuntime rt = RuntimeFactory.getRuntime(runtimeUrl);
-                byte[] b = rt.getClassData(classname);
+                byte[] b = ClassDataPrefetcher.getPrefetcher(runtimeUrl, rt)
+                                              .getClassData(classname, Thread.currentThread().getContextClassLoader());
 
                 if (b != null) {
                     if (logger.isDebugEnabled()) {
@@ -25,6 +25,7 @@
  */
 package org.objectweb.proactive.core.config;
 
+import java.io.File;
 import java.net.Socket;
 
 import org.objectweb.proactive.core.config.PAProperties.PAPropertiesLoaderSPI;
@@ -358,6 +359,32 @@ public class CentralPAPropertyRepository implements PAPropertiesLoaderSPI {
     static public PAPropertyBoolean PA_CLASSLOADING_USEHTTP = new PAPropertyBoolean("proactive.classloading.useHTTP",
                                                                                     false,
                                                                                     true);
+
+    /**
+     * If true, a class downloaded from a remote runtime comes with the classes it references,
+     * in a single compressed bundle
+     */
+    static public PAPropertyBoolean PA_CLASSLOADING_PREFETCH = new PAPropertyBoolean("proactive.classloading.prefetch",
+                                                                                     false,
+                                                                                     true);
+
+    /**
+     * The maximum number of classes prefetched with a downloaded class
+     */
+    static public PAPropertyInteger PA_CLASSLOADING_PREFETCH_MAX = new PAPropertyInteger("proactive.classloading.prefetch.max",
+                                                                                         false,
+                                                                                         256);
+
+    /**
+     * Directory where the downloaded classes are stored by digest, shared by the runtimes of the
+     * host. Prefetched classes found there are not downloaded again. An empty value disables it.
+     */
+    static public PAPropertyString PA_CLASSLOADING_CACHE_DIR = new PAPropertyString("proactive.classloading.cachedir",
+                                                                                    false,
+                                                                                    System.getProperty("java.io.tmpdir") +
+                                                                                           File.separator +
+                                                                                           "proactive-classdata-" +
+                                                                                           System.getProperty("user.name"));
     /*
      * ------------------------------------
      * HTTP
@@ -498,6 +525,65 @@ public class CentralPAPropertyRepository implements PAPropertiesLoaderSPI {
                                                                           false,
                                                                           600000L);
 
+    /*
+     * ------------------------------------
+     * MONITORING
+     */
+
+    /**
+     * Enable or disable the per active object metrics (request counts, queue wait time,
+     * service time and reply size) exposed by the BodyWrapper MBeans
+     */
+    static public PAPropertyBoolean PA_BODY_METRICS = new PAPropertyBoolean("proactive.body.metrics", false, true);
+
+    /**
+     * Measure the serialized size of one reply out of N. The size is computed by serializing
+     * the result once more, 0 disables the measure.
+     */
+    static public PAPropertyInteger PA_BODY_METRICS_REPLY_SIZE_SAMPLING = new PAPropertyInteger("proactive.body.metrics.replysize.sampling",
+                                                                                                false,
+                                                                                                0);
+
+    /**
+     * Send the per request JMX notifications (request received, serving started, reply sent...).
+     * They are costly and disabled by default, the body metrics should be used instead.
+     */
+    static public PAPropertyBoolean PA_JMX_REQUEST_NOTIFICATIONS = new PAPropertyBoolean("proactive.jmx.request.notifications",
+                                                                                         false,
+                                                                                         false);
+
+    /**
+     * When the per request JMX notifications are enabled, only send the notifications of
+     * one request out of N
+     */
+    static public PAPropertyInteger PA_JMX_REQUEST_NOTIFICATIONS_SAMPLING = new PAPropertyInteger("proactive.jmx.request.notifications.sampling",
+                                                                                                  false,
+                                                                                                  1);
+
+    /**
+     * Maximum number of JMX notifications buffered for a remote listener before they are sent
+     * in a single call. 1 sends each notification as soon as it is emitted.
+     */
+    static public PAPropertyInteger PA_JMX_NOTIFICATIONS_BATCH_SIZE = new PAPropertyInteger("proactive.jmx.notifications.batch.size",
+                                                                                            false,
+                                                                                            256);
+
+    /**
+     * Maximum time, in milliseconds, a JMX notification is buffered before being sent to a
+     * remote listener
+     */
+    static public PAPropertyInteger PA_JMX_NOTIFICATIONS_BATCH_DELAY = new PAPropertyInteger("proactive.jmx.notifications.batch.delay",
+                                                                                             false,
+                                                                                             100);
+
+    /**
+     * When the JMX notifications are produced faster than the batch delay, only send the latest
+     * of the notifications describing a state, like waitByNecessity, for each MBean
+     */
+    static public PAPropertyBoolean PA_JMX_NOTIFICATIONS_COALESCE = new PAPropertyBoolean("proactive.jmx.notifications.coalesce",
+                                                                                          false,
+                                                                                          true);
+
     /*
      * ------------------------------------
      * MESSAGE TAGGING
@@ -521,6 +607,27 @@ public class CentralPAPropertyRepository implements PAPropertiesLoaderSPI {
      */
     static public PAPropertyBoolean PA_TAG_DSF = new PAPropertyBoolean("proactive.tag.dsf", false, false);
 
+    /**
+     * Trace the latency of one request out of N, from its reification to the reception of its
+     * reply. The traces are kept in memory and optionally written to
+     * {@link #PA_TAG_TRACE_FILE}. 0 disables the tracing.
+     */
+    static public PAPropertyInteger PA_TAG_TRACE_SAMPLING = new PAPropertyInteger("proactive.tag.trace.sampling",
+                                                                                  false,
+                                                                                  0);
+
+    /**
+     * The file the request traces are appended to, one line per request
+     */
+    static public PAPropertyString PA_TAG_TRACE_FILE = new PAPropertyString("proactive.tag.trace.file", false);
+
+    /**
+     * Number of the most recent request traces kept in memory
+     */
+    static public PAPropertyInteger PA_TAG_TRACE_BUFFER_SIZE = new PAPropertyInteger("proactive.tag.trace.buffer_size",
+                                                                                     false,
+                                                                                     1024);
+
     /*
      * ------------------------------------
      * FILE TRANSFER
@@ -556,6 +663,34 @@ public class CentralPAPropertyRepository implements PAPropertiesLoaderSPI {
                                                                                             false,
                                                                                             256);
 
+    /**
+     * The maximum number of receiving FileTransferService objects a transfer is spread over. Large
+     * files are split into ranges written in parallel, small files of a directory are sent
+     * concurrently. Services are only taken when available in the pool of the destination node.
+     */
+    static public PAPropertyInteger PA_FILETRANSFER_STREAMS = new PAPropertyInteger("proactive.filetransfer.streams_number",
+                                                                                    false,
+                                                                                    4);
+
+    /**
+     * When sending a file that already exists on the destination, only send the blocks whose
+     * checksum differs from the one of the existing content, e.g. to resume an interrupted transfer.
+     */
+    static public PAPropertyBoolean PA_FILETRANSFER_RESUME = new PAPropertyBoolean("proactive.filetransfer.resume",
+                                                                                   false,
+                                                                                   false);
+
+    /**
+     * Comma separated list of the codecs, by order of preference, that may compress the file
+     * blocks sent. The first one also supported by the receiver is used, blocks that it does not
+     * shrink are sent raw. Empty disables the compression.
+     *
+     * @see org.objectweb.proactive.core.util.compression.BlockCodecs
+     */
+    static public PAPropertyString PA_FILETRANSFER_COMPRESSION = new PAPropertyString("proactive.filetransfer.compression",
+                                                                                      false,
+                                                                                      "");
+
     // -------------- DATA SPACES
 
     /**
@@ -573,6 +708,72 @@ public class CentralPAPropertyRepository implements PAPropertiesLoaderSPI {
     static public PAPropertyString PA_DATASPACES_SCRATCH_PATH = new PAPropertyString("proactive.dataspaces.scratch_path",
                                                                                      false);
 
+    /**
+     * The maximum size, in [MB], of the content-addressed store of a node scratch space. Files
+     * copied into a scratch space from a file system server providing content hashes (ProActive
+     * provider) are kept in that store, so that a further copy of the same content is made locally.
+     * 0 disables the store.
+     */
+    static public PAPropertyInteger PA_DATASPACES_CONTENT_STORE_SIZE_MB = new PAPropertyInteger("proactive.dataspaces.content_store_size_mb",
+                                                                                                false,
+                                                                                                0);
+
+    /**
+     * The maximum size, in [MB], of the files an application may keep in the scratch space of a
+     * node. Usage is accounted per application as files are written, copied, moved or deleted
+     * through data spaces, and writes going beyond the quota are rejected. 0 disables quotas.
+     */
+    static public PAPropertyInteger PA_DATASPACES_SCRATCH_QUOTA_MB = new PAPropertyInteger("proactive.dataspaces.scratch_quota_mb",
+                                                                                           false,
+                                                                                           0);
+
+    /**
+     * The maximum size, in [MB], of the memory used by a node to keep the content of small files of
+     * its scratch space, so that reading them again does not go to the disk. Files are still
+     * written to the disk. 0 disables the memory tier.
+     */
+    static public PAPropertyInteger PA_DATASPACES_SCRATCH_MEMORY_SIZE_MB = new PAPropertyInteger("proactive.dataspaces.scratch_memory_size_mb",
+                                                                                                 false,
+                                                                                                 0);
+
+    /**
+     * The maximum size, in [KB], of a scratch space file kept in memory, see
+     * {@link #PA_DATASPACES_SCRATCH_MEMORY_SIZE_MB}.
+     */
+    static public PAPropertyInteger PA_DATASPACES_SCRATCH_MEMORY_FILE_SIZE_KB = new PAPropertyInteger("proactive.dataspaces.scratch_memory_file_size_kb",
+                                                                                                      false,
+                                                                                                      64);
+
+    /**
+     * The period, in [ms], during which a node reuses the result of a query for several data spaces
+     * (e.g. all the inputs of an application) made to the naming service. Spaces registered or
+     * unregistered by the node itself are seen immediately, spaces registered by other nodes may
+     * be seen with this delay. 0 disables the cache.
+     */
+    static public PAPropertyInteger PA_DATASPACES_LOOKUP_CACHE_TTL_MILLIS = new PAPropertyInteger("proactive.dataspaces.lookup_cache_ttl_millis",
+                                                                                                  false,
+                                                                                                  0);
+
+    /**
+     * If true, a node configured for an application subscribes to the changes of the application
+     * input and output spaces in the naming service, and answers queries for these spaces locally
+     * instead of querying the naming service. The node then exports a remote object notified by the
+     * naming service.
+     */
+    static public PAPropertyBoolean PA_DATASPACES_NAMING_SUBSCRIPTION = new PAPropertyBoolean("proactive.dataspaces.naming_subscription",
+                                                                                              false,
+                                                                                              false);
+
+    /**
+     * The period, in [ms], at which a node subscribed to the changes of spaces in the naming service
+     * (see {@link #PA_DATASPACES_NAMING_SUBSCRIPTION}) checks that its subscription is still active.
+     * The naming service drops a subscription when a notification cannot be delivered; the node then
+     * queries the naming service again. 0 checks the subscription on each query.
+     */
+    static public PAPropertyInteger PA_DATASPACES_NAMING_SUBSCRIPTION_CHECK_MILLIS = new PAPropertyInteger("proactive.dataspaces.naming_subscription_check_millis",
+                                                                                                           false,
+                                                                                                           10000);
+
     // -------------- VFS PROVIDER
 
     /**
@@ -589,6 +790,54 @@ public class CentralPAPropertyRepository implements PAPropertiesLoaderSPI {
     static public PAPropertyInteger PA_VFSPROVIDER_SERVER_STREAM_OPEN_MAXIMUM_PERIOD_MILLIS = new PAPropertyInteger("proactive.vfsprovider.server.stream_open_maximum_period_millis",
                                                                                                                     false);
 
+    /**
+     * Reads of at least this size, in [KB], from a sequential stream of the file system server are
+     * served from a memory mapped region of the file. Mapped regions are only released by the
+     * garbage collector, which may delay the deletion of the files on some platforms. 0 disables
+     * the mapping.
+     */
+    static public PAPropertyInteger PA_VFSPROVIDER_SERVER_MAPPED_READ_KB = new PAPropertyInteger("proactive.vfsprovider.server.mapped_read_kb",
+                                                                                                 false,
+                                                                                                 0);
+
+    /**
+     * The maximum amount of data, in [KB], read in advance by a sequential input stream of the
+     * ProActive VFS provider. 0 disables the read-ahead.
+     */
+    static public PAPropertyInteger PA_VFSPROVIDER_CLIENT_READ_AHEAD_KB = new PAPropertyInteger("proactive.vfsprovider.client.read_ahead_kb",
+                                                                                                false,
+                                                                                                4096);
+
+    /**
+     * The maximum amount of data, in [KB], written by a sequential output stream of the ProActive
+     * VFS provider and not yet sent to the file system server. 0 disables the write-behind.
+     */
+    static public PAPropertyInteger PA_VFSPROVIDER_CLIENT_WRITE_BEHIND_KB = new PAPropertyInteger("proactive.vfsprovider.client.write_behind_kb",
+                                                                                                  false,
+                                                                                                  4096);
+
+    /**
+     * The period, in [ms], during which the file information (type, size, last modification time,
+     * children) fetched from a file system server is reused by all the file objects of a ProActive
+     * VFS provider file system. Changes made through the same file system are seen immediately,
+     * changes made by other clients may be seen with this delay. 0 disables the cache.
+     */
+    static public PAPropertyInteger PA_VFSPROVIDER_CLIENT_METADATA_CACHE_TTL_MILLIS = new PAPropertyInteger("proactive.vfsprovider.client.metadata_cache_ttl_millis",
+                                                                                                            false,
+                                                                                                            0);
+
+    /**
+     * Comma separated list of the codecs, by order of preference, that may compress the data of
+     * the sequential streams of a ProActive VFS provider. The first one also supported by the file
+     * system server is used, blocks that it does not shrink are sent raw. Empty disables the
+     * compression.
+     *
+     * @see org.objectweb.proactive.core.util.compression.BlockCodecs
+     */
+    static public PAPropertyString PA_VFSPROVIDER_CLIENT_COMPRESSION = new PAPropertyString("proactive.vfsprovider.client.compression",
+                                                                                            false,
+                                                                                            "");
+
     // -------------- Misc
 
     /**
@@ -650,6 +899,37 @@ public class CentralPAPropertyRepository implements PAPropertiesLoaderSPI {
     static public PAPropertyString PA_MOP_GENERATEDCLASSES_DIR = new PAPropertyString("proactive.mop.generatedclassesdir",
                                                                                       false);
 
+    /**
+     * if true, the requests are served through invokers generated for the reified classes
+     * instead of reflection
+     */
+    static public PAPropertyBoolean PA_MOP_DIRECT_INVOCATION = new PAPropertyBoolean("proactive.mop.directinvocation",
+                                                                                     false,
+                                                                                     true);
+
+    /**
+     * if true, the MethodCall objects released by the thread that used them are kept in a pool of
+     * this thread, before the pool shared by all the threads
+     */
+    static public PAPropertyBoolean PA_MOP_THREAD_LOCAL_RECYCLING = new PAPropertyBoolean("proactive.mop.methodcall.threadlocalrecycling",
+                                                                                          false,
+                                                                                          true);
+
+    /**
+     * Jars of stubs and invokers generated at build time, separated by the path separator. Their
+     * classes are used instead of generating them when they were generated from the same classes.
+     */
+    static public PAPropertyList PA_MOP_GENERATED_CLASSES_BUNDLES = new PAPropertyList("proactive.mop.generatedclasses.bundles",
+                                                                                       File.pathSeparator,
+                                                                                       false);
+
+    /**
+     * Directory where the stubs and invokers generated at runtime are stored, to be reused by the
+     * next runtimes of the host. Not set by default.
+     */
+    static public PAPropertyString PA_MOP_GENERATED_CLASSES_CACHE_DIR = new PAPropertyString("proactive.mop.generatedclasses.cachedir",
+                                                                                             false);
+
     /**
      * activate or not the ping feature in ProActive -- each time a runtime
      * starts it pings a given web server.
@@ -45,8 +45,12 @@ public class PAPropertyBoolean extends PAPropertyImpl {
     }
 
     final public boolean getValue() {
-        String str = super.getValueAsString();
-        return Boolean.parseBoolean(str);
+        return (Boolean) super.getTypedValue();
+    }
+
+    @Override
+    final Object parse(String value) {
+        return Boolean.valueOf(value);
     }
 
     final public boolean getDefaultValue() {
@@ -25,15 +25,35 @@
  */
 package org.objectweb.proactive.core.config;
 
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.apache.log4j.Logger;
+import org.objectweb.proactive.core.util.log.Loggers;
+import org.objectweb.proactive.core.util.log.ProActiveLogger;
 import org.objectweb.proactive.utils.ArgCheck;
 
 
 /**
  * Abstract class to implement a typed {@link PAProperty}
  *
+ * The value read from the {@link ProActiveConfiguration} is kept, already parsed, in a volatile
+ * field until the configuration changes this property. Reading a property on a hot path is then
+ * a field load instead of a configuration lookup and a parse.
+ *
  * @since ProActive 4.3.0
  */
 abstract class PAPropertyImpl implements PAProperty {
+    private static final Logger logger = ProActiveLogger.getLogger(Loggers.CONFIGURATION);
+
+    /** Marks a cached value the subclass failed to parse: the parse is done again to raise the error */
+    private static final Object UNPARSED = new Object();
+
+    /** All the created properties by name, to invalidate them when the configuration changes */
+    private static final ConcurrentMap<String, List<PAPropertyImpl>> instances = new ConcurrentHashMap<String, List<PAPropertyImpl>>();
+
     /** Name of this property. */
     final String name;
 
@@ -46,11 +66,30 @@ abstract class PAPropertyImpl implements PAProperty {
     /** Default initialization value. */
     final String defaultValue;
 
+    /** The value read from the configuration, null when it must be read again. */
+    private volatile CachedValue cachedValue;
+
+    /** Incremented each time the value changes, to drop values read before the change. Guarded by this. */
+    private int version;
+
+    /** Listeners notified when the value of this property changes. */
+    private final List<PAPropertyListener> listeners = new CopyOnWriteArrayList<PAPropertyListener>();
+
     PAPropertyImpl(String name, PropertyType type, boolean isSystemProp, String defaultValue) {
         this.name = ArgCheck.requireNonNull(name);
         this.type = type;
         this.defaultValue = defaultValue;
         this.isSystemProperty = isSystemProp;
+
+        List<PAPropertyImpl> sameName = instances.get(this.name);
+        if (sameName == null) {
+            List<PAPropertyImpl> created = new CopyOnWriteArrayList<PAPropertyImpl>();
+            sameName = instances.putIfAbsent(this.name, created);
+            if (sameName == null) {
+                sameName = created;
+            }
+        }
+        sameName.add(this);
     }
 
     /**
@@ -95,7 +134,129 @@ abstract class PAPropertyImpl implements PAProperty {
 
     @Override
     final public String getValueAsString() {
-        return ProActiveConfiguration.getInstance().getProperty(this.name);
+        return this.getCachedValue().string;
+    }
+
+    /**
+     * Returns the value of this property as parsed by {@link #parse(String)}.
+     *
+     * If the current value cannot be parsed, the exception thrown by {@link #parse(String)} is
+     * propagated on every call, as if the value was never cached.
+     */
+    final Object getTypedValue() {
+        CachedValue cached = this.getCachedValue();
+        if (cached.value == UNPARSED) {
+            return this.parse(cached.string);
+        }
+        return cached.value;
+    }
+
+    /**
+     * Converts the string value of this property into its typed value.
+     *
+     * The result is shared by all the readers until the value changes.
+     *
+     * @param value the value as read from the configuration, can be null
+     * @return the typed value
+     */
+    Object parse(String value) {
+        return value;
+    }
+
+    private CachedValue getCachedValue() {
+        CachedValue cached = this.cachedValue;
+        if (cached != null) {
+            return cached;
+        }
+
+        int readVersion;
+        synchronized (this) {
+            readVersion = this.version;
+        }
+
+        String str = ProActiveConfiguration.getInstance().getProperty(this.name);
+        Object value;
+        try {
+            value = this.parse(str);
+        } catch (RuntimeException e) {
+            value = UNPARSED;
+        }
+        cached = new CachedValue(str, value);
+
+        synchronized (this) {
+            // A value changed while we were reading it must not be cached
+            if (this.version == readVersion) {
+                this.cachedValue = cached;
+            }
+        }
+        return cached;
+    }
+
+    private synchronized void invalidate() {
+        this.version++;
+        this.cachedValue = null;
+    }
+
+    /**
+     * Registers a listener notified each time the value of this property is changed through
+     * {@link ProActiveConfiguration}.
+     *
+     * Most properties are only read at startup and never need one. Components holding a value
+     * derived from a property that can be updated at runtime should register a listener rather
+     * than reading the property again on each use.
+     *
+     * @param listener the listener to add
+     */
+    final public void addListener(PAPropertyListener listener) {
+        this.listeners.add(ArgCheck.requireNonNull(listener));
+    }
+
+    /**
+     * Unregisters a listener previously registered with {@link #addListener(PAPropertyListener)}
+     *
+     * @param listener the listener to remove
+     */
+    final public void removeListener(PAPropertyListener listener) {
+        this.listeners.remove(listener);
+    }
+
+    private void fireValueChanged() {
+        for (PAPropertyListener listener : this.listeners) {
+            try {
+                listener.valueChanged(this);
+            } catch (RuntimeException e) {
+                logger.warn("Listener " + listener + " of property " + this.name + " failed", e);
+            }
+        }
+    }
+
+    /**
+     * Drops the cached value of all the properties named name.
+     *
+     * Called by the configuration each time the property is put or removed.
+     */
+    static void invalidate(String name) {
+        List<PAPropertyImpl> props = instances.get(name);
+        if (props != null) {
+            for (PAPropertyImpl prop : props) {
+                prop.invalidate();
+            }
+        }
+    }
+
+    /**
+     * Notifies the listeners of all the properties named name that their value changed.
+     *
+     * Called by the configuration, out of any lock, after the value has been updated.
+     */
+    static void valueChanged(String name) {
+        List<PAPropertyImpl> props = instances.get(name);
+        if (props != null) {
+            for (PAPropertyImpl prop : props) {
+                prop.invalidate();
+                prop.fireValueChanged();
+            }
+        }
     }
 
     @Override
@@ -117,4 +278,16 @@ abstract class PAPropertyImpl implements PAProperty {
     public String toString() {
         return this.name + "=" + this.getValueAsString();
     }
+
+    /** An immutable pair of the string value of a property and its parsed value. */
+    private static final class CachedValue {
+        final String string;
+
+        final Object value;
+
+        CachedValue(String string, Object value) {
+            this.string = string;
+            this.value = value;
+        }
+    }
 }
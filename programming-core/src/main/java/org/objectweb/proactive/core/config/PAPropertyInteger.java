@@ -41,8 +41,12 @@ public class PAPropertyInteger extends PAPropertyImpl {
     }
 
     final public int getValue() {
-        String str = super.getValueAsString();
-        return parseValue(str);
+        return (Integer) super.getTypedValue();
+    }
+
+    @Override
+    final Object parse(String value) {
+        return parseValue(value);
     }
 
     final public int getDefaultValue() {
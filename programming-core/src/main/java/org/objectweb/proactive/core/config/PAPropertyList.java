@@ -39,8 +39,6 @@ public class PAPropertyList extends PAPropertyImpl {
 
     private String separator;
 
-    private List<String> computedValue;
-
     private PropertyListValidator validator;
 
     public PAPropertyList(String name, String separator, boolean isSystemProp) {
@@ -66,11 +64,14 @@ public class PAPropertyList extends PAPropertyImpl {
         this.validator = validator;
     }
 
+    @SuppressWarnings("unchecked")
     final public List<String> getValue() {
-        if (computedValue == null) {
-            computedValue = computeStringToList(super.getValueAsString());
-        }
-        return computedValue;
+        return (List<String>) super.getTypedValue();
+    }
+
+    @Override
+    final Object parse(String value) {
+        return computeStringToList(value);
     }
 
     final public List<String> getDefaultValue() {
@@ -95,10 +96,10 @@ public class PAPropertyList extends PAPropertyImpl {
         }
     }
 
-    private void computeListToString() {
+    private void computeListToString(List<String> value) {
         StringBuilder sb = new StringBuilder();
-        if (computedValue != null) {
-            for (String val : computedValue) {
+        if (value != null) {
+            for (String val : value) {
                 sb.append(val);
                 sb.append(separator);
             }
@@ -113,16 +114,15 @@ public class PAPropertyList extends PAPropertyImpl {
 
     final public void setValue(String value) {
         super.internalSetValue(value);
-        computedValue = computeStringToList(value);
+        // Parsed only to run the validator, the parsed value is cached on the next read
+        computeStringToList(value);
     }
 
     final public void setValue(List<String> value) {
         if (validator != null) {
             validator.accept(new ArrayList<>(value));
         }
-        computedValue = value;
-
-        computeListToString();
+        computeListToString(value);
     }
 
     @Override
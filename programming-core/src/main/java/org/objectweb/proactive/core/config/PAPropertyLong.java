@@ -41,8 +41,12 @@ public class PAPropertyLong extends PAPropertyImpl {
     }
 
     final public long getValue() {
-        String str = super.getValueAsString();
-        return parseValue(str);
+        return (Long) super.getTypedValue();
+    }
+
+    @Override
+    final Object parse(String value) {
+        return parseValue(value);
     }
 
     final public long getDefaultValue() {
@@ -181,7 +181,9 @@ public class ProActiveConfiguration {
             if (logger.isDebugEnabled()) {
                 logger.debug("key:" + key + " --> value:" + value + (this.get(key) == null ? "" : " (OVERRIDE)"));
             }
-            return this.put(keyO, valueO);
+            Object previous = this.put(keyO, valueO);
+            PAPropertyImpl.invalidate(key);
+            return previous;
         }
 
         @Override
@@ -241,6 +243,7 @@ public class ProActiveConfiguration {
      */
     public void setProperty(String key, String value, boolean exportAsSystem) {
         this.properties.put(key, value, exportAsSystem);
+        PAPropertyImpl.valueChanged(key);
     }
 
     private Properties getUserProperties() {
@@ -289,5 +292,6 @@ public class ProActiveConfiguration {
 
     public void unsetProperty(String name) {
         this.properties.remove(name);
+        PAPropertyImpl.valueChanged(name);
     }
 }
@@ -28,10 +28,17 @@ package org.objectweb.proactive.core.filetransfer;
 import java.io.BufferedInputStream;
 import java.io.BufferedOutputStream;
 import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.zip.CRC32;
 
 import org.apache.log4j.Logger;
 import org.objectweb.proactive.core.config.CentralPAPropertyRepository;
+import org.objectweb.proactive.core.util.compression.BlockCodec;
+import org.objectweb.proactive.core.util.compression.CompressedBlock;
 import org.objectweb.proactive.core.util.log.Loggers;
 import org.objectweb.proactive.core.util.log.ProActiveLogger;
 
@@ -50,14 +57,21 @@ public class FileBlock implements Serializable {
     public static final int DEFAULT_BLOCK_SIZE = CentralPAPropertyRepository.PA_FILETRANSFER_MAX_BLOCK_SIZE.getValue() *
                                                  1024; //Bytes
 
-    private byte[] buffer;
+    // only the used part is serialized
+    private transient byte[] buffer;
 
     private int usage;
 
+    // CRC32 of the used part, -1 when the block was not loaded from a channel
+    private long checksum = -1;
+
     private long offset;
 
     private int blockSize;
 
+    // codec compressing the used part when serialized, null for none
+    private transient BlockCodec codec;
+
     private Exception exception;
 
     /**
@@ -90,6 +104,7 @@ public class FileBlock implements Serializable {
             throw new IllegalArgumentException("Can not handle null BufferInputStream parameter.");
         }
 
+        ensureCapacity();
         try {
             usage = bis.read(buffer, 0, blockSize);
             offset += usage;
@@ -112,6 +127,77 @@ public class FileBlock implements Serializable {
         bos.write(buffer, 0, usage);
     }
 
+    /**
+     * Loads the FileBlock object with the block of a file starting at the given position, and
+     * computes its checksum. The block is shorter than the block size only at the end of the file.
+     * The channel may be shared by several threads.
+     */
+    public void loadBlock(FileChannel channel, long position) throws IOException {
+        ensureCapacity();
+        offset = position;
+        usage = 0;
+        final ByteBuffer bb = ByteBuffer.wrap(buffer, 0, blockSize);
+        while (bb.hasRemaining()) {
+            final int read = channel.read(bb, position + bb.position());
+            if (read < 0) {
+                break;
+            }
+        }
+        usage = bb.position();
+        checksum = checksum(buffer, usage);
+    }
+
+    /**
+     * Writes the current block at its position in a file, after checking that it was not corrupted
+     * since it was loaded.
+     * @param channel The channel of the file, may be shared by several threads.
+     * @throws IOException If the block is corrupted or an error is encountered.
+     */
+    public void saveBlock(FileChannel channel) throws IOException {
+        if (checksum != -1 && checksum != checksum(buffer, usage)) {
+            throw new IOException("Corrupted file block at offset " + offset);
+        }
+
+        final ByteBuffer bb = ByteBuffer.wrap(buffer, 0, usage);
+        while (bb.hasRemaining()) {
+            channel.write(bb, offset + bb.position());
+        }
+    }
+
+    static long checksum(byte[] b, int len) {
+        final CRC32 crc = new CRC32();
+        crc.update(b, 0, len);
+        return crc.getValue();
+    }
+
+    private void ensureCapacity() {
+        if (buffer == null || buffer.length < blockSize) {
+            buffer = new byte[blockSize];
+        }
+    }
+
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        out.defaultWriteObject();
+        // sent raw when the codec does not shrink the block
+        final CompressedBlock compressed = codec != null && usage > 0 ? CompressedBlock.compress(codec, buffer, 0, usage)
+                                                                      : null;
+        out.writeObject(compressed);
+        if (compressed == null && usage > 0) {
+            out.write(buffer, 0, usage);
+        }
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        final CompressedBlock compressed = (CompressedBlock) in.readObject();
+        if (compressed != null) {
+            buffer = compressed.decompress();
+        } else {
+            buffer = new byte[Math.max(usage, 0)];
+            in.readFully(buffer);
+        }
+    }
+
     /**
      * @return Returns the offset.
      */
@@ -126,6 +212,28 @@ public class FileBlock implements Serializable {
         return blockSize;
     }
 
+    /**
+     * @return Returns the number of bytes of the block actually used.
+     */
+    public int getUsage() {
+        return usage;
+    }
+
+    /**
+     * @return Returns the CRC32 checksum of the used bytes, or -1 if it was not computed.
+     */
+    public long getChecksum() {
+        return checksum;
+    }
+
+    /**
+     * Sets the codec compressing the block when it is sent, the receiver must support it.
+     * @param codec The codec, or null to send the block raw.
+     */
+    public void setCodec(BlockCodec codec) {
+        this.codec = codec;
+    }
+
     public Exception getException() {
         return exception;
     }
@@ -25,6 +25,7 @@
  */
 package org.objectweb.proactive.core.filetransfer;
 
+import java.util.ArrayList;
 import java.util.Vector;
 
 import org.apache.log4j.Logger;
@@ -86,10 +87,10 @@ public class FileTransferEngine implements ProActiveInternalObject, InitActive,
 
         try {
             while (true) {
-                String allowedMethodNames = "putFTS";
+                String allowedMethodNames = "putFTS|getAvailableFTS";
 
                 if ((ftsPool.size() > 0) || (maxFTS > 0)) {
-                    allowedMethodNames += "getFTS|getFTS";
+                    allowedMethodNames += "|getFTS";
                 }
 
                 service.blockingServeOldest(new RequestFilterOnAllowedMethods(allowedMethodNames));
@@ -110,6 +111,20 @@ public class FileTransferEngine implements ProActiveInternalObject, InitActive,
         return localFTS;
     }
 
+    /**
+     * Returns up to <code>max</code> services, without waiting for services to be put back in the
+     * pool. Used to spread a transfer over several services when some are available.
+     */
+    public ArrayList<FileTransferService> getAvailableFTS(int max)
+            throws ActiveObjectCreationException, NodeException {
+        ArrayList<FileTransferService> available = new ArrayList<FileTransferService>(max);
+        while ((available.size() < max) && (!ftsPool.isEmpty() || (maxFTS > 0))) {
+            available.add(getFTS());
+        }
+
+        return available;
+    }
+
     public void putFTS(FileTransferService fts) {
         ftsPool.add(fts);
     }
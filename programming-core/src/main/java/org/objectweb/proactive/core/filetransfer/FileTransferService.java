@@ -25,22 +25,25 @@
  */
 package org.objectweb.proactive.core.filetransfer;
 
-import java.io.BufferedInputStream;
 import java.io.BufferedOutputStream;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 
 import org.apache.log4j.Logger;
 import org.objectweb.proactive.Body;
 import org.objectweb.proactive.InitActive;
 import org.objectweb.proactive.ProActiveInternalObject;
 import org.objectweb.proactive.api.PAActiveObject;
-import org.objectweb.proactive.api.PAFuture;
 import org.objectweb.proactive.core.config.CentralPAPropertyRepository;
+import org.objectweb.proactive.core.util.compression.BlockCodecs;
 import org.objectweb.proactive.core.util.log.Loggers;
 import org.objectweb.proactive.core.util.log.ProActiveLogger;
 import org.objectweb.proactive.core.util.wrapper.BooleanWrapper;
@@ -63,8 +66,12 @@ public class FileTransferService
     public static final int DEFAULT_BUFFER_SIZE = CentralPAPropertyRepository.PA_FILETRANSFER_MAX_BUFFER_SIZE.getValue() *
                                                   1024; //Bytes
 
+    public static final int DEFAULT_STREAMS = CentralPAPropertyRepository.PA_FILETRANSFER_STREAMS.getValue();
+
     protected HashMap<File, BufferedOutputStream> writeBufferMap; //Map for storing the opened output sockets
 
+    protected HashMap<File, FileChannel> writeChannelMap; //Map for storing the files opened for positional writes
+
     /**
      * This is an empty constructor for ProActive's MOP. Don't use directly.
      */
@@ -75,6 +82,7 @@ public class FileTransferService
     //TODO Java 1.6: @Override
     public void initActivity(Body body) {
         writeBufferMap = new HashMap<File, BufferedOutputStream>();
+        writeChannelMap = new HashMap<File, FileChannel>();
 
         //PAActiveObject.setImmediateService("requestFileTransfer", new Class[] { FileTransferRequest.class });
     }
@@ -117,6 +125,89 @@ public class FileTransferService
         }
     }
 
+    public long[] openPositionalWrite(File dstFile, long length, int bsize, boolean resume) throws IOException {
+        OperationStatus status = mkdirs(dstFile.getAbsoluteFile().getParentFile());
+        if (status.hasException()) {
+            throw status.getException();
+        }
+
+        RandomAccessFile raf = new RandomAccessFile(dstFile, "rw");
+        try {
+            long existingLength = resume ? raf.length() : 0;
+            raf.setLength(existingLength);
+            raf.setLength(length);
+            if (existingLength == 0) {
+                return new long[0];
+            }
+
+            long[] checksums = new long[(int) ((Math.min(existingLength, length) + bsize - 1) / bsize)];
+            Arrays.fill(checksums, -1);
+            FileBlock fileBlock = new FileBlock(0, bsize);
+            for (int i = 0; i < checksums.length; i++) {
+                long end = Math.min((long) (i + 1) * bsize, length);
+                if (end <= existingLength) {
+                    fileBlock.loadBlock(raf.getChannel(), (long) i * bsize);
+                    checksums[i] = fileBlock.getChecksum();
+                }
+            }
+            return checksums;
+        } finally {
+            raf.close();
+        }
+    }
+
+    public OperationStatus writeFileBlock(File dstFile, FileBlock block) {
+        try {
+            block.saveBlock(getWritingChannel(dstFile));
+        } catch (IOException e) {
+            return new OperationStatus(e);
+        }
+
+        return new OperationStatus();
+    }
+
+    public synchronized BooleanWrapper closePositionalWrite(File dstFile) {
+        FileChannel channel = writeChannelMap.remove(dstFile);
+        try {
+            if (channel != null) {
+                channel.close();
+            }
+        } catch (IOException e) {
+            return new BooleanWrapper(false);
+        }
+
+        return new BooleanWrapper(true);
+    }
+
+    public OperationStatus saveFile(File dstFile, FileBlock block) {
+        OperationStatus status = mkdirs(dstFile.getAbsoluteFile().getParentFile());
+        if (status.hasException()) {
+            return status;
+        }
+
+        try {
+            FileOutputStream fos = new FileOutputStream(dstFile);
+            try {
+                block.saveBlock(fos.getChannel());
+            } finally {
+                fos.close();
+            }
+        } catch (IOException e) {
+            return new OperationStatus(e);
+        }
+
+        return new OperationStatus();
+    }
+
+    protected synchronized FileChannel getWritingChannel(File f) throws IOException {
+        FileChannel channel = writeChannelMap.get(f);
+        if (channel == null) {
+            channel = new RandomAccessFile(f, "rw").getChannel();
+            writeChannelMap.put(f, channel);
+        }
+        return channel;
+    }
+
     protected BufferedOutputStream getWritingBuffer(File f) throws IOException {
         return getWritingBuffer(f, false);
     }
@@ -193,130 +284,37 @@ public class FileTransferService
         return path.isFile();
     }
 
+    public List<String> getBlockCodecs() {
+        return BlockCodecs.getCodecNames();
+    }
+
     /* ***************** BEGIN FILETRANSFER SERVICE SEND ***************************/
     /**
      * This method is the entry point for sending files. It can handle both directories or files.
      */
     public OperationStatus send(File srcFile, FileTransferServiceReceive ftsRemote, File dstFile, int bsize,
             int numFlyingBlocks) {
-        try {
-            internalSend(srcFile, ftsRemote, dstFile, bsize, numFlyingBlocks);
-        } catch (IOException ex) {
-            return new OperationStatus(ex);
-        }
-
-        return new OperationStatus();
-    }
-
-    protected void internalSend(File srcFile, FileTransferServiceReceive ftsRemote, File dstFile, int bsize,
-            int numFlyingBlocks) throws IOException {
-        if (srcFile.isFile()) {
-            internalSendFile(srcFile, ftsRemote, dstFile, bsize, numFlyingBlocks);
-        } else if (srcFile.isDirectory()) {
-            ftsRemote.mkdirs(dstFile);
-            File[] files = srcFile.listFiles();
-            for (File f : files) {
-                internalSend(f, ftsRemote, new File(dstFile, f.getName()), bsize, numFlyingBlocks);
-            }
-        } else {
-            throw new IOException("Cannot transfer, not directory nor regular file: " + srcFile.getPath());
-        }
+        return send(srcFile, Collections.singletonList(ftsRemote), dstFile, bsize, numFlyingBlocks);
     }
 
     /**
-     * This method handles the sending of a file.
-     * @param ftsRemote The remote FileTransferService object that will receive the file.
-     * @param srcFile The local source of the file.
-     * @param dstFile The remote destination of the file.
-     * @param bsize The size of the blocks the file will be split into.
-     * @param numFlyingBlocks The number of simultaneous blocks that will be sent.
-     * @return The result status of the operation.
+     * This method is the entry point for sending files over several receiving services. It can
+     * handle both directories or files.
      */
-    protected boolean internalSendFile(File srcFile, FileTransferServiceReceive ftsRemote, File dstFile, int bsize,
-            int numFlyingBlocks) throws IOException {
-        long init = System.currentTimeMillis();
-        long numBlocks = 0;
-
-        //Open the local reading buffer
-        BufferedInputStream bis;
-        try {
-            bis = new BufferedInputStream(new FileInputStream(srcFile.getAbsolutePath()), DEFAULT_BUFFER_SIZE);
-        } catch (Exception e) {
-            //TODO change when moving to Java 1.6
-            //throw new IOException( "Cannot open for sending:" + srcFile.getAbsoluteFile(), e);
-            throw new IOException("Cannot open for sending:" + srcFile.getAbsoluteFile() + " " + e.getMessage());
-        }
-
-        long totalNumBlocks = Math.round(Math.ceil((double) srcFile.length() / bsize));
-        if (totalNumBlocks == 0) {
-            close(bis);
-            //TODO change when moving to Java 1.6
-            //throw new IOException( "Cannot send an empty File:" + srcFile.getAbsolutePath(),e);
-            throw new IOException("Cannot send an empty File:" + srcFile.getAbsolutePath());
-        }
-
-        try {
-            ftsRemote.openWrite(dstFile);
-        } catch (Exception e) {
-            close(bis);
-            //TODO change when moving to Java 1.6
-            //throw new IOException( "Unable to open remote file for writing: " + dstFile.getAbsolutePath(), e);
-            throw new IOException("Unable to open remote file for writing: " + dstFile.getAbsolutePath() +
-                                  e.getMessage());
-        }
-
-        FileBlock fileBlock = new FileBlock(0, bsize);
-        while (numBlocks < (totalNumBlocks - 1)) {
-            for (int i = 0; (i < numFlyingBlocks) && (numBlocks < (totalNumBlocks - 1)); i++) {
-                try {
-                    fileBlock.loadNextBlock(bis);
-
-                    if (i == (numFlyingBlocks - 1)) { //rendezvous the burst, so the remote AO will not be drowned
-                        ftsRemote.saveFileBlock(dstFile, fileBlock);
-                    } else { //simply burst
-                        ftsRemote.saveFileBlockWithoutThrowingException(dstFile, fileBlock); //remote (async) invocation
-                    }
-                    numBlocks++;
-                } catch (IOException e) {
-                    //TODO change when moving to Java 1.6
-                    //throw new IOException("Cannot send file block to:" + PAActiveObject.getActiveObjectNodeUrl(ftsRemote), e);
-                    throw new IOException("Cannot send file block to:" +
-                                          PAActiveObject.getActiveObjectNodeUrl(ftsRemote) + e);
-                }
-            }
-        }
-
-        //Handle a rendezvous with last block here
+    public OperationStatus send(File srcFile, List<FileTransferServiceReceive> ftsRemotes, File dstFile, int bsize,
+            int numFlyingBlocks) {
         try {
-            fileBlock.loadNextBlock(bis);
-            ftsRemote.saveFileBlock(dstFile, fileBlock);
-            numBlocks++;
-        } catch (IOException e) {
-            //TODO change when moving to Java 1.6
-            //throw new IOException("Cannot send File to:" + PAActiveObject.getActiveObjectNodeUrl(ftsRemote), e);
-            throw new IOException("Cannot send File to:" + PAActiveObject.getActiveObjectNodeUrl(ftsRemote) + e);
-        }
-
-        //Close the remote/local buffers
-        PAFuture.waitFor(ftsRemote.closeWrite(dstFile));
-        close(bis);
-
-        if (logger.isDebugEnabled()) {
-            long fin = System.currentTimeMillis();
-            long delta = (fin - init);
-            logger.debug("File " + dstFile.getAbsolutePath() + " sent using " + numBlocks + " blocks,  in: " + delta +
-                         "[ms]");
+            new ParallelFileSender(ftsRemotes,
+                                   bsize,
+                                   numFlyingBlocks,
+                                   CentralPAPropertyRepository.PA_FILETRANSFER_RESUME.isTrue(),
+                                   CentralPAPropertyRepository.PA_FILETRANSFER_COMPRESSION.getValue()).send(srcFile,
+                                                                                                           dstFile);
+        } catch (IOException ex) {
+            return new OperationStatus(ex);
         }
 
-        return true;
-    }
-
-    protected void close(BufferedInputStream bis) {
-        try {
-            bis.close();
-        } catch (IOException e) {
-            //We don't care about closing exceptions
-        }
+        return new OperationStatus();
     }
 
     /**
@@ -334,4 +332,15 @@ public class FileTransferService
         putBackInLocalPool();
         ftsDst.putBackInLocalPool();
     }
+
+    /**
+     * Put the FileTransferServiceReceive destination objects back on their local pool,
+     * and put my self (the source) on my local pool.
+     */
+    public void putBackInPool(List<FileTransferServiceReceive> ftsDsts) {
+        putBackInLocalPool();
+        for (FileTransferServiceReceive ftsDst : ftsDsts) {
+            ftsDst.putBackInLocalPool();
+        }
+    }
 }
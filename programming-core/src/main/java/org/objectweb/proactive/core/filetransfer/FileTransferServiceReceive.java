@@ -27,6 +27,7 @@ package org.objectweb.proactive.core.filetransfer;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.List;
 
 import org.objectweb.proactive.core.util.wrapper.BooleanWrapper;
 
@@ -40,6 +41,29 @@ public interface FileTransferServiceReceive {
 
     public void saveFileBlockWithoutThrowingException(File dstFile, FileBlock block);
 
+    /**
+     * Prepares a file to be written by blocks at their position, possibly by several services.
+     * @param dstFile The destination file.
+     * @param length The final length of the file.
+     * @param bsize The size of the blocks the file will be written with.
+     * @param resume Keep the existing content of the file.
+     * @return The checksums of the blocks of the existing content when resuming, -1 for blocks
+     * that are not complete. Empty otherwise.
+     */
+    public long[] openPositionalWrite(File dstFile, long length, int bsize, boolean resume) throws IOException;
+
+    /**
+     * Writes a block at its position in a file prepared by {@link #openPositionalWrite(File, long, int, boolean)}.
+     */
+    public OperationStatus writeFileBlock(File dstFile, FileBlock block);
+
+    public BooleanWrapper closePositionalWrite(File dstFile);
+
+    /**
+     * Creates or overwrites a file with the content of a single block.
+     */
+    public OperationStatus saveFile(File dstFile, FileBlock block);
+
     public void putBackInLocalPool();
 
     public OperationStatus mkdirs(File dstFile);
@@ -51,4 +75,9 @@ public interface FileTransferServiceReceive {
     public boolean isDirectory(File path);
 
     public boolean isFile(File path);
+
+    /**
+     * @return The names of the codecs the received file blocks may be compressed with.
+     */
+    public List<String> getBlockCodecs();
 }
@@ -26,6 +26,7 @@
 package org.objectweb.proactive.core.filetransfer;
 
 import java.io.File;
+import java.util.List;
 
 
 public interface FileTransferServiceSend {
@@ -42,5 +43,20 @@ public interface FileTransferServiceSend {
     public OperationStatus send(File srcFile, FileTransferServiceReceive ftsRemote, File dstFile, int bsize,
             int numFlyingBlocks);
 
+    /**
+     * This method handles the sending of a file or a directory tree over several receiving
+     * services, large files being split into ranges written in parallel.
+     * @param ftsRemotes The remote FileTransferService objects that will receive the file.
+     * @param srcFile The local source of the file.
+     * @param dstFile The remote destination of the file.
+     * @param bsize The size of the blocks the file will be split into.
+     * @param numFlyingBlocks The number of simultaneous blocks that will be sent by each stream.
+     * @return The result status of the operation.
+     */
+    public OperationStatus send(File srcFile, List<FileTransferServiceReceive> ftsRemotes, File dstFile, int bsize,
+            int numFlyingBlocks);
+
     public void putBackInPool(FileTransferServiceReceive ftsDst);
+
+    public void putBackInPool(List<FileTransferServiceReceive> ftsDsts);
 }
@@ -0,0 +1,347 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.objectweb.proactive.core.filetransfer;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.log4j.Logger;
+import org.objectweb.proactive.api.PAFuture;
+import org.objectweb.proactive.core.util.compression.BlockCodec;
+import org.objectweb.proactive.core.util.compression.BlockCodecs;
+import org.objectweb.proactive.core.util.log.Loggers;
+import org.objectweb.proactive.core.util.log.ProActiveLogger;
+import org.objectweb.proactive.utils.NamedThreadFactory;
+
+
+/**
+ * Sends files and directory trees over several receiving {@link FileTransferServiceReceive}.
+ *
+ * Files larger than one block are split into as many contiguous ranges as there are receivers,
+ * each range being read and written at its position by its own stream. Smaller files are spread
+ * over the receivers and sent in one request each. Every block carries a checksum verified by the
+ * receiver. When resuming, blocks whose checksum matches the existing destination content are
+ * not sent. Blocks may be compressed by the first preferred codec supported by the receivers.
+ *
+ * @author The ProActive Team
+ */
+class ParallelFileSender {
+    protected static Logger logger = ProActiveLogger.getLogger(Loggers.FILETRANSFER);
+
+    private static final ExecutorService streamExecutor = Executors.newCachedThreadPool(new NamedThreadFactory("ProActive file transfer stream",
+                                                                                                                  true));
+
+    private final List<FileTransferServiceReceive> receivers;
+
+    private final int bsize;
+
+    private final int numFlyingBlocks;
+
+    private final boolean resume;
+
+    private final String compression;
+
+    // negotiated when sending, null for none
+    private BlockCodec codec;
+
+    /**
+     * @param compression Comma separated codecs to compress the blocks with, by order of preference.
+     */
+    ParallelFileSender(List<FileTransferServiceReceive> receivers, int bsize, int numFlyingBlocks, boolean resume,
+            String compression) {
+        if (receivers.isEmpty()) {
+            throw new IllegalArgumentException("At least one receiving file transfer service is required");
+        }
+        this.receivers = receivers;
+        this.bsize = bsize;
+        this.numFlyingBlocks = Math.max(numFlyingBlocks, 1);
+        this.resume = resume;
+        this.compression = compression;
+    }
+
+    /**
+     * Sends a file or a directory tree.
+     */
+    void send(File srcFile, File dstFile) throws IOException {
+        long init = System.currentTimeMillis();
+        codec = negotiateCodec();
+
+        List<File[]> smallFiles = new ArrayList<File[]>();
+        List<File[]> largeFiles = new ArrayList<File[]>();
+        collect(srcFile, dstFile, smallFiles, largeFiles);
+
+        long numBlocks = 0;
+        for (File[] largeFile : largeFiles) {
+            numBlocks += sendRanges(largeFile[0], largeFile[1]);
+        }
+        numBlocks += sendSmallFiles(smallFiles);
+
+        if (logger.isDebugEnabled()) {
+            long delta = System.currentTimeMillis() - init;
+            logger.debug(srcFile.getAbsolutePath() + " sent to " + dstFile.getAbsolutePath() + " using " + numBlocks +
+                         " blocks over " + receivers.size() + " streams, in: " + delta + "[ms]");
+        }
+    }
+
+    /**
+     * @return The first preferred codec supported by the receivers, null if none.
+     */
+    private BlockCodec negotiateCodec() {
+        if (BlockCodecs.parse(compression).isEmpty()) {
+            return null;
+        }
+
+        // the receivers belong to the same runtime
+        String name = BlockCodecs.negotiate(compression, receivers.get(0).getBlockCodecs());
+        if (logger.isDebugEnabled()) {
+            logger.debug("Compressing file blocks with: " + name);
+        }
+        return name == null ? null : BlockCodecs.getCodec(name);
+    }
+
+    /**
+     * Creates the destination directories, and sorts the files to send by size.
+     */
+    private void collect(File srcFile, File dstFile, List<File[]> smallFiles, List<File[]> largeFiles)
+            throws IOException {
+        if (srcFile.isFile()) {
+            if (srcFile.length() > bsize) {
+                largeFiles.add(new File[] { srcFile, dstFile });
+            } else {
+                smallFiles.add(new File[] { srcFile, dstFile });
+            }
+        } else if (srcFile.isDirectory()) {
+            OperationStatus status = receivers.get(0).mkdirs(dstFile);
+            if (status.hasException()) {
+                throw status.getException();
+            }
+
+            File[] files = srcFile.listFiles();
+            if (files == null) {
+                throw new IOException("Cannot list directory: " + srcFile.getPath());
+            }
+            for (File f : files) {
+                collect(f, new File(dstFile, f.getName()), smallFiles, largeFiles);
+            }
+        } else {
+            throw new IOException("Cannot transfer, not directory nor regular file: " + srcFile.getPath());
+        }
+    }
+
+    /**
+     * Sends a large file, split into one range of blocks per receiver.
+     * @return The number of blocks actually sent.
+     */
+    private long sendRanges(final File srcFile, final File dstFile) throws IOException {
+        final long length = srcFile.length();
+        final long totalNumBlocks = (length + bsize - 1) / bsize;
+        final long[] existingChecksums = receivers.get(0).openPositionalWrite(dstFile, length, bsize, resume);
+        final int numStreams = (int) Math.min(receivers.size(), totalNumBlocks);
+
+        FileInputStream fis;
+        try {
+            fis = new FileInputStream(srcFile);
+        } catch (IOException e) {
+            throw new IOException("Cannot open for sending:" + srcFile.getAbsoluteFile(), e);
+        }
+
+        long numBlocks = 0;
+        boolean sent = false;
+        try {
+            final FileChannel channel = fis.getChannel();
+            List<Callable<Long>> streams = new ArrayList<Callable<Long>>(numStreams);
+            for (int i = 0; i < numStreams; i++) {
+                final FileTransferServiceReceive receiver = receivers.get(i);
+                final long firstBlock = totalNumBlocks * i / numStreams;
+                final long lastBlock = totalNumBlocks * (i + 1) / numStreams;
+                streams.add(new Callable<Long>() {
+                    public Long call() throws IOException {
+                        return sendRange(channel, receiver, dstFile, firstBlock, lastBlock, existingChecksums);
+                    }
+                });
+            }
+            numBlocks = runStreams(streams);
+            sent = true;
+        } finally {
+            close(fis);
+
+            boolean closed = true;
+            for (int i = 0; i < numStreams; i++) {
+                closed &= receivers.get(i).closePositionalWrite(dstFile).getBooleanValue();
+            }
+            if (sent && !closed) {
+                throw new IOException("Unable to close remote file: " + dstFile.getAbsolutePath());
+            }
+        }
+        return numBlocks;
+    }
+
+    private long sendRange(FileChannel channel, FileTransferServiceReceive receiver, File dstFile, long firstBlock,
+            long lastBlock, long[] existingChecksums) throws IOException {
+        List<OperationStatus> pending = new ArrayList<OperationStatus>(numFlyingBlocks);
+        FileBlock fileBlock = new FileBlock(0, bsize);
+        fileBlock.setCodec(codec);
+        long numBlocks = 0;
+
+        for (long i = firstBlock; i < lastBlock; i++) {
+            fileBlock.loadBlock(channel, i * bsize);
+            if (i < existingChecksums.length && existingChecksums[(int) i] == fileBlock.getChecksum()) {
+                continue;
+            }
+
+            pending.add(receiver.writeFileBlock(dstFile, fileBlock)); //remote (async) invocation
+            numBlocks++;
+            if (pending.size() == numFlyingBlocks) { //rendezvous the burst, so the remote AO will not be drowned
+                waitFor(pending);
+            }
+        }
+        waitFor(pending);
+        return numBlocks;
+    }
+
+    /**
+     * Sends small files, each in one request, spread over the receivers.
+     * @return The number of files sent.
+     */
+    private long sendSmallFiles(final List<File[]> smallFiles) throws IOException {
+        final int numStreams = Math.min(receivers.size(), smallFiles.size());
+        List<Callable<Long>> streams = new ArrayList<Callable<Long>>(numStreams);
+        for (int i = 0; i < numStreams; i++) {
+            final FileTransferServiceReceive receiver = receivers.get(i);
+            final int first = i;
+            streams.add(new Callable<Long>() {
+                public Long call() throws IOException {
+                    List<OperationStatus> pending = new ArrayList<OperationStatus>(numFlyingBlocks);
+                    FileBlock fileBlock = new FileBlock(0, bsize);
+                    fileBlock.setCodec(codec);
+                    long numFiles = 0;
+                    for (int j = first; j < smallFiles.size(); j += numStreams) {
+                        File[] file = smallFiles.get(j);
+                        loadFile(file[0], fileBlock);
+                        pending.add(receiver.saveFile(file[1], fileBlock)); //remote (async) invocation
+                        numFiles++;
+                        if (pending.size() == numFlyingBlocks) {
+                            waitFor(pending);
+                        }
+                    }
+                    waitFor(pending);
+                    return numFiles;
+                }
+            });
+        }
+        return runStreams(streams);
+    }
+
+    private void loadFile(File srcFile, FileBlock fileBlock) throws IOException {
+        FileInputStream fis;
+        try {
+            fis = new FileInputStream(srcFile);
+        } catch (IOException e) {
+            throw new IOException("Cannot open for sending:" + srcFile.getAbsoluteFile(), e);
+        }
+        try {
+            fileBlock.loadBlock(fis.getChannel(), 0);
+        } finally {
+            close(fis);
+        }
+    }
+
+    /**
+     * Runs the streams, the first one in the calling thread, and waits for all of them.
+     * @return The sum of the results of the streams.
+     */
+    private long runStreams(List<Callable<Long>> streams) throws IOException {
+        if (streams.isEmpty()) {
+            return 0;
+        }
+
+        List<Future<Long>> futures = new ArrayList<Future<Long>>(streams.size() - 1);
+        for (Callable<Long> stream : streams.subList(1, streams.size())) {
+            futures.add(streamExecutor.submit(stream));
+        }
+
+        IOException error = null;
+        long result = 0;
+        try {
+            result += streams.get(0).call();
+        } catch (Exception e) {
+            error = toIOException(e);
+        }
+        for (Future<Long> future : futures) {
+            try {
+                if (error != null) {
+                    future.cancel(true);
+                } else {
+                    result += future.get();
+                }
+            } catch (ExecutionException e) {
+                error = toIOException(e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                error = new IOException("Interrupted while sending file", e);
+            }
+        }
+        if (error != null) {
+            throw error;
+        }
+        return result;
+    }
+
+    private static IOException toIOException(Throwable t) {
+        if (t instanceof IOException) {
+            return (IOException) t;
+        }
+        return new IOException(t);
+    }
+
+    private static void waitFor(List<OperationStatus> pending) throws IOException {
+        for (OperationStatus status : pending) {
+            PAFuture.waitFor(status);
+            if (status.hasException()) {
+                pending.clear();
+                throw status.getException();
+            }
+        }
+        pending.clear();
+    }
+
+    private static void close(FileInputStream fis) {
+        try {
+            fis.close();
+        } catch (IOException e) {
+            //We don't care about closing exceptions
+        }
+    }
+}
@@ -25,7 +25,7 @@
  */
 package org.objectweb.proactive.core.group;
 
-import java.util.Vector;
+import java.util.List;
 
 import org.objectweb.proactive.core.body.future.FutureProxy;
 import org.objectweb.proactive.core.mop.MOP;
@@ -35,7 +35,7 @@ import org.objectweb.proactive.core.mop.StubObject;
 
 public abstract class AbstractProcessForGroup implements Runnable {
 
-    protected static Proxy findLastProxy(Object obj) {
+    public static Proxy findLastProxy(Object obj) {
         if (!MOP.isReifiedObject(obj)) {
             return null;
         }
@@ -50,7 +50,7 @@ public abstract class AbstractProcessForGroup implements Runnable {
         return proxy;
     }
 
-    protected Vector<?> memberList;
+    protected List<?> memberList;
 
     protected ProxyForGroup proxyGroup;
 
@@ -58,7 +58,7 @@ public abstract class AbstractProcessForGroup implements Runnable {
 
     protected int resultIndex; // corresponds to index of results; does not change
 
-    protected Vector<Object> memberListOfResultGroup = null;
+    protected List<Object> memberListOfResultGroup = null;
 
     protected boolean dynamicallyDispatchable = false;
 
@@ -78,7 +78,7 @@ public abstract class AbstractProcessForGroup implements Runnable {
         this.groupIndex = index;
     }
 
-    public Vector<Object> getResultGroup() {
+    public List<Object> getResultGroup() {
         return memberListOfResultGroup;
     }
 
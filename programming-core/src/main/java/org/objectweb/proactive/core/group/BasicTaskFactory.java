@@ -29,14 +29,14 @@ import java.lang.reflect.InvocationTargetException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Queue;
-import java.util.Vector;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.CountDownLatch;
 
 import org.objectweb.proactive.api.PAActiveObject;
 import org.objectweb.proactive.api.PAGroup;
+import org.objectweb.proactive.core.config.CentralPAPropertyRepository;
+import org.objectweb.proactive.core.mop.MOP;
 import org.objectweb.proactive.core.mop.MethodCall;
-import org.objectweb.proactive.core.mop.StubObject;
 
 
 /**
@@ -66,20 +66,23 @@ public class BasicTaskFactory implements TaskFactory {
      * must be in *scatter* mode in order to take advantage of dynamic dispatch.
      * 
      */
-    public List<MethodCall> generateMethodCalls(MethodCall mc) throws InvocationTargetException {
-        List<MethodCall> methodsToDispatch = new ArrayList<MethodCall>(getNbTasks(mc));
+    public List<MethodCall> generateMethodCalls(MethodCall mc, List<?> members) throws InvocationTargetException {
+        int nbTasks = getNbTasks(mc, members.size());
+        List<MethodCall> methodsToDispatch = new ArrayList<MethodCall>(nbTasks);
         if (!groupProxy.isDispatchingCall(mc)) {
             // enqueue all tasks with same parameters
-            if (groupProxy.isUniqueSerializationOn()) {
+            if (useUniqueSerialization(mc, members)) {
+                // the byte[] is shared by the requests sent to all the members, unless the
+                // parameters contain futures that have to be serialized with each request
                 mc.transformEffectiveArgumentsIntoByteArray();
             }
             // broadcast
-            for (int i = 0; i < getNbTasks(mc); i++) {
+            for (int i = 0; i < nbTasks; i++) {
                 methodsToDispatch.add(mc);
             }
         } else { // isDispatchingCall == true
 
-            for (int i = 0; i < getNbTasks(mc); i++) {
+            for (int i = 0; i < nbTasks; i++) {
                 Object[] individualEffectiveArguments = new Object[mc.getNumberOfParameter()];
                 for (int j = 0; j < mc.getNumberOfParameter(); j++)
                     if (PAGroup.isScatterGroupOn(mc.getParameter(j))) {
@@ -99,7 +102,28 @@ public class BasicTaskFactory implements TaskFactory {
 
     }
 
-    private int getNbTasks(MethodCall mc) {
+    /**
+     * Serializing the parameters once for a broadcast pays off as soon as at least two members
+     * need their own copy of them, i.e. are active objects, local or remote. Standard Java objects
+     * receive the parameters by reference.
+     */
+    protected boolean useUniqueSerialization(MethodCall mc, List<?> members) {
+        if (!groupProxy.isUniqueSerializationOn() || (mc.getNumberOfParameter() == 0) ||
+            CentralPAPropertyRepository.PA_IMPLICITGETSTUBONTHIS.isTrue()) {
+            // references to the caller are replaced by stubs when the request is sent, which
+            // cannot be done on an already serialized set of parameters
+            return false;
+        }
+        int nbReifiedMembers = 0;
+        for (Object member : members) {
+            if (MOP.isReifiedObject(member) && (++nbReifiedMembers > 1)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private int getNbTasks(MethodCall mc, int groupSize) {
 
         int nbTasks = 0;
         // for standard proactive groups, the number of tasks is given by the
@@ -122,7 +146,7 @@ public class BasicTaskFactory implements TaskFactory {
             }
         }
         if ((broadcast == true) || (maxParameters == 0)) {
-            nbTasks = groupProxy.getMemberList().size();
+            nbTasks = groupSize;
         } else {
             nbTasks = maxParameters;
         }
@@ -131,38 +155,31 @@ public class BasicTaskFactory implements TaskFactory {
     }
 
     public Queue<AbstractProcessForGroup> generateTasks(MethodCall originalMethodCall, List<MethodCall> methodCalls,
-            Object result, ExceptionListException exceptionList, CountDownLatch doneSignal,
-            ProxyForGroup<?> groupProxy) {
+            List<Object> resultSlots, ExceptionListException exceptionList, CountDownLatch doneSignal,
+            ProxyForGroup<?> groupProxy, List<?> members) {
 
         Queue<AbstractProcessForGroup> taskList = new ConcurrentLinkedQueue<AbstractProcessForGroup>();
 
-        // not a broadcast: use generated method calls
-        Vector<Object> memberListOfResultGroup = null;
-
         // if dynamic dispatch or random distribution, randomly distribute
         // tasks
         // reorder(methodCalls, originalMethodCall.getReifiedMethod());
 
-        List<Integer> taskIndexes = getTaskIndexes(originalMethodCall, methodCalls, groupProxy.getMemberList().size());
-        if (!(result == null)) {
-            memberListOfResultGroup = initializeResultsGroup(result, methodCalls.size());
-        }
+        List<Integer> taskIndexes = getTaskIndexes(originalMethodCall, methodCalls, members.size());
 
         for (int i = 0; i < methodCalls.size(); i++) {
             MethodCall mc = methodCalls.get(i);
             AbstractProcessForGroup task = useOneWayProcess(mc) ? new ProcessForOneWayCall(groupProxy,
-                                                                                           groupProxy.getMemberList(),
+                                                                                           members,
                                                                                            getTaskIndex(mc,
                                                                                                         i,
-                                                                                                        groupProxy.getMemberList()
-                                                                                                                  .size()),
+                                                                                                        members.size()),
                                                                                            mc,
                                                                                            PAActiveObject.getBodyOnThis(),
                                                                                            exceptionList,
                                                                                            doneSignal)
                                                                 : new ProcessForAsyncCall(groupProxy,
-                                                                                          groupProxy.getMemberList(),
-                                                                                          memberListOfResultGroup,
+                                                                                          members,
+                                                                                          resultSlots,
                                                                                           taskIndexes.get(i),
                                                                                           mc,
                                                                                           i,
@@ -211,20 +228,6 @@ public class BasicTaskFactory implements TaskFactory {
         }
     }
 
-    protected Vector<Object> initializeResultsGroup(Object result, int nbExpectedResults) {
-        @SuppressWarnings("unchecked")
-        Vector<Object> memberListOfResultGroup = ((ProxyForGroup) ((StubObject) result).getProxy()).memberList;
-
-        // default group size for async call == size of target group (1 result
-        // per member)
-
-        // TODO use ensureCapacity!
-        for (int i = 0; i < nbExpectedResults; i++) {
-            memberListOfResultGroup.add(null);
-        }
-        return memberListOfResultGroup;
-    }
-
     protected void setDynamicDispatchTag(AbstractProcessForGroup task, MethodCall originalMethodCall) {
         // knowledge based means dynamic dispatch
         // info specified through proxy API has priority
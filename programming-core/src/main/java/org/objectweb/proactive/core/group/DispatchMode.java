@@ -69,6 +69,13 @@ public enum DispatchMode implements DispatchBehavior, Serializable {
      */
     DYNAMIC,
 
+    /**
+     * Tasks are statically allocated to workers in contiguous blocks, then workers that have completed
+     * their own tasks steal the pending tasks of the most loaded workers. At most <code>bufferSize</code>
+     * tasks are sent to a worker at a time.
+     */
+    WORK_STEALING,
+
     /**
      * Custom static partitioning of tasks can be specified in an external class file that
      * implements the {@link DispatchBehavior} interface.
@@ -97,6 +104,11 @@ public enum DispatchMode implements DispatchBehavior, Serializable {
             case DYNAMIC:
                 taskIndexes = UNSPECIFIED.getTaskIndexes(originalMethodCall, generatedMethodCalls, nbWorkers);
                 break;
+            case WORK_STEALING:
+                for (int i = 0; i < generatedMethodCalls.size(); i++) {
+                    taskIndexes.add((int) (((long) i * nbWorkers) / generatedMethodCalls.size()));
+                }
+                break;
             default:
                 taskIndexes = UNSPECIFIED.getTaskIndexes(originalMethodCall, generatedMethodCalls, nbWorkers);
 
@@ -28,6 +28,7 @@ package org.objectweb.proactive.core.group;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.LinkedList;
+import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Queue;
@@ -55,6 +56,8 @@ import org.objectweb.proactive.core.mop.StubObject;
  * have empty buffers, are faster to complete tasks (independently of the size 
  * of the task).
  * 
+ * Reports the throughput of each worker.
+ * 
  * 
  * @author The ProActive Team
  *
@@ -72,22 +75,22 @@ public class DispatchMonitor {
 
     ProxyForGroup<?> groupProxy;
 
+    List<?> members;
+
     Map<Integer, Worker> dispatched = new ConcurrentHashMap<Integer, Worker>();
 
     Map<Worker, Worker> replicated = new ConcurrentHashMap<Worker, Worker>();
 
     LinkedList<Worker> rankedWorkers = new LinkedList<Worker>();
 
-    public DispatchMonitor(ProxyForGroup<?> groupProxy, int instance) {
+    public DispatchMonitor(ProxyForGroup<?> groupProxy, List<?> members, int instance) {
         this.instance = instance;
         this.groupProxy = groupProxy;
-        int index = 0;
-        for (Iterator<?> iterator = groupProxy.iterator(); iterator.hasNext();) {
-            Object member = (Object) iterator.next();
+        this.members = members;
+        for (int index = 0; index < members.size(); index++) {
             Worker worker = new Worker(index, groupProxy.bufferSize);
             rankedWorkers.add(worker);
             dispatched.put(index, worker);
-            index++;
         }
 
     }
@@ -108,6 +111,23 @@ public class DispatchMonitor {
         availableSlots.offer(slot);
     }
 
+    /**
+     * @param index the index of a member
+     * @return the number of tasks completed by the member
+     */
+    public int getCompletedTasks(int index) {
+        return dispatched.get(index).completedJobs.size();
+    }
+
+    /**
+     * @param index the index of a member
+     * @return the number of tasks completed by the member per second, between the dispatch of its
+     *         first task and the completion of its last one
+     */
+    public double getThroughput(int index) {
+        return dispatched.get(index).throughput();
+    }
+
     public Integer getWorker() {
 
         // can use custom algo:
@@ -160,6 +180,10 @@ public class DispatchMonitor {
 
         Queue<DispatchedJob> completedJobs = new ConcurrentLinkedQueue<DispatchedJob>();
 
+        volatile long firstDispatchTime = 0;
+
+        volatile long lastCompletionTime = 0;
+
         public Worker(int index, int bufferSize) {
             this.index = index;
             this.bufferSize = bufferSize;
@@ -228,6 +252,9 @@ public class DispatchMonitor {
         }
 
         public void addDispatchedJob(DispatchedJob job) {
+            if (firstDispatchTime == 0) {
+                firstDispatchTime = System.nanoTime();
+            }
             dispatchedJobs.add(job);
 
         }
@@ -238,6 +265,7 @@ public class DispatchMonitor {
                 DispatchedJob job = dispatchedJobs.remove();
                 job.setEndTime(System.currentTimeMillis());
                 completedJobs.add(job);
+                lastCompletionTime = System.nanoTime();
             } catch (NoSuchElementException e) {
                 throw new RuntimeException(e);
             }
@@ -255,9 +283,17 @@ public class DispatchMonitor {
             return (sum / completedJobs.size());
         }
 
+        double throughput() {
+            long elapsed = lastCompletionTime - firstDispatchTime;
+            if (completedJobs.size() == 0 || elapsed <= 0) {
+                return 0;
+            }
+            return completedJobs.size() * 1e9 / elapsed;
+        }
+
         public String toString() {
             return "[worker " + index + "] - completed=" + completedJobs.size() + " - dispatched=" +
-                   dispatchedJobs.size();
+                   dispatchedJobs.size() + " - throughput=" + throughput() + "/s";
         }
 
     }
@@ -267,8 +303,8 @@ public class DispatchMonitor {
         boolean refIsBodyProxy = (originatingProxy instanceof BodyProxy);
         //		boolean refIsBodyAdapterImpl = (originatingProxy instanceof BodyAdapterImpl);
         //		boolean refIsBodyAdapterImpl = false;
-        for (int i = 0; i < groupProxy.getMemberList().size(); i++) {
-            BodyProxy groupMemberProxy = (BodyProxy) ((StubObject) groupProxy.getMemberList().get(i)).getProxy();
+        for (int i = 0; i < members.size(); i++) {
+            BodyProxy groupMemberProxy = (BodyProxy) ((StubObject) members.get(i)).getProxy();
             // need some workaround because getBodyID is not part of Proxy
             // interface
             if (refIsBodyProxy) {
@@ -25,12 +25,14 @@
  */
 package org.objectweb.proactive.core.group;
 
+import java.util.List;
 import java.util.Queue;
 import java.util.SortedSet;
 import java.util.TreeSet;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.objectweb.proactive.Body;
 import org.objectweb.proactive.annotation.PublicAPI;
@@ -52,6 +54,9 @@ import org.objectweb.proactive.utils.ThreadPools;
  * previous performance. (This technique does not consider heterogeneity of tasks, but
  * copes with network latency).
  * 
+ * In the work stealing mode, each worker has its own queue of tasks, and workers that
+ * have completed theirs steal the pending tasks of the most loaded ones.
+ * 
  * @author The ProActive Team
  *
  */
@@ -64,7 +69,7 @@ public class Dispatcher {
 
     Body body;
 
-    static int dispatcherIndex = 0;
+    static final AtomicInteger dispatcherIndex = new AtomicInteger();
 
     int nbAdditionalThreads = 3;
 
@@ -72,6 +77,9 @@ public class Dispatcher {
 
     public static volatile int counter = 0;
 
+    /** The monitor of the last call dispatched dynamically */
+    volatile DispatchMonitor lastDispatchMonitor;
+
     // boolean dynamic = false;
 
     public Dispatcher(ProxyForGroup groupProxy, boolean dynamic, int bufferSize) {
@@ -101,14 +109,38 @@ public class Dispatcher {
         }
     }
 
-    private void checkOptimalPoolSize() {
-        threadPool.setCorePoolSize(getOptimalPoolSize(groupProxy.getMemberList().size()));
-        threadPool.setMaximumPoolSize(getOptimalPoolSize(groupProxy.getMemberList().size()));
+    private void checkOptimalPoolSize(int nbMembers) {
+        int optimalPoolSize = getOptimalPoolSize(nbMembers);
+        // several group calls may be dispatched concurrently: resize only when needed, and keep
+        // core size <= maximum size at every step
+        synchronized (threadPool) {
+            if (optimalPoolSize > threadPool.getMaximumPoolSize()) {
+                threadPool.setMaximumPoolSize(optimalPoolSize);
+                threadPool.setCorePoolSize(optimalPoolSize);
+            } else if (optimalPoolSize < threadPool.getMaximumPoolSize()) {
+                threadPool.setCorePoolSize(optimalPoolSize);
+                threadPool.setMaximumPoolSize(optimalPoolSize);
+            }
+        }
     }
 
     public void dispatchTasks(Queue<AbstractProcessForGroup> taskList, CountDownLatch doneSignal,
             Dispatch loadBalancingAnnotation) {
-        checkOptimalPoolSize();
+        dispatchTasks(taskList, doneSignal, loadBalancingAnnotation, groupProxy.getMemberSnapshot());
+    }
+
+    /**
+     * Dispatches the tasks of a group call and waits for their completion.
+     * 
+     * @param taskList the tasks to dispatch
+     * @param doneSignal counted down by each task when it completes
+     * @param loadBalancingAnnotation the dispatch annotation of the invoked method, if any
+     * @param members snapshot of the members of the group targeted by the tasks
+     */
+    public void dispatchTasks(Queue<AbstractProcessForGroup> taskList, CountDownLatch doneSignal,
+            Dispatch loadBalancingAnnotation, List<?> members) {
+        int nbMembers = members.size();
+        checkOptimalPoolSize(nbMembers);
 
         int nbTasks = taskList.size();
         DispatchMode balancingMode;
@@ -120,10 +152,30 @@ public class Dispatcher {
             balancingMode = loadBalancingAnnotation.mode();
             bufferSize = loadBalancingAnnotation.bufferSize();
         }
+        if (balancingMode.equals(DispatchMode.WORK_STEALING)) {
+            WorkStealingMonitor workStealingMonitor = new WorkStealingMonitor(groupProxy,
+                                                                              members,
+                                                                              dispatcherIndex.getAndIncrement(),
+                                                                              bufferSize,
+                                                                              threadPool);
+            lastDispatchMonitor = workStealingMonitor;
+            workStealingMonitor.dispatch(taskList);
+            try {
+                doneSignal.await();
+            } catch (InterruptedException e) {
+                e.printStackTrace();
+            }
+            return;
+        }
+
         DispatchMonitor dispatchMonitor = (balancingMode.equals(DispatchMode.DYNAMIC) ||
                                            balancingMode.equals(DispatchMode.STATIC_RANDOM)) ? new DispatchMonitor(groupProxy,
-                                                                                                                   dispatcherIndex++)
+                                                                                                                   members,
+                                                                                                                   dispatcherIndex.getAndIncrement())
                                                                                              : null;
+        if (dispatchMonitor != null) {
+            lastDispatchMonitor = dispatchMonitor;
+        }
 
         // BlockingQueue<AbstractProcessForGroup> spawnedTasks = new
         // LinkedBlockingQueue<AbstractProcessForGroup>();
@@ -134,7 +186,7 @@ public class Dispatcher {
 
             // TODO NO NEED FOR ALREADY TARGETED : JUST USE RANDOMIZATION FOR
             // DYNAMIC DISPATCH!
-            for (int j = 0; j < groupProxy.getMemberList().size(); j++) {
+            for (int j = 0; j < nbMembers; j++) {
 
                 boolean foundTaskWithAvailableTarget = false;
                 int iterations = 0;
@@ -163,7 +215,7 @@ public class Dispatcher {
             }
         }
 
-        for (int i = (bufferSize * groupProxy.getMemberList().size()); i < nbTasks; i++) {
+        for (int i = (bufferSize * nbMembers); i < nbTasks; i++) {
             AbstractProcessForGroup task = taskList.poll();
             // dynamic dispatch is set on a per-task basis
             threadPool.execute(task.isDynamicallyDispatchable() ? new DynamicTaskContainer(task, dispatchMonitor)
@@ -182,4 +234,12 @@ public class Dispatcher {
         return groupProxy.bufferSize;
     }
 
+    /**
+     * @return the monitor of the last call dispatched in a dynamic or work stealing mode, which
+     *         reports the throughput of each member, or <code>null</code>
+     */
+    public DispatchMonitor getLastDispatchMonitor() {
+        return lastDispatchMonitor;
+    }
+
 }
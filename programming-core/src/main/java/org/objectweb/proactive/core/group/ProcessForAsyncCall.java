@@ -25,12 +25,13 @@
  */
 package org.objectweb.proactive.core.group;
 
-import java.util.Vector;
+import java.util.List;
 import java.util.concurrent.CountDownLatch;
 
 import org.objectweb.proactive.Body;
 import org.objectweb.proactive.core.body.Context;
 import org.objectweb.proactive.core.body.LocalBodyStore;
+import org.objectweb.proactive.core.body.future.FutureProxy;
 import org.objectweb.proactive.core.body.proxy.UniversalBodyProxy;
 import org.objectweb.proactive.core.mop.MethodCall;
 import org.objectweb.proactive.core.mop.Proxy;
@@ -53,7 +54,7 @@ public class ProcessForAsyncCall extends AbstractProcessForGroup implements Runn
     DispatchMonitor dispatchMonitor;
 
     @SuppressWarnings("unchecked")
-    public ProcessForAsyncCall(ProxyForGroup proxyGroup, Vector memberList, Vector memberListOfResultGroup,
+    public ProcessForAsyncCall(ProxyForGroup proxyGroup, List memberList, List memberListOfResultGroup,
             int groupIndex, MethodCall mc, int resultIndex, Body body, CountDownLatch doneSignal) {
         this.proxyGroup = proxyGroup;
         this.memberList = memberList;
@@ -120,12 +121,13 @@ public class ProcessForAsyncCall extends AbstractProcessForGroup implements Runn
 
         if (lastProxy == null) {
             // means we are dealing with a standard Java Object 
-            this.addToListOfResult(mc.execute(object));
-        } else if (!objectIsLocal) {
+            // (the method call may be shared with other members: never deserialize it in place)
+            this.addToListOfResult((mc.hasSerializedEffectiveArguments() ? mc.getShallowCopy() : mc).execute(object));
+        } else if (!objectIsLocal && !(lastProxy instanceof FutureProxy)) {
             /* add the return value into the result group */
             this.addToListOfResult(((StubObject) object).getProxy().reify(mc));
         } else {
-            /* add the return value into the result group */
+            /* a local body keeps the call, a future recycles it once served */
             this.addToListOfResult(((StubObject) object).getProxy().reify(mc.getShallowCopy()));
         }
     }
@@ -25,12 +25,13 @@
  */
 package org.objectweb.proactive.core.group;
 
-import java.util.Vector;
+import java.util.List;
 import java.util.concurrent.CountDownLatch;
 
 import org.objectweb.proactive.Body;
 import org.objectweb.proactive.core.body.Context;
 import org.objectweb.proactive.core.body.LocalBodyStore;
+import org.objectweb.proactive.core.body.future.FutureProxy;
 import org.objectweb.proactive.core.body.proxy.UniversalBodyProxy;
 import org.objectweb.proactive.core.mop.MethodCall;
 import org.objectweb.proactive.core.mop.Proxy;
@@ -52,7 +53,7 @@ public class ProcessForOneWayCall extends AbstractProcessForGroup {
 
     CountDownLatch doneSignal;
 
-    public ProcessForOneWayCall(ProxyForGroup proxyGroup, Vector memberList, int index, MethodCall mc, Body body,
+    public ProcessForOneWayCall(ProxyForGroup proxyGroup, List memberList, int index, MethodCall mc, Body body,
             ExceptionListException exceptionList, CountDownLatch doneSignal) {
         this.proxyGroup = proxyGroup;
         this.memberList = memberList;
@@ -92,8 +93,10 @@ public class ProcessForOneWayCall extends AbstractProcessForGroup {
         }
         if (lastProxy == null) {
             // means we are dealing with a non-reified object (a standard Java Object)
-            mc.execute(target);
-        } else if (objectIsLocal) {
+            // (the method call may be shared with other members: never deserialize it in place)
+            (mc.hasSerializedEffectiveArguments() ? mc.getShallowCopy() : mc).execute(target);
+        } else if (objectIsLocal || (lastProxy instanceof FutureProxy)) {
+            // a local body keeps the call, a future recycles it once served
             if (!(mc instanceof MethodCallControlForGroup)) {
                 ((StubObject) target).getProxy().reify(mc.getShallowCopy());
             } else {
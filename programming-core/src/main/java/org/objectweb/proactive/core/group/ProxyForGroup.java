@@ -28,7 +28,10 @@ package org.objectweb.proactive.core.group;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Type;
 import java.lang.reflect.TypeVariable;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedList;
@@ -37,7 +40,7 @@ import java.util.ListIterator;
 import java.util.Map;
 import java.util.Queue;
 import java.util.Set;
-import java.util.Vector;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.CountDownLatch;
 
 import org.apache.log4j.Logger;
@@ -47,8 +50,13 @@ import org.objectweb.proactive.api.PAGroup;
 import org.objectweb.proactive.core.ProActiveRuntimeException;
 import org.objectweb.proactive.core.UniqueID;
 import org.objectweb.proactive.core.body.future.FutureProxy;
+import org.objectweb.proactive.api.PAActiveObject;
 import org.objectweb.proactive.core.body.proxy.AbstractProxy;
+import org.objectweb.proactive.core.group.reduction.PartialReduction;
+import org.objectweb.proactive.core.group.reduction.Reduction;
 import org.objectweb.proactive.core.group.spmd.MethodCallSetSPMDGroup;
+import org.objectweb.proactive.core.group.tree.BroadcastTree;
+import org.objectweb.proactive.core.group.tree.TreeDispatcher;
 import org.objectweb.proactive.core.mop.ClassNotReifiableException;
 import org.objectweb.proactive.core.mop.ConstructionOfReifiedObjectFailedException;
 import org.objectweb.proactive.core.mop.ConstructorCall;
@@ -76,9 +84,10 @@ public class ProxyForGroup<E> extends AbstractProxy implements Proxy, Group<E>,
 
     /**
      * The list of member : it contains exclusively, StubObjects connected to Proxies, or Java
-     * Objects
+     * Objects. Membership changes copy the underlying array, so that group calls can work on an
+     * immutable snapshot without holding any lock.
      */
-    protected Vector<E> memberList;
+    protected CopyOnWriteArrayList<E> memberList;
 
     /** The map : to name members of the group */
     protected Map<String, Integer> elementNames;
@@ -103,9 +112,23 @@ public class ProxyForGroup<E> extends AbstractProxy implements Proxy, Group<E>,
     protected DispatchMode dispatchMode = DispatchMode.UNSPECIFIED;
 
     /**
-     * Flag to determine the semantic of communication (unique serialization of parameters or not)
+     * Flag to determine the semantic of communication (unique serialization of parameters or not).
+     * When on (the default), the parameters of a broadcast are serialized once and the same bytes
+     * are sent to every member that is an active object.
      */
-    protected boolean uniqueSerialization = false;
+    protected boolean uniqueSerialization = true;
+
+    /**
+     * The tree along which calls are relayed by the members, or <code>null</code> if the caller
+     * sends the calls to every member
+     */
+    protected BroadcastTree broadcastTree = null;
+
+    /**
+     * The reduction folding the results of the calls into a single future, or <code>null</code> if
+     * the calls return a group of results
+     */
+    protected Reduction<?> reduction = null;
 
     /** The stub of the typed group */
     protected StubObject stub;
@@ -133,7 +156,7 @@ public class ProxyForGroup<E> extends AbstractProxy implements Proxy, Group<E>,
     }
 
     public ProxyForGroup() throws ConstructionOfReifiedObjectFailedException {
-        this.memberList = new Vector<E>();
+        this.memberList = new CopyOnWriteArrayList<E>();
         this.proxyForGroupID = new UniqueID();
         this.elementNames = new HashMap<String, Integer>();
         dispatcher = new Dispatcher(this, false, bufferSize);
@@ -174,7 +197,8 @@ public class ProxyForGroup<E> extends AbstractProxy implements Proxy, Group<E>,
     }
 
     /**
-     * Removes the ability of the Group to make an unique serialization of parameters..
+     * Removes the ability of the Group to make an unique serialization of parameters: they are
+     * then serialized again for each member.
      */
     public void setUniqueSerializationOff() {
         this.uniqueSerialization = false;
@@ -184,6 +208,44 @@ public class ProxyForGroup<E> extends AbstractProxy implements Proxy, Group<E>,
         return uniqueSerialization;
     }
 
+    /**
+     * Makes the members relay the calls on the Group along a tree, and gather the results back up
+     * the tree.
+     * 
+     * @param broadcastTree
+     *            the shape of the tree, or <code>null</code> to send the calls to every member
+     */
+    public void setBroadcastTree(BroadcastTree broadcastTree) {
+        this.broadcastTree = broadcastTree;
+    }
+
+    public BroadcastTree getBroadcastTree() {
+        return this.broadcastTree;
+    }
+
+    /**
+     * Makes the calls on the Group that return a result return a single future on the results of
+     * the members folded by a reduction, instead of a group of results.
+     * 
+     * @param reduction
+     *            the reduction, or <code>null</code> to return groups of results
+     */
+    public void setReduction(Reduction<?> reduction) {
+        this.reduction = reduction;
+    }
+
+    public Reduction<?> getReduction() {
+        return this.reduction;
+    }
+
+    /**
+     * A call is relayed along the tree if there is one, unless it scatters its parameters or some
+     * members cannot relay it.
+     */
+    private boolean isRelayed(MethodCall mc, List<E> members) {
+        return (this.broadcastTree != null) && !isDispatchingCall(mc) && TreeDispatcher.canRelay(mc, members);
+    }
+
     /**
      * Checks the semantic of communication of the Group.
      * 
@@ -205,14 +267,16 @@ public class ProxyForGroup<E> extends AbstractProxy implements Proxy, Group<E>,
      * Remove failing elements from the group according either to a group of potential exceptions or
      * an exception list. result == null XOR exceptionList == null
      */
-    private void purge(Object result, ExceptionListException exceptionList) {
-        if (result != null) {
+    private void purge(List<E> members, Object result, ExceptionListException exceptionList) {
+        // a reduced result is not a group: its members cannot be told apart
+        if ((result != null) && (((StubObject) result).getProxy() instanceof ProxyForGroup)) {
             @SuppressWarnings("unchecked")
             ProxyForGroup<E> resultGroup = (ProxyForGroup<E>) ((StubObject) result).getProxy();
-            for (int i = this.size() - 1; i >= 0; i--) {
+            // results are indexed on the snapshot used for the call, not on the current members
+            for (int i = Math.min(members.size(), resultGroup.size()) - 1; i >= 0; i--) {
                 Object res = resultGroup.get(i);
                 if ((res != null) && res instanceof Throwable) {
-                    this.remove(i);
+                    this.remove(members.get(i));
                 }
             }
         }
@@ -229,6 +293,11 @@ public class ProxyForGroup<E> extends AbstractProxy implements Proxy, Group<E>,
     /**
      * The proxy's method : implements the semantic of communication. This method invokes the method
      * call <code>mc</code> on each members of the Group.
+     * <p>
+     * This method does not lock the group: each call works on a snapshot of the members taken when
+     * it starts and builds its own group of results, so several threads may invoke methods on the
+     * same typed group at the same time. Members added or removed during a call are only taken
+     * into account by the following calls.
      * 
      * @param mc
      *            the MethodCall to apply on each member of the Group.
@@ -237,7 +306,7 @@ public class ProxyForGroup<E> extends AbstractProxy implements Proxy, Group<E>,
      * @throws InvocationTargetException
      *             if a problem occurs when invoking the method on the members of the Group
      */
-    public synchronized Object reify(MethodCall mc) throws InvocationTargetException {
+    public Object reify(MethodCall mc) throws InvocationTargetException {
         // System.out.println("A method is called : \"" + mc.getName() + "\" on
         // " + this.memberList.size() + " membres.");
 
@@ -265,6 +334,9 @@ public class ProxyForGroup<E> extends AbstractProxy implements Proxy, Group<E>,
          */
         Object result = null;
 
+        /* the members targeted by this call, unaffected by concurrent membership changes */
+        List<E> members = getMemberSnapshot();
+
         /*
          * check if the threadpool is big enough to make the call (is there is not enough thread,
          * create new ones)
@@ -278,20 +350,28 @@ public class ProxyForGroup<E> extends AbstractProxy implements Proxy, Group<E>,
         /* if OneWay : do not construct result */
         if (mc.isOneWayCall()) {
             exceptionList = new ExceptionListException();
-            this.oneWayCallOnGroup(mc, exceptionList);
+            if (isRelayed(mc, members)) {
+                TreeDispatcher.oneWayCall(mc, members, this.broadcastTree, exceptionList);
+            } else {
+                this.oneWayCallOnGroup(mc, members, exceptionList);
+            }
         }
         /*
          * Special case : the method returns void but is Synchronous because it throws Exception
          */
         else if (mc.getReifiedMethod().getReturnType() == Void.TYPE) {
             exceptionList = new ExceptionListException();
-            this.oneWayCallOnGroup(mc, exceptionList);
+            this.oneWayCallOnGroup(mc, members, exceptionList);
         }
         /*
          * if the call is asynchronous the group of result will be a group a future
          */
-        else { // with group in general case : SYNC == ASYNC !!!!
-            result = this.asynchronousCallOnGroup(mc);
+        else if (this.reduction != null) {
+            result = this.reduceCallOnGroup(mc, members);
+        } else if (isRelayed(mc, members)) {
+            result = this.treeCallOnGroup(mc, members);
+        } else { // with group in general case : SYNC == ASYNC !!!!
+            result = this.asynchronousCallOnGroup(mc, members);
         }
 
         /*
@@ -310,7 +390,7 @@ public class ProxyForGroup<E> extends AbstractProxy implements Proxy, Group<E>,
          * rendez-vous failure.
          */
         if (this.autoPurge) {
-            purge(result, exceptionList);
+            purge(members, result, exceptionList);
         } else if ((exceptionList != null) && (exceptionList.size() != 0)) {
             throw exceptionList;
         }
@@ -342,49 +422,18 @@ public class ProxyForGroup<E> extends AbstractProxy implements Proxy, Group<E>,
      * 
      * @param mc
      *            the MethodCall to be applied on each member of the Group.
+     * @param members
+     *            the snapshot of the members targeted by the call.
      * @return the result of the call.
      */
-    protected Object asynchronousCallOnGroup(MethodCall mc) throws InvocationTargetException {
-        Object result;
-
-        // Creates a stub + ProxyForGroup for representing the result
-        String returnTypeClassName = null;
-        try {
-            Object[] paramProxy = new Object[0];
-            Type t = mc.getReifiedMethod().getGenericReturnType();
-            if (t instanceof TypeVariable) {
-                returnTypeClassName = mc.getGenericTypesMapping().get(t).getName();
-            } else {
-                returnTypeClassName = mc.getReifiedMethod().getReturnType().getName();
-            }
-
-            // FIXME the returnTypeClassName maybe an other type for multicast interface 
-            result = MOP.newInstance(returnTypeClassName, null, null, ProxyForGroup.class.getName(), paramProxy);
-
-            ((ProxyForGroup<?>) ((StubObject) result).getProxy()).className = returnTypeClassName;
-        } catch (ClassNotReifiableException e1) {
-            throw new InvocationTargetException(e1,
-                                                "Method " + mc.getReifiedMethod().toGenericString() +
-                                                    " : cannot return a group of results for the non reifiable type " +
-                                                    returnTypeClassName);
-        } catch (Exception e2) {
-            throw new InvocationTargetException(e2,
-                                                "Method " + mc.getReifiedMethod().toGenericString() +
-                                                    " : cannot create group of results");
-        }
+    protected Object asynchronousCallOnGroup(MethodCall mc, List<E> members) throws InvocationTargetException {
+        Object result = createResultGroup(mc);
+        Object[] results = dispatchAsynchronousCall(mc, members);
 
-        // data partitioning
-        List<MethodCall> methodsToDispatch = taskFactory.generateMethodCalls(mc);
-        int nbExpectedCalls = methodsToDispatch.size();
-        CountDownLatch doneSignal = new CountDownLatch(nbExpectedCalls);
-        Queue<AbstractProcessForGroup> tasksToDispatch = taskFactory.generateTasks(mc,
-                                                                                   methodsToDispatch,
-                                                                                   result,
-                                                                                   null,
-                                                                                   doneSignal,
-                                                                                   this);
-        // dispatch
-        dispatcher.dispatchTasks(tasksToDispatch, doneSignal, mc.getReifiedMethod().getAnnotation(Dispatch.class));
+        // the done signal ensures the writes of the tasks are visible here
+        @SuppressWarnings("unchecked")
+        ProxyForGroup<Object> resultGroup = (ProxyForGroup<Object>) ((StubObject) result).getProxy();
+        resultGroup.memberList.addAll(Arrays.asList(results));
 
         // TODO rely on API or method call rather than annotation?
         // Reduce reduceAnnotation = mc.getReifiedMethod().getAnnotation(Reduce.class);
@@ -411,6 +460,120 @@ public class ProxyForGroup<E> extends AbstractProxy implements Proxy, Group<E>,
         return result;
     }
 
+    /**
+     * Folds the results of a call on the Group into a single future, as they arrive. Along a
+     * broadcast tree, each member relaying the call folds the results of its subtree.
+     * 
+     * @param mc
+     *            the MethodCall to be applied on each member of the Group.
+     * @param members
+     *            the snapshot of the members targeted by the call.
+     * @return the future of the reduced result.
+     */
+    protected Object reduceCallOnGroup(MethodCall mc, List<E> members) throws InvocationTargetException {
+        String resultClassName = getResultClassName(mc);
+        if (isRelayed(mc, members)) {
+            return TreeDispatcher.reduceCall(mc, members, this.broadcastTree, this.reduction, resultClassName);
+        }
+        Object[] results = dispatchAsynchronousCall(mc, members);
+        PartialReduction partialReduction = new PartialReduction(this.reduction,
+                                                                 results.length,
+                                                                 PAActiveObject.getBodyOnThis().getFuturePool(),
+                                                                 resultClassName);
+        for (int i = 0; i < results.length; i++) {
+            partialReduction.addValue(i, results[i]);
+        }
+        return partialReduction.getFuture();
+    }
+
+    /**
+     * Sends a call to the members of the Group, through the dispatcher.
+     * 
+     * @return the results of the members, in the order of the calls generated by the task factory.
+     */
+    private Object[] dispatchAsynchronousCall(MethodCall mc, List<E> members) throws InvocationTargetException {
+        // data partitioning
+        List<MethodCall> methodsToDispatch = taskFactory.generateMethodCalls(mc, members);
+        int nbExpectedCalls = methodsToDispatch.size();
+        CountDownLatch doneSignal = new CountDownLatch(nbExpectedCalls);
+
+        // results are gathered in a private array: the result group is only filled once, when
+        // every task has completed
+        Object[] results = new Object[nbExpectedCalls];
+        Queue<AbstractProcessForGroup> tasksToDispatch = taskFactory.generateTasks(mc,
+                                                                                   methodsToDispatch,
+                                                                                   Arrays.asList(results),
+                                                                                   null,
+                                                                                   doneSignal,
+                                                                                   this,
+                                                                                   members);
+        // dispatch
+        dispatcher.dispatchTasks(tasksToDispatch,
+                                 doneSignal,
+                                 mc.getReifiedMethod().getAnnotation(Dispatch.class),
+                                 members);
+        return results;
+    }
+
+    /**
+     * Relays a call along the broadcast tree. The group of results is made of a future per
+     * member, updated when the results gathered by the subtrees come back to the caller.
+     * 
+     * @param mc
+     *            the MethodCall to be applied on each member of the Group.
+     * @param members
+     *            the snapshot of the members targeted by the call.
+     * @return the result of the call.
+     */
+    protected Object treeCallOnGroup(MethodCall mc, List<E> members) throws InvocationTargetException {
+        Object result = createResultGroup(mc);
+        @SuppressWarnings("unchecked")
+        ProxyForGroup<Object> resultGroup = (ProxyForGroup<Object>) ((StubObject) result).getProxy();
+        resultGroup.memberList.addAll(TreeDispatcher.asynchronousCall(mc,
+                                                                      members,
+                                                                      this.broadcastTree,
+                                                                      resultGroup.className));
+        return result;
+    }
+
+    /**
+     * Creates a stub + ProxyForGroup for representing the result of a call.
+     */
+    private Object createResultGroup(MethodCall mc) throws InvocationTargetException {
+        Object result;
+        String returnTypeClassName = null;
+        try {
+            Object[] paramProxy = new Object[0];
+            returnTypeClassName = getResultClassName(mc);
+
+            // FIXME the returnTypeClassName maybe an other type for multicast interface 
+            result = MOP.newInstance(returnTypeClassName, null, null, ProxyForGroup.class.getName(), paramProxy);
+
+            ((ProxyForGroup<?>) ((StubObject) result).getProxy()).className = returnTypeClassName;
+        } catch (ClassNotReifiableException e1) {
+            throw new InvocationTargetException(e1,
+                                                "Method " + mc.getReifiedMethod().toGenericString() +
+                                                    " : cannot return a group of results for the non reifiable type " +
+                                                    returnTypeClassName);
+        } catch (Exception e2) {
+            throw new InvocationTargetException(e2,
+                                                "Method " + mc.getReifiedMethod().toGenericString() +
+                                                    " : cannot create group of results");
+        }
+        return result;
+    }
+
+    /**
+     * @return the name of the type returned by the call, with the type variables resolved
+     */
+    private String getResultClassName(MethodCall mc) {
+        Type t = mc.getReifiedMethod().getGenericReturnType();
+        if (t instanceof TypeVariable) {
+            return mc.getGenericTypesMapping().get(t).getName();
+        }
+        return mc.getReifiedMethod().getReturnType().getName();
+    }
+
     /**
      * Add the results (Future) into the typed group result at the correct position.
      * 
@@ -423,7 +586,7 @@ public class ProxyForGroup<E> extends AbstractProxy implements Proxy, Group<E>,
      * @param groupIndex
      *            TODO
      */
-    public static void addToListOfResult(Vector<Object> memberListOfResultGroup, Object result, int resultIndex,
+    public static void addToListOfResult(List<Object> memberListOfResultGroup, Object result, int resultIndex,
             DispatchMonitor dispatchMonitor, int groupIndex) {
         if (memberListOfResultGroup.get(resultIndex) != null) {
             throw new ProActiveRuntimeException("Problem while updating result group: there is already something at index " +
@@ -432,6 +595,10 @@ public class ProxyForGroup<E> extends AbstractProxy implements Proxy, Group<E>,
         if (result == null) { // could not execute method on a null object
             System.out.println("############ result is null");
             memberListOfResultGroup.set(resultIndex, result);
+            if (dispatchMonitor != null) {
+                // the worker is available again
+                dispatchMonitor.updatedResult(groupIndex);
+            }
             return;
         }
         if (dispatchMonitor != null) {
@@ -470,10 +637,12 @@ public class ProxyForGroup<E> extends AbstractProxy implements Proxy, Group<E>,
      * 
      * @param mc
      *            the MethodCall to be applied on each member of the Group.
+     * @param members
+     *            the snapshot of the members targeted by the call.
      */
-    protected void oneWayCallOnGroup(MethodCall mc, ExceptionListException exceptionList)
+    protected void oneWayCallOnGroup(MethodCall mc, List<E> members, ExceptionListException exceptionList)
             throws InvocationTargetException {
-        List<MethodCall> methodsToDispatch = taskFactory.generateMethodCalls(mc);
+        List<MethodCall> methodsToDispatch = taskFactory.generateMethodCalls(mc, members);
         int nbExpectedCalls = methodsToDispatch.size();
         CountDownLatch doneSignal = new CountDownLatch(nbExpectedCalls);
         Queue<AbstractProcessForGroup> tasksToDispatch = taskFactory.generateTasks(mc,
@@ -481,8 +650,12 @@ public class ProxyForGroup<E> extends AbstractProxy implements Proxy, Group<E>,
                                                                                    null,
                                                                                    exceptionList,
                                                                                    doneSignal,
-                                                                                   this);
-        dispatcher.dispatchTasks(tasksToDispatch, doneSignal, mc.getReifiedMethod().getAnnotation(Dispatch.class));
+                                                                                   this,
+                                                                                   members);
+        dispatcher.dispatchTasks(tasksToDispatch,
+                                 doneSignal,
+                                 mc.getReifiedMethod().getAnnotation(Dispatch.class),
+                                 members);
         // LocalBodyStore.getInstance().setCurrentThreadBody(body);
     }
 
@@ -499,7 +672,7 @@ public class ProxyForGroup<E> extends AbstractProxy implements Proxy, Group<E>,
      * @return <code>true</code> if this collection changed as a result of the call
      */
     @SuppressWarnings("unchecked")
-    public boolean add(E o) {
+    public synchronized boolean add(E o) {
         try {
             if ((MOP.forName(this.className)).isAssignableFrom(o.getClass())) {
 
@@ -542,7 +715,7 @@ public class ProxyForGroup<E> extends AbstractProxy implements Proxy, Group<E>,
      *            - the elements to be inserted into this Group.
      * @return <code>true</code> if this collection changed as a result of the call.
      */
-    public boolean addAll(Collection<? extends E> c) {
+    public synchronized boolean addAll(Collection<? extends E> c) {
         boolean modified = false;
         Iterator<? extends E> iterator = c.iterator();
         while (iterator.hasNext()) {
@@ -555,8 +728,9 @@ public class ProxyForGroup<E> extends AbstractProxy implements Proxy, Group<E>,
      * Removes all of the elements from this group. This group will be empty after this method
      * returns.
      */
-    public void clear() {
+    public synchronized void clear() {
         this.memberList.clear();
+        this.elementNames.clear();
     }
 
     /**
@@ -637,7 +811,7 @@ public class ProxyForGroup<E> extends AbstractProxy implements Proxy, Group<E>,
      * @return an Iterator of the member in the Group.
      */
     public Iterator<E> iterator() {
-        return this.memberList.iterator();
+        return new MemberIterator(0);
     }
 
     /**
@@ -648,8 +822,13 @@ public class ProxyForGroup<E> extends AbstractProxy implements Proxy, Group<E>,
      *            the element to be removed from this Group (if present).
      * @return <code>true> if the Group contained the specified element.
      */
-    public boolean remove(Object o) {
-        return this.memberList.remove(o);
+    public synchronized boolean remove(Object o) {
+        final int index = this.memberList.indexOf(o);
+        if (index < 0) {
+            return false;
+        }
+        remove(index);
+        return true;
     }
 
     /**
@@ -661,7 +840,7 @@ public class ProxyForGroup<E> extends AbstractProxy implements Proxy, Group<E>,
      *            - elements to be removed from this Group.
      * @return <code>true</code> if this Group changed as a result of the call
      */
-    public boolean removeAll(Collection<?> c) {
+    public synchronized boolean removeAll(Collection<?> c) {
         boolean modified = false;
         Iterator<?> iterator = c.iterator();
         while (iterator.hasNext()) {
@@ -679,7 +858,7 @@ public class ProxyForGroup<E> extends AbstractProxy implements Proxy, Group<E>,
      *            - elements to be retained in this Group.
      * @return <code>true</code> if this Group changed as a result of the call.
      */
-    public boolean retainAll(Collection<?> c) {
+    public synchronized boolean retainAll(Collection<?> c) {
         boolean modified = false;
         Iterator<?> iterator = c.iterator();
         while (iterator.hasNext()) {
@@ -736,7 +915,7 @@ public class ProxyForGroup<E> extends AbstractProxy implements Proxy, Group<E>,
      *            the object(s) to merge into the Group.
      */
     @SuppressWarnings("unchecked")
-    public void addMerge(Object oGroup) {
+    public synchronized void addMerge(Object oGroup) {
         try {
 
             /*
@@ -784,7 +963,7 @@ public class ProxyForGroup<E> extends AbstractProxy implements Proxy, Group<E>,
      * @return a list iterator of the members in this Group.
      */
     public ListIterator<E> listIterator() {
-        return this.memberList.listIterator();
+        return new MemberIterator(0);
     }
 
     /**
@@ -794,17 +973,20 @@ public class ProxyForGroup<E> extends AbstractProxy implements Proxy, Group<E>,
      *            the rank of the object to remove in the Group.
      * @return the object that has been removed
      */
-    public E remove(int index) {
+    public synchronized E remove(int index) {
+        final E removed = this.memberList.remove(index);
         // decrease indexes in the map element names <-> indexes
-        Iterator<String> it = elementNames.keySet().iterator();
+        Iterator<Map.Entry<String, Integer>> it = elementNames.entrySet().iterator();
         while (it.hasNext()) {
-            String key = it.next();
-            Integer value = (Integer) elementNames.get(key);
-            if (value.intValue() > index) {
-                elementNames.put(key, Integer.valueOf(value.intValue() - 1));
+            Map.Entry<String, Integer> entry = it.next();
+            int value = entry.getValue().intValue();
+            if (value == index) {
+                it.remove();
+            } else if (value > index) {
+                entry.setValue(Integer.valueOf(value - 1));
             }
         }
-        return this.memberList.remove(index);
+        return removed;
     }
 
     /**
@@ -1134,7 +1316,11 @@ public class ProxyForGroup<E> extends AbstractProxy implements Proxy, Group<E>,
      * @return a member of <code>o</code>. (<code>o</code> is removed from the group)
      */
     public E waitAndGetOneThenRemoveIt() {
-        return this.memberList.remove(PAFuture.waitForAny(this.memberList));
+        // the group may be changed while waiting
+        final int index = PAFuture.waitForAny(this.memberList);
+        final E arrived = this.memberList.get(index);
+        removeMember(index, arrived);
+        return arrived;
     }
 
     /**
@@ -1211,12 +1397,11 @@ public class ProxyForGroup<E> extends AbstractProxy implements Proxy, Group<E>,
      * references) appears with communication/program-level/runtime errors and are stored in the
      * Group. (After this operation the size of the Group decreases)
      */
-    public void purgeExceptionAndNull() {
-        Iterator<E> it = this.memberList.iterator();
-        while (it.hasNext()) {
-            E element = (E) it.next();
+    public synchronized void purgeExceptionAndNull() {
+        for (int i = this.memberList.size() - 1; i >= 0; i--) {
+            E element = this.memberList.get(i);
             if ((element instanceof Throwable) || (element == null)) {
-                it.remove();
+                remove(i);
             }
         }
     }
@@ -1249,8 +1434,8 @@ public class ProxyForGroup<E> extends AbstractProxy implements Proxy, Group<E>,
     public void createMemberWithMultithread(String className, Class<?>[] genericParameters, Object[][] params,
             Node[] nodeList) {
         // Initializes the Group to the correct size
-        for (int i = 0; i < params.length; i++) {
-            this.memberList.add(null);
+        synchronized (this) {
+            this.memberList.addAll(Collections.<E> nCopies(params.length, null));
         }
         CountDownLatch doneSignal = new CountDownLatch(params.length);
         Queue<AbstractProcessForGroup> tasksToDispatch = new LinkedList<AbstractProcessForGroup>();
@@ -1285,8 +1470,8 @@ public class ProxyForGroup<E> extends AbstractProxy implements Proxy, Group<E>,
     public void createMemberWithMultithread(String className, Class<?>[] genericParameters, Object[] params,
             Node[] nodeList) {
         // Initializes the Group to the correct size
-        for (int i = 0; i < nodeList.length; i++) {
-            this.memberList.add(null);
+        synchronized (this) {
+            this.memberList.addAll(Collections.<E> nCopies(nodeList.length, null));
         }
         CountDownLatch doneSignal = new CountDownLatch(nodeList.length);
         Queue<AbstractProcessForGroup> tasksToDispatch = new LinkedList<AbstractProcessForGroup>();
@@ -1311,22 +1496,83 @@ public class ProxyForGroup<E> extends AbstractProxy implements Proxy, Group<E>,
     /*
      * @see java.util.List#set(int, java.lang.Object)
      */
-    public E set(int index, E o) {
+    public synchronized E set(int index, E o) {
+        // named elements are designated by their index, that is not changed
         return this.memberList.set(index, o);
     }
 
     /*
      * @see java.util.List#add(int, java.lang.Object)
      */
-    public void add(int index, E element) {
+    public synchronized void add(int index, E element) {
         memberList.add(index, element);
+        shiftElementNames(index, 1);
     }
 
     /*
      * @see java.util.List#addAll(int, java.util.Collection)
      */
-    public boolean addAll(int index, Collection<? extends E> c) {
-        return memberList.addAll(index, c);
+    public synchronized boolean addAll(int index, Collection<? extends E> c) {
+        final int sizeBefore = memberList.size();
+        final boolean modified = memberList.addAll(index, c);
+        shiftElementNames(index, memberList.size() - sizeBefore);
+        return modified;
+    }
+
+    /**
+     * Removes a member, expected at the given index unless the group has been changed meanwhile.
+     * Does nothing if the member is not in the group anymore.
+     */
+    private synchronized void removeMember(int index, E member) {
+        final int currentIndex = indexOfMember(index, member);
+        if (currentIndex >= 0) {
+            remove(currentIndex);
+        }
+    }
+
+    /**
+     * Replaces a member, expected at the given index unless the group has been changed meanwhile.
+     *
+     * @throws IllegalStateException
+     *             if the member is not in the group anymore
+     */
+    private synchronized void replaceMember(int index, E member, E replacement) {
+        final int currentIndex = indexOfMember(index, member);
+        if (currentIndex < 0) {
+            throw new IllegalStateException("The member to replace has been removed from the group");
+        }
+        set(currentIndex, replacement);
+    }
+
+    /**
+     * @return index of the member, looked up from its expected index, -1 if it is not in the group
+     */
+    private int indexOfMember(int index, E member) {
+        if (index >= 0 && index < this.memberList.size() && this.memberList.get(index) == member) {
+            return index;
+        }
+        for (int i = 0; i < this.memberList.size(); i++) {
+            if (this.memberList.get(i) == member) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Increases by <code>shift</code> the indexes of the named elements at or after
+     * <code>index</code>.
+     */
+    private void shiftElementNames(int index, int shift) {
+        if (shift == 0) {
+            return;
+        }
+        for (Map.Entry<String, Integer> entry : elementNames.entrySet()) {
+            int value = entry.getValue().intValue();
+            if (value >= index) {
+                entry.setValue(Integer.valueOf(value + shift));
+            }
+        }
     }
 
     /*
@@ -1340,7 +1586,7 @@ public class ProxyForGroup<E> extends AbstractProxy implements Proxy, Group<E>,
      * @see java.util.List#listIterator(int)
      */
     public ListIterator<E> listIterator(int index) {
-        return memberList.listIterator(index);
+        return new MemberIterator(index);
     }
 
     /*
@@ -1366,7 +1612,7 @@ public class ProxyForGroup<E> extends AbstractProxy implements Proxy, Group<E>,
      * @throws NullPointerException
      *             - if the key is null and this Group does not not permit null keys (optional).
      */
-    public boolean containsKey(String key) {
+    public synchronized boolean containsKey(String key) {
         return this.elementNames.containsKey(key);
     }
 
@@ -1485,10 +1731,21 @@ public class ProxyForGroup<E> extends AbstractProxy implements Proxy, Group<E>,
     /**
      * @return Returns the memberList.
      */
-    public Vector<E> getMemberList() {
+    public List<E> getMemberList() {
         return memberList;
     }
 
+    /**
+     * Returns an immutable snapshot of the members. It is taken without locking and is not affected
+     * by later additions or removals.
+     * 
+     * @return the members of the group at the time of the call.
+     */
+    @SuppressWarnings("unchecked")
+    public List<E> getMemberSnapshot() {
+        return Collections.unmodifiableList(Arrays.asList((E[]) this.memberList.toArray()));
+    }
+
     /**
      * @param className
      *            The className to set.
@@ -1501,6 +1758,14 @@ public class ProxyForGroup<E> extends AbstractProxy implements Proxy, Group<E>,
         return dispatchMode;
     }
 
+    /**
+     * @return the monitor of the last call dispatched in a dynamic or work stealing mode, or
+     *         <code>null</code>
+     */
+    public DispatchMonitor getLastDispatchMonitor() {
+        return dispatcher.getLastDispatchMonitor();
+    }
+
     public void setStub(StubObject stub) {
         this.stub = stub;
     }
@@ -1523,4 +1788,69 @@ public class ProxyForGroup<E> extends AbstractProxy implements Proxy, Group<E>,
         dispatcher = new Dispatcher(this, false, bufferSize);
         taskFactory = TaskFactoryFactory.getTaskFactory(this);
     }
+
+    /**
+     * Iterator over a snapshot of the members, so that iterating does not block nor fail because of
+     * concurrent changes of the group. Removals, replacements and insertions made through the
+     * iterator are applied to the group through its synchronized methods.
+     */
+    private class MemberIterator implements ListIterator<E> {
+        private final ListIterator<E> snapshot;
+
+        // index in the snapshot and value of the last returned member, index is -1 if none
+        private int lastIndex = -1;
+
+        private E lastReturned;
+
+        private MemberIterator(int index) {
+            this.snapshot = new ArrayList<E>(memberList).listIterator(index);
+        }
+
+        public boolean hasNext() {
+            return snapshot.hasNext();
+        }
+
+        public E next() {
+            lastIndex = snapshot.nextIndex();
+            lastReturned = snapshot.next();
+            return lastReturned;
+        }
+
+        public boolean hasPrevious() {
+            return snapshot.hasPrevious();
+        }
+
+        public E previous() {
+            lastIndex = snapshot.previousIndex();
+            lastReturned = snapshot.previous();
+            return lastReturned;
+        }
+
+        public int nextIndex() {
+            return snapshot.nextIndex();
+        }
+
+        public int previousIndex() {
+            return snapshot.previousIndex();
+        }
+
+        public void remove() {
+            snapshot.remove();
+            removeMember(lastIndex, lastReturned);
+            lastIndex = -1;
+        }
+
+        public void set(E e) {
+            snapshot.set(e);
+            replaceMember(lastIndex, lastReturned, e);
+            lastReturned = e;
+        }
+
+        public void add(E e) {
+            final int index = snapshot.nextIndex();
+            snapshot.add(e);
+            ProxyForGroup.this.add(index, e);
+            lastIndex = -1;
+        }
+    }
 }
@@ -47,24 +47,27 @@ public interface TaskFactory {
      * 
      * @param methodCalls maps each method call generated to the index of the target member it should be assigned to
      * This is overridden when performing dynamic dispatch.
-     * @param result
+     * @param resultSlots fixed-size list receiving the result of each generated method call, 
+     * <code>null</code> for one way calls
      * @param exceptionList
      * @param doneSignal
      * @param originalReifiedMethod TODO
      * @param groupProxy TODO
+     * @param members snapshot of the members of the group, as seen by this call
      * @return
      */
     public Queue<AbstractProcessForGroup> generateTasks(MethodCall originalMethodCall, List<MethodCall> methodCalls,
-            Object result, ExceptionListException exceptionList, CountDownLatch doneSignal,
-            ProxyForGroup<?> groupProxy);
+            List<Object> resultSlots, ExceptionListException exceptionList, CountDownLatch doneSignal,
+            ProxyForGroup<?> groupProxy, List<?> members);
 
     /**
      * 
      * @param mc
+     * @param members snapshot of the members of the group, as seen by this call
      * @return
      * @throws InvocationTargetException
      */
-    public List<MethodCall> generateMethodCalls(MethodCall mc) throws InvocationTargetException;
+    public List<MethodCall> generateMethodCalls(MethodCall mc, List<?> members) throws InvocationTargetException;
 
     /**
      * Static mapping of a task to a worker
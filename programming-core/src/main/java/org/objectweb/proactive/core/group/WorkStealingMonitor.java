@@ -0,0 +1,163 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.objectweb.proactive.core.group;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.Executor;
+
+
+/**
+ * Dispatches the tasks of a call on a group by work stealing.
+ * 
+ * Each member has its own deque of pending tasks, filled with the tasks initially allocated to
+ * it, and at most <code>bufferSize</code> tasks in progress. When a member completes a task, it
+ * takes the next one from the head of its own deque or, once it is empty, steals the task at the
+ * tail of the deque of the member with the most pending tasks. Fast members thus take over the
+ * work of slow ones, and a call on heterogeneous members no longer finishes at the pace of the
+ * slowest one.
+ * 
+ * Completions are notified by the futures of the results, as for the dynamic dispatch.
+ * 
+ * @author The ProActive Team
+ *
+ */
+class WorkStealingMonitor extends DispatchMonitor {
+
+    private final Deque<AbstractProcessForGroup>[] pending;
+
+    private final int[] inProgress;
+
+    private final int[] stolen;
+
+    private final int bufferSize;
+
+    private final Executor executor;
+
+    @SuppressWarnings("unchecked")
+    WorkStealingMonitor(ProxyForGroup<?> groupProxy, List<?> members, int instance, int bufferSize,
+            Executor executor) {
+        super(groupProxy, members, instance);
+        this.pending = new Deque[members.size()];
+        for (int i = 0; i < this.pending.length; i++) {
+            this.pending[i] = new ArrayDeque<AbstractProcessForGroup>();
+        }
+        this.inProgress = new int[members.size()];
+        this.stolen = new int[members.size()];
+        this.bufferSize = Math.max(1, bufferSize);
+        this.executor = executor;
+    }
+
+    /**
+     * Queues the tasks on the members they are allocated to, and starts the first ones.
+     * Tasks without result (one way calls) cannot report their completion: they are not stolen.
+     */
+    void dispatch(Queue<AbstractProcessForGroup> taskList) {
+        List<AbstractProcessForGroup> started = new ArrayList<AbstractProcessForGroup>();
+        synchronized (this) {
+            for (AbstractProcessForGroup task = taskList.poll(); task != null; task = taskList.poll()) {
+                if (task instanceof ProcessForAsyncCall) {
+                    ((ProcessForAsyncCall) task).setDispatchMonitor(this);
+                    this.pending[task.getGroupIndex()].addLast(task);
+                } else {
+                    started.add(task);
+                }
+            }
+            for (int i = 0; i < this.pending.length; i++) {
+                takeTasks(i, started);
+            }
+        }
+        start(started);
+    }
+
+    @Override
+    public void jobCompleted(Integer slot) {
+        super.jobCompleted(slot);
+        List<AbstractProcessForGroup> started = new ArrayList<AbstractProcessForGroup>(1);
+        synchronized (this) {
+            this.inProgress[slot]--;
+            takeTasks(slot, started);
+        }
+        start(started);
+    }
+
+    /**
+     * @return the number of tasks the member of index <code>index</code> stole from others
+     */
+    public synchronized int getStolenTasks(int index) {
+        return this.stolen[index];
+    }
+
+    /**
+     * Fills the buffer of a member, from its own deque first.
+     */
+    private void takeTasks(int index, List<AbstractProcessForGroup> started) {
+        while (this.inProgress[index] < this.bufferSize) {
+            AbstractProcessForGroup task = this.pending[index].pollFirst();
+            if (task == null) {
+                task = steal(index);
+                if (task == null) {
+                    return;
+                }
+            }
+            this.inProgress[index]++;
+            dispatchedTask(task);
+            started.add(task);
+        }
+    }
+
+    /**
+     * Steals the last task of the member with the most pending tasks.
+     */
+    private AbstractProcessForGroup steal(int thief) {
+        int victim = -1;
+        for (int i = 0; i < this.pending.length; i++) {
+            if ((this.pending[i].size() > 0) &&
+                ((victim == -1) || (this.pending[i].size() > this.pending[victim].size()))) {
+                victim = i;
+            }
+        }
+        if (victim == -1) {
+            return null;
+        }
+        AbstractProcessForGroup task = this.pending[victim].pollLast();
+        task.setGroupIndex(thief);
+        this.stolen[thief]++;
+        return task;
+    }
+
+    /**
+     * Tasks are sent by the threads of the dispatcher, outside the lock.
+     */
+    private void start(List<AbstractProcessForGroup> tasks) {
+        for (AbstractProcessForGroup task : tasks) {
+            this.executor.execute(task);
+        }
+    }
+}
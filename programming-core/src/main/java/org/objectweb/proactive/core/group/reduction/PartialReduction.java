@@ -0,0 +1,206 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.objectweb.proactive.core.group.reduction;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.objectweb.proactive.core.body.future.FuturePool;
+import org.objectweb.proactive.core.body.future.FutureProxy;
+import org.objectweb.proactive.core.body.future.LocalFutureUpdateListener;
+import org.objectweb.proactive.core.body.future.MethodCallResult;
+import org.objectweb.proactive.core.group.ExceptionInGroup;
+import org.objectweb.proactive.core.mop.MOP;
+import org.objectweb.proactive.core.mop.StubObject;
+
+
+/**
+ * Folds the results of a call on a group into a single future as they arrive. Each arriving
+ * result is combined with the partial results of the adjacent ranges of members that have
+ * already arrived, so that only one partial result per range is kept, and the results themselves
+ * can be reclaimed as soon as they are combined.
+ * <p>
+ * The future raises the first exception raised by a member, or by the reduction.
+ *
+ * @author The ProActive Team
+ */
+public class PartialReduction {
+
+    private Reduction<Object> reduction;
+
+    private int nbParts;
+
+    private FuturePool futurePool;
+
+    private Object future;
+
+    /** Partial results of the ranges of consecutive parts arrived so far, by first part */
+    private TreeMap<Integer, Range> ranges = new TreeMap<Integer, Range>();
+
+    private boolean done = false;
+
+    /**
+     * @param reduction the reduction
+     * @param nbParts the number of results to fold
+     * @param futurePool the future pool of the body waiting for the reduced result
+     * @param resultClassName the class of the reduced result, which must be reifiable
+     * @throws InvocationTargetException if the future of the reduced result cannot be created
+     */
+    @SuppressWarnings("unchecked")
+    public PartialReduction(Reduction<?> reduction, int nbParts, FuturePool futurePool, String resultClassName)
+            throws InvocationTargetException {
+        this.reduction = (Reduction<Object>) reduction;
+        this.nbParts = nbParts;
+        this.futurePool = futurePool;
+        try {
+            this.future = futurePool.newLocalFuture(resultClassName);
+        } catch (Exception e) {
+            throw new InvocationTargetException(e, "Cannot create the future of a reduction for " + resultClassName);
+        }
+        if (nbParts == 0) {
+            this.done = true;
+            futurePool.updateLocalFuture(this.future, new MethodCallResult(null, null));
+        }
+    }
+
+    /**
+     * @return the future of the reduced result
+     */
+    public Object getFuture() {
+        return this.future;
+    }
+
+    /**
+     * Adds a part, which is folded when it is available.
+     * @param index the index of the part
+     * @param value the part: a value, a future, or the exception in group of an unreachable member
+     */
+    public void addValue(int index, Object value) {
+        if (MOP.isReifiedObject(value) && (((StubObject) value).getProxy() instanceof FutureProxy)) {
+            ((FutureProxy) ((StubObject) value).getProxy()).addUpdateListener(new PartListener(index));
+        } else if (value instanceof ExceptionInGroup) {
+            addResult(index, new MethodCallResult(null, (ExceptionInGroup) value));
+        } else {
+            addResult(index, new MethodCallResult(value, null));
+        }
+    }
+
+    /**
+     * Folds an arrived part.
+     * @param index the index of the part
+     * @param result the value of the part, or the exception it raised
+     */
+    public void addResult(int index, MethodCallResult result) {
+        MethodCallResult reduced = null;
+        synchronized (this) {
+            if (this.done) {
+                return;
+            }
+            if (result.getException() != null) {
+                reduced = result;
+            } else {
+                try {
+                    Range range = merge(index, result.getResultObjet());
+                    if ((range.first == 0) && (range.last == this.nbParts)) {
+                        reduced = new MethodCallResult(range.value, null);
+                    }
+                } catch (RuntimeException e) {
+                    reduced = new MethodCallResult(null, e);
+                }
+            }
+            if (reduced == null) {
+                return;
+            }
+            this.done = true;
+            this.ranges.clear();
+        }
+        // the future pool is not entered under the lock of the reduction
+        this.futurePool.updateLocalFuture(this.future, reduced);
+    }
+
+    /**
+     * Merges a part with the ranges located just before and just after it.
+     */
+    private Range merge(int index, Object value) {
+        Range range = new Range(index, index + 1, value);
+        Map.Entry<Integer, Range> previous = this.ranges.lowerEntry(index);
+        if ((previous != null) && (previous.getValue().last == index)) {
+            this.ranges.remove(previous.getKey());
+            range.first = previous.getValue().first;
+            range.value = combine(previous.getValue().value, range.value);
+        }
+        Range next = this.ranges.remove(index + 1);
+        if (next != null) {
+            range.last = next.last;
+            range.value = combine(range.value, next.value);
+        }
+        this.ranges.put(range.first, range);
+        return range;
+    }
+
+    private Object combine(Object first, Object second) {
+        if (first == null) {
+            return second;
+        } else if (second == null) {
+            return first;
+        }
+        return this.reduction.combine(first, second);
+    }
+
+    private static class Range {
+        int first;
+
+        int last;
+
+        Object value;
+
+        Range(int first, int last, Object value) {
+            this.first = first;
+            this.last = last;
+            this.value = value;
+        }
+    }
+
+    /**
+     * Folds a part when its future is updated; the value of the future may itself be a future.
+     */
+    private class PartListener implements LocalFutureUpdateListener {
+        private int index;
+
+        PartListener(int index) {
+            this.index = index;
+        }
+
+        public void futureUpdated(MethodCallResult result) {
+            if (result.getException() != null) {
+                addResult(this.index, result);
+            } else {
+                addValue(this.index, result.getResultObjet());
+            }
+        }
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.objectweb.proactive.core.group.reduction;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.objectweb.proactive.annotation.PublicAPI;
+import org.objectweb.proactive.core.util.wrapper.DoubleWrapper;
+import org.objectweb.proactive.core.util.wrapper.FloatWrapper;
+import org.objectweb.proactive.core.util.wrapper.IntWrapper;
+import org.objectweb.proactive.core.util.wrapper.LongWrapper;
+import org.objectweb.proactive.core.util.wrapper.StringWrapper;
+
+
+/**
+ * The usual reductions. As the reduced result is a future, its type must be reifiable: these
+ * reductions apply to the wrappers of <code>org.objectweb.proactive.core.util.wrapper</code>
+ * rather than to the final Java types they wrap.
+ *
+ * @author The ProActive Team
+ */
+@PublicAPI
+public enum ReduceMode implements Reduction<Object> {
+    /** Sum of numeric wrappers of the same type */
+    SUM {
+        @Override
+        public Object combine(Object first, Object second) {
+            if (first instanceof IntWrapper) {
+                return new IntWrapper(((IntWrapper) first).intValue() + ((IntWrapper) second).intValue());
+            } else if (first instanceof LongWrapper) {
+                return new LongWrapper(((LongWrapper) first).longValue() + ((LongWrapper) second).longValue());
+            } else if (first instanceof FloatWrapper) {
+                return new FloatWrapper(((FloatWrapper) first).floatValue() + ((FloatWrapper) second).floatValue());
+            } else if (first instanceof DoubleWrapper) {
+                return new DoubleWrapper(((DoubleWrapper) first).doubleValue() +
+                                         ((DoubleWrapper) second).doubleValue());
+            }
+            throw new IllegalArgumentException("Cannot sum results of type " + first.getClass().getName());
+        }
+    },
+
+    /** Smallest of comparable results (the first one if several are equal) */
+    MIN {
+        @Override
+        public Object combine(Object first, Object second) {
+            return (compare(first, second) <= 0) ? first : second;
+        }
+    },
+
+    /** Largest of comparable results (the first one if several are equal) */
+    MAX {
+        @Override
+        public Object combine(Object first, Object second) {
+            return (compare(first, second) >= 0) ? first : second;
+        }
+    },
+
+    /** Concatenation of string wrappers, or of collections into a list, in the order of the members */
+    CONCATENATE {
+        @Override
+        public Object combine(Object first, Object second) {
+            if (first instanceof StringWrapper) {
+                return new StringWrapper(((StringWrapper) first).stringValue() +
+                                         ((StringWrapper) second).stringValue());
+            } else if (first instanceof Collection) {
+                List<Object> list = new ArrayList<Object>((Collection<?>) first);
+                list.addAll((Collection<?>) second);
+                return list;
+            }
+            throw new IllegalArgumentException("Cannot concatenate results of type " +
+                                               first.getClass().getName());
+        }
+    };
+
+    @SuppressWarnings("unchecked")
+    private static int compare(Object first, Object second) {
+        if (first instanceof IntWrapper) {
+            return Integer.compare(((IntWrapper) first).intValue(), ((IntWrapper) second).intValue());
+        } else if (first instanceof LongWrapper) {
+            return Long.compare(((LongWrapper) first).longValue(), ((LongWrapper) second).longValue());
+        } else if (first instanceof FloatWrapper) {
+            return Float.compare(((FloatWrapper) first).floatValue(), ((FloatWrapper) second).floatValue());
+        } else if (first instanceof DoubleWrapper) {
+            return Double.compare(((DoubleWrapper) first).doubleValue(), ((DoubleWrapper) second).doubleValue());
+        } else if (first instanceof StringWrapper) {
+            return ((StringWrapper) first).stringValue().compareTo(((StringWrapper) second).stringValue());
+        } else if (first instanceof Comparable) {
+            return ((Comparable<Object>) first).compareTo(second);
+        }
+        throw new IllegalArgumentException("Cannot compare results of type " + first.getClass().getName());
+    }
+}
@@ -0,0 +1,54 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.objectweb.proactive.core.group.reduction;
+
+import java.io.Serializable;
+
+import org.objectweb.proactive.annotation.PublicAPI;
+
+
+/**
+ * An associative operation folding the results of a call on a group into a single result (see
+ * {@link org.objectweb.proactive.api.PAGroup#setReduction(Object, Reduction)}).
+ * <p>
+ * Partial results are combined as soon as they are available, in any grouping, and on the
+ * members themselves when the call is relayed along a broadcast tree: the operation must be
+ * associative. Only partial results of consecutive members are combined, so the operation does
+ * not need to be commutative. <code>null</code> results are skipped.
+ *
+ * @author The ProActive Team
+ */
+@PublicAPI
+public interface Reduction<T> extends Serializable {
+
+    /**
+     * Combines the partial results of two consecutive ranges of members.
+     * @param first the partial result of the first range, never <code>null</code>
+     * @param second the partial result of the following range, never <code>null</code>
+     * @return the partial result of both ranges
+     */
+    public T combine(T first, T second);
+}
@@ -0,0 +1,64 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.objectweb.proactive.core.group.tree;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.objectweb.proactive.annotation.PublicAPI;
+
+
+/**
+ * A binomial tree: a node first hands the upper half of the members below it to a child, then the
+ * upper half of the remaining ones to another child, and so on. Every node keeps sending while its
+ * children relay in parallel, so a group of <code>n</code> members is reached in
+ * <code>log2(n + 1)</code> rounds, the largest subtrees being contacted first.
+ *
+ * @author The ProActive Team
+ */
+@PublicAPI
+public class BinomialTree extends BroadcastTree {
+
+    @Override
+    public List<int[]> split(int from, int to) {
+        List<int[]> ranges = new ArrayList<int[]>();
+        // the node and the members below it
+        int size = (to - from) + 1;
+        int last = to;
+        while (size > 1) {
+            int half = size / 2;
+            ranges.add(new int[] { last - half, last });
+            last -= half;
+            size -= half;
+        }
+        return ranges;
+    }
+
+    @Override
+    public String toString() {
+        return "BinomialTree";
+    }
+}
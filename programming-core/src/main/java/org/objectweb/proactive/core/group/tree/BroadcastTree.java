@@ -0,0 +1,58 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.objectweb.proactive.core.group.tree;
+
+import java.io.Serializable;
+import java.util.List;
+
+import org.objectweb.proactive.annotation.PublicAPI;
+
+
+/**
+ * The shape of the tree along which a call on a group is relayed when tree broadcast is enabled
+ * (see {@link org.objectweb.proactive.api.PAGroup#setTreeBroadcast(Object, BroadcastTree)}).
+ * <p>
+ * The caller is the root of the tree and the members of the group are its nodes, taken in the
+ * order of the group. Every subtree covers a contiguous range of members, the first one being the
+ * root of the subtree: a subtree can thus be handed to its root as a plain sub-list of members, and
+ * the results it gathers come back in the order of the group.
+ *
+ * @author The ProActive Team
+ */
+@PublicAPI
+public abstract class BroadcastTree implements Serializable {
+
+    /**
+     * Splits the members located below a node of the tree into the subtrees of its children. The
+     * node itself stands just before <code>from</code> (or is the caller, for the whole group).
+     *
+     * @param from index of the first member below the node
+     * @param to index following the last member below the node
+     * @return the ranges <code>{first, last + 1}</code> of the subtrees of the children, in the
+     *         order in which the children are contacted
+     */
+    public abstract List<int[]> split(int from, int to);
+}
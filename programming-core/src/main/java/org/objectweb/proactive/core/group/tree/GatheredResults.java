@@ -0,0 +1,111 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.objectweb.proactive.core.group.tree;
+
+import java.io.Serializable;
+
+import org.objectweb.proactive.api.PAFuture;
+import org.objectweb.proactive.core.body.future.MethodCallResult;
+import org.objectweb.proactive.core.group.reduction.Reduction;
+
+
+/**
+ * The results of a call relayed along a {@link BroadcastTree}, gathered by the root of a subtree:
+ * the result of its own member comes first, followed by the results of the members below it, in
+ * the order of the group. Each result is either a value or the exception raised by the member (or
+ * raised while relaying the call to it).
+ * <p>
+ * This class is the return type of relayed calls, hence it is reifiable.
+ *
+ * @author The ProActive Team
+ */
+public class GatheredResults implements Serializable {
+
+    private Object[] results;
+
+    private Throwable[] exceptions;
+
+    public GatheredResults() {
+    }
+
+    public GatheredResults(int size) {
+        this.results = new Object[size];
+        this.exceptions = new Throwable[size];
+    }
+
+    public int size() {
+        return this.results.length;
+    }
+
+    public void set(int index, Object result, Throwable exception) {
+        this.results[index] = result;
+        this.exceptions[index] = exception;
+    }
+
+    /**
+     * Copies the results gathered by a subtree.
+     * @param index the position of the root of the subtree
+     * @param subtree the results gathered by the subtree
+     */
+    public void setAll(int index, GatheredResults subtree) {
+        System.arraycopy(subtree.results, 0, this.results, index, subtree.results.length);
+        System.arraycopy(subtree.exceptions, 0, this.exceptions, index, subtree.exceptions.length);
+    }
+
+    public MethodCallResult get(int index) {
+        return new MethodCallResult(this.results[index], this.exceptions[index]);
+    }
+
+    /**
+     * Folds the results, in order.
+     * @param reduction the reduction
+     * @return the partial result of the subtree, or the first exception raised
+     */
+    @SuppressWarnings("unchecked")
+    public GatheredResults reduce(Reduction<?> reduction) {
+        GatheredResults reduced = new GatheredResults(1);
+        Object value = null;
+        try {
+            for (int i = 0; i < this.results.length; i++) {
+                if (this.exceptions[i] != null) {
+                    reduced.set(0, null, this.exceptions[i]);
+                    return reduced;
+                }
+                // the result of a member may be a future
+                Object result = PAFuture.getFutureValue(this.results[i]);
+                if (value == null) {
+                    value = result;
+                } else if (result != null) {
+                    value = ((Reduction<Object>) reduction).combine(value, result);
+                }
+            }
+            reduced.set(0, value, null);
+        } catch (Throwable e) {
+            reduced.set(0, null, e);
+        }
+        return reduced;
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.objectweb.proactive.core.group.tree;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.objectweb.proactive.annotation.PublicAPI;
+
+
+/**
+ * A tree where every node relays the call to at most <code>arity</code> children, the members
+ * below a node being evenly shared between its children. A call reaches all the members of a group
+ * of <code>n</code> members in about <code>log(n) / log(arity)</code> hops.
+ *
+ * @author The ProActive Team
+ */
+@PublicAPI
+public class KAryTree extends BroadcastTree {
+
+    private int arity;
+
+    /**
+     * Builds a k-ary tree.
+     * @param arity the maximum number of children of a node, at least 2
+     */
+    public KAryTree(int arity) {
+        if (arity < 2) {
+            throw new IllegalArgumentException("The arity of a tree must be at least 2, got " + arity);
+        }
+        this.arity = arity;
+    }
+
+    public int getArity() {
+        return this.arity;
+    }
+
+    @Override
+    public List<int[]> split(int from, int to) {
+        int size = to - from;
+        int nbChildren = Math.min(this.arity, size);
+        List<int[]> ranges = new ArrayList<int[]>(nbChildren);
+        int first = from;
+        for (int i = 0; i < nbChildren; i++) {
+            // the first (size % nbChildren) subtrees get one more member
+            int last = first + (size / nbChildren) + ((i < (size % nbChildren)) ? 1 : 0);
+            ranges.add(new int[] { first, last });
+            first = last;
+        }
+        return ranges;
+    }
+
+    @Override
+    public String toString() {
+        return "KAryTree(" + this.arity + ")";
+    }
+}
@@ -0,0 +1,207 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.objectweb.proactive.core.group.tree;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.List;
+
+import org.objectweb.proactive.Body;
+import org.objectweb.proactive.api.PAActiveObject;
+import org.objectweb.proactive.core.ProActiveRuntimeException;
+import org.objectweb.proactive.core.group.MethodCallControlForGroup;
+import org.objectweb.proactive.core.group.reduction.Reduction;
+import org.objectweb.proactive.core.mop.MethodCall;
+import org.objectweb.proactive.core.mop.MethodCallExecutionFailedException;
+import org.objectweb.proactive.core.mop.MethodCallInfo;
+
+
+/**
+ * A call on a group relayed along a {@link BroadcastTree}. The member receiving it forwards the
+ * call to the roots of the subtrees below it, serves the call itself and, unless the call is one
+ * way, gathers the results of its subtree and returns them as a {@link GatheredResults}. When the
+ * call is reduced, only the partial result of the subtree is returned.
+ * <p>
+ * The request carries the name of the relayed method, so that the activity of the member handles
+ * it like the call itself.
+ *
+ * @author The ProActive Team
+ */
+public class MethodCallRelayForGroup extends MethodCallControlForGroup {
+
+    /** The call on the group, private to this relay */
+    private MethodCall call;
+
+    /** The members below the member receiving this relay */
+    private List<Object> below;
+
+    private BroadcastTree tree;
+
+    /** The reduction of the results, if any */
+    private Reduction<?> reduction;
+
+    private transient Method relayMethod = null;
+
+    public MethodCallRelayForGroup(MethodCall call, List<Object> below, BroadcastTree tree) {
+        this(call, below, tree, null);
+    }
+
+    public MethodCallRelayForGroup(MethodCall call, List<Object> below, BroadcastTree tree, Reduction<?> reduction) {
+        this.call = call;
+        this.below = below;
+        this.tree = tree;
+        this.reduction = reduction;
+    }
+
+    /**
+     * Mock method standing for a relayed call returning a result.
+     * @return the results gathered by the subtree
+     */
+    public GatheredResults mockRelayMethod() {
+        return null;
+    }
+
+    /**
+     * Returns the name of the relayed call
+     * @return the name of the relayed call
+     */
+    @Override
+    public String getName() {
+        return this.call.getName();
+    }
+
+    @Override
+    public Method getReifiedMethod() {
+        if (this.call.isOneWayCall()) {
+            return super.getReifiedMethod();
+        }
+        if (this.relayMethod == null) {
+            try {
+                this.relayMethod = getClass().getMethod("mockRelayMethod", new Class[] {});
+            } catch (NoSuchMethodException e) {
+                throw new ProActiveRuntimeException(e);
+            }
+        }
+        return this.relayMethod;
+    }
+
+    @Override
+    public MethodCallInfo getMethodCallInfo() {
+        if (this.call.isOneWayCall()) {
+            return super.getMethodCallInfo();
+        }
+        return new MethodCallInfo(MethodCallInfo.CallType.Asynchronous,
+                                  MethodCallInfo.SynchronousReason.NotApplicable,
+                                  null);
+    }
+
+    @Override
+    public boolean isAsynchronousWayCall() {
+        return !this.call.isOneWayCall();
+    }
+
+    @Override
+    public boolean isOneWayCall() {
+        return this.call.isOneWayCall();
+    }
+
+    /**
+     * Copies the arguments of the relayed call: the relay is sent to a member in the same runtime.
+     */
+    @Override
+    public void makeDeepCopyOfArguments() throws IOException {
+        this.call.makeDeepCopyOfArguments();
+    }
+
+    /**
+     * Relays the call to the subtrees below this member, then serves it on this member.
+     * @param targetObject the member
+     * @return the results gathered by the subtree, or <code>null</code> for a one way call
+     */
+    @Override
+    public Object execute(Object targetObject) throws InvocationTargetException, MethodCallExecutionFailedException {
+        Body body = PAActiveObject.getBodyOnThis();
+
+        // the subtrees below proceed while this member serves the call
+        List<int[]> ranges = this.tree.split(0, this.below.size());
+        Object[] replies = new Object[ranges.size()];
+        Throwable[] failures = new Throwable[ranges.size()];
+        for (int i = 0; i < replies.length; i++) {
+            try {
+                replies[i] = TreeDispatcher.relay(this.call, this.below, ranges.get(i), this.tree, this.reduction);
+            } catch (Throwable e) {
+                failures[i] = e;
+            }
+        }
+
+        if (this.call.hasSerializedEffectiveArguments()) {
+            // futures contained in the arguments must be registered before they are waited for
+            this.call.getEffectiveArguments();
+            body.registerIncomingFutures();
+        }
+        Object result = null;
+        Throwable exception = null;
+        try {
+            result = this.call.execute(targetObject);
+        } catch (InvocationTargetException e) {
+            exception = e.getTargetException();
+        } catch (MethodCallExecutionFailedException e) {
+            exception = e;
+        }
+
+        if (this.call.isOneWayCall()) {
+            if (exception != null) {
+                TreeDispatcher.logger.error("Relayed one way call " + getName() + " failed", exception);
+            }
+            for (int i = 0; i < failures.length; i++) {
+                if (failures[i] != null) {
+                    TreeDispatcher.logger.error("Could not relay one way call " + getName() + " to " +
+                                                (ranges.get(i)[1] - ranges.get(i)[0]) + " members", failures[i]);
+                }
+            }
+            return null;
+        }
+
+        if (this.reduction != null) {
+            // the subtree is folded here: only its partial result goes up the tree
+            GatheredResults partials = new GatheredResults(replies.length + 1);
+            partials.set(0, result, exception);
+            for (int i = 0; i < replies.length; i++) {
+                TreeDispatcher.gather(replies[i], failures[i], partials, i + 1, 1);
+            }
+            return partials.reduce(this.reduction);
+        }
+
+        GatheredResults gathered = new GatheredResults(this.below.size() + 1);
+        gathered.set(0, result, exception);
+        for (int i = 0; i < replies.length; i++) {
+            int[] range = ranges.get(i);
+            TreeDispatcher.gather(replies[i], failures[i], gathered, range[0] + 1, range[1] - range[0]);
+        }
+        return gathered;
+    }
+}
@@ -0,0 +1,286 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.objectweb.proactive.core.group.tree;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.log4j.Logger;
+import org.objectweb.proactive.Body;
+import org.objectweb.proactive.api.PAActiveObject;
+import org.objectweb.proactive.core.UniqueID;
+import org.objectweb.proactive.core.body.Context;
+import org.objectweb.proactive.core.body.LocalBodyStore;
+import org.objectweb.proactive.core.body.future.FuturePool;
+import org.objectweb.proactive.core.body.future.FutureProxy;
+import org.objectweb.proactive.core.body.future.LocalFutureUpdateListener;
+import org.objectweb.proactive.core.body.future.MethodCallResult;
+import org.objectweb.proactive.core.body.proxy.UniversalBodyProxy;
+import org.objectweb.proactive.core.config.CentralPAPropertyRepository;
+import org.objectweb.proactive.core.group.AbstractProcessForGroup;
+import org.objectweb.proactive.core.group.ExceptionInGroup;
+import org.objectweb.proactive.core.group.ExceptionListException;
+import org.objectweb.proactive.core.group.MethodCallControlForGroup;
+import org.objectweb.proactive.core.group.reduction.PartialReduction;
+import org.objectweb.proactive.core.group.reduction.Reduction;
+import org.objectweb.proactive.core.mop.MethodCall;
+import org.objectweb.proactive.core.mop.Proxy;
+import org.objectweb.proactive.core.mop.StubObject;
+import org.objectweb.proactive.core.util.log.Loggers;
+import org.objectweb.proactive.core.util.log.ProActiveLogger;
+import org.objectweb.proactive.utils.NamedThreadFactory;
+import org.objectweb.proactive.utils.ThreadPools;
+
+
+/**
+ * Sends a call on a group along a {@link BroadcastTree}: the caller only contacts the roots of its
+ * subtrees, each of them relaying the call further down (see {@link MethodCallRelayForGroup}).
+ * <p>
+ * When the call returns a result, the caller gets a future per member at once. Those futures are
+ * updated when the results gathered by the subtrees come back, by threads waiting on behalf of the
+ * caller.
+ *
+ * @author The ProActive Team
+ */
+public class TreeDispatcher {
+
+    static final Logger logger = ProActiveLogger.getLogger(Loggers.GROUPS);
+
+    private static final ThreadPoolExecutor gatherers = ThreadPools.newCachedThreadPool(60,
+                                                                                        TimeUnit.SECONDS,
+                                                                                        new NamedThreadFactory("PAGroup tree gatherer",
+                                                                                                               true));
+
+    /**
+     * A call can be relayed if all the members are distinct active objects, other than the caller:
+     * plain objects, nested groups or failed members are only reachable from the caller, and a body
+     * met twice in the tree would wait for the results of a relay queued behind its own.
+     * @param mc the call on the group
+     * @param members the members targeted by the call
+     * @return <code>true</code> if the call can be relayed along a tree
+     */
+    public static boolean canRelay(MethodCall mc, List<?> members) {
+        if ((mc instanceof MethodCallControlForGroup) || members.isEmpty()) {
+            return false;
+        }
+        Set<UniqueID> bodies = new HashSet<UniqueID>(members.size() + 1);
+        bodies.add(PAActiveObject.getBodyOnThis().getID());
+        for (Object member : members) {
+            Proxy proxy = AbstractProcessForGroup.findLastProxy(member);
+            if (!(proxy instanceof UniversalBodyProxy) || !bodies.add(((UniversalBodyProxy) proxy).getBodyID())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Relays a one way call.
+     * @param mc the call on the group
+     * @param members the members targeted by the call
+     * @param tree the shape of the tree
+     * @param exceptionList receives the exceptions raised when contacting the roots of the subtrees
+     */
+    public static void oneWayCall(MethodCall mc, List<?> members, BroadcastTree tree,
+            ExceptionListException exceptionList) {
+        serializeOnce(mc);
+        for (int[] range : tree.split(0, members.size())) {
+            try {
+                relay(mc, members, range, tree, null);
+            } catch (Throwable e) {
+                // none of the members of the subtree is reached
+                for (int i = range[0]; i < range[1]; i++) {
+                    exceptionList.add(new ExceptionInGroup(members.get(i), i, e));
+                }
+            }
+        }
+    }
+
+    /**
+     * Relays a call returning a result.
+     * @param mc the call on the group
+     * @param members the members targeted by the call
+     * @param tree the shape of the tree
+     * @param resultClassName the type of the result of a member
+     * @return a future for the result of each member, in the order of the members
+     * @throws InvocationTargetException if the futures cannot be created
+     */
+    public static List<Object> asynchronousCall(MethodCall mc, List<?> members, BroadcastTree tree,
+            String resultClassName) throws InvocationTargetException {
+        Body body = PAActiveObject.getBodyOnThis();
+        Object[] results = new Object[members.size()];
+        try {
+            for (int i = 0; i < results.length; i++) {
+                results[i] = body.getFuturePool().newLocalFuture(resultClassName);
+            }
+        } catch (Exception e) {
+            throw new InvocationTargetException(e, "Cannot create the futures of a relayed call for " +
+                                                   resultClassName);
+        }
+
+        serializeOnce(mc);
+        for (int[] range : tree.split(0, members.size())) {
+            Object reply;
+            try {
+                reply = relay(mc, members, range, tree, null);
+            } catch (Throwable e) {
+                // none of the members of the subtree is reached
+                for (int i = range[0]; i < range[1]; i++) {
+                    body.getFuturePool().updateLocalFuture(results[i], new MethodCallResult(null, e));
+                    // as for a call on a single member, each unreachable member is given the exception
+                    results[i] = new ExceptionInGroup(members.get(i), i, e);
+                }
+                continue;
+            }
+            gatherers.execute(new Gatherer(body, reply, results, range));
+        }
+        return Arrays.asList(results);
+    }
+
+    /**
+     * Relays a reduced call: every root of a subtree returns the partial result of its subtree, and
+     * the caller folds them as they arrive.
+     * @param mc the call on the group
+     * @param members the members targeted by the call
+     * @param tree the shape of the tree
+     * @param reduction the reduction of the results
+     * @param resultClassName the type of the reduced result
+     * @return the future of the reduced result
+     * @throws InvocationTargetException if the future cannot be created
+     */
+    public static Object reduceCall(MethodCall mc, List<?> members, BroadcastTree tree, Reduction<?> reduction,
+            String resultClassName) throws InvocationTargetException {
+        FuturePool futurePool = PAActiveObject.getBodyOnThis().getFuturePool();
+        List<int[]> ranges = tree.split(0, members.size());
+        final PartialReduction partialReduction = new PartialReduction(reduction,
+                                                                       ranges.size(),
+                                                                       futurePool,
+                                                                       resultClassName);
+        serializeOnce(mc);
+        for (int i = 0; i < ranges.size(); i++) {
+            final int index = i;
+            Object reply;
+            try {
+                reply = relay(mc, members, ranges.get(i), tree, reduction);
+            } catch (Throwable e) {
+                partialReduction.addResult(index, new MethodCallResult(null, e));
+                continue;
+            }
+            ((FutureProxy) ((StubObject) reply).getProxy()).addUpdateListener(new LocalFutureUpdateListener() {
+                public void futureUpdated(MethodCallResult result) {
+                    if (result.getException() != null) {
+                        partialReduction.addResult(index, result);
+                    } else {
+                        partialReduction.addResult(index, ((GatheredResults) result.getResultObjet()).get(0));
+                    }
+                }
+            });
+        }
+        return partialReduction.getFuture();
+    }
+
+    /**
+     * The parameters are serialized once for the whole tree: relays forward the bytes they receive.
+     */
+    private static void serializeOnce(MethodCall mc) {
+        if ((mc.getNumberOfParameter() > 0) && !CentralPAPropertyRepository.PA_IMPLICITGETSTUBONTHIS.isTrue()) {
+            mc.transformEffectiveArgumentsIntoByteArray();
+        }
+    }
+
+    /**
+     * Sends the call to the root of a subtree.
+     * @return the future of the results gathered by the subtree, or <code>null</code> for a one way call
+     */
+    static Object relay(MethodCall mc, List<?> members, int[] range, BroadcastTree tree, Reduction<?> reduction)
+            throws Throwable {
+        List<Object> below = new ArrayList<Object>(members.subList(range[0] + 1, range[1]));
+        MethodCallRelayForGroup relay = new MethodCallRelayForGroup(mc.getShallowCopy(), below, tree, reduction);
+        return AbstractProcessForGroup.findLastProxy(members.get(range[0])).reify(relay);
+    }
+
+    /**
+     * Waits for the results gathered by a subtree and copies them.
+     * @param reply the future of the results gathered by the subtree
+     * @param failure the exception raised when relaying the call to the subtree, if any
+     * @param into the results gathered so far
+     * @param index the position of the root of the subtree in <code>into</code>
+     * @param size the number of members in the subtree
+     */
+    static void gather(Object reply, Throwable failure, GatheredResults into, int index, int size) {
+        if (failure == null) {
+            MethodCallResult result = ((FutureProxy) ((StubObject) reply).getProxy()).getMethodCallResult();
+            if (result.getException() == null) {
+                into.setAll(index, (GatheredResults) result.getResultObjet());
+                return;
+            }
+            failure = result.getException();
+        }
+        for (int i = index; i < (index + size); i++) {
+            into.set(i, null, failure);
+        }
+    }
+
+    /**
+     * Waits for the results gathered by a subtree of the caller and updates the futures of its members.
+     */
+    private static class Gatherer implements Runnable {
+        private Body body;
+
+        private Object reply;
+
+        private Object[] futures;
+
+        private int[] range;
+
+        Gatherer(Body body, Object reply, Object[] futures, int[] range) {
+            this.body = body;
+            this.reply = reply;
+            this.futures = futures;
+            this.range = range;
+        }
+
+        public void run() {
+            // update the futures in the context of the caller
+            LocalBodyStore.getInstance().pushContext(new Context(this.body, null));
+            try {
+                GatheredResults gathered = new GatheredResults(this.range[1] - this.range[0]);
+                gather(this.reply, null, gathered, 0, gathered.size());
+                for (int i = 0; i < gathered.size(); i++) {
+                    this.body.getFuturePool().updateLocalFuture(this.futures[this.range[0] + i], gathered.get(i));
+                }
+            } finally {
+                LocalBodyStore.getInstance().clearAllContexts();
+            }
+        }
+    }
+}
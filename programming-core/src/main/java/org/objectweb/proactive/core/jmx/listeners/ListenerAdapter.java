@@ -33,6 +33,7 @@ import javax.management.NotificationListener;
 import javax.management.ObjectName;
 
 import org.apache.log4j.Logger;
+import org.objectweb.proactive.core.config.CentralPAPropertyRepository;
 import org.objectweb.proactive.core.util.log.Loggers;
 import org.objectweb.proactive.core.util.log.ProActiveLogger;
 
@@ -51,6 +52,9 @@ public class ListenerAdapter implements NotificationListener {
 
     private ObjectName name;
 
+    /** Buffers the notifications if the listener accepts batches, null otherwise */
+    private NotificationBatcher batcher;
+
     /**
      *
      * @param listener
@@ -59,24 +63,46 @@ public class ListenerAdapter implements NotificationListener {
         this.listener = listener;
         this.mbs = mbs;
         this.name = name;
+
+        int batchSize = CentralPAPropertyRepository.PA_JMX_NOTIFICATIONS_BATCH_SIZE.getValue();
+        if (listener instanceof NotificationBatchListener && batchSize > 1) {
+            this.batcher = new NotificationBatcher((NotificationBatchListener) listener,
+                                                   batchSize,
+                                                   CentralPAPropertyRepository.PA_JMX_NOTIFICATIONS_BATCH_DELAY.getValue(),
+                                                   CentralPAPropertyRepository.PA_JMX_NOTIFICATIONS_COALESCE.isTrue()) {
+                @Override
+                void deliveryFailed(Exception e) {
+                    removeListener(e);
+                }
+            };
+        }
     }
 
     /**
      * @see javax.management.NotificationListener#handleNotification(javax.management.Notification, java.lang.Object)
      */
     public void handleNotification(Notification notification, Object handback) {
+        if (this.batcher != null) {
+            this.batcher.add(notification, handback);
+            return;
+        }
+
         try {
             this.listener.handleNotification(notification, handback);
         } catch (Exception e) {
-            JMX_NOTIFICATION.debug("an exception occured (" + e.getMessage() +
-                                   ") while sending the notification -- removing the listener");
-            try {
-                mbs.removeNotificationListener(name, this);
-            } catch (InstanceNotFoundException e1) {
-                e1.printStackTrace();
-            } catch (ListenerNotFoundException e1) {
-                e1.printStackTrace();
-            }
+            removeListener(e);
+        }
+    }
+
+    private void removeListener(Exception e) {
+        JMX_NOTIFICATION.debug("an exception occured (" + e.getMessage() +
+                               ") while sending the notification -- removing the listener");
+        try {
+            mbs.removeNotificationListener(name, this);
+        } catch (InstanceNotFoundException e1) {
+            e1.printStackTrace();
+        } catch (ListenerNotFoundException e1) {
+            e1.printStackTrace();
         }
     }
 }
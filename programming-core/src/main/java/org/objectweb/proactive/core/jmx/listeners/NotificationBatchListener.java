@@ -0,0 +1,52 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.objectweb.proactive.core.jmx.listeners;
+
+import java.util.List;
+
+import javax.management.Notification;
+import javax.management.NotificationListener;
+
+
+/**
+ * A notification listener able to receive several notifications at once.
+ *
+ * When such a listener is registered through a {@link org.objectweb.proactive.core.jmx.ProActiveConnection},
+ * the notifications are buffered on the MBean server side and sent in batches, saving one
+ * remote call per notification.
+ *
+ * @author The ProActive Team
+ */
+public interface NotificationBatchListener extends NotificationListener {
+
+    /**
+     * Invoked with several notifications, in the order they were emitted.
+     *
+     * @param notifications the notifications
+     * @param handback the handback given when the listener was registered
+     */
+    public void handleNotifications(List<Notification> notifications, Object handback);
+}
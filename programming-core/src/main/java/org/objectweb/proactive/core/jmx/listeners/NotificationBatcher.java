@@ -0,0 +1,271 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.objectweb.proactive.core.jmx.listeners;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import javax.management.Notification;
+
+import org.objectweb.proactive.core.jmx.notification.NotificationType;
+import org.objectweb.proactive.utils.NamedThreadFactory;
+
+
+/**
+ * Buffers the notifications sent to a {@link NotificationBatchListener}.
+ *
+ * The buffered notifications are sent in a single call once {@code maxSize} notifications are
+ * buffered, or {@code maxDelay} milliseconds after the first of them was buffered. Batches are
+ * sent in order, by at most one thread at a time.
+ *
+ * A flush caused by the size limit means the notifications are produced faster than they are
+ * delivered. In this case, if coalescing is enabled, only the latest notification of each
+ * MBean is kept for the types describing a state, see {@link #COALESCED_TYPES}.
+ *
+ * @author The ProActive Team
+ */
+abstract class NotificationBatcher {
+
+    /** Types of the notifications describing a state, of which only the latest one matters */
+    static final Set<String> COALESCED_TYPES = new HashSet<String>();
+
+    static {
+        COALESCED_TYPES.add(NotificationType.waitForRequest);
+        COALESCED_TYPES.add(NotificationType.waitByNecessity);
+        COALESCED_TYPES.add(NotificationType.receivedFutureResult);
+    }
+
+    /** Sends the batches whose delay expired */
+    private static final ScheduledExecutorService flusher = Executors.newScheduledThreadPool(2,
+                                                                                             new NamedThreadFactory("ProActive JMX notifications batcher",
+                                                                                                                    true));
+
+    private final NotificationBatchListener listener;
+
+    private final int maxSize;
+
+    private final long maxDelay;
+
+    private final boolean coalesce;
+
+    /** Held while a batch is taken and sent, to send the batches in order */
+    private final Object sendLock = new Object();
+
+    // Guarded by this
+    private List<Notification> pending = new ArrayList<Notification>();
+
+    private Object pendingHandback;
+
+    private int pendingCount;
+
+    private boolean flushScheduled;
+
+    NotificationBatcher(NotificationBatchListener listener, int maxSize, long maxDelay, boolean coalesce) {
+        this.listener = listener;
+        this.maxSize = maxSize;
+        this.maxDelay = maxDelay;
+        this.coalesce = coalesce;
+    }
+
+    /**
+     * Called when a batch could not be delivered to the listener.
+     *
+     * @param e the exception thrown by the listener
+     */
+    abstract void deliveryFailed(Exception e);
+
+    /**
+     * Buffers a notification, sending the buffered ones if the batch is full.
+     */
+    void add(Notification notification, Object handback) {
+        notification = detach(notification);
+
+        boolean otherHandback;
+        synchronized (this) {
+            otherHandback = !this.pending.isEmpty() && this.pendingHandback != handback;
+        }
+        if (otherHandback) {
+            // A batch is sent with a single handback
+            this.flush(false);
+        }
+
+        boolean full;
+        boolean schedule = false;
+        synchronized (this) {
+            this.pending.add(notification);
+            this.pendingHandback = handback;
+            this.pendingCount += countOf(notification);
+            full = this.pendingCount >= this.maxSize;
+            if (!full && !this.flushScheduled) {
+                this.flushScheduled = true;
+                schedule = true;
+            }
+        }
+
+        if (full) {
+            this.flush(true);
+        } else if (schedule) {
+            flusher.schedule(new Runnable() {
+                public void run() {
+                    synchronized (NotificationBatcher.this) {
+                        NotificationBatcher.this.flushScheduled = false;
+                    }
+                    NotificationBatcher.this.flush(false);
+                }
+            }, this.maxDelay, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Sends all the buffered notifications.
+     *
+     * @param underLoad true if the batch is sent because it is full
+     */
+    void flush(boolean underLoad) {
+        synchronized (this.sendLock) {
+            List<Notification> batch;
+            Object handback;
+            synchronized (this) {
+                if (this.pending.isEmpty()) {
+                    return;
+                }
+                batch = this.pending;
+                handback = this.pendingHandback;
+                this.pending = new ArrayList<Notification>();
+                this.pendingHandback = null;
+                this.pendingCount = 0;
+            }
+
+            if (underLoad && this.coalesce) {
+                batch = coalesce(batch);
+            }
+
+            try {
+                if (batch.size() == 1) {
+                    this.listener.handleNotification(batch.get(0), handback);
+                } else {
+                    this.listener.handleNotifications(batch, handback);
+                }
+            } catch (Exception e) {
+                this.deliveryFailed(e);
+            }
+        }
+    }
+
+    /**
+     * The set of notifications of a BodyWrapper is cleared once sent, a copy must be buffered.
+     */
+    static Notification detach(Notification notification) {
+        if (!NotificationType.setOfNotifications.equals(notification.getType()) ||
+            !(notification.getUserData() instanceof Collection)) {
+            return notification;
+        }
+
+        @SuppressWarnings("unchecked")
+        Collection<Notification> notifications = (Collection<Notification>) notification.getUserData();
+        return copyOf(notification, new ConcurrentLinkedQueue<Notification>(notifications));
+    }
+
+    /**
+     * Removes from a batch the notifications in {@link #COALESCED_TYPES} followed by a notification
+     * of the same type from the same source, including those in a set of notifications. The sets
+     * left empty are removed.
+     */
+    static List<Notification> coalesce(List<Notification> batch) {
+        Set<List<Object>> seen = new HashSet<List<Object>>();
+        List<Notification> kept = new ArrayList<Notification>(batch.size());
+
+        for (int i = batch.size() - 1; i >= 0; i--) {
+            Notification notification = batch.get(i);
+            if (notification.getUserData() instanceof Collection &&
+                NotificationType.setOfNotifications.equals(notification.getType())) {
+                @SuppressWarnings("unchecked")
+                List<Notification> set = new ArrayList<Notification>((Collection<Notification>) notification.getUserData());
+                List<Notification> keptInSet = new ArrayList<Notification>(set.size());
+                for (int j = set.size() - 1; j >= 0; j--) {
+                    if (!isStale(set.get(j), seen)) {
+                        keptInSet.add(0, set.get(j));
+                    }
+                }
+                if (keptInSet.isEmpty() && !set.isEmpty()) {
+                    // every notification of the set is superseded
+                    continue;
+                }
+                if (keptInSet.size() != set.size()) {
+                    notification = copyOf(notification, new ConcurrentLinkedQueue<Notification>(keptInSet));
+                }
+                kept.add(notification);
+            } else if (!isStale(notification, seen)) {
+                kept.add(notification);
+            }
+        }
+
+        List<Notification> result = new ArrayList<Notification>(kept.size());
+        for (int i = kept.size() - 1; i >= 0; i--) {
+            result.add(kept.get(i));
+        }
+        return result;
+    }
+
+    /**
+     * Tells if a notification is superseded by a later one, the notifications being seen from
+     * the latest to the oldest.
+     */
+    private static boolean isStale(Notification notification, Set<List<Object>> seen) {
+        if (!COALESCED_TYPES.contains(notification.getType())) {
+            return false;
+        }
+        List<Object> key = new ArrayList<Object>(2);
+        key.add(notification.getType());
+        key.add(notification.getSource());
+        return !seen.add(key);
+    }
+
+    private static int countOf(Notification notification) {
+        if (notification.getUserData() instanceof Collection &&
+            NotificationType.setOfNotifications.equals(notification.getType())) {
+            return Math.max(1, ((Collection<?>) notification.getUserData()).size());
+        }
+        return 1;
+    }
+
+    private static Notification copyOf(Notification notification, Object userData) {
+        Notification copy = new Notification(notification.getType(),
+                                             notification.getSource(),
+                                             notification.getSequenceNumber(),
+                                             notification.getTimeStamp(),
+                                             notification.getMessage());
+        copy.setUserData(userData);
+        return copy;
+    }
+}
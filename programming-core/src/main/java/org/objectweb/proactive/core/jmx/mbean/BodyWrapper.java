@@ -42,6 +42,8 @@ import javax.management.ObjectName;
 import org.apache.log4j.Logger;
 import org.objectweb.proactive.core.UniqueID;
 import org.objectweb.proactive.core.body.AbstractBody;
+import org.objectweb.proactive.core.jmx.metrics.BodyMetrics;
+import org.objectweb.proactive.core.jmx.metrics.BodyMetricsSnapshot;
 import org.objectweb.proactive.core.jmx.naming.FactoryName;
 import org.objectweb.proactive.core.jmx.notification.NotificationType;
 import org.objectweb.proactive.core.util.log.Loggers;
@@ -317,4 +319,12 @@ public class BodyWrapper extends NotificationBroadcasterSupport implements Seria
     public boolean getIsReifiedObjectSerializable() {
         return this.isReifiedObjectSerializable;
     }
+
+    /**
+     * @see org.objectweb.proactive.core.jmx.mbean.BodyWrapperMBean#getMetrics()
+     */
+    public BodyMetricsSnapshot getMetrics() {
+        BodyMetrics metrics = this.body.getMetrics();
+        return (metrics != null) ? metrics.snapshot() : null;
+    }
 }
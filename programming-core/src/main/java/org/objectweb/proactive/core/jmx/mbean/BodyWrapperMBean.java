@@ -30,6 +30,7 @@ import java.io.Serializable;
 import javax.management.ObjectName;
 
 import org.objectweb.proactive.core.UniqueID;
+import org.objectweb.proactive.core.jmx.metrics.BodyMetricsSnapshot;
 import org.objectweb.proactive.core.jmx.notification.NotificationType;
 
 
@@ -94,4 +95,13 @@ public interface BodyWrapperMBean extends Serializable {
      *         {@link java.io.Serializable} <code>False</code> otherwise
      */
     public boolean getIsReifiedObjectSerializable();
+
+    /**
+     * Returns the current value of the metrics of the requests served by the active object.
+     * This attribute is meant to be polled periodically, the request rate is computed since
+     * the previous call.
+     *
+     * @return the metrics of the active object, or <code>null</code> if they are not collected
+     */
+    public BodyMetricsSnapshot getMetrics();
 }
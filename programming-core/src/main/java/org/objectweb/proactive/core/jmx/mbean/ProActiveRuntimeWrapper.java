@@ -28,6 +28,7 @@ package org.objectweb.proactive.core.jmx.mbean;
 import java.io.Serializable;
 import java.lang.management.ManagementFactory;
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 
 import javax.management.Notification;
@@ -36,7 +37,11 @@ import javax.management.ObjectName;
 
 import org.apache.log4j.Logger;
 import org.objectweb.proactive.core.ProActiveException;
+import org.objectweb.proactive.core.body.AbstractBody;
 import org.objectweb.proactive.core.body.LocalBodyStore;
+import org.objectweb.proactive.core.body.UniversalBody;
+import org.objectweb.proactive.core.jmx.metrics.BodyMetrics;
+import org.objectweb.proactive.core.jmx.metrics.BodyMetricsSnapshot;
 import org.objectweb.proactive.core.jmx.naming.FactoryName;
 import org.objectweb.proactive.core.runtime.ProActiveRuntime;
 import org.objectweb.proactive.core.util.log.Loggers;
@@ -132,6 +137,24 @@ public class ProActiveRuntimeWrapper extends NotificationBroadcasterSupport
         return ManagementFactory.getPlatformMBeanServer().queryMBeans(activeObjectDomainName, null).size();
     }
 
+    /**
+     * @see org.objectweb.proactive.core.jmx.mbean.ProActiveRuntimeWrapperMBean#getBodiesMetrics()
+     */
+    public List<BodyMetricsSnapshot> getBodiesMetrics() {
+        List<BodyMetricsSnapshot> snapshots = new ArrayList<BodyMetricsSnapshot>();
+        Iterator<UniversalBody> bodies = LocalBodyStore.getInstance().getLocalBodies().bodiesIterator();
+        while (bodies.hasNext()) {
+            UniversalBody body = bodies.next();
+            if (body instanceof AbstractBody) {
+                BodyMetrics metrics = ((AbstractBody) body).getMetrics();
+                if (metrics != null) {
+                    snapshots.add(metrics.snapshot());
+                }
+            }
+        }
+        return snapshots;
+    }
+
     /**
      * @see org.objectweb.proactive.core.jmx.mbean.ProActiveRuntimeWrapperMBean#getHalfBodiesCount()
      */
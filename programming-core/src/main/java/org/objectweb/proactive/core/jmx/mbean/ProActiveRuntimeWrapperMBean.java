@@ -31,6 +31,7 @@ import java.util.List;
 import javax.management.ObjectName;
 
 import org.objectweb.proactive.core.ProActiveException;
+import org.objectweb.proactive.core.jmx.metrics.BodyMetricsSnapshot;
 import org.objectweb.proactive.core.jmx.notification.NotificationType;
 
 
@@ -77,6 +78,13 @@ public interface ProActiveRuntimeWrapperMBean extends Serializable {
      */
     public int getUserBodiesCount();
 
+    /**
+     * Returns the current value of the metrics of all the active objects of this runtime
+     * collecting them. See {@link BodyWrapperMBean#getMetrics()}.
+     * @return the metrics of the active objects of this runtime
+     */
+    public List<BodyMetricsSnapshot> getBodiesMetrics();
+
     /**
      * Returns the number of half-bodies registered on this runtime.
      * @return the number of half-bodies registered on this runtime.
@@ -0,0 +1,270 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.objectweb.proactive.core.jmx.metrics;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.objectweb.proactive.core.UniqueID;
+import org.objectweb.proactive.core.config.CentralPAPropertyRepository;
+import org.objectweb.proactive.core.config.PAProperty;
+import org.objectweb.proactive.core.config.PAPropertyListener;
+
+
+/**
+ * The metrics of the requests served by an active object.
+ *
+ * Updating the metrics is cheap enough to be done for every request: counters are striped once
+ * contended and latencies are recorded in fixed size histograms. The metrics are read by sampling
+ * them through {@link #snapshot()}, usually from the BodyWrapper MBean of the active object.
+ *
+ * Only the counters follow the active object when it migrates, the histograms start empty on
+ * the new node.
+ *
+ * Times are in microseconds and sizes in bytes.
+ *
+ * @author The ProActive Team
+ */
+public class BodyMetrics implements Serializable {
+
+    /**
+     * Sampling periods derived from the properties, read on each request: 0 when nothing is
+     * sampled. They are updated by {@link #SAMPLING_LISTENER} when the properties change.
+     */
+    private static volatile int replySizePeriod;
+
+    private static volatile int requestNotificationPeriod;
+
+    private static final PAPropertyListener SAMPLING_LISTENER = new PAPropertyListener() {
+        public void valueChanged(PAProperty property) {
+            updateSamplingPeriods();
+        }
+    };
+
+    static {
+        CentralPAPropertyRepository.PA_BODY_METRICS_REPLY_SIZE_SAMPLING.addListener(SAMPLING_LISTENER);
+        CentralPAPropertyRepository.PA_JMX_REQUEST_NOTIFICATIONS.addListener(SAMPLING_LISTENER);
+        CentralPAPropertyRepository.PA_JMX_REQUEST_NOTIFICATIONS_SAMPLING.addListener(SAMPLING_LISTENER);
+        updateSamplingPeriods();
+    }
+
+    private final UniqueID bodyID;
+
+    private final StripedCounter receivedRequests = new StripedCounter();
+
+    private final StripedCounter servedRequests = new StripedCounter();
+
+    /** Only incremented by the threads serving the requests, seldom contended */
+    private final AtomicLong waitsForRequest = new AtomicLong();
+
+    private transient LogLinearHistogram queueWaitTime;
+
+    private transient LogLinearHistogram serviceTime;
+
+    private transient LogLinearHistogram replySize;
+
+    /** Service time of each served method, by method name */
+    private transient ConcurrentMap<String, LogLinearHistogram> methodServiceTimes;
+
+    /** Time and received requests count of the previous snapshot, used to compute the request rate */
+    private long lastSnapshotTime;
+
+    private long lastReceivedRequests;
+
+    public BodyMetrics(UniqueID bodyID) {
+        this.bodyID = bodyID;
+        this.lastSnapshotTime = System.currentTimeMillis();
+        this.createHistograms();
+    }
+
+    private void createHistograms() {
+        this.queueWaitTime = new LogLinearHistogram();
+        this.serviceTime = new LogLinearHistogram();
+        this.replySize = new LogLinearHistogram();
+        this.methodServiceTimes = new ConcurrentHashMap<String, LogLinearHistogram>();
+    }
+
+    /**
+     * Must be called when a request is received by the body.
+     */
+    public void requestReceived() {
+        this.receivedRequests.increment();
+    }
+
+    /**
+     * Must be called once a request has been served.
+     *
+     * @param methodName the name of the served method
+     * @param queueWaitTime the time spent by the request in the request queue
+     * @param serviceTime the time spent serving the request
+     */
+    public void requestServed(String methodName, long queueWaitTime, long serviceTime) {
+        this.servedRequests.increment();
+        this.queueWaitTime.record(queueWaitTime);
+        this.serviceTime.record(serviceTime);
+
+        LogLinearHistogram methodServiceTime = this.methodServiceTimes.get(methodName);
+        if (methodServiceTime == null) {
+            LogLinearHistogram created = new LogLinearHistogram();
+            methodServiceTime = this.methodServiceTimes.putIfAbsent(methodName, created);
+            if (methodServiceTime == null) {
+                methodServiceTime = created;
+            }
+        }
+        methodServiceTime.record(serviceTime);
+    }
+
+    /**
+     * Must be called when the size of a sent reply has been measured.
+     *
+     * @param size the serialized size of the reply
+     */
+    public void replySent(long size) {
+        this.replySize.record(size);
+    }
+
+    /**
+     * Must be called each time the active object starts waiting for a request.
+     *
+     * @return the number of waits so far, including this one
+     */
+    public long waitForRequest() {
+        return this.waitsForRequest.incrementAndGet();
+    }
+
+    /**
+     * Returns the current value of the metrics.
+     *
+     * The request rate is computed over the time elapsed since the previous call.
+     */
+    public synchronized BodyMetricsSnapshot snapshot() {
+        long now = System.currentTimeMillis();
+        long received = this.receivedRequests.get();
+        double rate = 0;
+        if (now > this.lastSnapshotTime) {
+            rate = (received - this.lastReceivedRequests) * 1000d / (now - this.lastSnapshotTime);
+        }
+        this.lastSnapshotTime = now;
+        this.lastReceivedRequests = received;
+
+        Map<String, HistogramSnapshot> methods = new HashMap<String, HistogramSnapshot>();
+        for (Map.Entry<String, LogLinearHistogram> entry : this.methodServiceTimes.entrySet()) {
+            methods.put(entry.getKey(), entry.getValue().snapshot());
+        }
+
+        return new BodyMetricsSnapshot(this.bodyID,
+                                       now,
+                                       received,
+                                       this.servedRequests.get(),
+                                       this.waitsForRequest.get(),
+                                       rate,
+                                       this.queueWaitTime.snapshot(),
+                                       this.serviceTime.snapshot(),
+                                       this.replySize.snapshot(),
+                                       methods);
+    }
+
+    /**
+     * Tells if a reply must have its size measured, according to
+     * {@link CentralPAPropertyRepository#PA_BODY_METRICS_REPLY_SIZE_SAMPLING}.
+     *
+     * @param sequenceNumber the sequence number of the reply
+     */
+    public static boolean isReplySizeSampled(long sequenceNumber) {
+        int period = replySizePeriod;
+        return period > 0 && sequenceNumber % period == 0;
+    }
+
+    /**
+     * Tells if the per request JMX notifications must be sent for a request, according to
+     * {@link CentralPAPropertyRepository#PA_JMX_REQUEST_NOTIFICATIONS} and
+     * {@link CentralPAPropertyRepository#PA_JMX_REQUEST_NOTIFICATIONS_SAMPLING}.
+     *
+     * All the notifications of a request are sent or none of them: the decision only depends
+     * on its sequence number.
+     *
+     * @param sequenceNumber the sequence number of the request
+     */
+    public static boolean isTraced(long sequenceNumber) {
+        int period = requestNotificationPeriod;
+        return period > 0 && (period == 1 || sequenceNumber % period == 0);
+    }
+
+    private static void updateSamplingPeriods() {
+        replySizePeriod = Math.max(0, CentralPAPropertyRepository.PA_BODY_METRICS_REPLY_SIZE_SAMPLING.getValue());
+        if (CentralPAPropertyRepository.PA_JMX_REQUEST_NOTIFICATIONS.isTrue()) {
+            requestNotificationPeriod = Math.max(1,
+                                                 CentralPAPropertyRepository.PA_JMX_REQUEST_NOTIFICATIONS_SAMPLING.getValue());
+        } else {
+            requestNotificationPeriod = 0;
+        }
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        this.createHistograms();
+    }
+
+    /**
+     * Computes the serialized size of an object.
+     *
+     * @return the size in bytes, or -1 if the object cannot be serialized
+     */
+    public static long serializedSize(Object object) {
+        CountingOutputStream counter = new CountingOutputStream();
+        try {
+            ObjectOutputStream oos = new ObjectOutputStream(counter);
+            oos.writeObject(object);
+            oos.close();
+            return counter.count;
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+
+    /** An output stream discarding what is written to it, only counting the bytes */
+    private static class CountingOutputStream extends OutputStream {
+        long count;
+
+        @Override
+        public void write(int b) {
+            this.count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            this.count += len;
+        }
+    }
+}
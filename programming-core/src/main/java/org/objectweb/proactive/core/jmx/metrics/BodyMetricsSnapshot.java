@@ -0,0 +1,149 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.objectweb.proactive.core.jmx.metrics;
+
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.Map;
+
+import org.objectweb.proactive.core.UniqueID;
+
+
+/**
+ * The value of the {@link BodyMetrics} of an active object at a given time.
+ *
+ * Times are in microseconds and sizes in bytes.
+ *
+ * @author The ProActive Team
+ */
+public class BodyMetricsSnapshot implements Serializable {
+
+    private final UniqueID bodyID;
+
+    private final long timestamp;
+
+    private final long receivedRequests;
+
+    private final long servedRequests;
+
+    private final long waitsForRequest;
+
+    private final double requestRate;
+
+    private final HistogramSnapshot queueWaitTime;
+
+    private final HistogramSnapshot serviceTime;
+
+    private final HistogramSnapshot replySize;
+
+    private final Map<String, HistogramSnapshot> methodServiceTimes;
+
+    BodyMetricsSnapshot(UniqueID bodyID, long timestamp, long receivedRequests, long servedRequests,
+            long waitsForRequest, double requestRate, HistogramSnapshot queueWaitTime, HistogramSnapshot serviceTime,
+            HistogramSnapshot replySize, Map<String, HistogramSnapshot> methodServiceTimes) {
+        this.bodyID = bodyID;
+        this.timestamp = timestamp;
+        this.receivedRequests = receivedRequests;
+        this.servedRequests = servedRequests;
+        this.waitsForRequest = waitsForRequest;
+        this.requestRate = requestRate;
+        this.queueWaitTime = queueWaitTime;
+        this.serviceTime = serviceTime;
+        this.replySize = replySize;
+        this.methodServiceTimes = Collections.unmodifiableMap(methodServiceTimes);
+    }
+
+    public UniqueID getBodyID() {
+        return this.bodyID;
+    }
+
+    /**
+     * @return the time this snapshot was taken, in milliseconds since the epoch
+     */
+    public long getTimestamp() {
+        return this.timestamp;
+    }
+
+    public long getReceivedRequests() {
+        return this.receivedRequests;
+    }
+
+    public long getServedRequests() {
+        return this.servedRequests;
+    }
+
+    public long getWaitsForRequest() {
+        return this.waitsForRequest;
+    }
+
+    /**
+     * @return the number of requests received per second since the previous snapshot
+     */
+    public double getRequestRate() {
+        return this.requestRate;
+    }
+
+    /**
+     * @return the time spent by the requests in the request queue
+     */
+    public HistogramSnapshot getQueueWaitTime() {
+        return this.queueWaitTime;
+    }
+
+    /**
+     * @return the time spent serving the requests
+     */
+    public HistogramSnapshot getServiceTime() {
+        return this.serviceTime;
+    }
+
+    /**
+     * @return the serialized size of the sampled replies
+     */
+    public HistogramSnapshot getReplySize() {
+        return this.replySize;
+    }
+
+    /**
+     * @return the time spent serving the requests, by method name
+     */
+    public Map<String, HistogramSnapshot> getMethodServiceTimes() {
+        return this.methodServiceTimes;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("body=").append(this.bodyID);
+        sb.append(", received=").append(this.receivedRequests);
+        sb.append(", served=").append(this.servedRequests);
+        sb.append(", rate=").append(String.format("%.1f", this.requestRate)).append("/s");
+        sb.append(", queueWaitTime=[").append(this.queueWaitTime).append(']');
+        sb.append(", serviceTime=[").append(this.serviceTime).append(']');
+        sb.append(", replySize=[").append(this.replySize).append(']');
+        return sb.toString();
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.objectweb.proactive.core.jmx.metrics;
+
+import java.io.Serializable;
+
+
+/**
+ * The counts of a {@link LogLinearHistogram} at a given time.
+ *
+ * Values returned by this class are the highest value of the bucket they fall in.
+ *
+ * @author The ProActive Team
+ */
+public class HistogramSnapshot implements Serializable {
+
+    private final long[] counts;
+
+    private final long count;
+
+    private final long sum;
+
+    HistogramSnapshot(long[] counts, long sum) {
+        this.counts = counts;
+        this.sum = sum;
+        long count = 0;
+        for (long c : counts) {
+            count += c;
+        }
+        this.count = count;
+    }
+
+    /**
+     * @return the number of recorded values
+     */
+    public long getCount() {
+        return this.count;
+    }
+
+    /**
+     * @return the mean of the recorded values, 0 if none was recorded
+     */
+    public double getMean() {
+        return this.count == 0 ? 0 : (double) this.sum / this.count;
+    }
+
+    /**
+     * @return the largest recorded value, 0 if none was recorded
+     */
+    public long getMax() {
+        for (int i = this.counts.length - 1; i >= 0; i--) {
+            if (this.counts[i] != 0) {
+                return LogLinearHistogram.highestValueOf(i);
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Returns the value below which a given percentage of the recorded values fall.
+     *
+     * @param percentile a percentage between 0 and 100
+     * @return the value at this percentile, 0 if no value was recorded
+     */
+    public long getValueAtPercentile(double percentile) {
+        if (this.count == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(Math.min(100, Math.max(0, percentile)) / 100 * this.count);
+        rank = Math.max(1, rank);
+
+        long seen = 0;
+        for (int i = 0; i < this.counts.length; i++) {
+            seen += this.counts[i];
+            if (seen >= rank) {
+                return LogLinearHistogram.highestValueOf(i);
+            }
+        }
+        return this.getMax();
+    }
+
+    @Override
+    public String toString() {
+        return "count=" + this.count + ", mean=" + String.format("%.1f", this.getMean()) + ", p50=" +
+               this.getValueAtPercentile(50) + ", p99=" + this.getValueAtPercentile(99) + ", max=" + this.getMax();
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.objectweb.proactive.core.jmx.metrics;
+
+import java.io.Serializable;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+
+/**
+ * A fixed memory histogram of positive values, in the spirit of HdrHistogram.
+ *
+ * Values are counted in buckets whose width grows with the magnitude of the value: each power
+ * of two is split into {@link #SUB_BUCKETS} linear buckets. Recording a value is a few shifts
+ * and an atomic increment, and the relative error on the reported values is below 1/
+ * {@link #SUB_BUCKETS}. Values above 2^48 are counted in the last bucket.
+ *
+ * @author The ProActive Team
+ */
+public class LogLinearHistogram implements Serializable {
+
+    /** Number of bits of precision kept for each value */
+    static final int SUB_BUCKET_BITS = 3;
+
+    /** Number of linear buckets in each power of two */
+    static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    /** Index of the highest bit of the largest value with its own bucket */
+    static final int MAX_MAGNITUDE = 47;
+
+    /** Number of buckets */
+    static final int BUCKETS = (MAX_MAGNITUDE - SUB_BUCKET_BITS + 2) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts;
+
+    private final AtomicLong sum;
+
+    public LogLinearHistogram() {
+        this.counts = new AtomicLongArray(BUCKETS);
+        this.sum = new AtomicLong();
+    }
+
+    /**
+     * Counts a value. Negative values are counted as 0.
+     *
+     * @param value the value to count
+     */
+    public void record(long value) {
+        if (value < 0) {
+            value = 0;
+        }
+        this.counts.incrementAndGet(indexOf(value));
+        this.sum.addAndGet(value);
+    }
+
+    /**
+     * @return a copy of the current counts
+     */
+    public HistogramSnapshot snapshot() {
+        long[] copy = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            copy[i] = this.counts.get(i);
+        }
+        return new HistogramSnapshot(copy, this.sum.get());
+    }
+
+    static int indexOf(long value) {
+        int magnitude = 63 - Long.numberOfLeadingZeros(value);
+        if (magnitude < SUB_BUCKET_BITS) {
+            return (int) value;
+        }
+        if (magnitude > MAX_MAGNITUDE) {
+            return BUCKETS - 1;
+        }
+        int shift = magnitude - SUB_BUCKET_BITS;
+        return (shift + 1) * SUB_BUCKETS + (int) (value >>> shift) - SUB_BUCKETS;
+    }
+
+    /**
+     * @return the smallest value counted in the bucket index
+     */
+    static long lowestValueOf(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int shift = index / SUB_BUCKETS - 1;
+        long subBucket = index % SUB_BUCKETS + SUB_BUCKETS;
+        return subBucket << shift;
+    }
+
+    /**
+     * @return the largest value counted in the bucket index
+     */
+    static long highestValueOf(int index) {
+        if (index == BUCKETS - 1) {
+            return Long.MAX_VALUE;
+        }
+        return lowestValueOf(index + 1) - 1;
+    }
+}
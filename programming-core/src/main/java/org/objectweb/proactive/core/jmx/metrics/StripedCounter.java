@@ -0,0 +1,131 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.objectweb.proactive.core.jmx.metrics;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+
+/**
+ * A counter incremented concurrently by many threads.
+ *
+ * The count is kept in a single cell until two threads collide while updating it. It is then
+ * spread over several cells, one cache line apart, chosen by the id of the incrementing thread,
+ * so that threads updating the same counter seldom write to the same cache line. Reading the
+ * value sums the cells. Only the value is serialized.
+ *
+ * @author The ProActive Team
+ */
+public class StripedCounter implements Serializable {
+
+    /** Number of longs in a cache line, only the first one of each line is used */
+    private static final int PADDING = 8;
+
+    /** Number of cells, a power of two */
+    private static final int STRIPES;
+
+    static {
+        int stripes = 1;
+        while (stripes < 2 * Runtime.getRuntime().availableProcessors() && stripes < 64) {
+            stripes <<= 1;
+        }
+        STRIPES = stripes;
+    }
+
+    private transient AtomicLong base;
+
+    /** The striped cells, created on the first contended update */
+    private transient volatile AtomicLongArray cells;
+
+    public StripedCounter() {
+        this.base = new AtomicLong();
+    }
+
+    public void increment() {
+        this.add(1);
+    }
+
+    public void add(long delta) {
+        AtomicLongArray cells = this.cells;
+        if (cells == null) {
+            long current = this.base.get();
+            if (this.base.compareAndSet(current, current + delta)) {
+                return;
+            }
+            cells = this.inflate();
+        }
+        int stripe = (int) Thread.currentThread().getId() & (STRIPES - 1);
+        cells.addAndGet(stripe * PADDING, delta);
+    }
+
+    /**
+     * @return the sum of all the increments. Increments done concurrently may or may not be
+     *         counted.
+     */
+    public long get() {
+        long sum = this.base.get();
+        AtomicLongArray cells = this.cells;
+        if (cells != null) {
+            for (int i = 0; i < cells.length(); i += PADDING) {
+                sum += cells.get(i);
+            }
+        }
+        return sum;
+    }
+
+    /**
+     * @return true if the count is spread over several cells
+     */
+    boolean isStriped() {
+        return this.cells != null;
+    }
+
+    private synchronized AtomicLongArray inflate() {
+        if (this.cells == null) {
+            this.cells = new AtomicLongArray(STRIPES * PADDING);
+        }
+        return this.cells;
+    }
+
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        out.defaultWriteObject();
+        out.writeLong(this.get());
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        this.base = new AtomicLong(in.readLong());
+    }
+
+    @Override
+    public String toString() {
+        return Long.toString(this.get());
+    }
+}
@@ -27,6 +27,7 @@ package org.objectweb.proactive.core.jmx.util;
 
 import java.io.IOException;
 import java.io.Serializable;
+import java.util.List;
 
 import javax.management.InstanceNotFoundException;
 import javax.management.ListenerNotFoundException;
@@ -41,6 +42,7 @@ import org.objectweb.proactive.ProActiveInternalObject;
 import org.objectweb.proactive.api.PAActiveObject;
 import org.objectweb.proactive.core.body.AbstractBody;
 import org.objectweb.proactive.core.jmx.ProActiveConnection;
+import org.objectweb.proactive.core.jmx.listeners.NotificationBatchListener;
 import org.objectweb.proactive.core.remoteobject.RemoteObjectExposer;
 import org.objectweb.proactive.core.util.log.Loggers;
 import org.objectweb.proactive.core.util.log.ProActiveLogger;
@@ -51,7 +53,7 @@ import org.objectweb.proactive.core.util.log.ProActiveLogger;
  * This listener is used by the JMXNotificationManager.
  * @author The ProActive Team
  */
-public class JMXNotificationListener implements NotificationListener, ProActiveInternalObject, Serializable {
+public class JMXNotificationListener implements NotificationBatchListener, ProActiveInternalObject, Serializable {
     private transient Logger logger = ProActiveLogger.getLogger(Loggers.JMX);
 
     public JMXNotificationListener() {
@@ -124,6 +126,17 @@ public class JMXNotificationListener implements NotificationListener, ProActiveI
         JMXNotificationManager.getInstance().handleNotification(notification, handback);
     }
 
+    /**
+     * Receives the notifications batched by the remote {@link ProActiveConnection}, in a
+     * single request.
+     */
+    public void handleNotifications(List<Notification> notifications, Object handback) {
+        JMXNotificationManager manager = JMXNotificationManager.getInstance();
+        for (Notification notification : notifications) {
+            manager.handleNotification(notification, handback);
+        }
+    }
+
     private void readObject(java.io.ObjectInputStream in) throws IOException, ClassNotFoundException {
         in.defaultReadObject();
 
@@ -0,0 +1,422 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.objectweb.proactive.core.mop;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UnsupportedEncodingException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.jar.Attributes;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+
+import org.apache.log4j.Logger;
+import org.objectweb.proactive.Main;
+import org.objectweb.proactive.core.config.CentralPAPropertyRepository;
+import org.objectweb.proactive.core.util.ClassDataBundle;
+import org.objectweb.proactive.core.util.log.Loggers;
+import org.objectweb.proactive.core.util.log.ProActiveLogger;
+
+
+/**
+ * A persistent cache of the classes generated by the MOP (stubs and invokers), so that they are
+ * not generated again by every runtime.
+ * <p>
+ * The classes are looked up first in the bundles generated at build time (see
+ * {@link #writeBundle(File, List)} and
+ * {@link CentralPAPropertyRepository#PA_MOP_GENERATED_CLASSES_BUNDLES}), then in the cache
+ * directory of the host ({@link CentralPAPropertyRepository#PA_MOP_GENERATED_CLASSES_CACHE_DIR}),
+ * where the classes generated at runtime are written back.
+ * <p>
+ * A generated class is only reused if it was generated by the same version of ProActive, on the
+ * same version of Java, from the same bytecode of the classes it was generated from and of their
+ * super types; its own bytecode is checked against the checksum recorded with it. Otherwise it is
+ * ignored and generated again.
+ *
+ * @author The ProActive Team
+ */
+public final class GeneratedClassCache {
+
+    static final Logger logger = ProActiveLogger.getLogger(Loggers.STUB_GENERATION);
+
+    /** The format of the bundles and of the cache directory */
+    static final String FORMAT = "1";
+
+    static final String VERSION_ATTRIBUTE = "ProActive-Generated-Classes-Version";
+
+    static final String CHECKSUM_ATTRIBUTE = "ProActive-Generated-Classes-Checksum";
+
+    static final String SOURCE_DIGEST_ATTRIBUTE = "Source-Digest";
+
+    static final String BYTECODE_DIGEST_ATTRIBUTE = "Bytecode-Digest";
+
+    static final String CACHE_FILE_SUFFIX = ".bytecode";
+
+    private static List<Bundle> bundles = null;
+
+    private GeneratedClassCache() {
+    }
+
+    /**
+     * @param loader the class loader the stub generator reads <code>className</code> from
+     * @return the classes the stub of <code>className</code> is generated from, or
+     *         <code>null</code> if they cannot be loaded
+     */
+    static Class<?>[] getStubSources(String className, Class<?>[] genericParameters, ClassLoader loader) {
+        try {
+            Class<?>[] sources = new Class<?>[1 + ((genericParameters == null) ? 0 : genericParameters.length)];
+            sources[0] = Class.forName(className, false, loader);
+            for (int i = 1; i < sources.length; i++) {
+                sources[i] = genericParameters[i - 1];
+            }
+            return sources;
+        } catch (ClassNotFoundException e) {
+            return null;
+        }
+    }
+
+    /**
+     * @param generatedClassName the name of the generated class
+     * @param sources the classes it is generated from
+     * @return the bytecode of the class if a valid one is cached, <code>null</code> otherwise
+     */
+    static byte[] load(String generatedClassName, Class<?>[] sources) {
+        if ((sources == null) || !isEnabled()) {
+            return null;
+        }
+        String sourceDigest = getSourceDigest(sources);
+        if (sourceDigest == null) {
+            return null;
+        }
+        for (Bundle bundle : getBundles()) {
+            byte[] bytecode = bundle.get(generatedClassName, sourceDigest);
+            if (bytecode != null) {
+                logger.debug("Loaded " + generatedClassName + " from the bundle " + bundle.jar.getName());
+                return bytecode;
+            }
+        }
+        File file = getCacheFile(generatedClassName);
+        if ((file != null) && file.exists()) {
+            try {
+                DataInputStream in = new DataInputStream(new FileInputStream(file));
+                try {
+                    if (getVersion().equals(in.readUTF()) && sourceDigest.equals(in.readUTF())) {
+                        String bytecodeDigest = in.readUTF();
+                        byte[] bytecode = new byte[in.readInt()];
+                        in.readFully(bytecode);
+                        if (bytecodeDigest.equals(ClassDataBundle.digest(bytecode))) {
+                            logger.debug("Loaded " + generatedClassName + " from " + file);
+                            return bytecode;
+                        }
+                        logger.warn("Ignoring the corrupted cached class " + file);
+                    }
+                } finally {
+                    in.close();
+                }
+            } catch (IOException e) {
+                logger.debug("Cannot read the cached class " + file, e);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Writes a class generated at runtime in the cache directory, if any. The file is written
+     * under a temporary name then renamed, so that the runtimes of the host that share the
+     * directory never read a partially written class.
+     */
+    static void store(String generatedClassName, Class<?>[] sources, byte[] bytecode) {
+        File file = getCacheFile(generatedClassName);
+        if ((sources == null) || (file == null)) {
+            return;
+        }
+        String sourceDigest = getSourceDigest(sources);
+        if (sourceDigest == null) {
+            return;
+        }
+        File tmp = null;
+        try {
+            file.getParentFile().mkdirs();
+            tmp = File.createTempFile(generatedClassName, ".tmp", file.getParentFile());
+            DataOutputStream out = new DataOutputStream(new FileOutputStream(tmp));
+            try {
+                out.writeUTF(getVersion());
+                out.writeUTF(sourceDigest);
+                out.writeUTF(ClassDataBundle.digest(bytecode));
+                out.writeInt(bytecode.length);
+                out.write(bytecode);
+            } finally {
+                out.close();
+            }
+            if (!tmp.renameTo(file)) {
+                // another runtime of the host may have written it in the meantime
+                tmp.delete();
+            }
+        } catch (IOException e) {
+            logger.debug("Cannot write the generated class " + generatedClassName + " in the cache", e);
+            if (tmp != null) {
+                tmp.delete();
+            }
+        }
+    }
+
+    /**
+     * Generates the stubs and the invokers of classes into a bundle.
+     * @param jar the jar file to write
+     * @param classNames the names of the classes
+     * @throws IOException if the bundle cannot be written
+     * @throws ClassNotFoundException if a class cannot be loaded
+     */
+    public static void writeBundle(File jar, List<String> classNames) throws IOException, ClassNotFoundException {
+        Map<String, byte[]> classes = new TreeMap<String, byte[]>();
+        Map<String, String> sourceDigests = new TreeMap<String, String>();
+        for (String className : classNames) {
+            Class<?>[] sources = getStubSources(className, null, MOPClassLoader.getMOPClassLoader());
+            if (sources == null) {
+                throw new ClassNotFoundException(className);
+            }
+            String sourceDigest = getSourceDigest(sources);
+            if (sourceDigest == null) {
+                throw new IOException("Cannot read the bytecode of " + className + " or of its super types");
+            }
+
+            String stubClassName = Utils.convertClassNameToStubClassName(className, null);
+            classes.put(stubClassName, JavassistByteCodeStubBuilder.create(className, null));
+            sourceDigests.put(stubClassName, sourceDigest);
+
+            byte[] invoker = MethodInvokers.createInvoker(sources[0]);
+            if (invoker != null) {
+                String invokerClassName = MethodInvokers.getInvokerClassName(sources[0]);
+                classes.put(invokerClassName, invoker);
+                sourceDigests.put(invokerClassName, sourceDigest);
+            }
+        }
+
+        Manifest manifest = new Manifest();
+        manifest.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
+        manifest.getMainAttributes().putValue(VERSION_ATTRIBUTE, getVersion());
+        for (Map.Entry<String, byte[]> entry : classes.entrySet()) {
+            Attributes attributes = new Attributes();
+            attributes.putValue(SOURCE_DIGEST_ATTRIBUTE, sourceDigests.get(entry.getKey()));
+            attributes.putValue(BYTECODE_DIGEST_ATTRIBUTE, ClassDataBundle.digest(entry.getValue()));
+            manifest.getEntries().put(getEntryName(entry.getKey()), attributes);
+        }
+        manifest.getMainAttributes().putValue(CHECKSUM_ATTRIBUTE, getChecksum(manifest));
+
+        jar.getAbsoluteFile().getParentFile().mkdirs();
+        JarOutputStream out = new JarOutputStream(new FileOutputStream(jar), manifest);
+        try {
+            for (Map.Entry<String, byte[]> entry : classes.entrySet()) {
+                out.putNextEntry(new JarEntry(getEntryName(entry.getKey())));
+                out.write(entry.getValue());
+                out.closeEntry();
+            }
+        } finally {
+            out.close();
+        }
+    }
+
+    private static boolean isEnabled() {
+        return CentralPAPropertyRepository.PA_MOP_GENERATED_CLASSES_BUNDLES.isSet() ||
+               CentralPAPropertyRepository.PA_MOP_GENERATED_CLASSES_CACHE_DIR.isSet();
+    }
+
+    private static File getCacheFile(String generatedClassName) {
+        if (!CentralPAPropertyRepository.PA_MOP_GENERATED_CLASSES_CACHE_DIR.isSet()) {
+            return null;
+        }
+        return new File(CentralPAPropertyRepository.PA_MOP_GENERATED_CLASSES_CACHE_DIR.getValue(),
+                        generatedClassName + CACHE_FILE_SUFFIX);
+    }
+
+    private static String getEntryName(String generatedClassName) {
+        return generatedClassName.replace('.', '/') + ".class";
+    }
+
+    /**
+     * The generated classes depend on the version of ProActive and on the classes of the JDK
+     */
+    static String getVersion() {
+        return FORMAT + "/" + Main.getProActiveVersion() + "/" + System.getProperty("java.specification.version");
+    }
+
+    /**
+     * The checksum of a bundle covers the version and the digests of all its classes
+     */
+    private static String getChecksum(Manifest manifest) throws UnsupportedEncodingException {
+        StringBuilder sb = new StringBuilder(manifest.getMainAttributes().getValue(VERSION_ATTRIBUTE));
+        for (Map.Entry<String, Attributes> entry : new TreeMap<String, Attributes>(manifest.getEntries()).entrySet()) {
+            sb.append('\n').append(entry.getKey());
+            sb.append(':').append(entry.getValue().getValue(SOURCE_DIGEST_ATTRIBUTE));
+            sb.append(':').append(entry.getValue().getValue(BYTECODE_DIGEST_ATTRIBUTE));
+        }
+        return ClassDataBundle.digest(sb.toString().getBytes("UTF-8"));
+    }
+
+    private static synchronized List<Bundle> getBundles() {
+        if (bundles == null) {
+            bundles = new ArrayList<Bundle>();
+            List<String> paths = CentralPAPropertyRepository.PA_MOP_GENERATED_CLASSES_BUNDLES.getValue();
+            for (String path : (paths == null) ? Collections.<String> emptyList() : paths) {
+                try {
+                    JarFile jar = new JarFile(path);
+                    Manifest manifest = jar.getManifest();
+                    if ((manifest == null) || !getVersion().equals(manifest.getMainAttributes().getValue(VERSION_ATTRIBUTE))) {
+                        logger.info("Ignoring the bundle of generated classes " + path +
+                                    ": it was not generated for this version of ProActive and Java");
+                        jar.close();
+                    } else if (!getChecksum(manifest).equals(manifest.getMainAttributes().getValue(CHECKSUM_ATTRIBUTE))) {
+                        logger.warn("Ignoring the corrupted bundle of generated classes " + path);
+                        jar.close();
+                    } else {
+                        bundles.add(new Bundle(jar, manifest));
+                    }
+                } catch (IOException e) {
+                    logger.warn("Cannot open the bundle of generated classes " + path, e);
+                }
+            }
+        }
+        return bundles;
+    }
+
+    /**
+     * Digests the bytecode of the classes and of all their super types, except those of the JDK
+     * which are identified by the version of Java.
+     * @return the digest, or <code>null</code> if the bytecode of a class cannot be read
+     */
+    static String getSourceDigest(Class<?>[] sources) {
+        try {
+            ByteArrayOutputStream hierarchy = new ByteArrayOutputStream();
+            Set<Class<?>> visited = new HashSet<Class<?>>();
+            for (Class<?> source : sources) {
+                if (!digestHierarchy(source, hierarchy, visited)) {
+                    return null;
+                }
+            }
+            return ClassDataBundle.digest(hierarchy.toByteArray());
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Appends the names and the bytecode of a type and of its super types to <code>out</code>
+     */
+    private static boolean digestHierarchy(Class<?> type, ByteArrayOutputStream out, Set<Class<?>> visited)
+            throws IOException {
+        if ((type == null) || type.isPrimitive() || !visited.add(type)) {
+            return true;
+        }
+        if (type.isArray()) {
+            return digestHierarchy(type.getComponentType(), out, visited);
+        }
+        if (type.getClassLoader() != null) {
+            InputStream in = type.getClassLoader().getResourceAsStream(type.getName().replace('.', '/') + ".class");
+            if (in == null) {
+                // generated classes are not cached
+                return false;
+            }
+            try {
+                out.write(type.getName().getBytes("UTF-8"));
+                byte[] buffer = new byte[8192];
+                for (int read = in.read(buffer); read != -1; read = in.read(buffer)) {
+                    out.write(buffer, 0, read);
+                }
+            } finally {
+                in.close();
+            }
+        }
+        if (!digestHierarchy(type.getSuperclass(), out, visited)) {
+            return false;
+        }
+        for (Class<?> itf : type.getInterfaces()) {
+            if (!digestHierarchy(itf, out, visited)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * A bundle of classes generated at build time
+     */
+    private static class Bundle {
+        final JarFile jar;
+
+        final Manifest manifest;
+
+        Bundle(JarFile jar, Manifest manifest) {
+            this.jar = jar;
+            this.manifest = manifest;
+        }
+
+        byte[] get(String generatedClassName, String sourceDigest) {
+            String entryName = getEntryName(generatedClassName);
+            Attributes attributes = this.manifest.getAttributes(entryName);
+            if ((attributes == null) || !sourceDigest.equals(attributes.getValue(SOURCE_DIGEST_ATTRIBUTE))) {
+                return null;
+            }
+            try {
+                JarEntry entry = this.jar.getJarEntry(entryName);
+                if (entry == null) {
+                    return null;
+                }
+                InputStream in = this.jar.getInputStream(entry);
+                ByteArrayOutputStream bytecode = new ByteArrayOutputStream();
+                try {
+                    byte[] buffer = new byte[8192];
+                    for (int read = in.read(buffer); read != -1; read = in.read(buffer)) {
+                        bytecode.write(buffer, 0, read);
+                    }
+                } finally {
+                    in.close();
+                }
+                byte[] bytes = bytecode.toByteArray();
+                if (ClassDataBundle.digest(bytes).equals(attributes.getValue(BYTECODE_DIGEST_ATTRIBUTE))) {
+                    return bytes;
+                }
+                logger.warn("Ignoring the corrupted class " + entryName + " of the bundle " + this.jar.getName());
+            } catch (IOException e) {
+                logger.warn("Cannot read " + entryName + " from the bundle " + this.jar.getName(), e);
+            }
+            return null;
+        }
+    }
+}
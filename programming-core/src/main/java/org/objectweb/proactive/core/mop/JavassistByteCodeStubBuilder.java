@@ -52,23 +52,54 @@ public class JavassistByteCodeStubBuilder {
 
     protected static final Logger logger = ProActiveLogger.getLogger(Loggers.STUB_GENERATION);
 
-    private static boolean classPoolInitialized = false;
-
-    private static ClassPool pool = ClassPool.getDefault();
+    // lazy-loaded default class pool
+    private static class ClassPoolHolder {
+        private static final ClassPool POOL = appendProActiveClassPath(ClassPool.getDefault());
+    }
 
-    public synchronized static ClassPool getClassPool() {
-        if (!classPoolInitialized) {
-            pool.appendClassPath(new LoaderClassPath(ProActiveRuntime.class.getClassLoader()));
-            pool.appendClassPath(new LoaderClassPath(MOPClassLoader.getMOPClassLoader()));
-            classPoolInitialized = true;
+    // lazy-loaded partitions of the class pool used to generate classes
+    private static class PartitionsHolder {
+        private static final ClassPool[] PARTITIONS = new ClassPool[Runtime.getRuntime().availableProcessors()];
+        static {
+            for (int i = 0; i < PARTITIONS.length; i++) {
+                // classes only known by the default pool (made at runtime) are found in the parent
+                ClassPool partition = new ClassPool(getClassPool());
+                partition.childFirstLookup = true;
+                partition.appendSystemPath();
+                PARTITIONS[i] = appendProActiveClassPath(partition);
+            }
         }
+    }
+
+    private static ClassPool appendProActiveClassPath(ClassPool pool) {
+        pool.appendClassPath(new LoaderClassPath(ProActiveRuntime.class.getClassLoader()));
+        pool.appendClassPath(new LoaderClassPath(MOPClassLoader.getMOPClassLoader()));
         return pool;
     }
 
+    public static ClassPool getClassPool() {
+        return ClassPoolHolder.POOL;
+    }
+
+    /**
+     * Javassist class pools are not meant to be modified by several threads at once, so the
+     * classes are generated in partitions of independent pools: a class is always generated from
+     * the partition of the class it is generated from, while holding the lock of the partition.
+     * Classes generated from classes of different partitions are generated concurrently.
+     *
+     * @param className the name of the class the generated class is generated from
+     * @return the class pool of the partition of the class
+     */
+    static ClassPool getClassPool(String className) {
+        ClassPool[] partitions = PartitionsHolder.PARTITIONS;
+        return partitions[(className.hashCode() & Integer.MAX_VALUE) % partitions.length];
+    }
+
     /**
      * <p>Creates the bytecode for a stub on the given class</p>
      * <p>This method should be accessed by one thread only for a given class name, otherwise
-     * it may lead to unsupported concurrent class generation, resulting in a "frozen class" javassist runtime exception </p>
+     * it may lead to unsupported concurrent class generation, resulting in a "frozen class" javassist runtime exception.
+     * Stubs of classes of different partitions (see {@link #getClassPool(String)}) are generated concurrently.</p>
      *
      * @param className         the name of the class on which a stub class is created
      * @param genericParameters TODO
@@ -77,7 +108,8 @@ public class JavassistByteCodeStubBuilder {
      */
     @SuppressWarnings("unchecked")
     public static byte[] create(String className, Class<?>[] genericParameters) throws NoClassDefFoundError {
-        synchronized (MOPClassLoader.getMOPClassLoader()) {
+        ClassPool pool = getClassPool(className);
+        synchronized (pool) {
             CtClass generatedCtClass = null;
 
             if (genericParameters == null) {
@@ -85,7 +117,6 @@ public class JavassistByteCodeStubBuilder {
             }
             Method[] reifiedMethodsWithoutGenerics;
             try {
-                ClassPool pool = getClassPool();
                 generatedCtClass = pool.makeClass(Utils.convertClassNameToStubClassName(className, genericParameters));
                 generatedCtClass.getClassFile().setMajorVersion(ClassFile.JAVA_6);
 
@@ -228,6 +259,140 @@ public class JavassistByteCodeStubBuilder {
         }
     }
 
+    /**
+     * <p>Creates the bytecode of an invoker calling the given methods directly: the generated
+     * {@link MethodInvoker#invoke(Object, int, Object[])} selects the method with a
+     * <code>switch</code> on its index in <code>methods</code>, casts the target and the arguments
+     * to the declared types and calls the method, so that the JIT can inline through it.</p>
+     *
+     * @param invokerClassName the name of the invoker class
+     * @param declaringClass   the class declaring the methods
+     * @param methods          public methods of <code>declaringClass</code> with public types
+     * @return the bytecode of the invoker class
+     */
+    public static byte[] createInvoker(String invokerClassName, Class<?> declaringClass,
+            java.lang.reflect.Method[] methods) {
+        ClassPool partition = getClassPool(declaringClass.getName());
+        synchronized (partition) {
+            try {
+                // the classes of the class loader of the declaring class are only looked up in a
+                // pool dropped once the invoker is generated, so that the shared pools do not keep
+                // the class loader
+                ClassPool pool = new ClassPool(partition);
+                pool.childFirstLookup = true;
+                pool.appendClassPath(new LoaderClassPath(declaringClass.getClassLoader()));
+                pool.appendClassPath(new ClassClassPath(MethodInvoker.class));
+
+                CtClass generatedCtClass = pool.makeClass(invokerClassName);
+                generatedCtClass.getClassFile().setMajorVersion(ClassFile.JAVA_6);
+                CtClass ctInvoker = pool.get(MethodInvoker.class.getName());
+                generatedCtClass.setSuperclass(ctInvoker);
+                generatedCtClass.addConstructor(CtNewConstructor.defaultConstructor(generatedCtClass));
+
+                String target = "((" + getSourceName(declaringClass) + ") target)";
+                StringBuilder body = new StringBuilder();
+                body.append("public Object invoke(Object target, int methodIndex, Object[] args) throws Throwable {\n");
+                body.append("switch (methodIndex) {\n");
+                for (int i = 0; i < methods.length; i++) {
+                    StringBuilder call = new StringBuilder(target + "." + methods[i].getName() + "(");
+                    Class<?>[] parameterTypes = methods[i].getParameterTypes();
+                    for (int j = 0; j < parameterTypes.length; j++) {
+                        if (j > 0) {
+                            call.append(", ");
+                        }
+                        call.append(unwrapArgument(parameterTypes[j], "args[" + j + "]"));
+                    }
+                    call.append(")");
+
+                    body.append("case " + i + ":\n");
+                    Class<?> returnType = methods[i].getReturnType();
+                    if (returnType == Void.TYPE) {
+                        body.append(call + ";\nreturn null;\n");
+                    } else if (returnType.isPrimitive()) {
+                        body.append("return " + wrapResult(returnType, call.toString()) + ";\n");
+                    } else {
+                        body.append("return " + call + ";\n");
+                    }
+                }
+                body.append("default:\n");
+                body.append("throw new IllegalArgumentException(\"No method of index \" + methodIndex + \" in " +
+                            invokerClassName + "\");\n");
+                body.append("}\n}");
+
+                generatedCtClass.addMethod(CtNewMethod.make(body.toString(), generatedCtClass));
+
+                if (logger.isDebugEnabled()) {
+                    logger.debug("generated invoker : " + invokerClassName + " for " + methods.length + " methods");
+                }
+
+                byte[] bytecode = generatedCtClass.toBytecode();
+
+                if (CentralPAPropertyRepository.PA_MOP_WRITESTUBONDISK.isTrue()) {
+                    generatedCtClass.debugWriteFile(CentralPAPropertyRepository.PA_MOP_GENERATEDCLASSES_DIR.getValue());
+                }
+
+                generatedCtClass.detach();
+
+                return bytecode;
+            } catch (Exception e) {
+                throw new RuntimeException("Failed to generate invoker for class " + declaringClass.getName() +
+                                           " with javassist : " + e.getMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * @return the name of a type in the source code of a generated method
+     */
+    private static String getSourceName(Class<?> type) {
+        if (type.isArray()) {
+            return getSourceName(type.getComponentType()) + "[]";
+        }
+        return type.getName();
+    }
+
+    private static String unwrapArgument(Class<?> type, String argument) {
+        if (!type.isPrimitive()) {
+            return "(" + getSourceName(type) + ") " + argument;
+        } else if (type == Boolean.TYPE) {
+            return "((java.lang.Boolean) " + argument + ").booleanValue()";
+        } else if (type == Byte.TYPE) {
+            return "((java.lang.Byte) " + argument + ").byteValue()";
+        } else if (type == Character.TYPE) {
+            return "((java.lang.Character) " + argument + ").charValue()";
+        } else if (type == Double.TYPE) {
+            return "((java.lang.Double) " + argument + ").doubleValue()";
+        } else if (type == Float.TYPE) {
+            return "((java.lang.Float) " + argument + ").floatValue()";
+        } else if (type == Integer.TYPE) {
+            return "((java.lang.Integer) " + argument + ").intValue()";
+        } else if (type == Long.TYPE) {
+            return "((java.lang.Long) " + argument + ").longValue()";
+        } else {
+            return "((java.lang.Short) " + argument + ").shortValue()";
+        }
+    }
+
+    private static String wrapResult(Class<?> type, String result) {
+        if (type == Boolean.TYPE) {
+            return "java.lang.Boolean.valueOf(" + result + ")";
+        } else if (type == Byte.TYPE) {
+            return "java.lang.Byte.valueOf(" + result + ")";
+        } else if (type == Character.TYPE) {
+            return "java.lang.Character.valueOf(" + result + ")";
+        } else if (type == Double.TYPE) {
+            return "java.lang.Double.valueOf(" + result + ")";
+        } else if (type == Float.TYPE) {
+            return "java.lang.Float.valueOf(" + result + ")";
+        } else if (type == Integer.TYPE) {
+            return "java.lang.Integer.valueOf(" + result + ")";
+        } else if (type == Long.TYPE) {
+            return "java.lang.Long.valueOf(" + result + ")";
+        } else {
+            return "java.lang.Short.valueOf(" + result + ")";
+        }
+    }
+
     static Map<String, Method> methodsIndexer(CtClass superCtClass, List<String> classesIndexer)
             throws NotFoundException {
         // Recursively calls getDeclaredMethods () on the target type
@@ -384,7 +549,7 @@ public class JavassistByteCodeStubBuilder {
                 if (fieldToCache) {
                     // the generated has to cache the method
 
-                    cachedField = new CtField(getClassPool().get(reifiedMethod.getCtMethod().getReturnType().getName()),
+                    cachedField = new CtField(generatedClass.getClassPool().get(reifiedMethod.getCtMethod().getReturnType().getName()),
                                               reifiedMethod.getCtMethod().getName() + i,
                                               generatedClass);
 
@@ -572,7 +737,7 @@ public class JavassistByteCodeStubBuilder {
      */
     public static CtMethod[] createStubObjectMethods(CtClass generatedClass)
             throws CannotCompileException, NotFoundException {
-        CtField proxyField = new CtField(getClassPool().getDefault().get(Proxy.class.getName()),
+        CtField proxyField = new CtField(generatedClass.getClassPool().get(Proxy.class.getName()),
                                          "myProxy",
                                          generatedClass);
         generatedClass.addField(proxyField);
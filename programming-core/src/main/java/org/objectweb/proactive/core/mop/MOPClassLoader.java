@@ -32,8 +32,11 @@ import java.lang.reflect.Method;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.net.URLClassLoader;
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
 
 import org.apache.log4j.Logger;
 import org.objectweb.proactive.core.util.log.Loggers;
@@ -44,7 +47,14 @@ public class MOPClassLoader extends URLClassLoader {
 
     private static Logger logger = ProActiveLogger.getLogger(Loggers.MOP);
 
-    public Map<String, byte[]> classDataCache = new HashMap<String, byte[]>();
+    public Map<String, byte[]> classDataCache = new ConcurrentHashMap<String, byte[]>();
+
+    /**
+     * The generations of classes, by class name: a class is generated by the first thread that
+     * asks for it, while the others wait for the result. Classes of different names are generated
+     * concurrently.
+     */
+    private final ConcurrentHashMap<String, FutureTask<Class<?>>> generations = new ConcurrentHashMap<String, FutureTask<Class<?>>>();
 
     // lazy-loaded singleton
     private static class LazyHolder {
@@ -77,7 +87,7 @@ public class MOPClassLoader extends URLClassLoader {
      * @return An array representing the bytecode of the stub, null if the
      * stub could not be found or created
      */
-    public synchronized byte[] getClassData(String classname) {
+    public byte[] getClassData(String classname) {
         byte[] cb = classDataCache.get(classname);
 
         if (cb == null) {
@@ -166,7 +176,7 @@ public class MOPClassLoader extends URLClassLoader {
         return this.loadClass(name, genericParameters, null);
     }
 
-    protected synchronized Class<?> loadClass(String name, Class<?>[] genericParameters, ClassLoader cl)
+    protected Class<?> loadClass(final String name, final Class<?>[] genericParameters, final ClassLoader cl)
             throws ClassNotFoundException {
         if (this.getParent() != null) {
             try {
@@ -192,71 +202,118 @@ public class MOPClassLoader extends URLClassLoader {
             }
         } catch (ClassNotFoundException e) {
             if (PAProxyBuilder.doesClassNameEndWithPAProxySuffix(name) && !(Utils.isStubClassName(name))) {
-                try {
-                    byte[] data = PAProxyBuilder.generatePAProxy(PAProxyBuilder.getBaseClassNameFromPAProxyName(name));
-                    classDataCache.put(name, data);
-
-                    Class<?> baseCl = Class.forName(PAProxyBuilder.getBaseClassNameFromPAProxyName(name));
-
-                    if (cl == null) {
-                        cl = baseCl.getClassLoader();
+                return generate(name, new Callable<Class<?>>() {
+                    public Class<?> call() throws Exception {
+                        return generatePAProxy(name, cl);
                     }
-
-                    Class<?> clazz = callDefineClassUsingReflection(name, data, cl);
-                    logger.debug("Generated paproxy class : " + name + "loaded into " +
-                                 clazz.getClassLoader().toString());
-                    return clazz;
-                } catch (Exception ex) {
-                    ex.printStackTrace();
-                    logger.debug(ex);
-                    throw new ClassNotFoundException(ex.getMessage());
-                }
-
+                });
             }
 
             if (Utils.isStubClassName(name)) {
                 // Test if the name of the class is actually a request for
                 // a stub class to be created
-
-                //    e.printStackTrace();
-                String classname = Utils.convertStubClassNameToClassName(name);
-
-                if (PAProxyBuilder.doesClassNameEndWithPAProxySuffix(classname)) {
-                    try {
-                        loadClass(classname);
-                        //                    callDefineClassUsingReflection(classname, data);
-                    } catch (Exception ex) {
-                        ex.printStackTrace();
-                        logger.debug(ex);
-                        throw new ClassNotFoundException(ex.getMessage());
+                return generate(name, new Callable<Class<?>>() {
+                    public Class<?> call() throws Exception {
+                        return generateStub(name, genericParameters);
                     }
-                }
+                });
+            } else {
+                logger.debug("Cannot generate class " + name + " as a stub class");
+                throw e;
+            }
+        }
+    }
 
-                byte[] data = null;
+    /**
+     * Generates a class once: concurrent requests for the same name wait for the generation
+     * started by the first one. A failed generation is forgotten so that it can be retried.
+     */
+    private Class<?> generate(String name, Callable<Class<?>> generation) throws ClassNotFoundException {
+        FutureTask<Class<?>> task = new FutureTask<Class<?>>(generation);
+        FutureTask<Class<?>> existing = this.generations.putIfAbsent(name, task);
+        if (existing == null) {
+            existing = task;
+            task.run();
+        }
+        try {
+            return existing.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new ClassNotFoundException("Interrupted while waiting for the generation of " + name, ex);
+        } catch (ExecutionException ex) {
+            this.generations.remove(name, existing);
+            Throwable cause = ex.getCause();
+            if (cause instanceof ClassNotFoundException) {
+                throw (ClassNotFoundException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new ClassNotFoundException(cause.getMessage(), cause);
+        }
+    }
 
-                data = JavassistByteCodeStubBuilder.create(classname, genericParameters);
-                classDataCache.put(name, data);
+    private Class<?> generatePAProxy(String name, ClassLoader cl) throws ClassNotFoundException {
+        try {
+            byte[] data = PAProxyBuilder.generatePAProxy(PAProxyBuilder.getBaseClassNameFromPAProxyName(name));
+            classDataCache.put(name, data);
 
-                // We use introspection to invoke the defineClass method to avoid the normal 
-                // class Access checking. This method is supposed to be protected which means 
-                // we should not be accessing it but the access policy file allows us to access it freely.
-                try {
-                    Class<?> clazz = callDefineClassUsingReflection(name, data, null);
+            Class<?> baseCl = Class.forName(PAProxyBuilder.getBaseClassNameFromPAProxyName(name));
 
-                    logger.debug("Generated class : " + name + "loaded into " + clazz.getClassLoader().toString());
-                    return clazz;
-                } catch (Exception ex) {
-                    logger.debug(ex);
-                    throw new ClassNotFoundException(ex.getMessage());
-                }
-            } else {
-                logger.debug("Cannot generate class " + name + " as a stub class");
-                throw e;
+            if (cl == null) {
+                cl = baseCl.getClassLoader();
             }
+
+            Class<?> clazz = callDefineClassUsingReflection(name, data, cl);
+            logger.debug("Generated paproxy class : " + name + "loaded into " + clazz.getClassLoader().toString());
+            return clazz;
+        } catch (Exception ex) {
+            ex.printStackTrace();
+            logger.debug(ex);
+            throw new ClassNotFoundException(ex.getMessage());
+        }
+    }
+
+    private Class<?> generateStub(String name, Class<?>[] genericParameters) throws ClassNotFoundException {
+        //    e.printStackTrace();
+        String classname = Utils.convertStubClassNameToClassName(name);
+
+        if (PAProxyBuilder.doesClassNameEndWithPAProxySuffix(classname)) {
+            try {
+                loadClass(classname);
+                //                    callDefineClassUsingReflection(classname, data);
+            } catch (Exception ex) {
+                ex.printStackTrace();
+                logger.debug(ex);
+                throw new ClassNotFoundException(ex.getMessage());
+            }
+        }
+
+        // reuse the stub generated at build time or by a previous runtime if any
+        Class<?>[] sources = GeneratedClassCache.getStubSources(classname, genericParameters, this);
+        byte[] data = GeneratedClassCache.load(name, sources);
+        if (data == null) {
+            data = JavassistByteCodeStubBuilder.create(classname, genericParameters);
+            GeneratedClassCache.store(name, sources, data);
+        }
+        classDataCache.put(name, data);
+
+        // We use introspection to invoke the defineClass method to avoid the normal 
+        // class Access checking. This method is supposed to be protected which means 
+        // we should not be accessing it but the access policy file allows us to access it freely.
+        try {
+            Class<?> clazz = callDefineClassUsingReflection(name, data, null);
+
+            logger.debug("Generated class : " + name + "loaded into " + clazz.getClassLoader().toString());
+            return clazz;
+        } catch (Exception ex) {
+            logger.debug(ex);
+            throw new ClassNotFoundException(ex.getMessage());
         }
     }
 
-    private Class<?> callDefineClassUsingReflection(String name, byte[] data, ClassLoader delegateCl)
+    Class<?> callDefineClassUsingReflection(String name, byte[] data, ClassLoader delegateCl)
             throws ClassNotFoundException, SecurityException, NoSuchMethodException, IllegalArgumentException,
             IllegalAccessException, InvocationTargetException {
         Class<?> clc = Class.forName("java.lang.ClassLoader");
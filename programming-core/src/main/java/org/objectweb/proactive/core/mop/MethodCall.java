@@ -34,9 +34,13 @@ import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 import org.apache.log4j.Logger;
 import org.objectweb.proactive.api.PAFuture;
+import org.objectweb.proactive.core.body.future.FuturePool;
+import org.objectweb.proactive.core.config.CentralPAPropertyRepository;
 import org.objectweb.proactive.core.exceptions.ExceptionHandler;
 import org.objectweb.proactive.core.mop.MethodCallInfo.SynchronousReason;
 import org.objectweb.proactive.core.util.converter.ObjectToByteConverter;
@@ -72,17 +76,39 @@ public class MethodCall implements java.io.Serializable, Cloneable {
     private static int RECYCLE_POOL_SIZE = 30;
 
     /**
-     * The pool of recycled methodcall objects
+     * The size of the pool of each thread
      */
-    private static MethodCall[] recyclePool;
+    private static final int THREAD_RECYCLE_POOL_SIZE = 8;
 
     /**
-     * Position inside the pool
+     * If true, the MethodCall objects released by the thread that used them are kept in a pool of
+     * this thread. Otherwise, they go to the pool shared by all the threads.
      */
-    private static int index;
+    private static final boolean THREAD_LOCAL_RECYCLING = CentralPAPropertyRepository.PA_MOP_THREAD_LOCAL_RECYCLING.isTrue();
+
+    /**
+     * The pool of recycled methodcall objects shared by all the threads, a slot being
+     * <code>null</code> when empty
+     */
+    private static volatile AtomicReferenceArray<MethodCall> recyclePool;
+
+    /**
+     * Number of objects in the shared pool, so that an empty pool is not scanned
+     */
+    private static final AtomicInteger recyclePoolCount = new AtomicInteger();
+
+    /**
+     * The pools of recycled methodcall objects of the threads
+     */
+    private static final ThreadLocal<ThreadRecyclePool> threadRecyclePools = new ThreadLocal<ThreadRecyclePool>() {
+        @Override
+        protected ThreadRecyclePool initialValue() {
+            return new ThreadRecyclePool();
+        }
+    };
 
     /**        Indicates if the recycling of MethodCall object is on. */
-    private static boolean recycleMethodCallObject;
+    private static volatile boolean recycleMethodCallObject;
 
     private static java.util.Hashtable<String, Method> reifiedMethodsTable = new java.util.Hashtable<String, Method>();
 
@@ -109,6 +135,12 @@ public class MethodCall implements java.io.Serializable, Cloneable {
      */
     private transient Method reifiedMethod;
 
+    /**
+     * The generated invoker of the reified method and the index of the method in it, resolved on
+     * first execution. A <code>null</code> invoker after resolution means reflection is used.
+     */
+    private transient MethodInvokers.Invocation invocation;
+
     private String key;
 
     private transient MethodCallExceptionContext exceptioncontext;
@@ -120,22 +152,61 @@ public class MethodCall implements java.io.Serializable, Cloneable {
      * in some case (such as group communication) or to create a stronger
      * asynchronism (serialization of parameters then return to the thread of
      * execution before the end of the rendez-vous).
+     * The array is never modified once built, so it can be shared by all the copies
+     * of a method call sent to the members of a group.
      */
     private byte[] serializedEffectiveArguments = null;
 
     /**
-     * transform the effectiveArguments into a byte[]
+     * transform the effectiveArguments into a byte[], unless they are or contain futures: a future
+     * must be serialized when the request is sent, so that an automatic continuation is registered
+     * for its destination instead of waiting for it, and deserialized in the context of the body
+     * receiving the request. If the effectiveArguments cannot be serialized, they are kept as
+     * they are, so that the failure is reported when the request is sent.
+     * @return <code>true</code> if the effectiveArguments are held as a byte[]
      * */
-    public void transformEffectiveArgumentsIntoByteArray() {
+    public synchronized boolean transformEffectiveArgumentsIntoByteArray() {
         if ((this.serializedEffectiveArguments == null) && (this.effectiveArguments != null)) {
+            FuturePool.setSerializingSharedArguments(true);
             try {
                 this.serializedEffectiveArguments = ObjectToByteConverter.MarshallStream.convert(this.effectiveArguments);
+            } catch (FuturePool.SharedFutureException e) {
+                return false;
             } catch (Exception e) {
-                e.printStackTrace();
+                logger.debug("Could not serialize the arguments of " + getName() + " once for all requests", e);
+                return false;
+            } finally {
+                FuturePool.setSerializingSharedArguments(false);
             }
 
             this.effectiveArguments = null;
         }
+        return this.serializedEffectiveArguments != null;
+    }
+
+    /**
+     * Returns <code>true</code> if the effective arguments are currently held as a byte[], i.e.
+     * they have not been deserialized yet.
+     */
+    public synchronized boolean hasSerializedEffectiveArguments() {
+        return (this.serializedEffectiveArguments != null) && (this.effectiveArguments == null);
+    }
+
+    /**
+     * Deserializes the effective arguments if they are held as a byte[]. The arguments of a
+     * received method call are only deserialized on first access, e.g. when the request is served.
+     */
+    private synchronized Object[] unmarshallEffectiveArguments() {
+        if ((this.serializedEffectiveArguments != null) && (this.effectiveArguments == null)) {
+            try {
+                this.effectiveArguments = (Object[]) ProActiveByteToObjectConverter.MarshallStream.convert(this.serializedEffectiveArguments);
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+
+            this.serializedEffectiveArguments = null;
+        }
+        return this.effectiveArguments;
     }
 
     /**
@@ -151,8 +222,8 @@ public class MethodCall implements java.io.Serializable, Cloneable {
             recycleMethodCallObject = value;
             if (value) {
                 // Creates the recycle poll for MethodCall objects
-                recyclePool = new MethodCall[RECYCLE_POOL_SIZE];
-                index = 0;
+                recyclePoolCount.set(0);
+                recyclePool = new AtomicReferenceArray<MethodCall>(RECYCLE_POOL_SIZE);
             } else {
                 // If we do not want to recycle MethodCall objects anymore,
                 // let's free some memory by permitting the reyclePool to be
@@ -167,7 +238,7 @@ public class MethodCall implements java.io.Serializable, Cloneable {
      *
      * @return                        <code>true</code> if recycling is on, <code>false</code> otherwise
      */
-    public static synchronized boolean getRecycleMethodCallObject() {
+    public static boolean getRecycleMethodCallObject() {
         return MethodCall.recycleMethodCallObject;
     }
 
@@ -184,21 +255,21 @@ public class MethodCall implements java.io.Serializable, Cloneable {
      *        @return        a MethodCall object representing an invocation of method
      *        <code>reifiedMethod</code> with arguments <code>effectiveArguments</code>
      */
-    public synchronized static MethodCall getMethodCall(Method reifiedMethod,
-            Map<TypeVariable<?>, Class<?>> genericTypesMapping, Object[] effectiveArguments,
-            MethodCallExceptionContext exceptioncontext) {
+    public static MethodCall getMethodCall(Method reifiedMethod, Map<TypeVariable<?>, Class<?>> genericTypesMapping,
+            Object[] effectiveArguments, MethodCallExceptionContext exceptioncontext) {
         exceptioncontext = MethodCallExceptionContext.optimize(exceptioncontext);
 
         if (MethodCall.getRecycleMethodCallObject()) {
-            // Finds a recycled MethodCall object in the pool, cleans it and
-            // eventually returns it
-            if (MethodCall.index > 0) {
-                // gets the object from the pool
-                MethodCall.index--;
-                MethodCall result = MethodCall.recyclePool[MethodCall.index];
-                MethodCall.recyclePool[MethodCall.index] = null;
+            // Finds a recycled MethodCall object in the pool of the thread, then in the shared
+            // pool, and refurbishes it
+            MethodCall result = THREAD_LOCAL_RECYCLING ? threadRecyclePools.get().take() : null;
+            if (result == null) {
+                result = takeFromRecyclePool();
+            }
+            if (result != null) {
                 // Refurbishes the object
                 result.reifiedMethod = reifiedMethod;
+                result.invocation = null;
                 result.genericTypesMapping = genericTypesMapping;
                 result.effectiveArguments = effectiveArguments;
                 result.key = buildKey(reifiedMethod, genericTypesMapping);
@@ -210,7 +281,24 @@ public class MethodCall implements java.io.Serializable, Cloneable {
         return new MethodCall(reifiedMethod, genericTypesMapping, effectiveArguments, exceptioncontext);
     }
 
-    public synchronized static MethodCall getMethodCall(Method reifiedMethod, Object[] effectiveArguments,
+    private static MethodCall takeFromRecyclePool() {
+        AtomicReferenceArray<MethodCall> pool = MethodCall.recyclePool;
+        if ((pool == null) || (recyclePoolCount.get() == 0)) {
+            return null;
+        }
+        for (int i = 0; i < pool.length(); i++) {
+            if (pool.get(i) != null) {
+                MethodCall result = pool.getAndSet(i, null);
+                if (result != null) {
+                    recyclePoolCount.decrementAndGet();
+                    return result;
+                }
+            }
+        }
+        return null;
+    }
+
+    public static MethodCall getMethodCall(Method reifiedMethod, Object[] effectiveArguments,
             Map<TypeVariable<?>, Class<?>> genericTypesMapping) {
         MethodCallExceptionContext exceptioncontext = ExceptionHandler.getContextForCall(reifiedMethod);
         return getMethodCall(reifiedMethod, genericTypesMapping, effectiveArguments, exceptioncontext);
@@ -220,27 +308,58 @@ public class MethodCall implements java.io.Serializable, Cloneable {
      *        Tells the recycling process that the MethodCall object passed as parameter
      *        is ready for recycling. It is the responsibility of the caller of this
      *        method to make sure that this object can safely be disposed of.
+     *        The object is kept for the next calls of the current thread, which should
+     *        be the thread that is done with it.
      */
-    public synchronized static void setMethodCall(MethodCall mc) {
-        if (MethodCall.getRecycleMethodCallObject()) {
-            // If there's still one slot left in the pool
-            if (MethodCall.recyclePool[MethodCall.index] == null) {
-                // Cleans up a MethodCall object
-                // It is preferable to do it here rather than at the moment
-                // the object is picked out of the pool, because it allows
-                // garbage-collecting the objects referenced in here                
-                mc.reifiedMethod = null;
-                mc.genericTypesMapping = null;
-                mc.effectiveArguments = null;
-                mc.tagsForBarrier = null;
-                mc.key = null;
-                mc.exceptioncontext = null;
-                // Inserts the object in the pool
-                MethodCall.recyclePool[MethodCall.index] = mc;
-                MethodCall.index++;
-                if (MethodCall.index == RECYCLE_POOL_SIZE) {
-                    MethodCall.index = RECYCLE_POOL_SIZE - 1;
-                }
+    public static void setMethodCall(MethodCall mc) {
+        if (!MethodCall.getRecycleMethodCallObject() || !isRecyclable(mc)) {
+            return;
+        }
+        if (THREAD_LOCAL_RECYCLING) {
+            ThreadRecyclePool pool = threadRecyclePools.get();
+            if (!pool.isFull()) {
+                mc.clean();
+                pool.put(mc);
+                return;
+            }
+        }
+        putInRecyclePool(mc);
+    }
+
+    /**
+     * Subclasses carry state of their own, so they cannot be refurbished as another call
+     */
+    private static boolean isRecyclable(MethodCall mc) {
+        return mc.getClass() == MethodCall.class;
+    }
+
+    /**
+     * Cleans up a MethodCall object
+     * It is preferable to do it here rather than at the moment
+     * the object is picked out of the pool, because it allows
+     * garbage-collecting the objects referenced in here
+     */
+    private void clean() {
+        this.reifiedMethod = null;
+        this.invocation = null;
+        this.genericTypesMapping = null;
+        this.effectiveArguments = null;
+        this.serializedEffectiveArguments = null;
+        this.tagsForBarrier = null;
+        this.key = null;
+        this.exceptioncontext = null;
+    }
+
+    private static void putInRecyclePool(MethodCall mc) {
+        AtomicReferenceArray<MethodCall> pool = MethodCall.recyclePool;
+        if ((pool == null) || (recyclePoolCount.get() >= pool.length())) {
+            return;
+        }
+        mc.clean();
+        for (int i = 0; i < pool.length(); i++) {
+            if ((pool.get(i) == null) && pool.compareAndSet(i, null, mc)) {
+                recyclePoolCount.incrementAndGet();
+                return;
             }
         }
     }
@@ -290,8 +409,11 @@ public class MethodCall implements java.io.Serializable, Cloneable {
     public MethodCall getShallowCopy() {
         MethodCall mc = new MethodCall();
         mc.reifiedMethod = this.getReifiedMethod();
-        mc.serializedEffectiveArguments = this.serializedEffectiveArguments;
-        mc.effectiveArguments = this.effectiveArguments;
+        mc.invocation = this.invocation;
+        synchronized (this) {
+            mc.serializedEffectiveArguments = this.serializedEffectiveArguments;
+            mc.effectiveArguments = this.effectiveArguments;
+        }
         mc.genericTypesMapping = this.getGenericTypesMapping();
         mc.key = this.key;
         mc.exceptioncontext = this.exceptioncontext;
@@ -300,8 +422,12 @@ public class MethodCall implements java.io.Serializable, Cloneable {
 
     /**
      *        Executes the instance method call represented by this object.
+     *        The method is called through the invoker generated for its declaring class
+     *        when there is one, by reflection otherwise.
+     *        As it has always been, a target that is a future is waited for and the method
+     *        is called on its value rather than on the future, whichever way it is called.
      *
-     * @param targetObject        the Object the method is called on
+     * @param targetObject        the Object the method is called on, or a future of it
      * @throws MethodCallExecutionFailedException thrown if the reflection of the
      * call failed.
      * @throws InvocationTargetException thrown if the execution of the reified
@@ -314,16 +440,7 @@ public class MethodCall implements java.io.Serializable, Cloneable {
      * wrapper object.
      */
     public Object execute(Object targetObject) throws InvocationTargetException, MethodCallExecutionFailedException {
-        // A test at how non-public methods can be reflected
-        if ((this.serializedEffectiveArguments != null) && (this.effectiveArguments == null)) {
-            try {
-                this.effectiveArguments = (Object[]) ProActiveByteToObjectConverter.MarshallStream.convert(this.serializedEffectiveArguments);
-            } catch (Exception e) {
-                e.printStackTrace();
-            }
-
-            this.serializedEffectiveArguments = null;
-        }
+        Object[] arguments = this.unmarshallEffectiveArguments();
 
         if (logger.isDebugEnabled()) {
             logger.debug("MethodCall.execute() name = " + this.getName());
@@ -333,16 +450,31 @@ public class MethodCall implements java.io.Serializable, Cloneable {
             logger.debug("MethodCall.execute() targetObject " + targetObject);
         }
 
+        if (this.invocation == null) {
+            this.invocation = MethodInvokers.get(this.reifiedMethod);
+        }
+
+        // a future would be a stub of the declaring class, the invoker would call the stub
+        targetObject = PAFuture.getFutureValue(targetObject);
+        // the invoker is only given arguments it can cast, reflection reports the others
+        if ((this.invocation.invoker != null) && this.reifiedMethod.getDeclaringClass().isInstance(targetObject) &&
+            this.invocation.accepts(arguments)) {
+            try {
+                return this.invocation.invoker.invoke(targetObject, this.invocation.index, arguments);
+            } catch (Throwable e) {
+                throw new InvocationTargetException(e);
+            }
+        }
+
         if (this.reifiedMethod.getParameterTypes().length > 0) {
             this.reifiedMethod.setAccessible(true);
         }
 
         try {
-            targetObject = PAFuture.getFutureValue(targetObject);
             // In order to call from this class protected methods of the Active Object,
             // we need to bypass the Java Runtime security. 
             this.reifiedMethod.setAccessible(true);
-            return this.reifiedMethod.invoke(targetObject, this.effectiveArguments);
+            return this.reifiedMethod.invoke(targetObject, arguments);
         } catch (IllegalAccessException e) {
             throw new MethodCallExecutionFailedException("Access rights to the method denied: " + e);
         } catch (IllegalArgumentException e) {
@@ -352,9 +484,15 @@ public class MethodCall implements java.io.Serializable, Cloneable {
         }
     }
 
+    /**
+     * Runs on the finalizer thread: the object goes to the shared pool, where any thread can
+     * reuse it.
+     */
     @Override
     protected void finalize() {
-        MethodCall.setMethodCall(this);
+        if (MethodCall.getRecycleMethodCallObject() && isRecyclable(this)) {
+            MethodCall.putInRecyclePool(this);
+        }
     }
 
     public Method getReifiedMethod() {
@@ -370,29 +508,39 @@ public class MethodCall implements java.io.Serializable, Cloneable {
     }
 
     public int getNumberOfParameter() {
-        return this.effectiveArguments.length;
+        Object[] arguments = this.effectiveArguments;
+        if (arguments == null) {
+            // do not deserialize the arguments just to count them
+            return this.getReifiedMethod().getParameterTypes().length;
+        }
+        return arguments.length;
     }
 
     public Object getParameter(int index) {
-        return this.effectiveArguments[index];
+        return this.unmarshallEffectiveArguments()[index];
     }
 
     public Object[] getParameters() {
-        return this.effectiveArguments;
+        return this.unmarshallEffectiveArguments();
     }
 
-    public void setEffectiveArguments(Object[] o) {
+    public synchronized void setEffectiveArguments(Object[] o) {
         this.effectiveArguments = o;
+        this.serializedEffectiveArguments = null;
     }
 
     public Object[] getEffectiveArguments() {
-        return this.effectiveArguments;
+        return this.unmarshallEffectiveArguments();
     }
 
     /**
      * Make a deep copy of all arguments of the constructor
      */
     public void makeDeepCopyOfArguments() throws java.io.IOException {
+        if (this.hasSerializedEffectiveArguments()) {
+            // the byte[] is already a private copy of the arguments
+            return;
+        }
         this.effectiveArguments = Utils.makeDeepCopy(this.effectiveArguments);
     }
 
@@ -489,15 +637,8 @@ public class MethodCall implements java.io.Serializable, Cloneable {
             }
         }
 
-        if ((this.serializedEffectiveArguments != null) && (this.effectiveArguments == null)) {
-            try {
-                this.effectiveArguments = (Object[]) ProActiveByteToObjectConverter.MarshallStream.convert(this.serializedEffectiveArguments);
-            } catch (Exception e) {
-                e.printStackTrace();
-            }
-
-            this.serializedEffectiveArguments = null;
-        }
+        // serialized arguments are kept as a byte[] until they are accessed (see
+        // unmarshallEffectiveArguments)
     }
 
     /**
@@ -513,6 +654,33 @@ public class MethodCall implements java.io.Serializable, Cloneable {
     }
 
     /* Used in the REIF_AND_EXCEP cache */
+    /**
+     * The recycled MethodCall objects of a thread, used without synchronization
+     */
+    private static final class ThreadRecyclePool {
+        private final MethodCall[] calls = new MethodCall[THREAD_RECYCLE_POOL_SIZE];
+
+        private int size = 0;
+
+        MethodCall take() {
+            if (this.size == 0) {
+                return null;
+            }
+            this.size--;
+            MethodCall result = this.calls[this.size];
+            this.calls[this.size] = null;
+            return result;
+        }
+
+        boolean isFull() {
+            return this.size == this.calls.length;
+        }
+
+        void put(MethodCall mc) {
+            this.calls[this.size++] = mc;
+        }
+    }
+
     static class ReifiableAndExceptions {
         boolean reifiable; // Is the method return type reifiable ?
 
@@ -0,0 +1,46 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.objectweb.proactive.core.mop;
+
+/**
+ * Invokes the methods declared by a class directly, without reflection. The subclasses are
+ * generated by {@link JavassistByteCodeStubBuilder#createInvoker(String, Class, java.lang.reflect.Method[])}
+ * and select the method to invoke with a <code>switch</code> on its index.
+ *
+ * @author The ProActive Team
+ */
+public abstract class MethodInvoker {
+
+    /**
+     * Invokes a method on an object.
+     * @param target the object the method is called on, an instance of the declaring class
+     * @param methodIndex the index of the method in the invoker
+     * @param args the arguments, primitive values being wrapped
+     * @return the result of the method, wrapped if primitive, or <code>null</code> for a void method
+     * @throws Throwable the exception thrown by the method
+     */
+    public abstract Object invoke(Object target, int methodIndex, Object[] args) throws Throwable;
+}
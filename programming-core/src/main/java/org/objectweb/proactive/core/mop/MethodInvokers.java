@@ -0,0 +1,282 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.objectweb.proactive.core.mop;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.log4j.Logger;
+import org.objectweb.proactive.core.config.CentralPAPropertyRepository;
+import org.objectweb.proactive.core.util.log.Loggers;
+import org.objectweb.proactive.core.util.log.ProActiveLogger;
+
+
+/**
+ * The generated invokers of the reified methods. The invoker of a class is generated the first
+ * time one of its methods is served, and defined in the class loader of the class. Methods that
+ * cannot be called from another package (non public methods or types), bridge methods and
+ * methods of the classes loaded by the bootstrap class loader are invoked by reflection.
+ * <p>
+ * The invocations of the methods of a class are attached to the class, so that they do not keep
+ * its class loader from being garbage collected.
+ *
+ * @author The ProActive Team
+ */
+final class MethodInvokers {
+
+    static final Logger logger = ProActiveLogger.getLogger(Loggers.STUB_GENERATION);
+
+    static final String INVOKER_PACKAGE = "pa.invoker.";
+
+    static final String INVOKER_SUFFIX = "_PAInvoker";
+
+    /** The invocation of a method that is invoked by reflection */
+    static final Invocation REFLECTIVE = new Invocation(null, -1, null);
+
+    private static final ClassValue<ClassInvocations> invocations = new ClassValue<ClassInvocations>() {
+        @Override
+        protected ClassInvocations computeValue(Class<?> type) {
+            return new ClassInvocations();
+        }
+    };
+
+    /** The methods of an invoker are sorted so that their indexes do not depend on reflection */
+    private static final Comparator<Method> METHOD_ORDER = new Comparator<Method>() {
+        public int compare(Method m1, Method m2) {
+            return m1.toString().compareTo(m2.toString());
+        }
+    };
+
+    /** The classes the generated invokers cast the arguments of primitive types to */
+    private static final Map<Class<?>, Class<?>> WRAPPERS = new HashMap<Class<?>, Class<?>>();
+
+    static {
+        WRAPPERS.put(Boolean.TYPE, Boolean.class);
+        WRAPPERS.put(Byte.TYPE, Byte.class);
+        WRAPPERS.put(Character.TYPE, Character.class);
+        WRAPPERS.put(Double.TYPE, Double.class);
+        WRAPPERS.put(Float.TYPE, Float.class);
+        WRAPPERS.put(Integer.TYPE, Integer.class);
+        WRAPPERS.put(Long.TYPE, Long.class);
+        WRAPPERS.put(Short.TYPE, Short.class);
+    }
+
+    private MethodInvokers() {
+    }
+
+    /**
+     * An invoker and the index of a method in it
+     */
+    static final class Invocation {
+        final MethodInvoker invoker;
+
+        final int index;
+
+        /** The parameter types of the method */
+        private final Class<?>[] argumentTypes;
+
+        Invocation(MethodInvoker invoker, int index, Class<?>[] argumentTypes) {
+            this.invoker = invoker;
+            this.index = index;
+            this.argumentTypes = argumentTypes;
+        }
+
+        /**
+         * The invoker casts the arguments without the checks and widening conversions of
+         * {@link Method#invoke(Object, Object...)}: other arguments are left to reflection, so that
+         * they are converted or rejected with an {@link IllegalArgumentException} in the same way.
+         * @param args the arguments of a call
+         * @return <code>true</code> if the invoker can be given the arguments
+         */
+        boolean accepts(Object[] args) {
+            int length = (args == null) ? 0 : args.length;
+            if (length != this.argumentTypes.length) {
+                return false;
+            }
+            for (int i = 0; i < length; i++) {
+                Class<?> type = this.argumentTypes[i];
+                if (args[i] == null) {
+                    if (type.isPrimitive()) {
+                        return false;
+                    }
+                } else if (type.isPrimitive() ? (args[i].getClass() != WRAPPERS.get(type))
+                                              : !type.isInstance(args[i])) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+
+    /**
+     * The invocations of the methods of a class, resolved the first time one of them is served.
+     * Invokers of different classes are generated concurrently.
+     */
+    private static final class ClassInvocations {
+        private volatile Map<Method, Invocation> invocations;
+
+        Invocation get(Method method) {
+            Map<Method, Invocation> resolved = this.invocations;
+            if (resolved == null) {
+                synchronized (this) {
+                    resolved = this.invocations;
+                    if (resolved == null) {
+                        resolved = generateInvoker(method.getDeclaringClass());
+                        this.invocations = resolved;
+                    }
+                }
+            }
+            Invocation invocation = resolved.get(method);
+            return (invocation == null) ? REFLECTIVE : invocation;
+        }
+    }
+
+    /**
+     * @param method a reified method
+     * @return how to invoke the method, {@link #REFLECTIVE} if it has no generated invoker
+     */
+    static Invocation get(Method method) {
+        if (!CentralPAPropertyRepository.PA_MOP_DIRECT_INVOCATION.isTrue()) {
+            return REFLECTIVE;
+        }
+        return invocations.get(method.getDeclaringClass()).get(method);
+    }
+
+    /**
+     * @return the invocations of the methods of the class that have a generated invoker
+     */
+    private static Map<Method, Invocation> generateInvoker(Class<?> declaringClass) {
+        Method[] sortedMethods = getInvocableMethods(declaringClass);
+        if (sortedMethods.length == 0) {
+            return Collections.emptyMap();
+        }
+
+        String invokerClassName = getInvokerClassName(declaringClass);
+        MethodInvoker invoker;
+        try {
+            ClassLoader loader = declaringClass.getClassLoader();
+            if (Class.forName(MethodInvoker.class.getName(), false, loader) != MethodInvoker.class) {
+                logger.debug("Cannot generate an invoker for " + declaringClass.getName() +
+                             ": its class loader does not see the ProActive classes");
+                return Collections.emptyMap();
+            }
+            Class<?>[] sources = new Class<?>[] { declaringClass };
+            byte[] bytecode = GeneratedClassCache.load(invokerClassName, sources);
+            if (bytecode == null) {
+                bytecode = JavassistByteCodeStubBuilder.createInvoker(invokerClassName, declaringClass,
+                                                                      sortedMethods);
+                GeneratedClassCache.store(invokerClassName, sources, bytecode);
+            }
+            Class<?> invokerClass = MOPClassLoader.getMOPClassLoader().callDefineClassUsingReflection(invokerClassName,
+                                                                                                      bytecode,
+                                                                                                      loader);
+            invoker = (MethodInvoker) invokerClass.newInstance();
+        } catch (Throwable e) {
+            logger.debug("Cannot generate an invoker for " + declaringClass.getName() +
+                         ", its methods are invoked by reflection", e);
+            return Collections.emptyMap();
+        }
+        Map<Method, Invocation> invocations = new HashMap<Method, Invocation>();
+        for (int i = 0; i < sortedMethods.length; i++) {
+            invocations.put(sortedMethods[i], new Invocation(invoker, i, sortedMethods[i].getParameterTypes()));
+        }
+        return invocations;
+    }
+
+    static String getInvokerClassName(Class<?> declaringClass) {
+        return INVOKER_PACKAGE + declaringClass.getName() + INVOKER_SUFFIX;
+    }
+
+    /**
+     * Generates the invoker of a class, to be bundled at build time.
+     * @return the bytecode of the invoker, or <code>null</code> if no method of the class can be
+     *         invoked directly
+     */
+    static byte[] createInvoker(Class<?> declaringClass) {
+        Method[] sortedMethods = getInvocableMethods(declaringClass);
+        if (sortedMethods.length == 0) {
+            return null;
+        }
+        return JavassistByteCodeStubBuilder.createInvoker(getInvokerClassName(declaringClass), declaringClass,
+                                                          sortedMethods);
+    }
+
+    /**
+     * @return the methods of the class that can be invoked directly, in the order of their index
+     *         in its invoker
+     */
+    private static Method[] getInvocableMethods(Class<?> declaringClass) {
+        List<Method> methods = new ArrayList<Method>();
+        if (isAccessible(declaringClass) && (declaringClass.getClassLoader() != null)) {
+            for (Method method : declaringClass.getDeclaredMethods()) {
+                if (isDirectlyInvocable(method)) {
+                    methods.add(method);
+                }
+            }
+        }
+        Method[] sortedMethods = methods.toArray(new Method[methods.size()]);
+        Arrays.sort(sortedMethods, METHOD_ORDER);
+        return sortedMethods;
+    }
+
+    private static boolean isDirectlyInvocable(Method method) {
+        int modifiers = method.getModifiers();
+        if (!Modifier.isPublic(modifiers) || Modifier.isStatic(modifiers) || method.isBridge() ||
+            method.isSynthetic()) {
+            return false;
+        }
+        if (!isAccessible(method.getReturnType())) {
+            return false;
+        }
+        for (Class<?> parameterType : method.getParameterTypes()) {
+            if (!isAccessible(parameterType)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return <code>true</code> if the type can be named by a class of another package
+     */
+    private static boolean isAccessible(Class<?> type) {
+        if (type.isArray()) {
+            return isAccessible(type.getComponentType());
+        } else if (type.isPrimitive()) {
+            return true;
+        }
+        return Modifier.isPublic(type.getModifiers()) &&
+               ((type.getEnclosingClass() == null) || isAccessible(type.getEnclosingClass()));
+    }
+}
@@ -28,6 +28,7 @@ package org.objectweb.proactive.core.runtime;
 import java.io.IOException;
 import java.rmi.AlreadyBoundException;
 import java.util.List;
+import java.util.Map;
 
 import org.apache.log4j.Logger;
 import org.objectweb.proactive.core.ProActiveException;
@@ -262,6 +263,25 @@ public interface ProActiveRuntime {
      */
     public byte[] getClassData(String className);
 
+    /**
+     * Looks for the bytecode of a class and of the classes it references in the current runtime,
+     * so that they are downloaded at once.
+     *
+     * @param className name of the class
+     * @return the digests of the bytecode of the class and of the classes it references, by class
+     *         name, or an empty map if the class is not found
+     */
+    public Map<String, String> getClassDataDigests(String className);
+
+    /**
+     * Looks for the bytecode of several classes in the current runtime.
+     *
+     * @param classNames names of the classes
+     * @return the compressed bundle of the bytecode of the classes that are found
+     * @see org.objectweb.proactive.core.util.ClassDataBundle
+     */
+    public byte[] getClassDataBundle(String[] classNames);
+
     /**
      * launch the main method of the main class with parameters
      * @param className
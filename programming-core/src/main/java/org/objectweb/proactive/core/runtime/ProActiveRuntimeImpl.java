@@ -38,6 +38,7 @@ import java.rmi.AlreadyBoundException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
@@ -93,7 +94,9 @@ import org.objectweb.proactive.core.remoteobject.RemoteObjectExposer;
 import org.objectweb.proactive.core.rmi.FileProcess;
 import org.objectweb.proactive.core.runtime.broadcast.BroadcastDisabledException;
 import org.objectweb.proactive.core.runtime.broadcast.RTBroadcaster;
+import org.objectweb.proactive.core.util.ClassDataBundle;
 import org.objectweb.proactive.core.util.ClassDataCache;
+import org.objectweb.proactive.core.util.ClassDataPrefetcher;
 import org.objectweb.proactive.core.util.ProActiveInet;
 import org.objectweb.proactive.core.util.ProActiveRandom;
 import org.objectweb.proactive.core.util.URIBuilder;
@@ -608,6 +611,7 @@ public class ProActiveRuntimeImpl extends RuntimeRegistrationEventProducerImpl
     public void unregister(ProActiveRuntime proActiveRuntimeDist, String proActiveRuntimeUrl, String creatorID,
             String creationProtocol, String vmName) {
         this.proActiveRuntimeMap.remove(proActiveRuntimeUrl);
+        ClassDataPrefetcher.removePrefetcher(proActiveRuntimeUrl);
 
         // ProActiveEvent
         notifyListeners(this,
@@ -926,7 +930,7 @@ public class ProActiveRuntimeImpl extends RuntimeRegistrationEventProducerImpl
         }
     }
 
-    public synchronized byte[] getClassData(String className) {
+    public byte[] getClassData(String className) {
         byte[] classData = null;
 
         // Check class data cache (already generated stub)
@@ -974,6 +978,31 @@ public class ProActiveRuntimeImpl extends RuntimeRegistrationEventProducerImpl
         return null;
     }
 
+    public Map<String, String> getClassDataDigests(String className) {
+        Map<String, byte[]> closure = ClassDataBundle.getClosure(className,
+                                                                 this,
+                                                                 CentralPAPropertyRepository.PA_CLASSLOADING_PREFETCH_MAX.getValue());
+        Map<String, String> digests = new LinkedHashMap<String, String>();
+        for (Map.Entry<String, byte[]> entry : closure.entrySet()) {
+            digests.put(entry.getKey(), ClassDataBundle.digest(entry.getValue()));
+        }
+        if (clLogger.isDebugEnabled()) {
+            clLogger.debug("Found " + digests.size() + " classes to prefetch with " + className);
+        }
+        return digests;
+    }
+
+    public byte[] getClassDataBundle(String[] classNames) {
+        Map<String, byte[]> classes = new LinkedHashMap<String, byte[]>();
+        for (String className : classNames) {
+            byte[] classData = getClassData(className);
+            if (classData != null) {
+                classes.put(className, classData);
+            }
+        }
+        return ClassDataBundle.write(classes);
+    }
+
     public void launchMain(String className, String[] parameters)
             throws ClassNotFoundException, NoSuchMethodException, ProActiveException {
         System.out.println("ProActiveRuntimeImpl.launchMain() -" + className + "-");
@@ -29,6 +29,7 @@ import java.io.IOException;
 import java.lang.reflect.InvocationTargetException;
 import java.rmi.AlreadyBoundException;
 import java.util.List;
+import java.util.Map;
 
 import org.objectweb.proactive.Body;
 import org.objectweb.proactive.core.ProActiveException;
@@ -231,4 +232,12 @@ public class ProActiveRuntimeRemoteObjectAdapter extends Adapter<ProActiveRuntim
     public byte[] getClassData(String className) {
         return target.getClassData(className);
     }
+
+    public Map<String, String> getClassDataDigests(String className) {
+        return target.getClassDataDigests(className);
+    }
+
+    public byte[] getClassDataBundle(String[] classNames) {
+        return target.getClassDataBundle(classNames);
+    }
 }
@@ -0,0 +1,256 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.objectweb.proactive.core.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.objectweb.proactive.core.runtime.ProActiveRuntime;
+
+
+/**
+ * Bundles of classes downloaded at once from a remote runtime: a class and the classes it
+ * references, directly or not, found in the constant pools of their bytecode. The classes of the
+ * JDK and of ProActive, available on every runtime, are never bundled.
+ *
+ * @author The ProActive Team
+ * @see ClassDataPrefetcher
+ */
+public final class ClassDataBundle {
+
+    private static final String[] NOT_PREFETCHED_PACKAGES = { "java.", "javax.", "sun.", "com.sun.", "jdk.",
+                                                              "org.objectweb.proactive." };
+
+    private ClassDataBundle() {
+    }
+
+    /**
+     * @param className the name of a class
+     * @param source the runtime providing the bytecode of the classes
+     * @param max the maximum number of classes
+     * @return the bytecode of the class and of the classes it references, by class name, the
+     *         requested class first; empty if the class cannot be found
+     */
+    public static Map<String, byte[]> getClosure(String className, ProActiveRuntime source, int max) {
+        Map<String, byte[]> closure = new LinkedHashMap<String, byte[]>();
+        Set<String> visited = new HashSet<String>();
+        Deque<String> toVisit = new ArrayDeque<String>();
+        visited.add(className);
+        toVisit.add(className);
+        while (!toVisit.isEmpty() && (closure.size() < max)) {
+            String name = toVisit.poll();
+            byte[] classData = source.getClassData(name);
+            if (classData == null) {
+                continue;
+            }
+            closure.put(name, classData);
+            try {
+                for (String reference : getReferencedClasses(classData)) {
+                    if (isPrefetchable(reference) && visited.add(reference)) {
+                        toVisit.add(reference);
+                    }
+                }
+            } catch (IOException e) {
+                // not a valid class file, its references are not prefetched
+            }
+        }
+        return closure;
+    }
+
+    static boolean isPrefetchable(String className) {
+        for (String prefix : NOT_PREFETCHED_PACKAGES) {
+            if (className.startsWith(prefix)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return the names of the classes referenced by the constant pool of a class file: the
+     *         classes it uses and the types of the fields and methods it accesses
+     * @throws IOException if the bytecode is not a valid class file
+     */
+    static Set<String> getReferencedClasses(byte[] classData) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(classData));
+        if (in.readInt() != 0xCAFEBABE) {
+            throw new IOException("Not a class file");
+        }
+        in.readUnsignedShort(); // minor version
+        in.readUnsignedShort(); // major version
+
+        int count = in.readUnsignedShort();
+        String[] utf8 = new String[count];
+        int[] classes = new int[count];
+        int[] descriptors = new int[count];
+        int nbClasses = 0;
+        int nbDescriptors = 0;
+        for (int i = 1; i < count; i++) {
+            int tag = in.readUnsignedByte();
+            switch (tag) {
+                case 1: // Utf8
+                    utf8[i] = in.readUTF();
+                    break;
+                case 7: // Class
+                    classes[nbClasses++] = in.readUnsignedShort();
+                    break;
+                case 12: // NameAndType
+                    in.readUnsignedShort();
+                    descriptors[nbDescriptors++] = in.readUnsignedShort();
+                    break;
+                case 16: // MethodType
+                    descriptors[nbDescriptors++] = in.readUnsignedShort();
+                    break;
+                case 8: // String
+                case 19: // Module
+                case 20: // Package
+                    in.readUnsignedShort();
+                    break;
+                case 15: // MethodHandle
+                    in.readUnsignedByte();
+                    in.readUnsignedShort();
+                    break;
+                case 3: // Integer
+                case 4: // Float
+                case 9: // Fieldref
+                case 10: // Methodref
+                case 11: // InterfaceMethodref
+                case 17: // Dynamic
+                case 18: // InvokeDynamic
+                    in.readInt();
+                    break;
+                case 5: // Long
+                case 6: // Double
+                    in.readLong();
+                    i++; // takes two entries
+                    break;
+                default:
+                    throw new IOException("Unknown constant pool tag " + tag);
+            }
+        }
+
+        Set<String> references = new HashSet<String>();
+        for (int i = 0; i < nbClasses; i++) {
+            String name = utf8[classes[i]];
+            if (name == null) {
+                continue;
+            } else if (name.startsWith("[")) {
+                addDescriptorTypes(name, references);
+            } else {
+                references.add(name.replace('/', '.'));
+            }
+        }
+        for (int i = 0; i < nbDescriptors; i++) {
+            addDescriptorTypes(utf8[descriptors[i]], references);
+        }
+        return references;
+    }
+
+    private static void addDescriptorTypes(String descriptor, Set<String> references) {
+        if (descriptor == null) {
+            return;
+        }
+        for (int start = descriptor.indexOf('L'); start != -1; start = descriptor.indexOf('L', start)) {
+            int end = descriptor.indexOf(';', start);
+            if (end == -1) {
+                return;
+            }
+            references.add(descriptor.substring(start + 1, end).replace('/', '.'));
+            start = end;
+        }
+    }
+
+    /**
+     * @return the compressed bundle of the classes
+     */
+    public static byte[] write(Map<String, byte[]> classes) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(new GZIPOutputStream(bytes));
+            out.writeInt(classes.size());
+            for (Map.Entry<String, byte[]> entry : classes.entrySet()) {
+                out.writeUTF(entry.getKey());
+                out.writeInt(entry.getValue().length);
+                out.write(entry.getValue());
+            }
+            out.close();
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            // cannot happen in memory
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * @return the classes of a compressed bundle, by class name
+     * @throws IOException if the bundle is not valid
+     */
+    public static Map<String, byte[]> read(byte[] bundle) throws IOException {
+        DataInputStream in = new DataInputStream(new GZIPInputStream(new ByteArrayInputStream(bundle)));
+        try {
+            int count = in.readInt();
+            Map<String, byte[]> classes = new LinkedHashMap<String, byte[]>();
+            for (int i = 0; i < count; i++) {
+                String name = in.readUTF();
+                byte[] classData = new byte[in.readInt()];
+                in.readFully(classData);
+                classes.put(name, classData);
+            }
+            return classes;
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * @return the digest identifying the content of a class
+     */
+    public static String digest(byte[] classData) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-1").digest(classData);
+            StringBuilder sb = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                sb.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return sb.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-1 is not available", e);
+        }
+    }
+}
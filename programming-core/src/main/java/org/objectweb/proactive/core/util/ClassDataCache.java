@@ -25,10 +25,17 @@
  */
 package org.objectweb.proactive.core.util;
 
-import java.util.Hashtable;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.log4j.Logger;
+import org.objectweb.proactive.core.config.CentralPAPropertyRepository;
 import org.objectweb.proactive.core.runtime.ProActiveRuntimeImpl;
 import org.objectweb.proactive.core.util.log.Loggers;
 import org.objectweb.proactive.core.util.log.ProActiveLogger;
@@ -38,6 +45,10 @@ import org.objectweb.proactive.core.util.log.ProActiveLogger;
  * A cache for classes bytecode.
  * It also contains bytecodes of stubs generated
  * by the MOP.
+ * <p>
+ * The classes downloaded from remote runtimes are also stored on disk by digest, in the directory
+ * given by {@link CentralPAPropertyRepository#PA_CLASSLOADING_CACHE_DIR} which is shared by the
+ * runtimes of the host.
  *
  * @author The ProActive Team
  *
@@ -50,7 +61,7 @@ public class ClassDataCache {
     private static Map<String, byte[]> classStorage;
 
     private ClassDataCache() {
-        classStorage = new Hashtable<String, byte[]>();
+        classStorage = new ConcurrentHashMap<String, byte[]>();
     }
 
     public static ClassDataCache instance() {
@@ -90,4 +101,72 @@ public class ClassDataCache {
         }
         return classStorage.get(fullname);
     }
+
+    /**
+     * Returns the bytecode of a class downloaded by a runtime of the host.
+     * @param digest the digest of the bytecode, see {@link ClassDataBundle#digest(byte[])}
+     * @return the bytecode, or null if it is not stored
+     */
+    public byte[] getClassDataByDigest(String digest) {
+        File file = getFile(digest);
+        if ((file == null) || !file.isFile()) {
+            return null;
+        }
+        try {
+            DataInputStream in = new DataInputStream(new FileInputStream(file));
+            try {
+                byte[] classData = new byte[(int) file.length()];
+                in.readFully(classData);
+                if (digest.equals(ClassDataBundle.digest(classData))) {
+                    return classData;
+                }
+                logger.warn("Ignoring the corrupted class data " + file);
+            } finally {
+                in.close();
+            }
+        } catch (IOException e) {
+            logger.debug("Cannot read the class data " + file, e);
+        }
+        return null;
+    }
+
+    /**
+     * Stores the bytecode of a downloaded class for the runtimes of the host. It is written
+     * under a temporary name then renamed, so that they never read a partially written file.
+     * @param classData the bytecode
+     */
+    public void addClassDataByDigest(byte[] classData) {
+        File file = getFile(ClassDataBundle.digest(classData));
+        if ((file == null) || file.exists()) {
+            return;
+        }
+        File tmp = null;
+        try {
+            file.getParentFile().mkdirs();
+            tmp = File.createTempFile(file.getName(), ".tmp", file.getParentFile());
+            OutputStream out = new FileOutputStream(tmp);
+            try {
+                out.write(classData);
+            } finally {
+                out.close();
+            }
+            if (!tmp.renameTo(file)) {
+                // stored in the meantime by another runtime of the host
+                tmp.delete();
+            }
+        } catch (IOException e) {
+            logger.debug("Cannot store the class data " + file, e);
+            if (tmp != null) {
+                tmp.delete();
+            }
+        }
+    }
+
+    private File getFile(String digest) {
+        String dir = CentralPAPropertyRepository.PA_CLASSLOADING_CACHE_DIR.getValue();
+        if ((dir == null) || (dir.length() == 0) || (digest.length() < 2)) {
+            return null;
+        }
+        return new File(new File(dir, digest.substring(0, 2)), digest);
+    }
 }
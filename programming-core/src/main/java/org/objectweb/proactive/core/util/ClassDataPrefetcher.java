@@ -0,0 +1,251 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.objectweb.proactive.core.util;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.log4j.Logger;
+import org.objectweb.proactive.core.ProActiveRuntimeException;
+import org.objectweb.proactive.core.config.CentralPAPropertyRepository;
+import org.objectweb.proactive.core.runtime.ProActiveRuntime;
+import org.objectweb.proactive.core.util.log.Loggers;
+import org.objectweb.proactive.core.util.log.ProActiveLogger;
+
+
+/**
+ * Downloads classes from a remote runtime with the classes they reference.
+ * <p>
+ * When a class is requested, the remote runtime sends the digests of the class and of the
+ * classes it references (see {@link ClassDataBundle}). The classes that are not available
+ * locally nor in the cache of the host ({@link ClassDataCache#getClassDataByDigest(String)}) are
+ * then downloaded at once in a compressed bundle, and stored in the cache of the host. The
+ * prefetched classes are kept until they are requested, for at most {@link #PREFETCHED_TTL}
+ * milliseconds and {@link #MAX_PREFETCHED} classes per runtime. The prefetcher of a runtime is
+ * forgotten when the runtime unregisters or cannot be reached anymore.
+ *
+ * @author The ProActive Team
+ */
+public class ClassDataPrefetcher {
+    final static private Logger logger = ProActiveLogger.getLogger(Loggers.CLASSLOADING);
+
+    /** The maximum number of prefetched classes kept for a runtime */
+    static final int MAX_PREFETCHED = 512;
+
+    /** The time in milliseconds a prefetched class is kept if it is not requested */
+    static final long PREFETCHED_TTL = 60000;
+
+    private static final ConcurrentHashMap<String, ClassDataPrefetcher> prefetchers = new ConcurrentHashMap<String, ClassDataPrefetcher>();
+
+    private final String runtimeURL;
+
+    private final ProActiveRuntime runtime;
+
+    /** The prefetched classes, in prefetch order, guarded by itself */
+    private final LinkedHashMap<String, Prefetched> prefetched;
+
+    ClassDataPrefetcher(String runtimeURL, ProActiveRuntime runtime) {
+        this.runtimeURL = runtimeURL;
+        this.runtime = runtime;
+        this.prefetched = new LinkedHashMap<String, Prefetched>() {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Prefetched> eldest) {
+                return size() > MAX_PREFETCHED;
+            }
+        };
+    }
+
+    /**
+     * @param runtimeURL the URL of a remote runtime
+     * @param runtime the remote runtime
+     * @return the prefetcher of the classes of the runtime
+     */
+    public static ClassDataPrefetcher getPrefetcher(String runtimeURL, ProActiveRuntime runtime) {
+        ClassDataPrefetcher prefetcher = prefetchers.get(runtimeURL);
+        if (prefetcher == null) {
+            prefetcher = new ClassDataPrefetcher(runtimeURL, runtime);
+            ClassDataPrefetcher existing = prefetchers.putIfAbsent(runtimeURL, prefetcher);
+            if (existing != null) {
+                prefetcher = existing;
+            }
+        }
+        return prefetcher;
+    }
+
+    /**
+     * Forgets the prefetcher of a runtime, with the classes it prefetched.
+     *
+     * @param runtimeURL the URL of a runtime that went away
+     */
+    public static void removePrefetcher(String runtimeURL) {
+        if (prefetchers.remove(runtimeURL) != null) {
+            if (logger.isDebugEnabled()) {
+                logger.debug("Removed the class prefetcher of " + runtimeURL);
+            }
+        }
+    }
+
+    /**
+     * @param className the name of the class
+     * @param local the class loader whose classes are not prefetched
+     * @return the bytecode of the class, or null if it is not found on the remote runtime
+     * @throws ProActiveRuntimeException if the remote runtime cannot be reached
+     */
+    public byte[] getClassData(String className, ClassLoader local) {
+        try {
+            return fetchClassData(className, local);
+        } catch (ProActiveRuntimeException e) {
+            // the runtime is gone, the classes it sent are of no more use
+            prefetchers.remove(this.runtimeURL, this);
+            synchronized (this.prefetched) {
+                this.prefetched.clear();
+            }
+            throw e;
+        }
+    }
+
+    private byte[] fetchClassData(String className, ClassLoader local) {
+        byte[] classData = takePrefetched(className);
+        if (classData != null) {
+            if (logger.isTraceEnabled()) {
+                logger.trace(className + " was prefetched");
+            }
+            return classData;
+        }
+        if (!CentralPAPropertyRepository.PA_CLASSLOADING_PREFETCH.isTrue()) {
+            return this.runtime.getClassData(className);
+        }
+
+        Map<String, String> digests = this.runtime.getClassDataDigests(className);
+        if ((digests == null) || !digests.containsKey(className)) {
+            return null;
+        }
+
+        Map<String, byte[]> classes = new HashMap<String, byte[]>();
+        List<String> missing = new ArrayList<String>();
+        for (Map.Entry<String, String> entry : digests.entrySet()) {
+            String name = entry.getKey();
+            if (!name.equals(className) &&
+                (isPrefetched(name) || isAvailable(name, local))) {
+                continue;
+            }
+            classData = ClassDataCache.instance().getClassDataByDigest(entry.getValue());
+            if (classData != null) {
+                classes.put(name, classData);
+            } else {
+                missing.add(name);
+            }
+        }
+
+        if (!missing.isEmpty()) {
+            try {
+                byte[] bundle = this.runtime.getClassDataBundle(missing.toArray(new String[missing.size()]));
+                for (Map.Entry<String, byte[]> entry : ClassDataBundle.read(bundle).entrySet()) {
+                    String digest = ClassDataBundle.digest(entry.getValue());
+                    if (digest.equals(digests.get(entry.getKey()))) {
+                        ClassDataCache.instance().addClassDataByDigest(entry.getValue());
+                    }
+                    classes.put(entry.getKey(), entry.getValue());
+                }
+            } catch (IOException e) {
+                logger.debug("Invalid bundle of classes received for " + className, e);
+            }
+        }
+        if (logger.isDebugEnabled()) {
+            logger.debug("Prefetched " + classes.size() + " classes with " + className + ", " + missing.size() +
+                         " of them downloaded");
+        }
+
+        classData = classes.remove(className);
+        putPrefetched(classes);
+        if (classData == null) {
+            // the bundle was not valid
+            classData = this.runtime.getClassData(className);
+        }
+        return classData;
+    }
+
+    /**
+     * @param className the name of a class
+     * @return the prefetched bytecode of the class, which is not kept anymore, or null
+     */
+    byte[] takePrefetched(String className) {
+        synchronized (this.prefetched) {
+            expirePrefetched();
+            Prefetched p = this.prefetched.remove(className);
+            return (p == null) ? null : p.classData;
+        }
+    }
+
+    boolean isPrefetched(String className) {
+        synchronized (this.prefetched) {
+            expirePrefetched();
+            return this.prefetched.containsKey(className);
+        }
+    }
+
+    void putPrefetched(Map<String, byte[]> classes) {
+        long expiry = System.currentTimeMillis() + PREFETCHED_TTL;
+        synchronized (this.prefetched) {
+            expirePrefetched();
+            for (Map.Entry<String, byte[]> entry : classes.entrySet()) {
+                // reinserted so that the prefetch order is also the expiry order
+                this.prefetched.remove(entry.getKey());
+                this.prefetched.put(entry.getKey(), new Prefetched(entry.getValue(), expiry));
+            }
+        }
+    }
+
+    // called with the prefetched lock held
+    private void expirePrefetched() {
+        long now = System.currentTimeMillis();
+        Iterator<Prefetched> it = this.prefetched.values().iterator();
+        while (it.hasNext() && (it.next().expiry <= now)) {
+            it.remove();
+        }
+    }
+
+    private static boolean isAvailable(String className, ClassLoader local) {
+        return (local != null) && (local.getResource(className.replace('.', '/') + ".class") != null);
+    }
+
+    private static class Prefetched {
+        final byte[] classData;
+
+        final long expiry;
+
+        Prefetched(byte[] classData, long expiry) {
+            this.classData = classData;
+            this.expiry = expiry;
+        }
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.objectweb.proactive.core.util.compression;
+
+import java.io.IOException;
+
+
+/**
+ * A compression algorithm applied to independent blocks of data.
+ * <p>
+ * Codecs are identified by their name, which must be the same on both ends of a transfer. Besides
+ * the built-in ones, codecs are discovered as providers of this interface, defined in
+ * META-INF/services/org.objectweb.proactive.core.util.compression.BlockCodec
+ * <p>
+ * Implementations of this interface must be thread-safe and have a public no-arg constructor.
+ *
+ * @see BlockCodecs
+ */
+public interface BlockCodec {
+
+    /**
+     * @return the name identifying this codec
+     */
+    public String getName();
+
+    /**
+     * Compresses a block of data.
+     *
+     * @param data
+     *            array holding the block
+     * @param offset
+     *            offset of the block in the array
+     * @param length
+     *            length of the block
+     * @return the compressed block, or <code>null</code> if it would not be smaller than the
+     *         original one
+     * @throws IOException
+     *             if the block cannot be compressed
+     */
+    public byte[] compress(byte[] data, int offset, int length) throws IOException;
+
+    /**
+     * Decompresses a block of data compressed by {@link #compress(byte[], int, int)}.
+     *
+     * @param data
+     *            the compressed block
+     * @param originalLength
+     *            length of the original block
+     * @return the original block
+     * @throws IOException
+     *             if the block is corrupted
+     */
+    public byte[] decompress(byte[] data, int originalLength) throws IOException;
+}
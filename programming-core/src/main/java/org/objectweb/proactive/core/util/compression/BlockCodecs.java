@@ -0,0 +1,124 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.objectweb.proactive.core.util.compression;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.imageio.spi.ServiceRegistry;
+
+import org.apache.log4j.Logger;
+import org.objectweb.proactive.core.util.log.Loggers;
+import org.objectweb.proactive.core.util.log.ProActiveLogger;
+
+
+/**
+ * The {@link BlockCodec} available in this runtime, and the negotiation of the codec used by both
+ * ends of a transfer.
+ * <p>
+ * The built-in {@link DeflateBlockCodec} is always available. Other codecs are discovered as
+ * providers of {@link BlockCodec}, and may replace a built-in one by using its name.
+ */
+public final class BlockCodecs {
+    static private final Logger logger = ProActiveLogger.getLogger(Loggers.CORE);
+
+    static private final Map<String, BlockCodec> codecs = new LinkedHashMap<String, BlockCodec>();
+
+    static {
+        register(new DeflateBlockCodec());
+
+        Iterator<BlockCodec> iter = ServiceRegistry.lookupProviders(BlockCodec.class);
+        while (iter.hasNext()) {
+            try {
+                register(iter.next());
+            } catch (Throwable err) {
+                logger.warn("Failed to load block codec: " + err);
+            }
+        }
+    }
+
+    private BlockCodecs() {
+    }
+
+    static private void register(BlockCodec codec) {
+        logger.debug("Registering block codec " + codec.getName() + " from " + codec.getClass());
+        codecs.put(codec.getName(), codec);
+    }
+
+    /**
+     * @return the codec of the given name, or <code>null</code> if not available
+     */
+    static public BlockCodec getCodec(String name) {
+        return codecs.get(name);
+    }
+
+    /**
+     * @return the names of the available codecs
+     */
+    static public List<String> getCodecNames() {
+        return new ArrayList<String>(codecs.keySet());
+    }
+
+    /**
+     * Chooses the codec to use with a peer.
+     *
+     * @param preferences
+     *            comma separated names of the codecs to use, by order of preference
+     * @param peerCodecs
+     *            names of the codecs available to the peer
+     * @return the name of the first preferred codec available in this runtime and to the peer, or
+     *         <code>null</code> if none
+     */
+    static public String negotiate(String preferences, Collection<String> peerCodecs) {
+        for (String name : parse(preferences)) {
+            if (codecs.containsKey(name) && peerCodecs.contains(name)) {
+                return name;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return the names of a comma separated list of codecs, empty if the list is
+     *         <code>null</code> or blank
+     */
+    static public List<String> parse(String preferences) {
+        final List<String> names = new ArrayList<String>();
+        if (preferences != null) {
+            for (String name : preferences.split(",")) {
+                name = name.trim();
+                if (name.length() > 0) {
+                    names.add(name);
+                }
+            }
+        }
+        return names;
+    }
+}
@@ -0,0 +1,147 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.objectweb.proactive.core.util.compression;
+
+import java.io.IOException;
+import java.io.Serializable;
+
+
+/**
+ * A block of data as transferred, either compressed by a {@link BlockCodec} or raw.
+ * <p>
+ * The codec is identified by its name, the receiver must have a codec of the same name: use
+ * {@link BlockCodecs#negotiate(String, java.util.Collection)} beforehand.
+ */
+public class CompressedBlock implements Serializable {
+
+    // null when raw
+    private final String codec;
+
+    private final byte[] data;
+
+    private final int length;
+
+    private CompressedBlock(String codec, byte[] data, int length) {
+        this.codec = codec;
+        this.data = data;
+        this.length = length;
+    }
+
+    /**
+     * Compresses a block of data.
+     *
+     * @param codec
+     *            the codec to use
+     * @param data
+     *            array holding the block
+     * @param offset
+     *            offset of the block in the array
+     * @param length
+     *            length of the block
+     * @return the compressed block, or <code>null</code> if the codec does not shrink it
+     * @throws IOException
+     *             if the block cannot be compressed
+     */
+    public static CompressedBlock compress(BlockCodec codec, byte[] data, int offset, int length)
+            throws IOException {
+        final long start = System.nanoTime();
+        final byte[] compressed = codec.compress(data, offset, length);
+        final long elapsed = System.nanoTime() - start;
+
+        if (compressed == null) {
+            CompressionStatistics.getCompressionStatistics().record(length, length, false, elapsed);
+            return null;
+        }
+        CompressionStatistics.getCompressionStatistics().record(length, compressed.length, true, elapsed);
+        return new CompressedBlock(codec.getName(), compressed, length);
+    }
+
+    /**
+     * Compresses a block of data, falling back to a raw block if the codec does not shrink it.
+     *
+     * @param codec
+     *            the codec to use, <code>null</code> for no compression
+     * @param data
+     *            the block, not copied when left raw
+     * @return the compressed or raw block
+     * @throws IOException
+     *             if the block cannot be compressed
+     */
+    public static CompressedBlock encode(BlockCodec codec, byte[] data) throws IOException {
+        if (codec != null) {
+            final CompressedBlock compressed = compress(codec, data, 0, data.length);
+            if (compressed != null) {
+                return compressed;
+            }
+        }
+        return new CompressedBlock(null, data, data.length);
+    }
+
+    /**
+     * @return the original block
+     * @throws IOException
+     *             if the codec is not available or the block is corrupted
+     */
+    public byte[] decompress() throws IOException {
+        if (codec == null) {
+            CompressionStatistics.getDecompressionStatistics().record(length, length, false, 0);
+            return data;
+        }
+
+        final BlockCodec blockCodec = BlockCodecs.getCodec(codec);
+        if (blockCodec == null) {
+            throw new IOException("Unknown block codec: " + codec);
+        }
+        final long start = System.nanoTime();
+        final byte[] original = blockCodec.decompress(data, length);
+        CompressionStatistics.getDecompressionStatistics().record(length,
+                                                                  data.length,
+                                                                  true,
+                                                                  System.nanoTime() - start);
+        return original;
+    }
+
+    /**
+     * @return <code>true</code> if the block is compressed
+     */
+    public boolean isCompressed() {
+        return codec != null;
+    }
+
+    /**
+     * @return the length of the original block
+     */
+    public int getLength() {
+        return length;
+    }
+
+    /**
+     * @return the length of the block as transferred
+     */
+    public int getEncodedLength() {
+        return data.length;
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.objectweb.proactive.core.util.compression;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+
+/**
+ * Counters of the blocks encoded or decoded by this runtime through {@link CompressedBlock}.
+ * Blocks left raw because the codec did not shrink them are accounted for too.
+ */
+public class CompressionStatistics {
+    private static final CompressionStatistics compression = new CompressionStatistics();
+
+    private static final CompressionStatistics decompression = new CompressionStatistics();
+
+    private final AtomicLong blocks = new AtomicLong();
+
+    private final AtomicLong compressedBlocks = new AtomicLong();
+
+    private final AtomicLong originalBytes = new AtomicLong();
+
+    private final AtomicLong encodedBytes = new AtomicLong();
+
+    private final AtomicLong nanos = new AtomicLong();
+
+    /**
+     * @return the statistics of the blocks compressed by this runtime
+     */
+    public static CompressionStatistics getCompressionStatistics() {
+        return compression;
+    }
+
+    /**
+     * @return the statistics of the blocks decompressed by this runtime
+     */
+    public static CompressionStatistics getDecompressionStatistics() {
+        return decompression;
+    }
+
+    void record(int originalLength, int encodedLength, boolean compressed, long elapsedNanos) {
+        blocks.incrementAndGet();
+        if (compressed) {
+            compressedBlocks.incrementAndGet();
+        }
+        originalBytes.addAndGet(originalLength);
+        encodedBytes.addAndGet(encodedLength);
+        nanos.addAndGet(elapsedNanos);
+    }
+
+    /**
+     * @return the number of blocks, compressed or not
+     */
+    public long getBlocks() {
+        return blocks.get();
+    }
+
+    /**
+     * @return the number of blocks actually compressed
+     */
+    public long getCompressedBlocks() {
+        return compressedBlocks.get();
+    }
+
+    /**
+     * @return the size of the original blocks, in bytes
+     */
+    public long getOriginalBytes() {
+        return originalBytes.get();
+    }
+
+    /**
+     * @return the size of the blocks as transferred, in bytes
+     */
+    public long getEncodedBytes() {
+        return encodedBytes.get();
+    }
+
+    /**
+     * @return the original size divided by the transferred size, 1 if no block was transferred
+     */
+    public double getRatio() {
+        final long encoded = encodedBytes.get();
+        return encoded == 0 ? 1 : (double) originalBytes.get() / encoded;
+    }
+
+    /**
+     * @return the original bytes processed per second of codec time, 0 if none
+     */
+    public double getThroughput() {
+        final long elapsed = nanos.get();
+        return elapsed == 0 ? 0 : originalBytes.get() * 1e9 / elapsed;
+    }
+
+    public void reset() {
+        blocks.set(0);
+        compressedBlocks.set(0);
+        originalBytes.set(0);
+        encodedBytes.set(0);
+        nanos.set(0);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d/%d blocks compressed, ratio: %.2f, codec throughput: %.2f MiB/s",
+                             getCompressedBlocks(),
+                             getBlocks(),
+                             getRatio(),
+                             getThroughput() / (1 << 20));
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.objectweb.proactive.core.util.compression;
+
+import java.io.IOException;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+
+/**
+ * The built-in codec, using the DEFLATE algorithm of the JDK tuned for speed.
+ */
+public class DeflateBlockCodec implements BlockCodec {
+    public static final String NAME = "deflate";
+
+    public String getName() {
+        return NAME;
+    }
+
+    public byte[] compress(byte[] data, int offset, int length) throws IOException {
+        if (length == 0) {
+            return null;
+        }
+
+        final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            deflater.setInput(data, offset, length);
+            deflater.finish();
+            // the output buffer is not grown: compression stops as soon as it does not help
+            final byte[] buffer = new byte[length - 1];
+            int compressedLength = 0;
+            while (!deflater.finished() && compressedLength < buffer.length) {
+                compressedLength += deflater.deflate(buffer, compressedLength, buffer.length - compressedLength);
+            }
+            if (!deflater.finished()) {
+                return null;
+            }
+
+            final byte[] compressed = new byte[compressedLength];
+            System.arraycopy(buffer, 0, compressed, 0, compressedLength);
+            return compressed;
+        } finally {
+            deflater.end();
+        }
+    }
+
+    public byte[] decompress(byte[] data, int originalLength) throws IOException {
+        final Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(data);
+            final byte[] original = new byte[originalLength];
+            int length = 0;
+            while (length < originalLength) {
+                final int n = inflater.inflate(original, length, originalLength - length);
+                if (n == 0 && (inflater.finished() || inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                length += n;
+            }
+            // the end of the stream may still have to be consumed, it must not hold more data
+            if (length != originalLength || (!inflater.finished() && inflater.inflate(new byte[1]) != 0) ||
+                !inflater.finished()) {
+                throw new IOException("Corrupted " + NAME + " block");
+            }
+            return original;
+        } catch (DataFormatException e) {
+            throw new IOException("Corrupted " + NAME + " block", e);
+        } finally {
+            inflater.end();
+        }
+    }
+}
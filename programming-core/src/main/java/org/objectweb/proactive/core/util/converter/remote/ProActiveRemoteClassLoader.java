@@ -33,6 +33,7 @@ import org.objectweb.proactive.core.ProActiveException;
 import org.objectweb.proactive.core.ProActiveRuntimeException;
 import org.objectweb.proactive.core.runtime.ProActiveRuntime;
 import org.objectweb.proactive.core.runtime.RuntimeFactory;
+import org.objectweb.proactive.core.util.ClassDataPrefetcher;
 import org.objectweb.proactive.core.util.log.Loggers;
 import org.objectweb.proactive.core.util.log.ProActiveLogger;
 
@@ -91,7 +92,7 @@ public class ProActiveRemoteClassLoader {
             }
             // lookup the remote part
             ProActiveRuntime rt = RuntimeFactory.getRuntime(runtimeURL);
-            Loader loader = new Loader(parent, rt);
+            Loader loader = new Loader(parent, rt, ClassDataPrefetcher.getPrefetcher(runtimeURL, rt));
             loaderCache.put(runtimeURL, loader);
             if (logger.isTraceEnabled()) {
                 logger.trace("Succesfully created a new ClassLoader for the URL " + runtimeURL);
@@ -105,9 +106,12 @@ public class ProActiveRemoteClassLoader {
 
         private final ProActiveRuntime clazzLocation;
 
-        public Loader(ClassLoader parent, ProActiveRuntime runtime) {
+        private final ClassDataPrefetcher prefetcher;
+
+        public Loader(ClassLoader parent, ProActiveRuntime runtime, ClassDataPrefetcher prefetcher) {
             super(parent);
             this.clazzLocation = runtime;
+            this.prefetcher = prefetcher;
         }
 
         protected Class<?> findClass(String clazzName) throws ClassNotFoundException {
@@ -143,7 +147,8 @@ public class ProActiveRemoteClassLoader {
             if (logger.isTraceEnabled())
                 logger.trace("Attempt to download class " + clazzName + " from the remote runtime");
             try {
-                byte[] b = this.clazzLocation.getClassData(clazzName);
+                // the classes it references are downloaded with it
+                byte[] b = this.prefetcher.getClassData(clazzName, this.getParent());
                 if (b == null || b.length == 0) {
                     throw new ClassNotFoundException("Class not found on " + clazzLocation + ": " + clazzName);
                 }
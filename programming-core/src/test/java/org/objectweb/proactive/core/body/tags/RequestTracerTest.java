@@ -0,0 +1,153 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.objectweb.proactive.core.body.tags;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileReader;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Test;
+import org.objectweb.proactive.core.UniqueID;
+import org.objectweb.proactive.core.body.tags.RequestTrace.Event;
+import org.objectweb.proactive.core.body.tags.tag.TraceTag;
+import org.objectweb.proactive.core.config.CentralPAPropertyRepository;
+
+
+public class RequestTracerTest {
+
+    @After
+    public void tearDown() {
+        CentralPAPropertyRepository.PA_TAG_TRACE_SAMPLING.setValue(0);
+        CentralPAPropertyRepository.PA_TAG_TRACE_FILE.unset();
+        RequestTracer.clearRecentTraces();
+    }
+
+    @Test
+    public void requests_are_sampled() {
+        UniqueID id = new UniqueID();
+        assertNull(RequestTracer.newRootTag(id, 4));
+
+        CentralPAPropertyRepository.PA_TAG_TRACE_SAMPLING.setValue(2);
+        assertNull(RequestTracer.newRootTag(id, 3));
+        TraceTag tag = RequestTracer.newRootTag(id, 4);
+        assertNotNull(tag);
+        assertEquals(id.getCanonString() + "::4", tag.getTrace().getTraceId());
+        assertNull(tag.getTrace().getParentSpanId());
+        assertTrue(tag.getTrace().getTime(Event.REIFY) > 0);
+    }
+
+    @Test
+    public void child_requests_share_the_trace() {
+        CentralPAPropertyRepository.PA_TAG_TRACE_SAMPLING.setValue(1);
+        UniqueID caller = new UniqueID();
+        UniqueID callee = new UniqueID();
+
+        MessageTags tags = new MessageTags();
+        tags.addTag(RequestTracer.newRootTag(caller, 1));
+        RequestTracer.requestCreated(tags, caller, 1, "foo");
+
+        MessageTags childTags = new MessageTags();
+        childTags.addTag(tags.getTag(TraceTag.IDENTIFIER).apply());
+        RequestTracer.requestCreated(childTags, callee, 7, "bar");
+
+        RequestTrace root = RequestTracer.getTrace(tags);
+        RequestTrace child = RequestTracer.getTrace(childTags);
+        assertEquals(root.getTraceId(), child.getTraceId());
+        assertEquals(root.getSpanId(), child.getParentSpanId());
+        assertEquals(callee.getCanonString() + "::7", child.getSpanId());
+        assertEquals("bar", child.getMethodName());
+    }
+
+    @Test
+    public void serialization_records_marshalling() throws Exception {
+        CentralPAPropertyRepository.PA_TAG_TRACE_SAMPLING.setValue(1);
+        MessageTags tags = new MessageTags();
+        tags.addTag(RequestTracer.newRootTag(new UniqueID(), 1));
+
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        ObjectOutputStream oos = new ObjectOutputStream(bos);
+        oos.writeObject(tags);
+        oos.close();
+        ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(bos.toByteArray()));
+        MessageTags received = (MessageTags) ois.readObject();
+
+        RequestTrace trace = RequestTracer.getTrace(received);
+        assertTrue(trace.getTime(Event.MARSHAL) > 0);
+        assertTrue(trace.getTime(Event.UNMARSHAL) > 0);
+        assertTrue(trace.getDuration(Event.REIFY, Event.UNMARSHAL) >= 0);
+        assertEquals(-1, trace.getDuration(Event.REIFY, Event.SERVE_START));
+    }
+
+    @Test
+    public void finished_traces_are_exported() throws Exception {
+        File file = File.createTempFile("traces", ".tsv");
+        file.delete();
+        file.deleteOnExit();
+        CentralPAPropertyRepository.PA_TAG_TRACE_SAMPLING.setValue(1);
+        CentralPAPropertyRepository.PA_TAG_TRACE_FILE.setValue(file.getAbsolutePath());
+
+        UniqueID id = new UniqueID();
+        for (int i = 0; i < 3; i++) {
+            MessageTags tags = new MessageTags();
+            tags.addTag(RequestTracer.newRootTag(id, i));
+            RequestTracer.requestCreated(tags, id, i, "m" + i);
+            RequestTracer.record(tags, Event.SEND);
+            RequestTracer.finish(tags, Event.REPLY_RECEIVED);
+        }
+        // Requests without trace are ignored
+        RequestTracer.finish(new MessageTags(), Event.REPLY_RECEIVED);
+        RequestTracer.finish(null, Event.REPLY_RECEIVED);
+
+        List<RequestTrace> traces = RequestTracer.getRecentTraces();
+        assertEquals(3, traces.size());
+        assertEquals("m2", traces.get(2).getMethodName());
+
+        BufferedReader reader = new BufferedReader(new FileReader(file));
+        try {
+            assertEquals(RequestTrace.getExportHeader(), reader.readLine());
+            for (int i = 0; i < 3; i++) {
+                String[] fields = reader.readLine().split("\t", -1);
+                assertEquals(4 + Event.values().length, fields.length);
+                assertEquals("m" + i, fields[3]);
+                assertEquals("", fields[1]);
+            }
+            assertNull(reader.readLine());
+        } finally {
+            reader.close();
+        }
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.objectweb.proactive.core.config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+
+public class PropertyCacheTest {
+
+    @Test
+    public void cached_value_follows_setValue_and_unset() {
+        PAPropertyInteger property = new PAPropertyInteger("my.cached.integer", false);
+        property.setValue(12);
+        assertEquals(12, property.getValue());
+        assertEquals(12, property.getValue());
+
+        property.setValue(42);
+        assertEquals(42, property.getValue());
+
+        property.unset();
+        assertFalse(property.isSet());
+        assertNull(property.getValueAsString());
+    }
+
+    @Test
+    public void cached_value_follows_configuration_changes() {
+        PAPropertyBoolean property = new PAPropertyBoolean("my.cached.boolean", false);
+        property.setValue(false);
+        assertFalse(property.isTrue());
+
+        ProActiveConfiguration.getInstance().setProperty(property.getName(), "true", false);
+        assertTrue(property.isTrue());
+
+        ProActiveConfiguration.getInstance().unsetProperty(property.getName());
+        assertFalse(property.isTrue());
+    }
+
+    @Test
+    public void parsed_value_is_shared_until_it_changes() {
+        PAPropertyList property = new PAPropertyList("my.cached.list", ",", false);
+        property.setValue("a,b");
+        List<String> value = property.getValue();
+        assertSame(value, property.getValue());
+
+        property.setValue("c");
+        assertEquals(1, property.getValue().size());
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void invalid_value_fails_on_each_read() {
+        PAPropertyInteger property = new PAPropertyInteger("my.cached.invalid", false);
+        ProActiveConfiguration.getInstance().setProperty(property.getName(), "notAnInteger", false);
+        try {
+            property.getValue();
+        } catch (RuntimeException e) {
+            // Expected, must fail again
+        }
+        property.getValue();
+    }
+
+    @Test
+    public void listeners_are_notified_of_changes() {
+        PAPropertyString property = new PAPropertyString("my.listened.string", false);
+        final List<String> seen = new ArrayList<String>();
+        PAPropertyListener listener = new PAPropertyListener() {
+            @Override
+            public void valueChanged(PAProperty property) {
+                seen.add(property.getValueAsString());
+            }
+        };
+        property.addListener(listener);
+
+        property.setValue("a");
+        ProActiveConfiguration.getInstance().setProperty(property.getName(), "b", false);
+        property.unset();
+
+        property.removeListener(listener);
+        property.setValue("c");
+
+        List<String> expected = new ArrayList<String>();
+        expected.add("a");
+        expected.add("b");
+        expected.add(null);
+        assertEquals(expected, seen);
+    }
+}
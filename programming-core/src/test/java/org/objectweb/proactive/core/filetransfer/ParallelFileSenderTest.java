@@ -0,0 +1,277 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.objectweb.proactive.core.filetransfer;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.objectweb.proactive.core.config.CentralPAPropertyRepository;
+import org.objectweb.proactive.core.util.compression.CompressionStatistics;
+import org.objectweb.proactive.core.util.compression.DeflateBlockCodec;
+
+
+public class ParallelFileSenderTest {
+
+    private static final int BLOCK_SIZE = 1024;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private FileTransferService source;
+
+    private List<FileTransferServiceReceive> receivers;
+
+    @Before
+    public void setUp() {
+        source = newService();
+        receivers = new ArrayList<FileTransferServiceReceive>();
+        for (int i = 0; i < 3; i++) {
+            receivers.add(newService());
+        }
+    }
+
+    @After
+    public void tearDown() {
+        CentralPAPropertyRepository.PA_FILETRANSFER_RESUME.setValue(false);
+        CentralPAPropertyRepository.PA_FILETRANSFER_COMPRESSION.setValue("");
+    }
+
+    @Test
+    public void large_file_is_sent_in_parallel_ranges() throws Exception {
+        File src = createFile(folder.getRoot(), "large", BLOCK_SIZE * 10 + 17);
+        File dst = new File(folder.getRoot(), "out/large");
+
+        OperationStatus status = source.send(src, receivers, dst, BLOCK_SIZE, 2);
+
+        assertFalse(status.hasException());
+        assertArrayEquals(read(src), read(dst));
+    }
+
+    @Test
+    public void directory_tree_is_sent() throws Exception {
+        File srcDir = folder.newFolder("tree");
+        File subDir = new File(srcDir, "sub");
+        assertTrue(new File(subDir, "empty").mkdirs());
+        for (int i = 0; i < 20; i++) {
+            createFile(i % 2 == 0 ? srcDir : subDir, "small" + i, i * 100);
+        }
+        createFile(subDir, "large", BLOCK_SIZE * 3 + 1);
+        File dstDir = new File(folder.getRoot(), "copy");
+
+        OperationStatus status = source.send(srcDir, receivers, dstDir, BLOCK_SIZE, 4);
+
+        assertFalse(status.hasException());
+        assertTrue(new File(dstDir, "sub/empty").isDirectory());
+        for (int i = 0; i < 20; i++) {
+            String path = (i % 2 == 0 ? "" : "sub/") + "small" + i;
+            assertArrayEquals(read(new File(srcDir, path)), read(new File(dstDir, path)));
+        }
+        assertArrayEquals(read(new File(subDir, "large")), read(new File(dstDir, "sub/large")));
+    }
+
+    @Test
+    public void resumed_transfer_fixes_the_differing_blocks() throws Exception {
+        File src = createFile(folder.getRoot(), "resumed", BLOCK_SIZE * 6 + 5);
+        File dst = new File(folder.getRoot(), "resumed.copy");
+        assertFalse(source.send(src, receivers, dst, BLOCK_SIZE, 2).hasException());
+
+        RandomAccessFile raf = new RandomAccessFile(dst, "rw");
+        try {
+            raf.seek(BLOCK_SIZE * 2 + 3);
+            raf.write(~read(src)[BLOCK_SIZE * 2 + 3]);
+            raf.setLength(BLOCK_SIZE * 4 + 10);
+        } finally {
+            raf.close();
+        }
+
+        CentralPAPropertyRepository.PA_FILETRANSFER_RESUME.setValue(true);
+        assertFalse(source.send(src, receivers, dst, BLOCK_SIZE, 2).hasException());
+        assertArrayEquals(read(src), read(dst));
+    }
+
+    @Test
+    public void existing_content_checksums() throws Exception {
+        File dst = createFile(folder.getRoot(), "existing", BLOCK_SIZE * 2 + 10);
+        long[] checksums = receivers.get(0).openPositionalWrite(dst, BLOCK_SIZE * 4, BLOCK_SIZE, true);
+
+        assertEquals(3, checksums.length);
+        assertEquals(FileBlock.checksum(read(dst), BLOCK_SIZE), checksums[0]);
+        assertEquals(-1, checksums[2]);
+        assertEquals(BLOCK_SIZE * 4, dst.length());
+
+        assertEquals(0, receivers.get(0).openPositionalWrite(dst, 10, BLOCK_SIZE, false).length);
+        assertEquals(10, dst.length());
+    }
+
+    @Test(expected = IOException.class)
+    public void corrupted_block_is_rejected() throws Exception {
+        File src = createFile(folder.getRoot(), "block", BLOCK_SIZE);
+        FileBlock block = new FileBlock(0, BLOCK_SIZE);
+        FileInputStream fis = new FileInputStream(src);
+        try {
+            block.loadBlock(fis.getChannel(), 0);
+        } finally {
+            fis.close();
+        }
+
+        // flip the last byte of the serialized content
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        ObjectOutputStream oos = new ObjectOutputStream(baos);
+        oos.writeObject(block);
+        oos.close();
+        byte[] serialized = baos.toByteArray();
+        serialized[serialized.length - 1] ^= 1;
+        FileBlock received = (FileBlock) new ObjectInputStream(new ByteArrayInputStream(serialized)).readObject();
+        assertEquals(BLOCK_SIZE, received.getUsage());
+
+        FileOutputStream fos = new FileOutputStream(new File(folder.getRoot(), "block.copy"));
+        try {
+            received.saveBlock(fos.getChannel());
+        } finally {
+            fos.close();
+        }
+    }
+
+    @Test
+    public void compressed_transfer() throws Exception {
+        CentralPAPropertyRepository.PA_FILETRANSFER_COMPRESSION.setValue("unknown, deflate");
+        File src = createFile(folder.getRoot(), "compressed", BLOCK_SIZE * 5 + 3);
+        File dst = new File(folder.getRoot(), "compressed.copy");
+
+        assertFalse(source.send(src, receivers, dst, BLOCK_SIZE, 2).hasException());
+        assertArrayEquals(read(src), read(dst));
+    }
+
+    @Test
+    public void compressed_block_falls_back_to_raw() throws Exception {
+        CompressionStatistics statistics = CompressionStatistics.getCompressionStatistics();
+        statistics.reset();
+
+        // text content shrinks
+        File text = new File(folder.getRoot(), "text");
+        FileOutputStream fos = new FileOutputStream(text);
+        try {
+            for (int i = 0; i < BLOCK_SIZE / 8; i++) {
+                fos.write("log line".getBytes());
+            }
+        } finally {
+            fos.close();
+        }
+        FileBlock received = serialize(loadBlock(text));
+        assertEquals(1, statistics.getCompressedBlocks());
+        assertTrue(statistics.getEncodedBytes() < BLOCK_SIZE);
+        assertArrayEquals(read(text), readBlock(received));
+
+        // random content does not
+        File random = createFile(folder.getRoot(), "random", BLOCK_SIZE);
+        received = serialize(loadBlock(random));
+        assertEquals(2, statistics.getBlocks());
+        assertEquals(1, statistics.getCompressedBlocks());
+        assertArrayEquals(read(random), readBlock(received));
+    }
+
+    private static FileBlock loadBlock(File src) throws IOException {
+        FileBlock block = new FileBlock(0, BLOCK_SIZE);
+        block.setCodec(new DeflateBlockCodec());
+        FileInputStream fis = new FileInputStream(src);
+        try {
+            block.loadBlock(fis.getChannel(), 0);
+        } finally {
+            fis.close();
+        }
+        return block;
+    }
+
+    private static FileBlock serialize(FileBlock block) throws Exception {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        ObjectOutputStream oos = new ObjectOutputStream(baos);
+        oos.writeObject(block);
+        oos.close();
+        return (FileBlock) new ObjectInputStream(new ByteArrayInputStream(baos.toByteArray())).readObject();
+    }
+
+    private byte[] readBlock(FileBlock block) throws IOException {
+        File copy = folder.newFile();
+        FileOutputStream fos = new FileOutputStream(copy);
+        try {
+            block.saveBlock(fos.getChannel());
+        } finally {
+            fos.close();
+        }
+        return read(copy);
+    }
+
+    @SuppressWarnings("deprecation")
+    private static FileTransferService newService() {
+        FileTransferService fts = new FileTransferService();
+        fts.initActivity(null);
+        return fts;
+    }
+
+    private static File createFile(File dir, String name, int size) throws IOException {
+        byte[] content = new byte[size];
+        new Random(size).nextBytes(content);
+        File file = new File(dir, name);
+        FileOutputStream fos = new FileOutputStream(file);
+        try {
+            fos.write(content);
+        } finally {
+            fos.close();
+        }
+        return file;
+    }
+
+    private static byte[] read(File file) throws IOException {
+        byte[] content = new byte[(int) file.length()];
+        RandomAccessFile raf = new RandomAccessFile(file, "r");
+        try {
+            raf.readFully(content);
+        } finally {
+            raf.close();
+        }
+        return content;
+    }
+}
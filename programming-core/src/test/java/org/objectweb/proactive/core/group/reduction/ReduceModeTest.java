@@ -0,0 +1,76 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.objectweb.proactive.core.group.reduction;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.Date;
+
+import org.junit.Test;
+import org.objectweb.proactive.core.util.wrapper.DoubleWrapper;
+import org.objectweb.proactive.core.util.wrapper.IntWrapper;
+import org.objectweb.proactive.core.util.wrapper.LongWrapper;
+import org.objectweb.proactive.core.util.wrapper.StringWrapper;
+
+
+public class ReduceModeTest {
+
+    @Test
+    public void sum() {
+        assertEquals(7, ((IntWrapper) ReduceMode.SUM.combine(new IntWrapper(3), new IntWrapper(4))).intValue());
+        assertEquals(7L, ((LongWrapper) ReduceMode.SUM.combine(new LongWrapper(3), new LongWrapper(4))).longValue());
+        assertEquals(0.5d, ((DoubleWrapper) ReduceMode.SUM.combine(new DoubleWrapper(0.25),
+                new DoubleWrapper(0.25))).doubleValue(), 0);
+    }
+
+    @Test
+    public void minMax() {
+        assertEquals(3, ((IntWrapper) ReduceMode.MIN.combine(new IntWrapper(3), new IntWrapper(4))).intValue());
+        assertEquals(4, ((IntWrapper) ReduceMode.MAX.combine(new IntWrapper(3), new IntWrapper(4))).intValue());
+        assertEquals("a", ((StringWrapper) ReduceMode.MIN.combine(new StringWrapper("a"),
+                new StringWrapper("b"))).stringValue());
+        assertEquals(new Date(2), ReduceMode.MAX.combine(new Date(1), new Date(2)));
+    }
+
+    @Test
+    public void concatenate() {
+        assertEquals("ab", ((StringWrapper) ReduceMode.CONCATENATE.combine(new StringWrapper("a"),
+                new StringWrapper("b"))).stringValue());
+        assertEquals(Arrays.asList(1, 2, 3), ReduceMode.CONCATENATE.combine(Arrays.asList(1), Arrays.asList(2, 3)));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void unsupportedType() {
+        ReduceMode.SUM.combine(new Object(), new Object());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void unwrappedNumber() {
+        // the reduced result of a group call cannot be a final type
+        ReduceMode.SUM.combine(3, 4);
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.objectweb.proactive.core.group.tree;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+
+import org.junit.Test;
+
+
+public class BroadcastTreeTest {
+
+    /**
+     * Every member must be reached exactly once, each subtree being a non empty range
+     */
+    private static void checkCoverage(BroadcastTree tree, int from, int to, int[] reached) {
+        int covered = 0;
+        for (int[] range : tree.split(from, to)) {
+            assertTrue(range[0] >= from && range[1] <= to && range[0] < range[1]);
+            covered += range[1] - range[0];
+            reached[range[0]]++;
+            checkCoverage(tree, range[0] + 1, range[1], reached);
+        }
+        assertEquals(to - from, covered);
+    }
+
+    private static int depth(BroadcastTree tree, int from, int to) {
+        int depth = 0;
+        for (int[] range : tree.split(from, to)) {
+            depth = Math.max(depth, 1 + depth(tree, range[0] + 1, range[1]));
+        }
+        return depth;
+    }
+
+    private static void checkTree(BroadcastTree tree) {
+        for (int size : new int[] { 0, 1, 2, 3, 7, 64, 100, 512 }) {
+            int[] reached = new int[size];
+            checkCoverage(tree, 0, size, reached);
+            for (int i = 0; i < size; i++) {
+                assertEquals(1, reached[i]);
+            }
+        }
+    }
+
+    @Test
+    public void kAryTree() {
+        checkTree(new KAryTree(2));
+        checkTree(new KAryTree(4));
+        // the caller contacts 4 members, then every hop divides the subtrees by 4
+        List<int[]> ranges = new KAryTree(4).split(0, 4096);
+        assertEquals(4, ranges.size());
+        assertEquals(1024, ranges.get(0)[1] - ranges.get(0)[0]);
+        assertEquals(6, depth(new KAryTree(4), 0, 4096));
+    }
+
+    @Test
+    public void binomialTree() {
+        checkTree(new BinomialTree());
+        // 4095 members plus the caller: 12 rounds, the largest subtree first
+        List<int[]> ranges = new BinomialTree().split(0, 4095);
+        assertEquals(12, ranges.size());
+        assertEquals(2048, ranges.get(0)[1] - ranges.get(0)[0]);
+        assertEquals(12, depth(new BinomialTree(), 0, 4095));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void unaryTree() {
+        new KAryTree(1);
+    }
+}
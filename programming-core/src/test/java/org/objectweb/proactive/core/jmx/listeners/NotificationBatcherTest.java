@@ -0,0 +1,221 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.objectweb.proactive.core.jmx.listeners;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import javax.management.Notification;
+import javax.management.ObjectName;
+
+import org.junit.Test;
+import org.objectweb.proactive.core.config.CentralPAPropertyRepository;
+import org.objectweb.proactive.core.jmx.notification.NotificationType;
+
+
+public class NotificationBatcherTest {
+
+    private static final ObjectName SOURCE = name("test:name=source");
+
+    @Test
+    public void batch_is_sent_when_full() {
+        RecordingListener listener = new RecordingListener();
+        NotificationBatcher batcher = new TestBatcher(listener, 3, 60000, false);
+
+        batcher.add(notification(NotificationType.requestReceived, 1), null);
+        batcher.add(notification(NotificationType.servingStarted, 2), null);
+        assertEquals(0, listener.calls);
+
+        batcher.add(notification(NotificationType.replySent, 3), null);
+        assertEquals(1, listener.calls);
+        assertEquals(3, listener.received.size());
+        assertEquals(3, listener.received.get(2).getSequenceNumber());
+    }
+
+    @Test
+    public void batch_is_sent_after_the_delay() throws Exception {
+        RecordingListener listener = new RecordingListener();
+        NotificationBatcher batcher = new TestBatcher(listener, 100, 50, false);
+
+        batcher.add(notification(NotificationType.requestReceived, 1), null);
+        batcher.add(notification(NotificationType.replySent, 2), null);
+
+        long deadline = System.currentTimeMillis() + 10000;
+        while (listener.received.size() < 2 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(1, listener.calls);
+        assertEquals(2, listener.received.size());
+    }
+
+    @Test
+    public void set_of_notifications_is_copied() {
+        RecordingListener listener = new RecordingListener();
+        NotificationBatcher batcher = new TestBatcher(listener, 100, 60000, false);
+
+        ConcurrentLinkedQueue<Notification> set = new ConcurrentLinkedQueue<Notification>();
+        set.add(notification(NotificationType.requestReceived, 1));
+        Notification setNotification = notification(NotificationType.setOfNotifications, 2);
+        setNotification.setUserData(set);
+
+        batcher.add(setNotification, null);
+        // BodyWrapper clears its set once sent
+        set.clear();
+        batcher.flush(false);
+
+        assertEquals(1, ((Collection<?>) listener.received.get(0).getUserData()).size());
+    }
+
+    @Test
+    public void stale_states_are_coalesced_under_load() {
+        RecordingListener listener = new RecordingListener();
+        NotificationBatcher batcher = new TestBatcher(listener, 5, 60000, true);
+
+        ConcurrentLinkedQueue<Notification> set = new ConcurrentLinkedQueue<Notification>();
+        set.add(notification(NotificationType.waitForRequest, 1));
+        set.add(notification(NotificationType.requestReceived, 2));
+        set.add(notification(NotificationType.waitForRequest, 3));
+        Notification setNotification = notification(NotificationType.setOfNotifications, 4);
+        setNotification.setUserData(set);
+
+        batcher.add(setNotification, null);
+        batcher.add(notification(NotificationType.servingStarted, 5), null);
+        batcher.add(notification(NotificationType.waitForRequest, 6), null);
+
+        assertEquals(1, listener.calls);
+        assertEquals(3, listener.received.size());
+        Collection<?> keptSet = (Collection<?>) listener.received.get(0).getUserData();
+        assertEquals(1, keptSet.size());
+        assertEquals(NotificationType.requestReceived, ((Notification) keptSet.iterator().next()).getType());
+        assertEquals(6, listener.received.get(2).getSequenceNumber());
+    }
+
+    @Test
+    public void future_waits_are_coalesced_with_default_properties() throws Exception {
+        RecordingListener listener = new RecordingListener();
+        ListenerAdapter adapter = new ListenerAdapter(listener,
+                                                      ManagementFactory.getPlatformMBeanServer(),
+                                                      SOURCE);
+
+        // the sets of notifications sent by a BodyWrapper whose body keeps waiting for futures
+        int sent = 8 * CentralPAPropertyRepository.PA_JMX_NOTIFICATIONS_BATCH_SIZE.getValue();
+        for (int i = 2; i <= sent; i += 2) {
+            ConcurrentLinkedQueue<Notification> set = new ConcurrentLinkedQueue<Notification>();
+            set.add(notification(NotificationType.waitByNecessity, i - 1));
+            set.add(notification(NotificationType.receivedFutureResult, i));
+            Notification setNotification = notification(NotificationType.setOfNotifications, i);
+            setNotification.setUserData(set);
+            adapter.handleNotification(setNotification, null);
+        }
+
+        long deadline = System.currentTimeMillis() + 10000;
+        Notification last = null;
+        int received = 0;
+        while (System.currentTimeMillis() < deadline) {
+            synchronized (listener) {
+                received = 0;
+                for (Notification setNotification : listener.received) {
+                    for (Object notification : (Collection<?>) setNotification.getUserData()) {
+                        last = (Notification) notification;
+                        received++;
+                    }
+                }
+            }
+            if (last != null && last.getSequenceNumber() == sent) {
+                break;
+            }
+            Thread.sleep(10);
+        }
+        // the body is not waiting anymore
+        assertEquals(NotificationType.receivedFutureResult, last.getType());
+        assertTrue(received + " future waits were not coalesced", received < sent / 2);
+    }
+
+    @Test
+    public void failed_delivery_is_reported() {
+        final List<Exception> failures = new ArrayList<Exception>();
+        NotificationBatcher batcher = new NotificationBatcher(new RecordingListener() {
+            @Override
+            public void handleNotification(Notification notification, Object handback) {
+                throw new IllegalStateException("terminated");
+            }
+        }, 1, 60000, false) {
+            @Override
+            void deliveryFailed(Exception e) {
+                failures.add(e);
+            }
+        };
+
+        batcher.add(notification(NotificationType.requestReceived, 1), null);
+        assertEquals(1, failures.size());
+        assertTrue(failures.get(0) instanceof IllegalStateException);
+    }
+
+    private static Notification notification(String type, long sequenceNumber) {
+        return new Notification(type, SOURCE, sequenceNumber);
+    }
+
+    private static ObjectName name(String name) {
+        try {
+            return new ObjectName(name);
+        } catch (Exception e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+
+    private static class TestBatcher extends NotificationBatcher {
+        TestBatcher(NotificationBatchListener listener, int maxSize, long maxDelay, boolean coalesce) {
+            super(listener, maxSize, maxDelay, coalesce);
+        }
+
+        @Override
+        void deliveryFailed(Exception e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    private static class RecordingListener implements NotificationBatchListener {
+        final List<Notification> received = new ArrayList<Notification>();
+
+        volatile int calls;
+
+        public synchronized void handleNotification(Notification notification, Object handback) {
+            this.received.add(notification);
+            this.calls++;
+        }
+
+        public synchronized void handleNotifications(List<Notification> notifications, Object handback) {
+            this.received.addAll(notifications);
+            this.calls++;
+        }
+    }
+}
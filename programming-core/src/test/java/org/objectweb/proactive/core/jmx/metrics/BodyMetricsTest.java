@@ -0,0 +1,182 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.objectweb.proactive.core.jmx.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Test;
+import org.objectweb.proactive.core.UniqueID;
+import org.objectweb.proactive.core.config.CentralPAPropertyRepository;
+
+
+public class BodyMetricsTest {
+
+    @After
+    public void tearDown() {
+        CentralPAPropertyRepository.PA_JMX_REQUEST_NOTIFICATIONS.setValue(false);
+        CentralPAPropertyRepository.PA_JMX_REQUEST_NOTIFICATIONS_SAMPLING.setValue(1);
+        CentralPAPropertyRepository.PA_BODY_METRICS_REPLY_SIZE_SAMPLING.setValue(0);
+    }
+
+    @Test
+    public void histogram_buckets_cover_all_values() {
+        int previous = -1;
+        for (long value = 0; value < 100000; value++) {
+            int index = LogLinearHistogram.indexOf(value);
+            assertTrue(index == previous || index == previous + 1);
+            assertTrue(LogLinearHistogram.lowestValueOf(index) <= value);
+            assertTrue(LogLinearHistogram.highestValueOf(index) >= value);
+            previous = index;
+        }
+        assertEquals(LogLinearHistogram.BUCKETS - 1, LogLinearHistogram.indexOf(Long.MAX_VALUE));
+    }
+
+    @Test
+    public void histogram_percentiles_are_within_precision() {
+        LogLinearHistogram histogram = new LogLinearHistogram();
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(i * 1000);
+        }
+        HistogramSnapshot snapshot = histogram.snapshot();
+
+        assertEquals(1000, snapshot.getCount());
+        assertEquals(500500, snapshot.getMean(), 0.1);
+        assertWithinPrecision(500000, snapshot.getValueAtPercentile(50));
+        assertWithinPrecision(990000, snapshot.getValueAtPercentile(99));
+        assertWithinPrecision(1000000, snapshot.getMax());
+    }
+
+    @Test
+    public void striped_counter_counts_concurrent_increments() throws Exception {
+        final StripedCounter counter = new StripedCounter();
+        List<Thread> threads = new ArrayList<Thread>();
+        for (int i = 0; i < 8; i++) {
+            Thread t = new Thread() {
+                @Override
+                public void run() {
+                    for (int j = 0; j < 10000; j++) {
+                        counter.increment();
+                    }
+                }
+            };
+            threads.add(t);
+            t.start();
+        }
+        for (Thread t : threads) {
+            t.join();
+        }
+        assertEquals(80000, counter.get());
+    }
+
+    @Test
+    public void striped_counter_is_not_striped_without_contention() throws Exception {
+        StripedCounter counter = new StripedCounter();
+        for (int i = 0; i < 1000; i++) {
+            counter.increment();
+        }
+        assertFalse(counter.isStriped());
+        assertEquals(1000, counter.get());
+        assertEquals(1000, copy(counter).get());
+    }
+
+    @Test
+    public void migrated_metrics_keep_the_counters_only() throws Exception {
+        BodyMetrics metrics = new BodyMetrics(new UniqueID());
+        metrics.requestReceived();
+        metrics.requestServed("foo", 10, 100);
+        metrics.waitForRequest();
+
+        BodyMetricsSnapshot snapshot = copy(metrics).snapshot();
+        assertEquals(1, snapshot.getReceivedRequests());
+        assertEquals(1, snapshot.getServedRequests());
+        assertEquals(0, snapshot.getServiceTime().getCount());
+        assertTrue(snapshot.getMethodServiceTimes().isEmpty());
+        assertEquals(2, copy(metrics).waitForRequest());
+    }
+
+    @Test
+    public void body_metrics_snapshot() {
+        BodyMetrics metrics = new BodyMetrics(new UniqueID());
+        metrics.requestReceived();
+        metrics.requestReceived();
+        metrics.requestServed("foo", 10, 100);
+        metrics.requestServed("bar", 20, 200);
+        metrics.replySent(BodyMetrics.serializedSize("result"));
+
+        BodyMetricsSnapshot snapshot = metrics.snapshot();
+        assertEquals(2, snapshot.getReceivedRequests());
+        assertEquals(2, snapshot.getServedRequests());
+        assertEquals(2, snapshot.getServiceTime().getCount());
+        assertEquals(1, snapshot.getMethodServiceTimes().get("foo").getCount());
+        assertWithinPrecision(200, snapshot.getMethodServiceTimes().get("bar").getMax());
+        assertEquals(1, snapshot.getReplySize().getCount());
+        assertTrue(snapshot.getReplySize().getMax() > 0);
+    }
+
+    @Test
+    public void sampling_follows_property_changes() {
+        CentralPAPropertyRepository.PA_JMX_REQUEST_NOTIFICATIONS.setValue(false);
+        assertFalse(BodyMetrics.isTraced(4));
+
+        CentralPAPropertyRepository.PA_JMX_REQUEST_NOTIFICATIONS.setValue(true);
+        CentralPAPropertyRepository.PA_JMX_REQUEST_NOTIFICATIONS_SAMPLING.setValue(1);
+        assertTrue(BodyMetrics.isTraced(3));
+
+        CentralPAPropertyRepository.PA_JMX_REQUEST_NOTIFICATIONS_SAMPLING.setValue(4);
+        assertFalse(BodyMetrics.isTraced(3));
+        assertTrue(BodyMetrics.isTraced(4));
+
+        CentralPAPropertyRepository.PA_BODY_METRICS_REPLY_SIZE_SAMPLING.setValue(0);
+        assertFalse(BodyMetrics.isReplySizeSampled(0));
+        CentralPAPropertyRepository.PA_BODY_METRICS_REPLY_SIZE_SAMPLING.setValue(2);
+        assertTrue(BodyMetrics.isReplySizeSampled(2));
+        assertFalse(BodyMetrics.isReplySizeSampled(3));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T copy(T object) throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ObjectOutputStream out = new ObjectOutputStream(bytes);
+        out.writeObject(object);
+        out.close();
+        return (T) new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray())).readObject();
+    }
+
+    private static void assertWithinPrecision(long expected, long actual) {
+        assertTrue(actual + " is not close to " + expected,
+                   Math.abs(actual - expected) <= expected / LogLinearHistogram.SUB_BUCKETS);
+    }
+}
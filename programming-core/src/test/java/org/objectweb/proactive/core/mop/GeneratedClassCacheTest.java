@@ -0,0 +1,100 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.objectweb.proactive.core.mop;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.objectweb.proactive.core.config.CentralPAPropertyRepository;
+
+
+public class GeneratedClassCacheTest {
+
+    private static final String GENERATED_CLASS_NAME = "pa.stub.org.objectweb.proactive.core.mop._StubGeneratedClassCacheTest";
+
+    private static final byte[] BYTECODE = new byte[] { (byte) 0xCA, (byte) 0xFE, (byte) 0xBA, (byte) 0xBE, 1, 2, 3 };
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Before
+    public void setCacheDirectory() {
+        CentralPAPropertyRepository.PA_MOP_GENERATED_CLASSES_CACHE_DIR.setValue(folder.getRoot().getAbsolutePath());
+    }
+
+    @After
+    public void unsetCacheDirectory() {
+        CentralPAPropertyRepository.PA_MOP_GENERATED_CLASSES_CACHE_DIR.unset();
+    }
+
+    @Test
+    public void stored_class_is_loaded_back() {
+        Class<?>[] sources = new Class<?>[] { GeneratedClassCacheTest.class };
+        assertNull(GeneratedClassCache.load(GENERATED_CLASS_NAME, sources));
+
+        GeneratedClassCache.store(GENERATED_CLASS_NAME, sources, BYTECODE);
+        assertArrayEquals(BYTECODE, GeneratedClassCache.load(GENERATED_CLASS_NAME, sources));
+    }
+
+    @Test
+    public void class_generated_from_other_sources_is_ignored() {
+        GeneratedClassCache.store(GENERATED_CLASS_NAME, new Class<?>[] { GeneratedClassCacheTest.class }, BYTECODE);
+        assertNull(GeneratedClassCache.load(GENERATED_CLASS_NAME, new Class<?>[] { GeneratedClassCacheTest.class,
+                                                                                   String.class, Utils.class }));
+    }
+
+    @Test
+    public void corrupted_class_is_ignored() throws Exception {
+        Class<?>[] sources = new Class<?>[] { GeneratedClassCacheTest.class };
+        GeneratedClassCache.store(GENERATED_CLASS_NAME, sources, BYTECODE);
+
+        File file = new File(folder.getRoot(), GENERATED_CLASS_NAME + GeneratedClassCache.CACHE_FILE_SUFFIX);
+        RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        try {
+            raf.seek(raf.length() - 1);
+            raf.write(42);
+        } finally {
+            raf.close();
+        }
+        assertNull(GeneratedClassCache.load(GENERATED_CLASS_NAME, sources));
+    }
+
+    @Test
+    public void cache_is_disabled_by_default() {
+        CentralPAPropertyRepository.PA_MOP_GENERATED_CLASSES_CACHE_DIR.unset();
+        Class<?>[] sources = new Class<?>[] { GeneratedClassCacheTest.class };
+        GeneratedClassCache.store(GENERATED_CLASS_NAME, sources, BYTECODE);
+        assertNull(GeneratedClassCache.load(GENERATED_CLASS_NAME, sources));
+    }
+}
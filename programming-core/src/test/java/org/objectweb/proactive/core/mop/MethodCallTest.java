@@ -0,0 +1,94 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.objectweb.proactive.core.mop;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+import org.objectweb.proactive.core.body.future.FutureProxy;
+import org.objectweb.proactive.core.body.future.MethodCallResult;
+
+
+public class MethodCallTest {
+
+    private static Method addMethod() throws NoSuchMethodException {
+        return List.class.getMethod("add", Object.class);
+    }
+
+    @Test
+    public void serializable_arguments_are_serialized_once() throws Exception {
+        MethodCall mc = MethodCall.getMethodCall(addMethod(), new Object[] { "value" }, null);
+
+        assertTrue(mc.transformEffectiveArgumentsIntoByteArray());
+        assertTrue(mc.hasSerializedEffectiveArguments());
+        assertEquals("value", mc.getParameter(0));
+    }
+
+    @Test
+    public void future_target_is_replaced_by_its_value() throws Exception {
+        List<Object> value = new ArrayList<Object>();
+        FutureProxy future = new FutureProxy();
+        future.receiveReply(new MethodCallResult(value, null));
+        FutureListStub stub = new FutureListStub();
+        stub.setProxy(future);
+
+        MethodCall mc = MethodCall.getMethodCall(addMethod(), new Object[] { "value" }, null);
+        assertEquals(Boolean.TRUE, mc.execute(stub));
+        assertEquals(1, value.size());
+        assertTrue(stub.isEmpty());
+    }
+
+    @Test
+    public void non_serializable_arguments_are_kept() throws Exception {
+        Object notSerializable = new Object();
+        MethodCall mc = MethodCall.getMethodCall(addMethod(), new Object[] { notSerializable }, null);
+
+        assertFalse(mc.transformEffectiveArgumentsIntoByteArray());
+        assertFalse(mc.hasSerializedEffectiveArguments());
+        assertEquals(1, mc.getNumberOfParameter());
+        assertSame(notSerializable, mc.getParameter(0));
+    }
+
+    /** A future of a list, as the stubs generated for futures are */
+    private static class FutureListStub extends ArrayList<Object> implements StubObject {
+        private Proxy proxy;
+
+        public void setProxy(Proxy p) {
+            this.proxy = p;
+        }
+
+        public Proxy getProxy() {
+            return this.proxy;
+        }
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.objectweb.proactive.core.util;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.Test;
+
+
+public class ClassDataBundleTest {
+
+    @Test
+    public void referenced_classes_are_found_in_the_constant_pool() throws Exception {
+        Set<String> references = ClassDataBundle.getReferencedClasses(readClassData(Referencing.class));
+
+        assertTrue(references.contains(Referenced.class.getName()));
+        assertTrue(references.contains(Parameter.class.getName()));
+        assertTrue(references.contains(Object.class.getName()));
+    }
+
+    @Test
+    public void jdk_and_proactive_classes_are_not_prefetched() {
+        assertFalse(ClassDataBundle.isPrefetchable(String.class.getName()));
+        assertFalse(ClassDataBundle.isPrefetchable(ClassDataBundle.class.getName()));
+        assertTrue(ClassDataBundle.isPrefetchable("com.example.Task"));
+    }
+
+    @Test
+    public void bundle_round_trip() throws Exception {
+        Map<String, byte[]> classes = new LinkedHashMap<String, byte[]>();
+        classes.put(Referencing.class.getName(), readClassData(Referencing.class));
+        classes.put(Referenced.class.getName(), readClassData(Referenced.class));
+
+        Map<String, byte[]> read = ClassDataBundle.read(ClassDataBundle.write(classes));
+
+        assertEquals(classes.keySet(), read.keySet());
+        for (String name : classes.keySet()) {
+            assertArrayEquals(classes.get(name), read.get(name));
+        }
+    }
+
+    @Test
+    public void prefetched_classes_are_served_once() {
+        ClassDataPrefetcher prefetcher = new ClassDataPrefetcher("rmi://host/runtime", null);
+        Map<String, byte[]> classes = new LinkedHashMap<String, byte[]>();
+        classes.put("com.example.Task", new byte[] { 1 });
+        prefetcher.putPrefetched(classes);
+
+        assertTrue(prefetcher.isPrefetched("com.example.Task"));
+        assertArrayEquals(new byte[] { 1 }, prefetcher.takePrefetched("com.example.Task"));
+        assertFalse(prefetcher.isPrefetched("com.example.Task"));
+    }
+
+    @Test
+    public void prefetched_classes_are_bounded() {
+        ClassDataPrefetcher prefetcher = new ClassDataPrefetcher("rmi://host/runtime", null);
+        Map<String, byte[]> classes = new LinkedHashMap<String, byte[]>();
+        for (int i = 0; i <= ClassDataPrefetcher.MAX_PREFETCHED; i++) {
+            classes.put("com.example.Task" + i, new byte[] { 1 });
+        }
+        prefetcher.putPrefetched(classes);
+
+        assertFalse(prefetcher.isPrefetched("com.example.Task0"));
+        assertTrue(prefetcher.isPrefetched("com.example.Task" + ClassDataPrefetcher.MAX_PREFETCHED));
+    }
+
+    @Test
+    public void prefetcher_of_a_removed_runtime_is_forgotten() {
+        ClassDataPrefetcher prefetcher = ClassDataPrefetcher.getPrefetcher("rmi://host/gone", null);
+        assertTrue(prefetcher == ClassDataPrefetcher.getPrefetcher("rmi://host/gone", null));
+
+        ClassDataPrefetcher.removePrefetcher("rmi://host/gone");
+
+        assertFalse(prefetcher == ClassDataPrefetcher.getPrefetcher("rmi://host/gone", null));
+        ClassDataPrefetcher.removePrefetcher("rmi://host/gone");
+    }
+
+    private static byte[] readClassData(Class<?> cl) throws Exception {
+        InputStream in = cl.getClassLoader().getResourceAsStream(cl.getName().replace('.', '/') + ".class");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[4096];
+        for (int read = in.read(buffer); read != -1; read = in.read(buffer)) {
+            out.write(buffer, 0, read);
+        }
+        in.close();
+        return out.toByteArray();
+    }
+
+    static class Parameter {
+    }
+
+    static class Referenced {
+        void use(Parameter parameter) {
+        }
+    }
+
+    static class Referencing {
+        void call() {
+            new Referenced().use(null);
+        }
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.objectweb.proactive.core.util.compression;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Random;
+
+import org.junit.Test;
+
+
+public class BlockCodecsTest {
+
+    @Test
+    public void deflate_is_built_in() {
+        assertTrue(BlockCodecs.getCodecNames().contains(DeflateBlockCodec.NAME));
+        assertEquals(DeflateBlockCodec.NAME, BlockCodecs.getCodec(DeflateBlockCodec.NAME).getName());
+        assertNull(BlockCodecs.getCodec("unknown"));
+    }
+
+    @Test
+    public void negotiation_picks_the_first_common_codec() {
+        assertEquals(DeflateBlockCodec.NAME, BlockCodecs.negotiate(" unknown , deflate",
+                                                                    Arrays.asList("other", "deflate")));
+        assertNull(BlockCodecs.negotiate("deflate", Collections.singletonList("other")));
+        assertNull(BlockCodecs.negotiate("unknown", Collections.singletonList("unknown")));
+        assertNull(BlockCodecs.negotiate("", BlockCodecs.getCodecNames()));
+        assertTrue(BlockCodecs.parse(null).isEmpty());
+    }
+
+    @Test
+    public void compressible_block_round_trip() throws IOException {
+        byte[] data = new byte[10000];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) ('a' + i % 7);
+        }
+
+        CompressedBlock block = CompressedBlock.encode(new DeflateBlockCodec(), data);
+        assertTrue(block.isCompressed());
+        assertEquals(data.length, block.getLength());
+        assertTrue(block.getEncodedLength() < data.length / 10);
+        assertArrayEquals(data, block.decompress());
+    }
+
+    @Test
+    public void incompressible_block_is_left_raw() throws IOException {
+        byte[] data = new byte[10000];
+        new Random(0).nextBytes(data);
+
+        assertNull(new DeflateBlockCodec().compress(data, 0, data.length));
+        CompressedBlock block = CompressedBlock.encode(new DeflateBlockCodec(), data);
+        assertFalse(block.isCompressed());
+        assertEquals(data.length, block.getEncodedLength());
+        assertArrayEquals(data, block.decompress());
+    }
+
+    @Test
+    public void compression_of_a_part_of_an_array() throws IOException {
+        byte[] data = new byte[300];
+        Arrays.fill(data, 100, 200, (byte) 1);
+
+        DeflateBlockCodec codec = new DeflateBlockCodec();
+        byte[] compressed = codec.compress(data, 100, 100);
+        assertArrayEquals(Arrays.copyOfRange(data, 100, 200), codec.decompress(compressed, 100));
+    }
+
+    @Test(expected = IOException.class)
+    public void corrupted_block_is_rejected() throws IOException {
+        byte[] data = new byte[1000];
+        DeflateBlockCodec codec = new DeflateBlockCodec();
+        byte[] compressed = codec.compress(data, 0, data.length);
+        codec.decompress(Arrays.copyOf(compressed, compressed.length - 3), data.length);
+    }
+
+    @Test(expected = IOException.class)
+    public void unexpected_length_is_rejected() throws IOException {
+        byte[] data = new byte[1000];
+        DeflateBlockCodec codec = new DeflateBlockCodec();
+        codec.decompress(codec.compress(data, 0, data.length), data.length - 1);
+    }
+}
@@ -28,21 +28,30 @@ package org.objectweb.proactive.extensions.dataspaces.core;
 import java.io.File;
 import java.io.IOException;
 import java.net.URISyntaxException;
+import java.util.HashSet;
+import java.util.Set;
 
 import org.apache.log4j.Logger;
+import org.objectweb.proactive.api.PARemoteObject;
 import org.objectweb.proactive.core.ProActiveException;
+import org.objectweb.proactive.core.config.CentralPAPropertyRepository;
 import org.objectweb.proactive.core.node.Node;
 import org.objectweb.proactive.core.node.NodeFactory;
+import org.objectweb.proactive.core.remoteobject.RemoteObjectExposer;
+import org.objectweb.proactive.core.remoteobject.RemoteObjectHelper;
 import org.objectweb.proactive.core.util.log.Loggers;
 import org.objectweb.proactive.core.util.log.ProActiveLogger;
 import org.objectweb.proactive.extensions.dataspaces.Utils;
 import org.objectweb.proactive.extensions.dataspaces.core.naming.CachingSpacesDirectory;
 import org.objectweb.proactive.extensions.dataspaces.core.naming.NamingService;
-import org.objectweb.proactive.extensions.dataspaces.core.naming.SpacesDirectory;
+import org.objectweb.proactive.extensions.dataspaces.core.naming.SpacesDirectoryListener;
 import org.objectweb.proactive.extensions.dataspaces.exceptions.ConfigurationException;
 import org.objectweb.proactive.extensions.dataspaces.exceptions.FileSystemException;
 import org.objectweb.proactive.extensions.dataspaces.exceptions.SpaceAlreadyRegisteredException;
 import org.objectweb.proactive.extensions.dataspaces.exceptions.WrongApplicationIdException;
+import org.objectweb.proactive.extensions.dataspaces.vfs.ContentAddressedStore;
+import org.objectweb.proactive.extensions.dataspaces.vfs.ScratchMemoryTier;
+import org.objectweb.proactive.extensions.dataspaces.vfs.ScratchSpaceQuota;
 import org.objectweb.proactive.extensions.dataspaces.vfs.VFSNodeScratchSpaceImpl;
 import org.objectweb.proactive.extensions.dataspaces.vfs.VFSSpacesMountManagerImpl;
 import org.objectweb.proactive.extensions.vfsprovider.FileSystemServerDeployer;
@@ -345,10 +354,16 @@ public class NodeConfigurator {
 
         private ApplicationScratchSpace applicationScratchSpace;
 
-        private SpacesDirectory cachingDirectory;
+        private CachingSpacesDirectory cachingDirectory;
 
         private DataSpacesImpl impl;
 
+        private NamingService subscribedNamingService;
+
+        private String subscriberId;
+
+        private RemoteObjectExposer<SpacesDirectoryListener> listenerExposer;
+
         private void configure(final String appId, final NamingService namingService)
                 throws FileSystemException, URISyntaxException, ProActiveException, ConfigurationException {
 
@@ -376,22 +391,79 @@ public class NodeConfigurator {
                     }
                 }
             }
+            // follow application inputs and outputs instead of querying them
+            if (CentralPAPropertyRepository.PA_DATASPACES_NAMING_SUBSCRIPTION.isTrue())
+                subscribe(appId, namingService, cachingDir);
+
             // no exception can be thrown since now
             cachingDirectory = cachingDir;
 
             // create VFSSpacesMountManagerImpl
-            spacesMountManager = new VFSSpacesMountManagerImpl(cachingDirectory);
+            final VFSNodeScratchSpaceImpl vfsScratchSpace = nodeScratchSpace instanceof VFSNodeScratchSpaceImpl ? (VFSNodeScratchSpaceImpl) nodeScratchSpace
+                                                                                                             : null;
+            final ContentAddressedStore contentStore = vfsScratchSpace == null ? null
+                                                                               : vfsScratchSpace.getContentStore();
+            final ScratchSpaceQuota scratchQuota = vfsScratchSpace == null ? null : vfsScratchSpace.getQuota();
+            final ScratchMemoryTier scratchMemoryTier = vfsScratchSpace == null ? null
+                                                                                : vfsScratchSpace.getMemoryTier();
+            spacesMountManager = new VFSSpacesMountManagerImpl(cachingDirectory,
+                                                               contentStore,
+                                                               scratchQuota,
+                                                               scratchMemoryTier);
 
             // create implementation object connected to the application's
             // configuration
             impl = new DataSpacesImpl(appId, spacesMountManager, cachingDirectory, applicationScratchSpace);
         }
 
+        private void subscribe(String appId, NamingService namingService, CachingSpacesDirectory cachingDir) {
+            final String name = Utils.getRuntimeId(node) + '/' + Utils.getNodeId(node) + "/spacesDirectoryListener";
+            final Set<DataSpacesURI> queries = new HashSet<DataSpacesURI>();
+            queries.add(DataSpacesURI.createURI(appId, SpaceType.INPUT));
+            queries.add(DataSpacesURI.createURI(appId, SpaceType.OUTPUT));
+
+            final RemoteObjectExposer<SpacesDirectoryListener> roe = PARemoteObject.newRemoteObject(SpacesDirectoryListener.class.getName(),
+                                                                                                    (SpacesDirectoryListener) cachingDir);
+            try {
+                roe.createRemoteObject(name, true);
+                final SpacesDirectoryListener stub = RemoteObjectHelper.generatedObjectStub(roe.getRemoteObject());
+
+                cachingDir.subscribe(namingService, name, queries, stub);
+                listenerExposer = roe;
+                subscribedNamingService = namingService;
+                subscriberId = name;
+                logger.debug("Subscribed to application spaces changes");
+            } catch (Exception e) {
+                ProActiveLogger.logEatedException(logger,
+                                                  "Could not subscribe to application spaces changes, they will be queried",
+                                                  e);
+                terminateListener(roe);
+            }
+        }
+
+        private void terminateListener(RemoteObjectExposer<SpacesDirectoryListener> roe) {
+            try {
+                roe.unexportAll();
+                roe.unregisterAll();
+            } catch (ProActiveException e) {
+                ProActiveLogger.logEatedException(logger, "Could not terminate spaces directory listener", e);
+            }
+        }
+
         private DataSpacesImpl getDataSpacesImpl() {
             return impl;
         }
 
         private void close() {
+            if (listenerExposer != null) {
+                try {
+                    cachingDirectory.unsubscribe(subscribedNamingService, subscriberId);
+                } catch (Exception e) {
+                    ProActiveLogger.logEatedException(logger, "Could not unsubscribe from application spaces changes", e);
+                }
+                terminateListener(listenerExposer);
+                listenerExposer = null;
+            }
             spacesMountManager.close();
             if (applicationScratchSpace != null) {
                 cachingDirectory.unregister(applicationScratchSpace.getSpaceMountingPoint());
@@ -25,9 +25,16 @@
  */
 package org.objectweb.proactive.extensions.dataspaces.core.naming;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.log4j.Logger;
+import org.objectweb.proactive.core.config.CentralPAPropertyRepository;
 import org.objectweb.proactive.core.util.log.Loggers;
 import org.objectweb.proactive.core.util.log.ProActiveLogger;
 import org.objectweb.proactive.extensions.dataspaces.core.DataSpacesURI;
@@ -45,36 +52,124 @@ import org.objectweb.proactive.extensions.dataspaces.exceptions.WrongApplication
  * unregistering this space explicitly through cache directory, cause it to be unregistered in both
  * directories.
  * <p>
- * Only {@link #lookupOne(DataSpacesURI)} queries are cached, while
- * {@link #lookupMany(DataSpacesURI)} queries are never cached.
+ * Results of {@link #lookupOne(DataSpacesURI)} queries are cached. Results of
+ * {@link #lookupMany(DataSpacesURI)} queries are cached for a limited period, as spaces may be
+ * registered in the source directory by other clients, see
+ * {@link CentralPAPropertyRepository#PA_DATASPACES_LOOKUP_CACHE_TTL_MILLIS}. They are invalidated
+ * when a space is registered or unregistered through this cache directory.
+ * <p>
+ * Alternatively, this directory may be subscribed to the changes of some spaces of a
+ * {@link NamingService}, see {@link #subscribe(NamingService, String, Set, SpacesDirectoryListener)}.
+ * Queries for these spaces are then answered locally, and kept up to date by notifications of the
+ * naming service. As the naming service drops subscribers it cannot notify, the subscription is
+ * checked periodically, see
+ * {@link CentralPAPropertyRepository#PA_DATASPACES_NAMING_SUBSCRIPTION_CHECK_MILLIS}. Once it is
+ * found dropped, these queries are sent to the source directory again.
  * <p>
  * Instances of this class are thread-safe.
  */
-public class CachingSpacesDirectory implements SpacesDirectory {
+public class CachingSpacesDirectory implements SpacesDirectory, SpacesDirectoryListener {
+    private static final Logger logger = ProActiveLogger.getLogger(Loggers.DATASPACES);
+
     private final SpacesDirectoryImpl localDirectory;
 
     private final SpacesDirectory remoteDirectory;
 
+    private final long lookupManyTtlMillis;
+
+    private final long subscriptionCheckMillis;
+
+    private final ConcurrentHashMap<DataSpacesURI, CachedLookup> lookupManyCache = new ConcurrentHashMap<DataSpacesURI, CachedLookup>();
+
+    // incremented on each change made through this directory, so that results of remote lookups
+    // started before a change are not cached
+    private final AtomicLong generation = new AtomicLong();
+
+    // abstract queries whose matching spaces are notified by the source directory
+    private volatile List<DataSpacesURI> subscribedQueries = Collections.emptyList();
+
+    // mounting points notified as unregistered while subscribing, not null only meanwhile
+    private Set<DataSpacesURI> unregisteredWhileSubscribing;
+
+    // naming service and id of the subscription, null when not subscribed
+    private volatile NamingService subscribedNamingService;
+
+    private volatile String subscriberId;
+
+    // time of the next check that the subscription is still active
+    private final AtomicLong nextSubscriptionCheck = new AtomicLong();
+
     public CachingSpacesDirectory(SpacesDirectory directoryToCache) {
+        this(directoryToCache, CentralPAPropertyRepository.PA_DATASPACES_LOOKUP_CACHE_TTL_MILLIS.getValue());
+    }
+
+    /**
+     * @param directoryToCache
+     *            source directory
+     * @param lookupManyTtlMillis
+     *            period, in milliseconds, during which {@link #lookupMany(DataSpacesURI)} results
+     *            are reused; 0 disables the caching of these results
+     */
+    public CachingSpacesDirectory(SpacesDirectory directoryToCache, long lookupManyTtlMillis) {
+        this(directoryToCache,
+             lookupManyTtlMillis,
+             CentralPAPropertyRepository.PA_DATASPACES_NAMING_SUBSCRIPTION_CHECK_MILLIS.getValue());
+    }
+
+    /**
+     * @param directoryToCache
+     *            source directory
+     * @param lookupManyTtlMillis
+     *            period, in milliseconds, during which {@link #lookupMany(DataSpacesURI)} results
+     *            are reused; 0 disables the caching of these results
+     * @param subscriptionCheckMillis
+     *            period, in milliseconds, at which a subscription made through
+     *            {@link #subscribe(NamingService, String, Set, SpacesDirectoryListener)} is checked
+     *            to be still active; 0 checks it on each subscribed query
+     */
+    public CachingSpacesDirectory(SpacesDirectory directoryToCache, long lookupManyTtlMillis,
+            long subscriptionCheckMillis) {
         localDirectory = new SpacesDirectoryImpl();
         remoteDirectory = directoryToCache;
+        this.lookupManyTtlMillis = lookupManyTtlMillis;
+        this.subscriptionCheckMillis = subscriptionCheckMillis;
     }
 
     /**
-     * This method call is always delegated remotely.
+     * Try in cache if not expired, otherwise delegate remotely. Concurrent queries are not
+     * serialized.
      *
      * @see SpacesDirectory#lookupMany(DataSpacesURI)
      */
     public Set<SpaceInstanceInfo> lookupMany(DataSpacesURI uri) {
         SpacesDirectoryImpl.checkAbstractURI(uri);
 
-        synchronized (this) {
-            final Set<SpaceInstanceInfo> ret = remoteDirectory.lookupMany(uri);
-            if (ret != null)
-                localDirectory.register(ret);
+        if (isSubscribed(uri) && checkSubscription())
+            return localDirectory.lookupMany(uri);
 
-            return ret;
+        if (lookupManyTtlMillis > 0) {
+            final CachedLookup cached = lookupManyCache.get(uri);
+            if (cached != null && cached.expiry > System.currentTimeMillis()) {
+                return cached.spaces == null ? null : new HashSet<SpaceInstanceInfo>(cached.spaces);
+            }
         }
+
+        final long startGeneration = generation.get();
+        final long expiry = System.currentTimeMillis() + lookupManyTtlMillis;
+        final Set<SpaceInstanceInfo> ret = remoteDirectory.lookupMany(uri);
+
+        synchronized (this) {
+            // the result may not reflect a change made meanwhile
+            if (generation.get() == startGeneration) {
+                if (ret != null)
+                    localDirectory.register(ret);
+                if (lookupManyTtlMillis > 0)
+                    lookupManyCache.put(uri, new CachedLookup(ret == null ? null
+                                                                          : new HashSet<SpaceInstanceInfo>(ret),
+                                                              expiry));
+            }
+        }
+        return ret;
     }
 
     /**
@@ -102,7 +197,6 @@ public class CachingSpacesDirectory implements SpacesDirectory {
                 try {
                     localDirectory.register(sii);
                 } catch (SpaceAlreadyRegisteredException e) {
-                    final Logger logger = ProActiveLogger.getLogger(Loggers.DATASPACES);
                     ProActiveLogger.logImpossibleException(logger, e);
                     throw new RuntimeException(e);
                 }
@@ -114,14 +208,166 @@ public class CachingSpacesDirectory implements SpacesDirectory {
     public synchronized void register(SpaceInstanceInfo spaceInstanceInfo)
             throws SpaceAlreadyRegisteredException, WrongApplicationIdException {
 
-        remoteDirectory.register(spaceInstanceInfo);
-        localDirectory.register(spaceInstanceInfo);
+        try {
+            remoteDirectory.register(spaceInstanceInfo);
+            localDirectory.register(spaceInstanceInfo);
+        } finally {
+            invalidateLookupMany();
+        }
     }
 
     public synchronized boolean unregister(DataSpacesURI uri) {
         SpacesDirectoryImpl.checkMountingPointURI(uri);
 
-        localDirectory.unregister(uri);
-        return remoteDirectory.unregister(uri);
+        try {
+            localDirectory.unregister(uri);
+            return remoteDirectory.unregister(uri);
+        } finally {
+            invalidateLookupMany();
+        }
+    }
+
+    /**
+     * Subscribes this directory to changes of the spaces matching some queries in a naming service,
+     * so that {@link #lookupMany(DataSpacesURI)} queries for these spaces are answered locally.
+     *
+     * @param namingService
+     *            naming service to subscribe to, usually the source directory of this one
+     * @param subscriberId
+     *            identifier of the subscription, unique for the naming service
+     * @param queries
+     *            abstract URIs of the spaces to follow
+     * @param listener
+     *            this directory as seen by the naming service, typically a remote object stub
+     * @throws WrongApplicationIdException
+     *             when there is no registered application for any of the queries
+     * @see NamingService#subscribe(String, Set, SpacesDirectoryListener)
+     */
+    public void subscribe(NamingService namingService, String subscriberId, Set<DataSpacesURI> queries,
+            SpacesDirectoryListener listener) throws WrongApplicationIdException {
+        synchronized (this) {
+            unregisteredWhileSubscribing = new HashSet<DataSpacesURI>();
+        }
+        try {
+            final Set<SpaceInstanceInfo> spaces = namingService.subscribe(subscriberId, queries, listener);
+
+            synchronized (this) {
+                // notifications may have been received before the result
+                final Set<SpaceInstanceInfo> current = new HashSet<SpaceInstanceInfo>();
+                for (SpaceInstanceInfo sii : spaces) {
+                    if (!unregisteredWhileSubscribing.contains(sii.getMountingPoint()))
+                        current.add(sii);
+                }
+                localDirectory.register(current);
+                subscribedQueries = new ArrayList<DataSpacesURI>(queries);
+                subscribedNamingService = namingService;
+                this.subscriberId = subscriberId;
+                nextSubscriptionCheck.set(System.currentTimeMillis() + subscriptionCheckMillis);
+                invalidateLookupMany();
+            }
+        } finally {
+            synchronized (this) {
+                unregisteredWhileSubscribing = null;
+            }
+        }
+    }
+
+    /**
+     * Cancels a subscription made through
+     * {@link #subscribe(NamingService, String, Set, SpacesDirectoryListener)}.
+     *
+     * @param namingService
+     *            naming service subscribed to
+     * @param subscriberId
+     *            identifier of the subscription
+     */
+    public void unsubscribe(NamingService namingService, String subscriberId) {
+        synchronized (this) {
+            cancelSubscription();
+        }
+        namingService.unsubscribe(subscriberId);
+    }
+
+    public synchronized void spacesRegistered(Set<SpaceInstanceInfo> spaces) {
+        localDirectory.register(spaces);
+        invalidateLookupMany();
+    }
+
+    public synchronized void spacesUnregistered(Set<DataSpacesURI> uris) {
+        localDirectory.unregister(uris);
+        if (unregisteredWhileSubscribing != null)
+            unregisteredWhileSubscribing.addAll(uris);
+        invalidateLookupMany();
+    }
+
+    /**
+     * Checks that the subscription is still active in the naming service, at most once per
+     * subscription check period; concurrent queries do not wait for the check.
+     *
+     * @return <code>false</code> if the naming service dropped the subscription, that is then
+     *         cancelled
+     */
+    private boolean checkSubscription() {
+        final long now = System.currentTimeMillis();
+        final long nextCheck = nextSubscriptionCheck.get();
+        if (now < nextCheck || !nextSubscriptionCheck.compareAndSet(nextCheck, now + subscriptionCheckMillis))
+            return true;
+
+        final NamingService namingService = subscribedNamingService;
+        final String id = subscriberId;
+        if (namingService == null)
+            return false;
+
+        boolean subscribed;
+        try {
+            subscribed = namingService.isSubscribed(id);
+        } catch (RuntimeException e) {
+            // changes may not be notified either
+            ProActiveLogger.logEatedException(logger, "Could not check subscription " + id, e);
+            subscribed = false;
+        }
+        if (!subscribed) {
+            logger.warn("Subscription " + id + " to spaces changes was dropped by the naming service, " +
+                        "querying it instead");
+            synchronized (this) {
+                if (subscribedNamingService == namingService && id.equals(subscriberId))
+                    cancelSubscription();
+            }
+        }
+        return subscribed;
+    }
+
+    // always called within synchronized (this)
+    private void cancelSubscription() {
+        subscribedQueries = Collections.emptyList();
+        subscribedNamingService = null;
+        subscriberId = null;
+        invalidateLookupMany();
+    }
+
+    private boolean isSubscribed(DataSpacesURI uri) {
+        for (DataSpacesURI query : subscribedQueries) {
+            if (SpacesDirectoryImpl.isMatchingQuery(uri, query) && uri.nextURI().compareTo(query.nextURI()) <= 0)
+                return true;
+        }
+        return false;
+    }
+
+    // always called within synchronized (this)
+    private void invalidateLookupMany() {
+        generation.incrementAndGet();
+        lookupManyCache.clear();
+    }
+
+    private static class CachedLookup {
+        // null when no space matched
+        final Set<SpaceInstanceInfo> spaces;
+
+        final long expiry;
+
+        CachedLookup(Set<SpaceInstanceInfo> spaces, long expiry) {
+            this.spaces = spaces;
+            this.expiry = expiry;
+        }
     }
 }
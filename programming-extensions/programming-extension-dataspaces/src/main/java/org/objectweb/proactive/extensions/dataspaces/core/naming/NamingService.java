@@ -27,10 +27,18 @@ package org.objectweb.proactive.extensions.dataspaces.core.naming;
 
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 import org.apache.log4j.Logger;
 import org.objectweb.proactive.api.PARemoteObject;
@@ -43,6 +51,8 @@ import org.objectweb.proactive.extensions.dataspaces.core.SpaceInstanceInfo;
 import org.objectweb.proactive.extensions.dataspaces.exceptions.ApplicationAlreadyRegisteredException;
 import org.objectweb.proactive.extensions.dataspaces.exceptions.SpaceAlreadyRegisteredException;
 import org.objectweb.proactive.extensions.dataspaces.exceptions.WrongApplicationIdException;
+import org.objectweb.proactive.utils.NamedThreadFactory;
+import org.objectweb.proactive.utils.ThreadPools;
 
 
 /**
@@ -54,6 +64,12 @@ import org.objectweb.proactive.extensions.dataspaces.exceptions.WrongApplication
  * unregistered, and spaces of given application are registered only for period when that
  * application is being registered.
  * <p>
+ * Several spaces can be registered in one call through {@link #registerMany(Set)}. Instead of
+ * repeating queries, clients may subscribe to changes of the spaces matching some queries through
+ * {@link #subscribe(String, Set, SpacesDirectoryListener)}: they then get the spaces currently
+ * registered, and are notified of subsequent changes.
+ * <p>
+ * Registration and unregistration of applications are serialized, other operations are not.
  * Instances of this class are intended to work as remote objects and they are thread-safe.
  *
  * @see SpacesDirectory
@@ -114,10 +130,22 @@ public class NamingService implements SpacesDirectory {
         }
     }
 
-    private final Set<String> registeredApplications = new HashSet<String>();
+    private static final int NOTIFIER_THREADS = 4;
+
+    private final Set<String> registeredApplications = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
 
     private final SpacesDirectoryImpl directory = new SpacesDirectoryImpl();
 
+    // held exclusively for registering and unregistering applications, shared for other changes,
+    // so that no space is registered for an application being unregistered
+    private final ReentrantReadWriteLock applicationsLock = new ReentrantReadWriteLock();
+
+    private final ConcurrentHashMap<String, Subscription> subscriptions = new ConcurrentHashMap<String, Subscription>();
+
+    private final Executor notifier = ThreadPools.newBoundedThreadPool(NOTIFIER_THREADS,
+                                                                       new NamedThreadFactory("Data Spaces naming service notifier",
+                                                                                              true));
+
     /**
      * Registers application along with its spaces definition.
      *
@@ -132,25 +160,31 @@ public class NamingService implements SpacesDirectory {
      * @throws ApplicationAlreadyRegisteredException
      *             When specified application id is already registered.
      */
-    synchronized public void registerApplication(String appId, Set<SpaceInstanceInfo> spaces)
+    public void registerApplication(String appId, Set<SpaceInstanceInfo> spaces)
             throws ApplicationAlreadyRegisteredException, WrongApplicationIdException {
         logger.debug("Registering application with id " + appId);
 
-        if (isApplicationIdRegistered(appId)) {
-            throw new ApplicationAlreadyRegisteredException("Application with the same application id is already registered.");
-        }
-
-        if (spaces != null)
-            checkApplicationSpaces(appId, spaces);
+        applicationsLock.writeLock().lock();
+        try {
+            if (isApplicationIdRegistered(appId)) {
+                throw new ApplicationAlreadyRegisteredException("Application with the same application id is already registered.");
+            }
 
-        registeredApplications.add(appId);
-        logger.debug("Registered application with id " + appId);
-        if (spaces != null) {
-            directory.register(spaces);
-            if (logger.isDebugEnabled()) {
-                for (final SpaceInstanceInfo info : spaces)
-                    logger.debug("Registered space: " + info);
+            if (spaces != null)
+                checkApplicationSpaces(appId, spaces);
+
+            registeredApplications.add(appId);
+            logger.debug("Registered application with id " + appId);
+            if (spaces != null) {
+                directory.register(spaces);
+                notifyRegistered(spaces);
+                if (logger.isDebugEnabled()) {
+                    for (final SpaceInstanceInfo info : spaces)
+                        logger.debug("Registered space: " + info);
+                }
             }
+        } finally {
+            applicationsLock.writeLock().unlock();
         }
     }
 
@@ -163,28 +197,34 @@ public class NamingService implements SpacesDirectory {
      * @throws WrongApplicationIdException
      *             when specified application id is not registered
      */
-    synchronized public void unregisterApplication(String appId) throws WrongApplicationIdException {
+    public void unregisterApplication(String appId) throws WrongApplicationIdException {
         logger.debug("Unregistering application with id " + appId);
 
-        final boolean found = registeredApplications.remove(appId);
-        if (!found)
-            throw new WrongApplicationIdException("Application with specified appid is not registered.");
+        applicationsLock.writeLock().lock();
+        try {
+            final boolean found = registeredApplications.remove(appId);
+            if (!found)
+                throw new WrongApplicationIdException("Application with specified appid is not registered.");
 
-        final Set<SpaceInstanceInfo> spaces = lookupMany(DataSpacesURI.createURI(appId));
+            final Set<SpaceInstanceInfo> spaces = lookupMany(DataSpacesURI.createURI(appId));
 
-        if (spaces == null)
-            return;
+            if (spaces != null) {
+                final Set<DataSpacesURI> uris = new HashSet<DataSpacesURI>(spaces.size());
 
-        final Set<DataSpacesURI> uris = new HashSet<DataSpacesURI>(spaces.size());
+                for (SpaceInstanceInfo sii : spaces)
+                    uris.add(sii.getMountingPoint());
 
-        for (SpaceInstanceInfo sii : spaces)
-            uris.add(sii.getMountingPoint());
-
-        directory.unregister(uris);
-        if (logger.isDebugEnabled()) {
-            for (final DataSpacesURI uri : uris)
-                logger.debug("Unregistered space: " + uri);
+                directory.unregister(uris);
+                notifyUnregistered(uris);
+                if (logger.isDebugEnabled()) {
+                    for (final DataSpacesURI uri : uris)
+                        logger.debug("Unregistered space: " + uri);
+                }
+            }
+            removeApplicationSubscriptions(appId);
             logger.debug("Unregistered application with id " + appId);
+        } finally {
+            applicationsLock.writeLock().unlock();
         }
     }
 
@@ -206,27 +246,134 @@ public class NamingService implements SpacesDirectory {
      *             when directory already contains any space instance under specified mounting point
      * @see SpacesDirectory#register(SpaceInstanceInfo)
      */
-    synchronized public void register(SpaceInstanceInfo spaceInstanceInfo)
+    public void register(SpaceInstanceInfo spaceInstanceInfo)
             throws WrongApplicationIdException, SpaceAlreadyRegisteredException {
         logger.debug("Registering space: " + spaceInstanceInfo);
 
-        final String appId = spaceInstanceInfo.getAppId();
+        applicationsLock.readLock().lock();
+        try {
+            checkApplicationRegistered(spaceInstanceInfo.getAppId());
 
-        if (!isApplicationIdRegistered(appId)) {
-            if (logger.isTraceEnabled()) {
-                logger.trace("There is no application registered with specified application id " + appId);
-                logger.trace("The registry contains the following appIds:");
-                for (String registeredApplication : registeredApplications) {
-                    logger.trace("  - " + registeredApplication);
-                }
+            directory.register(spaceInstanceInfo);
+            notifyRegistered(Collections.singleton(spaceInstanceInfo));
+        } finally {
+            applicationsLock.readLock().unlock();
+        }
+        logger.debug("Registered space: " + spaceInstanceInfo);
+    }
+
+    /**
+     * Registers provided data space instances for already registered applications, in one call.
+     * Either all spaces are registered, or none of them.
+     *
+     * @param spaceInstanceInfos
+     *            space instance infos to register (contract: SpaceInstanceInfo mounting points
+     *            should have space part fully defined)
+     * @throws WrongApplicationIdException
+     *             when there is no registered application for any of SpaceInstanceInfo being
+     *             registered
+     * @throws SpaceAlreadyRegisteredException
+     *             when directory already contains any space instance under any of specified
+     *             mounting points
+     * @see #register(SpaceInstanceInfo)
+     */
+    public void registerMany(Set<SpaceInstanceInfo> spaceInstanceInfos)
+            throws WrongApplicationIdException, SpaceAlreadyRegisteredException {
+        logger.debug("Registering " + spaceInstanceInfos.size() + " spaces");
+
+        applicationsLock.readLock().lock();
+        try {
+            for (SpaceInstanceInfo sii : spaceInstanceInfos)
+                checkApplicationRegistered(sii.getAppId());
+
+            directory.registerAll(spaceInstanceInfos);
+            notifyRegistered(spaceInstanceInfos);
+        } finally {
+            applicationsLock.readLock().unlock();
+        }
+        if (logger.isDebugEnabled()) {
+            for (final SpaceInstanceInfo info : spaceInstanceInfos)
+                logger.debug("Registered space: " + info);
+        }
+    }
+
+    /**
+     * Subscribes a listener to changes of the spaces matching some abstract queries, as the ones of
+     * {@link #lookupMany(DataSpacesURI)}. The listener is notified of every space registered or
+     * unregistered after this call, until it is unsubscribed, or until the applications of all its
+     * queries are unregistered. A listener that cannot be notified is unsubscribed, subscribers
+     * should therefore check from time to time that they are still subscribed, see
+     * {@link #isSubscribed(String)}.
+     * <p>
+     * Subscribing again with the same subscriber id replaces the previous subscription.
+     *
+     * @param subscriberId
+     *            identifier of the subscription, chosen by the subscriber
+     * @param queries
+     *            abstract URIs of the spaces to follow, of registered applications
+     * @param listener
+     *            listener to notify, typically a remote object
+     * @return spaces currently registered and matching any of the queries, possibly empty
+     * @throws IllegalArgumentException
+     *             when any of specified URIs is not abstract - has space part fully defined
+     * @throws WrongApplicationIdException
+     *             when there is no registered application for any of the queries
+     * @see #unsubscribe(String)
+     */
+    public Set<SpaceInstanceInfo> subscribe(String subscriberId, Set<DataSpacesURI> queries,
+            SpacesDirectoryListener listener) throws IllegalArgumentException, WrongApplicationIdException {
+        logger.debug("Subscribing " + subscriberId + " to spaces matching " + queries);
+
+        applicationsLock.readLock().lock();
+        try {
+            for (DataSpacesURI query : queries) {
+                SpacesDirectoryImpl.checkAbstractURI(query);
+                checkApplicationRegistered(query.getAppId());
             }
 
-            throw new WrongApplicationIdException("There is no application registered with specified application id " +
-                                                  appId);
+            // subscription is made visible before looking up, so that a concurrent change is
+            // either returned or notified
+            final Subscription subscription = new Subscription(subscriberId,
+                                                               new ArrayList<DataSpacesURI>(queries),
+                                                               listener);
+            subscriptions.put(subscriberId, subscription);
+
+            final Set<SpaceInstanceInfo> result = new HashSet<SpaceInstanceInfo>();
+            for (DataSpacesURI query : queries) {
+                final Set<SpaceInstanceInfo> spaces = directory.lookupMany(query);
+                if (spaces != null)
+                    result.addAll(spaces);
+            }
+            return result;
+        } finally {
+            applicationsLock.readLock().unlock();
         }
+    }
 
-        directory.register(spaceInstanceInfo);
-        logger.debug("Registered space: " + spaceInstanceInfo);
+    /**
+     * Removes a subscription made through {@link #subscribe(String, Set, SpacesDirectoryListener)}.
+     *
+     * @param subscriberId
+     *            identifier of the subscription
+     * @return <code>true</code> if there was such subscription, <code>false</code> otherwise
+     */
+    public boolean unsubscribe(String subscriberId) {
+        logger.debug("Unsubscribing " + subscriberId);
+        return subscriptions.remove(subscriberId) != null;
+    }
+
+    /**
+     * Tells whether a subscription made through
+     * {@link #subscribe(String, Set, SpacesDirectoryListener)} is still active, i.e. whether its
+     * listener is notified of the changes of its spaces.
+     *
+     * @param subscriberId
+     *            identifier of the subscription
+     * @return <code>true</code> if the subscription is active, <code>false</code> if it has been
+     *         dropped or has never been made
+     */
+    public boolean isSubscribed(String subscriberId) {
+        return subscriptions.containsKey(subscriberId);
     }
 
     public Set<SpaceInstanceInfo> lookupMany(DataSpacesURI uri) throws IllegalArgumentException {
@@ -242,16 +389,152 @@ public class NamingService implements SpacesDirectory {
     }
 
     public boolean unregister(DataSpacesURI uri) {
-        final boolean result = directory.unregister(uri);
+        final boolean result;
+
+        applicationsLock.readLock().lock();
+        try {
+            result = directory.unregister(uri);
+            if (result)
+                notifyUnregistered(Collections.singleton(uri));
+        } finally {
+            applicationsLock.readLock().unlock();
+        }
         logger.debug("Unregistered space: " + uri);
         return result;
     }
 
-    synchronized public Set<String> getRegisteredApplications() {
-        return Collections.unmodifiableSet(registeredApplications);
+    public Set<String> getRegisteredApplications() {
+        return Collections.unmodifiableSet(new HashSet<String>(registeredApplications));
     }
 
-    synchronized public boolean isApplicationIdRegistered(String appid) {
+    public boolean isApplicationIdRegistered(String appid) {
         return registeredApplications.contains(appid);
     }
+
+    private void checkApplicationRegistered(String appId) throws WrongApplicationIdException {
+        if (!isApplicationIdRegistered(appId)) {
+            if (logger.isTraceEnabled()) {
+                logger.trace("There is no application registered with specified application id " + appId);
+                logger.trace("The registry contains the following appIds:");
+                for (String registeredApplication : registeredApplications) {
+                    logger.trace("  - " + registeredApplication);
+                }
+            }
+
+            throw new WrongApplicationIdException("There is no application registered with specified application id " +
+                                                  appId);
+        }
+    }
+
+    private void notifyRegistered(Set<SpaceInstanceInfo> spaces) {
+        for (Subscription subscription : subscriptions.values()) {
+            final Set<SpaceInstanceInfo> matching = new HashSet<SpaceInstanceInfo>();
+            for (SpaceInstanceInfo sii : spaces) {
+                if (subscription.matches(sii.getMountingPoint()))
+                    matching.add(sii);
+            }
+            if (!matching.isEmpty())
+                subscription.post(new Notification(matching, null));
+        }
+    }
+
+    private void notifyUnregistered(Set<DataSpacesURI> uris) {
+        for (Subscription subscription : subscriptions.values()) {
+            final Set<DataSpacesURI> matching = new HashSet<DataSpacesURI>();
+            for (DataSpacesURI uri : uris) {
+                if (subscription.matches(uri))
+                    matching.add(uri);
+            }
+            if (!matching.isEmpty())
+                subscription.post(new Notification(null, matching));
+        }
+    }
+
+    // called with applications lock held exclusively
+    private void removeApplicationSubscriptions(String appId) {
+        final Iterator<Subscription> it = subscriptions.values().iterator();
+        while (it.hasNext()) {
+            boolean registered = false;
+            for (DataSpacesURI query : it.next().queries) {
+                if (isApplicationIdRegistered(query.getAppId()))
+                    registered = true;
+            }
+            if (!registered)
+                it.remove();
+        }
+    }
+
+    private static class Notification {
+        // exactly one of these is set
+        private final Set<SpaceInstanceInfo> registered;
+
+        private final Set<DataSpacesURI> unregistered;
+
+        private Notification(Set<SpaceInstanceInfo> registered, Set<DataSpacesURI> unregistered) {
+            this.registered = registered;
+            this.unregistered = unregistered;
+        }
+    }
+
+    /**
+     * Subscription of a listener, delivering its notifications one at a time in the notifier
+     * thread pool.
+     */
+    private class Subscription implements Runnable {
+        private final String subscriberId;
+
+        private final List<DataSpacesURI> queries;
+
+        private final SpacesDirectoryListener listener;
+
+        private final ConcurrentLinkedQueue<Notification> pending = new ConcurrentLinkedQueue<Notification>();
+
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+
+        private Subscription(String subscriberId, List<DataSpacesURI> queries, SpacesDirectoryListener listener) {
+            this.subscriberId = subscriberId;
+            this.queries = queries;
+            this.listener = listener;
+        }
+
+        private boolean matches(DataSpacesURI uri) {
+            for (DataSpacesURI query : queries) {
+                if (SpacesDirectoryImpl.isMatchingQuery(uri, query))
+                    return true;
+            }
+            return false;
+        }
+
+        private void post(Notification notification) {
+            pending.add(notification);
+            schedule();
+        }
+
+        private void schedule() {
+            if (scheduled.compareAndSet(false, true))
+                notifier.execute(this);
+        }
+
+        public void run() {
+            Notification notification;
+            while ((notification = pending.poll()) != null) {
+                try {
+                    if (notification.registered != null)
+                        listener.spacesRegistered(notification.registered);
+                    else
+                        listener.spacesUnregistered(notification.unregistered);
+                } catch (Throwable t) {
+                    logger.warn("Could not notify subscriber " + subscriberId + ", unsubscribing it", t);
+                    subscriptions.remove(subscriberId, this);
+                    pending.clear();
+                    // stays scheduled, no further notification is delivered
+                    return;
+                }
+            }
+            scheduled.set(false);
+            // a notification may have been posted after the last poll
+            if (!pending.isEmpty())
+                schedule();
+        }
+    }
 }
@@ -25,10 +25,15 @@
  */
 package org.objectweb.proactive.extensions.dataspaces.core.naming;
 
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.SortedMap;
 import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 import org.objectweb.proactive.extensions.dataspaces.core.DataSpacesURI;
 import org.objectweb.proactive.extensions.dataspaces.core.SpaceInstanceInfo;
@@ -38,12 +43,15 @@ import org.objectweb.proactive.extensions.dataspaces.exceptions.SpaceAlreadyRegi
 /**
  * In-memory implementation of {@link SpacesDirectory}.
  * <p>
+ * Spaces are indexed in one shard per application, each shard having its own read-write lock, so
+ * that queries are not serialized and that applications are registered and queried independently.
+ * <p>
  * Instances of this class are thread-safe.
  *
  * @see SpacesDirectory
  */
 public class SpacesDirectoryImpl implements SpacesDirectory {
-    private final SortedMap<DataSpacesURI, SpaceInstanceInfo> data = new TreeMap<DataSpacesURI, SpaceInstanceInfo>();
+    private final ConcurrentHashMap<String, Shard> shards = new ConcurrentHashMap<String, Shard>();
 
     protected static void checkAbstractURI(DataSpacesURI uri) {
         if (uri.isSpacePartFullyDefined())
@@ -58,18 +66,32 @@ public class SpacesDirectoryImpl implements SpacesDirectory {
             throw new IllegalArgumentException("Space URI must define only space part for this method call");
     }
 
+    /**
+     * Checks whether specified URI matches an abstract query, as done by
+     * {@link #lookupMany(DataSpacesURI)}.
+     */
+    protected static boolean isMatchingQuery(DataSpacesURI uri, DataSpacesURI query) {
+        return uri.compareTo(query) >= 0 && uri.compareTo(query.nextURI()) < 0;
+    }
+
     public Set<SpaceInstanceInfo> lookupMany(DataSpacesURI uri) {
         checkAbstractURI(uri);
 
         final DataSpacesURI nextKey = uri.nextURI();
-        final Set<SpaceInstanceInfo> ret = new HashSet<SpaceInstanceInfo>();
+        final Shard shard = shards.get(uri.getAppId());
+        if (shard == null)
+            return null;
 
-        synchronized (data) {
-            final SortedMap<DataSpacesURI, SpaceInstanceInfo> sub = data.subMap(uri, nextKey);
+        final Set<SpaceInstanceInfo> ret = new HashSet<SpaceInstanceInfo>();
+        shard.lock.readLock().lock();
+        try {
+            final SortedMap<DataSpacesURI, SpaceInstanceInfo> sub = shard.data.subMap(uri, nextKey);
 
             if (sub.size() == 0)
                 return null;
             ret.addAll(sub.values());
+        } finally {
+            shard.lock.readLock().unlock();
         }
         return ret;
     }
@@ -77,57 +99,190 @@ public class SpacesDirectoryImpl implements SpacesDirectory {
     public SpaceInstanceInfo lookupOne(DataSpacesURI uri) {
         checkMountingPointURI(uri);
 
-        synchronized (data) {
-            return data.get(uri);
+        final Shard shard = shards.get(uri.getAppId());
+        if (shard == null)
+            return null;
+
+        shard.lock.readLock().lock();
+        try {
+            return shard.data.get(uri);
+        } finally {
+            shard.lock.readLock().unlock();
         }
     }
 
     public void register(SpaceInstanceInfo spaceInstanceInfo) throws SpaceAlreadyRegisteredException {
-        final DataSpacesURI mpoint;
-
         // get mounting point URI that cannot be null
-        synchronized (data) {
-            mpoint = spaceInstanceInfo.getMountingPoint();
+        final DataSpacesURI mpoint = spaceInstanceInfo.getMountingPoint();
+        final Shard shard = lockShard(mpoint.getAppId());
 
-            if (data.containsKey(mpoint))
+        try {
+            if (shard.data.containsKey(mpoint))
                 throw new SpaceAlreadyRegisteredException("Mapping for a given space URI is already registered");
-            data.put(mpoint, spaceInstanceInfo);
+            shard.data.put(mpoint, spaceInstanceInfo);
+        } finally {
+            unlockShard(mpoint.getAppId(), shard);
         }
     }
 
     public boolean unregister(DataSpacesURI uri) {
         checkMountingPointURI(uri);
 
-        synchronized (data) {
-            if (!data.containsKey(uri))
-                return false;
+        final Shard shard = shards.get(uri.getAppId());
+        if (shard == null)
+            return false;
 
-            data.remove(uri);
+        shard.lock.writeLock().lock();
+        try {
+            // a removed shard is empty
+            return shard.data.remove(uri) != null;
+        } finally {
+            unlockShard(uri.getAppId(), shard);
         }
-        return true;
     }
 
     /**
-     * Helper method for bulked registration as obtaining lock is done only once.
+     * Helper method for bulked registration as obtaining lock is done only once per application.
      *
      * @param ssis
      */
     protected void register(Set<SpaceInstanceInfo> ssis) {
-        synchronized (data) {
-            for (SpaceInstanceInfo ssi : ssis)
-                data.put(ssi.getMountingPoint(), ssi);
+        for (Map.Entry<String, List<SpaceInstanceInfo>> entry : groupByApplication(ssis).entrySet()) {
+            final Shard shard = lockShard(entry.getKey());
+            try {
+                for (SpaceInstanceInfo ssi : entry.getValue())
+                    shard.data.put(ssi.getMountingPoint(), ssi);
+            } finally {
+                unlockShard(entry.getKey(), shard);
+            }
+        }
+    }
+
+    /**
+     * Helper method for bulked registration of spaces that must not be already registered. Either
+     * all spaces are registered, or none of them.
+     *
+     * @param ssis
+     * @throws SpaceAlreadyRegisteredException
+     *             when directory already contains any space instance under a mounting point of
+     *             provided spaces
+     */
+    protected void registerAll(Set<SpaceInstanceInfo> ssis) throws SpaceAlreadyRegisteredException {
+        // groups are sorted by application id, so that shards are always locked in the same order
+        final Map<String, List<SpaceInstanceInfo>> groups = groupByApplication(ssis);
+        final List<Shard> locked = new ArrayList<Shard>(groups.size());
+        final List<String> lockedAppIds = new ArrayList<String>(groups.size());
+
+        try {
+            for (Map.Entry<String, List<SpaceInstanceInfo>> entry : groups.entrySet()) {
+                final Shard shard = lockShard(entry.getKey());
+                locked.add(shard);
+                lockedAppIds.add(entry.getKey());
+
+                for (SpaceInstanceInfo ssi : entry.getValue()) {
+                    if (shard.data.containsKey(ssi.getMountingPoint()))
+                        throw new SpaceAlreadyRegisteredException("Mapping for a given space URI is already registered: " +
+                                                                  ssi.getMountingPoint());
+                }
+            }
+
+            int i = 0;
+            for (List<SpaceInstanceInfo> group : groups.values()) {
+                final Shard shard = locked.get(i++);
+                for (SpaceInstanceInfo ssi : group)
+                    shard.data.put(ssi.getMountingPoint(), ssi);
+            }
+        } finally {
+            for (int i = locked.size() - 1; i >= 0; i--)
+                unlockShard(lockedAppIds.get(i), locked.get(i));
         }
     }
 
     /**
-     * Helper method for bulked unregistration as obtaining lock is done only once.
+     * Helper method for bulked unregistration as obtaining lock is done only once per application.
      *
      * @param uris
      */
     protected void unregister(Set<DataSpacesURI> uris) {
-        synchronized (data) {
-            for (DataSpacesURI key : uris)
-                data.remove(key);
+        final Map<String, List<DataSpacesURI>> groups = new TreeMap<String, List<DataSpacesURI>>();
+        for (DataSpacesURI uri : uris) {
+            List<DataSpacesURI> group = groups.get(uri.getAppId());
+            if (group == null) {
+                group = new ArrayList<DataSpacesURI>();
+                groups.put(uri.getAppId(), group);
+            }
+            group.add(uri);
+        }
+
+        for (Map.Entry<String, List<DataSpacesURI>> entry : groups.entrySet()) {
+            final Shard shard = shards.get(entry.getKey());
+            if (shard == null)
+                continue;
+
+            shard.lock.writeLock().lock();
+            try {
+                for (DataSpacesURI key : entry.getValue())
+                    shard.data.remove(key);
+            } finally {
+                unlockShard(entry.getKey(), shard);
+            }
+        }
+    }
+
+    private static Map<String, List<SpaceInstanceInfo>> groupByApplication(Set<SpaceInstanceInfo> ssis) {
+        final Map<String, List<SpaceInstanceInfo>> groups = new TreeMap<String, List<SpaceInstanceInfo>>();
+        for (SpaceInstanceInfo ssi : ssis) {
+            List<SpaceInstanceInfo> group = groups.get(ssi.getAppId());
+            if (group == null) {
+                group = new ArrayList<SpaceInstanceInfo>();
+                groups.put(ssi.getAppId(), group);
+            }
+            group.add(ssi);
+        }
+        return groups;
+    }
+
+    /**
+     * Returns the shard of an application, created if needed, with its write lock held.
+     */
+    private Shard lockShard(String appId) {
+        while (true) {
+            Shard shard = shards.get(appId);
+            if (shard == null) {
+                final Shard newShard = new Shard();
+                shard = shards.putIfAbsent(appId, newShard);
+                if (shard == null)
+                    shard = newShard;
+            }
+
+            shard.lock.writeLock().lock();
+            if (!shard.removed)
+                return shard;
+            // removed meanwhile by unlockShard, retry with a new one
+            shard.lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Releases the write lock of a shard, removing that shard if it has been left empty.
+     */
+    private void unlockShard(String appId, Shard shard) {
+        try {
+            if (!shard.removed && shard.data.isEmpty()) {
+                shard.removed = true;
+                shards.remove(appId, shard);
+            }
+        } finally {
+            shard.lock.writeLock().unlock();
         }
     }
+
+    private static class Shard {
+        private final SortedMap<DataSpacesURI, SpaceInstanceInfo> data = new TreeMap<DataSpacesURI, SpaceInstanceInfo>();
+
+        private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+        // set, with the write lock held, once an empty shard is removed from the index
+        private boolean removed;
+    }
 }
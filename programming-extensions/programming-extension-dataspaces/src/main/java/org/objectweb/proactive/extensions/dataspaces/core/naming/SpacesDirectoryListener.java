@@ -0,0 +1,59 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.objectweb.proactive.extensions.dataspaces.core.naming;
+
+import java.util.Set;
+
+import org.objectweb.proactive.extensions.dataspaces.core.DataSpacesURI;
+import org.objectweb.proactive.extensions.dataspaces.core.SpaceInstanceInfo;
+
+
+/**
+ * Receives changes of spaces registered in a {@link NamingService}, once subscribed through
+ * {@link NamingService#subscribe(String, Set, SpacesDirectoryListener)}.
+ * <p>
+ * Notifications to a listener are delivered asynchronously and sequentially, in the order changes
+ * have been made, except for concurrent changes of the same space. Implementations may be remote
+ * objects.
+ */
+public interface SpacesDirectoryListener {
+
+    /**
+     * Notifies that spaces matching a subscribed query have been registered.
+     *
+     * @param spaces
+     *            registered spaces
+     */
+    public void spacesRegistered(Set<SpaceInstanceInfo> spaces);
+
+    /**
+     * Notifies that spaces matching a subscribed query have been unregistered.
+     *
+     * @param uris
+     *            mounting points of unregistered spaces
+     */
+    public void spacesUnregistered(Set<DataSpacesURI> uris);
+}
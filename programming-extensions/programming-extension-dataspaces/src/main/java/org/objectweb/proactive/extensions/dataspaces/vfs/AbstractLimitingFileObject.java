@@ -107,6 +107,53 @@ public abstract class AbstractLimitingFileObject<T extends FileObject> extends D
      */
     protected abstract boolean canReturnAncestor(T decoratedAncestor);
 
+    /**
+     * Opens an output stream on the content of this file, once write access is granted. Default
+     * implementation just delegates to the content.
+     *
+     * @param content
+     *            undecorated content of this file
+     * @param append
+     *            <code>true</code> to append to the content, <code>false</code> to replace it
+     * @return output stream of the content
+     * @throws FileSystemException
+     *             when the stream cannot be opened
+     */
+    protected OutputStream doGetOutputStream(FileContent content, boolean append) throws FileSystemException {
+        return content.getOutputStream(append);
+    }
+
+    /**
+     * Opens an input stream on the content of this file. Default implementation just delegates to
+     * the content.
+     *
+     * @param content
+     *            undecorated content of this file
+     * @return input stream of the content
+     * @throws FileSystemException
+     *             when the stream cannot be opened
+     */
+    protected InputStream doGetInputStream(FileContent content) throws FileSystemException {
+        return content.getInputStream();
+    }
+
+    /**
+     * Opens random access content of this file, once write access is granted if requested.
+     * Default implementation just delegates to the content.
+     *
+     * @param content
+     *            undecorated content of this file
+     * @param mode
+     *            access mode
+     * @return random access content
+     * @throws FileSystemException
+     *             when the content cannot be opened
+     */
+    protected RandomAccessContent doGetRandomAccessContent(FileContent content, RandomAccessMode mode)
+            throws FileSystemException {
+        return content.getRandomAccessContent(mode);
+    }
+
     @Override
     public boolean canRenameTo(FileObject newfile) {
         return !isReadOnly();
@@ -287,7 +334,7 @@ public abstract class AbstractLimitingFileObject<T extends FileObject> extends D
         }
 
         public InputStream getInputStream() throws FileSystemException {
-            return content.getInputStream();
+            return doGetInputStream(content);
         }
 
         public long getLastModifiedTime() throws FileSystemException {
@@ -296,18 +343,18 @@ public abstract class AbstractLimitingFileObject<T extends FileObject> extends D
 
         public OutputStream getOutputStream() throws FileSystemException {
             checkIsNotReadOnly();
-            return content.getOutputStream();
+            return doGetOutputStream(content, false);
         }
 
         public OutputStream getOutputStream(boolean append) throws FileSystemException {
             checkIsNotReadOnly();
-            return content.getOutputStream(append);
+            return doGetOutputStream(content, append);
         }
 
         public RandomAccessContent getRandomAccessContent(RandomAccessMode mode) throws FileSystemException {
             if (mode.requestWrite())
                 checkIsNotReadOnly();
-            return content.getRandomAccessContent(mode);
+            return doGetRandomAccessContent(content, mode);
         }
 
         public long getSize() throws FileSystemException {
@@ -0,0 +1,485 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.objectweb.proactive.extensions.dataspaces.vfs;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.vfs2.FileContent;
+import org.apache.commons.vfs2.FileObject;
+import org.apache.commons.vfs2.FileSelector;
+import org.apache.commons.vfs2.FileSystemException;
+import org.apache.commons.vfs2.NameScope;
+import org.apache.commons.vfs2.Selectors;
+import org.apache.commons.vfs2.impl.DecoratedFileObject;
+import org.apache.log4j.Logger;
+import org.objectweb.proactive.core.util.log.Loggers;
+import org.objectweb.proactive.core.util.log.ProActiveLogger;
+import org.objectweb.proactive.extensions.dataspaces.core.DataSpacesURI;
+import org.objectweb.proactive.extensions.dataspaces.core.SpaceType;
+import org.objectweb.proactive.extensions.vfsprovider.client.ProActiveFileObject;
+
+
+/**
+ * Content-addressed store of a node scratch space, keeping copies of files identified by the hash
+ * of their content.
+ * <p>
+ * Files copied into a scratch space of the node are first looked up in the store by the hash of
+ * their content, as computed by the file system server of the source (see
+ * {@link ProActiveFileObject#getContentHash()}). Content found in the store is copied locally,
+ * otherwise it is transferred once into the store, whatever the number of concurrent copies of
+ * the same content. Sources that do not provide content hashes are copied directly.
+ * <p>
+ * Content missing from the store is first looked up in the stores of a few other nodes of the
+ * application (see {@link Peers}), so that the origin of a file shared by many nodes is not read
+ * by each of them. Content found there is used only if its hash, as computed by the file system
+ * server of the other node, is the expected one; the origin is used otherwise.
+ * <p>
+ * Content is hashed once before being copied: a source whose size or last modification time
+ * changed during the copy is not stored.
+ * <p>
+ * The store is bounded in size, least recently used entries are deleted first. Entries being
+ * copied are never deleted.
+ * <p>
+ * Instances of this class are thread-safe.
+ */
+public class ContentAddressedStore {
+    private static final Logger logger = ProActiveLogger.getLogger(Loggers.DATASPACES);
+
+    /**
+     * Name of the directory of the store, within the scratch space of its node
+     */
+    static final String DIRECTORY_NAME = ".content-store";
+
+    /**
+     * Maximum number of stores of other nodes looked up for a missing content
+     */
+    static final int MAX_PEER_LOOKUPS = 3;
+
+    private static final String PART_SUFFIX = ".part";
+
+    private final FileObject root;
+
+    private final String runtimeId;
+
+    private final String nodeId;
+
+    private final long maxSize;
+
+    /*
+     * entries, pinnedEntries and size are guarded by this. Fetching or deleting the file of an
+     * entry is performed while holding the fetch lock of its hash only (see getFetchLock()), that
+     * is always taken before this.
+     */
+
+    // hash -> size of the stored content, in access order
+    private final LinkedHashMap<String, Long> entries = new LinkedHashMap<String, Long>(16, 0.75f, true);
+
+    // hash -> number of copies in progress from the entry
+    private final Map<String, Integer> pinnedEntries = new HashMap<String, Integer>();
+
+    private long size;
+
+    private final ConcurrentHashMap<String, Object> fetchLocks = new ConcurrentHashMap<String, Object>();
+
+    private final AtomicLong partCounter = new AtomicLong();
+
+    private final AtomicLong fetches = new AtomicLong();
+
+    private final AtomicLong peerFetches = new AtomicLong();
+
+    /**
+     * Stores of the other nodes that may hold a content missing from the local store.
+     */
+    public interface Peers {
+        /**
+         * @param max
+         *            maximum number of stores to return
+         * @return roots of the stores of other nodes, in the order they should be looked up; never
+         *         <code>null</code>
+         */
+        List<FileObject> getStores(int max);
+    }
+
+    /**
+     * @param root
+     *            directory of the store, created if needed; its existing content is ignored
+     * @param runtimeId
+     *            id of the runtime of the scratch space
+     * @param nodeId
+     *            id of the node of the scratch space
+     * @param maxSize
+     *            maximum size of the stored content, in bytes
+     * @throws FileSystemException
+     *             when the directory cannot be created
+     */
+    public ContentAddressedStore(FileObject root, String runtimeId, String nodeId, long maxSize)
+            throws FileSystemException {
+        this.root = root;
+        this.runtimeId = runtimeId;
+        this.nodeId = nodeId;
+        this.maxSize = maxSize;
+        root.createFolder();
+    }
+
+    /**
+     * @return <code>true</code> if the given URI denotes a scratch space of the node of this store
+     */
+    public boolean isLocalScratch(DataSpacesURI uri) {
+        return uri.getSpaceType() == SpaceType.SCRATCH && runtimeId.equals(uri.getRuntimeId()) &&
+               nodeId.equals(uri.getNodeId());
+    }
+
+    /**
+     * Copies files the same way {@link FileObject#copyFrom(FileObject, FileSelector)} does, going
+     * through the store for each file with a known content hash.
+     *
+     * @param destination
+     *            destination of the copy, in a scratch space of the node of this store
+     * @param source
+     *            source of the copy
+     * @param selector
+     *            files of the source to copy
+     * @throws FileSystemException
+     *             when the copy fails
+     */
+    public void copyFrom(FileObject destination, FileObject source, FileSelector selector)
+            throws FileSystemException {
+        copyFrom(destination, source, selector, null);
+    }
+
+    /**
+     * Copies files the same way {@link FileObject#copyFrom(FileObject, FileSelector)} does, going
+     * through the store for each file with a known content hash, and through the stores of other
+     * nodes for the content missing from this store.
+     *
+     * @param destination
+     *            destination of the copy, in a scratch space of the node of this store
+     * @param source
+     *            source of the copy
+     * @param selector
+     *            files of the source to copy
+     * @param peers
+     *            stores of other nodes to look up for missing content, may be <code>null</code>
+     * @throws FileSystemException
+     *             when the copy fails
+     */
+    public void copyFrom(FileObject destination, FileObject source, FileSelector selector, Peers peers)
+            throws FileSystemException {
+        if (!source.exists()) {
+            throw new FileSystemException("vfs.provider/copy-missing-file.error", source);
+        }
+
+        final List<FileObject> files = new ArrayList<FileObject>();
+        source.findFiles(selector, false, files);
+
+        for (FileObject srcFile : files) {
+            final String relativePath = source.getName().getRelativeName(srcFile.getName());
+            final FileObject destFile = destination.resolveFile(relativePath, NameScope.DESCENDENT_OR_SELF);
+
+            if (destFile.exists() && destFile.getType() != srcFile.getType()) {
+                destFile.delete(Selectors.SELECT_ALL);
+            }
+
+            if (srcFile.getType().hasContent()) {
+                copyContent(destFile, srcFile, peers);
+            } else if (srcFile.getType().hasChildren()) {
+                destFile.createFolder();
+            }
+        }
+    }
+
+    private void copyContent(FileObject destFile, FileObject srcFile, Peers peers) throws FileSystemException {
+        // taken before the hash, so that the hash is valid as long as the version is the same
+        final String srcVersion = contentVersion(srcFile);
+        final String hash = contentHash(srcFile);
+        if (hash == null) {
+            destFile.copyFrom(srcFile, Selectors.SELECT_SELF);
+            return;
+        }
+
+        final FileObject entry = acquire(hash, srcFile, srcVersion, peers);
+        try {
+            destFile.copyFrom(entry, Selectors.SELECT_SELF);
+        } finally {
+            release(hash);
+        }
+    }
+
+    /**
+     * @return the content hash provided by the file system of the file, <code>null</code> if none
+     */
+    static String getContentHash(FileObject file) throws FileSystemException {
+        FileObject undecorated = file;
+        while (undecorated instanceof DecoratedFileObject) {
+            undecorated = ((DecoratedFileObject) undecorated).getDecoratedFileObject();
+        }
+        if (undecorated instanceof ProActiveFileObject) {
+            return ((ProActiveFileObject) undecorated).getContentHash();
+        }
+        return null;
+    }
+
+    /**
+     * @return the content hash of the file, <code>null</code> if it is not known
+     */
+    String contentHash(FileObject file) throws FileSystemException {
+        return getContentHash(file);
+    }
+
+    /**
+     * @return a value that changes whenever the content of the file changes
+     */
+    String contentVersion(FileObject file) throws FileSystemException {
+        file.refresh();
+        final FileContent content = file.getContent();
+        return content.getSize() + "@" + content.getLastModifiedTime();
+    }
+
+    /**
+     * Returns the entry of the content, fetching it if it is not in the store yet. The entry
+     * cannot be deleted until it is released.
+     *
+     * @param sourceVersion
+     *            version of the source (see {@link #contentVersion(FileObject)}) taken before its
+     *            hash was computed
+     */
+    FileObject acquire(String hash, FileObject source, String sourceVersion, Peers peers)
+            throws FileSystemException {
+        FileObject entry;
+        List<String> evicted;
+        while (true) {
+            final Object fetchLock = getFetchLock(hash);
+            synchronized (fetchLock) {
+                // the lock was dropped by the previous fetch of the content while this thread waited
+                if (fetchLocks.get(hash) != fetchLock) {
+                    continue;
+                }
+                try {
+                    final FileObject storedEntry = root.resolveFile(hash);
+                    synchronized (this) {
+                        if (entries.get(hash) != null) {
+                            pin(hash);
+                            return storedEntry;
+                        }
+                    }
+
+                    fetch(hash, source, sourceVersion, peers, storedEntry);
+                    final long entrySize = storedEntry.getContent().getSize();
+                    synchronized (this) {
+                        final Long previousSize = entries.put(hash, entrySize);
+                        size += entrySize - (previousSize == null ? 0 : previousSize);
+                        pin(hash);
+                        evicted = evict();
+                    }
+                    entry = storedEntry;
+                    break;
+                } finally {
+                    fetchLocks.remove(hash, fetchLock);
+                }
+            }
+        }
+        deleteEvicted(evicted);
+        return entry;
+    }
+
+    /**
+     * Releases an entry returned by {@link #acquire(String, FileObject, String, Peers)}.
+     */
+    void release(String hash) {
+        final List<String> evicted;
+        synchronized (this) {
+            final int pins = pinnedEntries.get(hash) - 1;
+            if (pins == 0) {
+                pinnedEntries.remove(hash);
+            } else {
+                pinnedEntries.put(hash, pins);
+            }
+            evicted = evict();
+        }
+        deleteEvicted(evicted);
+    }
+
+    private Object getFetchLock(String hash) {
+        final Object lock = fetchLocks.get(hash);
+        if (lock != null) {
+            return lock;
+        }
+        final Object newLock = new Object();
+        final Object existingLock = fetchLocks.putIfAbsent(hash, newLock);
+        return existingLock == null ? newLock : existingLock;
+    }
+
+    // always called while holding the fetch lock of the hash
+    private void fetch(String hash, FileObject source, String sourceVersion, Peers peers, FileObject entry)
+            throws FileSystemException {
+        if (peers != null) {
+            for (FileObject peerStore : peers.getStores(MAX_PEER_LOOKUPS)) {
+                try {
+                    final FileObject peerEntry = peerStore.resolveFile(hash);
+                    if (!peerEntry.exists()) {
+                        continue;
+                    }
+                    final String peerVersion = contentVersion(peerEntry);
+                    if (hash.equals(contentHash(peerEntry))) {
+                        transfer(hash, peerEntry, peerVersion, entry);
+                        peerFetches.incrementAndGet();
+                        return;
+                    }
+                } catch (FileSystemException e) {
+                    // the entry may have been evicted from the other store in the meantime
+                    ProActiveLogger.logEatedException(logger,
+                                                      "Could not fetch content " + hash + " from " +
+                                                              peerStore.getName(),
+                                                      e);
+                }
+            }
+        }
+        transfer(hash, source, sourceVersion, entry);
+    }
+
+    private void transfer(String hash, FileObject source, String sourceVersion, FileObject entry)
+            throws FileSystemException {
+        final FileObject part = root.resolveFile(hash + '.' + partCounter.incrementAndGet() + PART_SUFFIX);
+        boolean fetched = false;
+        try {
+            part.copyFrom(source, Selectors.SELECT_SELF);
+            // the source may have been changed since its hash was computed
+            if (!sourceVersion.equals(contentVersion(source))) {
+                throw new FileSystemException("Content of " + source.getName() + " changed while being copied");
+            }
+            part.moveTo(entry);
+            fetched = true;
+            fetches.incrementAndGet();
+            if (logger.isDebugEnabled()) {
+                logger.debug("Stored content " + hash + " of " + source.getName());
+            }
+        } finally {
+            if (!fetched) {
+                try {
+                    part.delete();
+                } catch (FileSystemException e) {
+                    ProActiveLogger.logEatedException(logger, "Could not delete " + part.getName(), e);
+                }
+            }
+        }
+    }
+
+    // always called within synchronized (this)
+    private void pin(String hash) {
+        final Integer pins = pinnedEntries.get(hash);
+        pinnedEntries.put(hash, pins == null ? 1 : pins + 1);
+    }
+
+    /**
+     * Removes the least recently used entries that are not pinned until the store fits its maximum
+     * size, always called within synchronized (this); the files of the removed entries must be
+     * deleted through {@link #deleteEvicted(List)}, outside of synchronized (this).
+     *
+     * @return hashes of the removed entries
+     */
+    private List<String> evict() {
+        if (size <= maxSize) {
+            return Collections.emptyList();
+        }
+        final List<String> evicted = new ArrayList<String>();
+        for (Iterator<Map.Entry<String, Long>> it = entries.entrySet().iterator(); size > maxSize && it.hasNext();) {
+            final Map.Entry<String, Long> entry = it.next();
+            if (pinnedEntries.containsKey(entry.getKey())) {
+                continue;
+            }
+            it.remove();
+            size -= entry.getValue();
+            evicted.add(entry.getKey());
+        }
+        return evicted;
+    }
+
+    /**
+     * Deletes the files of evicted entries, unless they have been fetched again since their
+     * eviction.
+     */
+    private void deleteEvicted(List<String> evicted) {
+        for (String hash : evicted) {
+            while (true) {
+                final Object fetchLock = getFetchLock(hash);
+                synchronized (fetchLock) {
+                    if (fetchLocks.get(hash) != fetchLock) {
+                        continue;
+                    }
+                    try {
+                        synchronized (this) {
+                            if (entries.containsKey(hash)) {
+                                break;
+                            }
+                        }
+                        root.resolveFile(hash).delete();
+                    } catch (FileSystemException e) {
+                        ProActiveLogger.logEatedException(logger, "Could not delete stored content " + hash, e);
+                    } finally {
+                        fetchLocks.remove(hash, fetchLock);
+                    }
+                }
+                break;
+            }
+        }
+    }
+
+    /**
+     * @return size of the stored content, in bytes
+     */
+    synchronized long getSize() {
+        return size;
+    }
+
+    /**
+     * @return <code>true</code> if the content of the given hash is stored
+     */
+    synchronized boolean contains(String hash) {
+        return entries.containsKey(hash);
+    }
+
+    /**
+     * @return number of contents transferred into the store, from the origin or from other stores
+     */
+    long getFetchCount() {
+        return fetches.get();
+    }
+
+    /**
+     * @return number of contents transferred into the store from other stores
+     */
+    long getPeerFetchCount() {
+        return peerFetches.get();
+    }
+}
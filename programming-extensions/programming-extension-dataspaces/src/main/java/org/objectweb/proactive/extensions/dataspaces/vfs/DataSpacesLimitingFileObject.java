@@ -25,9 +25,25 @@
  */
 package org.objectweb.proactive.extensions.dataspaces.vfs;
 
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.vfs2.FileContent;
 import org.apache.commons.vfs2.FileName;
 import org.apache.commons.vfs2.FileObject;
+import org.apache.commons.vfs2.FileSelector;
+import org.apache.commons.vfs2.FileSystemException;
+import org.apache.commons.vfs2.FileType;
 import org.apache.commons.vfs2.NameScope;
+import org.apache.commons.vfs2.RandomAccessContent;
+import org.apache.commons.vfs2.Selectors;
+import org.apache.commons.vfs2.util.RandomAccessMode;
 import org.apache.log4j.Logger;
 import org.objectweb.proactive.core.ProActiveRuntimeException;
 import org.objectweb.proactive.core.util.log.Loggers;
@@ -50,6 +66,10 @@ import org.objectweb.proactive.extensions.dataspaces.exceptions.MalformedURIExce
  * <p>
  * General file access is limited to files within spaces, with URIs suitable for user path.
  * <p>
+ * Files of the scratch spaces of the local node may be given a {@link ScratchSpaceQuota}, then
+ * every change of their size is accounted for the application, and a {@link ScratchMemoryTier},
+ * then their content is read from memory when possible.
+ * <p>
  * Instances of this class conform to the same rules regarding concurrent access, resources
  * management etc. as pure {@link FileObject} does.
  */
@@ -64,6 +84,10 @@ public class DataSpacesLimitingFileObject extends AbstractLimitingFileObject<Dat
 
     private final boolean readOnly;
 
+    private final ScratchSpaceQuota quota;
+
+    private final ScratchMemoryTier memoryTier;
+
     /**
      * Creates an instance of DataSpacesLimitingFileObject. Before any usage of this class, id of an
      * active object has to be set accordingly.
@@ -82,11 +106,39 @@ public class DataSpacesLimitingFileObject extends AbstractLimitingFileObject<Dat
      */
     public DataSpacesLimitingFileObject(FileObject fileObject, DataSpacesURI spaceRootUri, FileName spaceRootFileName,
             String ownerActiveObjectId) {
+        this(fileObject, spaceRootUri, spaceRootFileName, ownerActiveObjectId, null, null);
+    }
+
+    /**
+     * Creates an instance of DataSpacesLimitingFileObject for a file of a scratch space of the
+     * local node. Before any usage of this class, id of an active object has to be set accordingly.
+     *
+     * @param fileObject
+     *            file object that is going to be represented as DataSpacesFileObject; cannot be
+     *            <code>null</code>
+     * @param spaceRootUri
+     *            Data Spaces URI of this file object's space; must have space part fully defined
+     *            and only this part; cannot be <code>null</code>
+     * @param spaceRootFileName
+     *            VFS path of the space root FileObject; cannot be <code>null</code>
+     * @param ownerActiveObjectId
+     *            id of active object owning this FileObject instance; may be <code>null</code>,
+     *            which corresponds to anonymous (unimportant) owner.
+     * @param quota
+     *            quota accounting for the size of the files of the space; may be <code>null</code>
+     * @param memoryTier
+     *            memory tier keeping the content of the small files of the space; may be
+     *            <code>null</code>
+     */
+    public DataSpacesLimitingFileObject(FileObject fileObject, DataSpacesURI spaceRootUri, FileName spaceRootFileName,
+            String ownerActiveObjectId, ScratchSpaceQuota quota, ScratchMemoryTier memoryTier) {
         super(fileObject);
         this.spaceRootUri = spaceRootUri;
         this.spaceRootFileName = spaceRootFileName;
         this.ownerActiveObjectId = ownerActiveObjectId;
         this.readOnly = computeIsReadOnly();
+        this.quota = quota;
+        this.memoryTier = memoryTier;
     }
 
     /**
@@ -146,7 +198,268 @@ public class DataSpacesLimitingFileObject extends AbstractLimitingFileObject<Dat
 
     @Override
     protected DataSpacesLimitingFileObject doDecorateFile(FileObject file) {
-        return new DataSpacesLimitingFileObject(file, spaceRootUri, spaceRootFileName, ownerActiveObjectId);
+        return new DataSpacesLimitingFileObject(file,
+                                                spaceRootUri,
+                                                spaceRootFileName,
+                                                ownerActiveObjectId,
+                                                quota,
+                                                memoryTier);
+    }
+
+    @Override
+    protected OutputStream doGetOutputStream(FileContent content, boolean append) throws FileSystemException {
+        if (memoryTier != null) {
+            memoryTier.invalidate(this);
+        }
+        // the content is replaced unless appended to
+        final long replacedSize = quota != null && !append ? getContentSize(getDecoratedFileObject()) : 0;
+
+        OutputStream out = content.getOutputStream(append);
+        if (memoryTier != null && !append) {
+            out = memoryTier.getOutputStream(this, content, out);
+        }
+        if (quota != null) {
+            quota.release(getAppId(), replacedSize);
+            out = quota.getOutputStream(getAppId(), out);
+        }
+        return out;
+    }
+
+    @Override
+    protected InputStream doGetInputStream(FileContent content) throws FileSystemException {
+        if (memoryTier != null) {
+            return memoryTier.getInputStream(this, content);
+        }
+        return content.getInputStream();
+    }
+
+    @Override
+    protected RandomAccessContent doGetRandomAccessContent(FileContent content, RandomAccessMode mode)
+            throws FileSystemException {
+        if (!mode.requestWrite()) {
+            return content.getRandomAccessContent(mode);
+        }
+        if (memoryTier != null) {
+            memoryTier.invalidate(this);
+        }
+        if (quota == null) {
+            return content.getRandomAccessContent(mode);
+        }
+
+        final long initialSize = getContentSize(getDecoratedFileObject());
+        final RandomAccessContent randomAccessContent = content.getRandomAccessContent(mode);
+        return (RandomAccessContent) Proxy.newProxyInstance(RandomAccessContent.class.getClassLoader(),
+                                                            new Class<?>[] { RandomAccessContent.class },
+                                                            new AccountingRandomAccessHandler(randomAccessContent,
+                                                                                              initialSize));
+    }
+
+    @Override
+    public boolean delete() throws FileSystemException {
+        if (memoryTier != null) {
+            memoryTier.invalidate(this);
+        }
+        if (quota == null || isReadOnly()) {
+            return super.delete();
+        }
+
+        final long size = getContentSize(getDecoratedFileObject());
+        final boolean deleted = super.delete();
+        if (deleted) {
+            quota.release(getAppId(), size);
+        }
+        return deleted;
+    }
+
+    @Override
+    public int delete(FileSelector selector) throws FileSystemException {
+        if (memoryTier != null) {
+            memoryTier.invalidateTree(this);
+        }
+        if (quota == null || isReadOnly()) {
+            return super.delete(selector);
+        }
+
+        return deleteAccounted(getDecoratedFileObject(), selector);
+    }
+
+    @Override
+    public void copyFrom(FileObject srcFile, FileSelector selector) throws FileSystemException {
+        if (memoryTier != null) {
+            memoryTier.invalidateTree(this);
+        }
+        if (quota == null || isReadOnly()) {
+            super.copyFrom(srcFile, selector);
+            return;
+        }
+
+        if (!srcFile.exists()) {
+            throw new FileSystemException("vfs.provider/copy-missing-file.error", srcFile);
+        }
+
+        // copied file by file, as VFS does, so that each file is checked for the size it adds
+        final List<FileObject> files = new ArrayList<FileObject>();
+        srcFile.findFiles(selector, false, files);
+        for (FileObject file : files) {
+            final String relativePath = srcFile.getName().getRelativeName(file.getName());
+            final FileObject destFile = getDecoratedFileObject().resolveFile(relativePath,
+                                                                             NameScope.DESCENDENT_OR_SELF);
+
+            if (destFile.exists() && destFile.getType() != file.getType()) {
+                deleteAccounted(destFile, Selectors.SELECT_ALL);
+            }
+
+            if (file.getType().hasContent()) {
+                copyContentAccounted(file, destFile);
+            } else if (file.getType().hasChildren()) {
+                destFile.createFolder();
+            }
+        }
+    }
+
+    private void copyContentAccounted(FileObject srcFile, FileObject destFile) throws FileSystemException {
+        final long replacedSize = getContentSize(destFile);
+        final long reserved = srcFile.getContent().getSize() - replacedSize;
+        quota.reserve(getAppId(), reserved);
+        try {
+            destFile.copyFrom(srcFile, Selectors.SELECT_SELF);
+        } finally {
+            // the source may have changed since its size was read, or the copy may have failed
+            quota.charge(getAppId(), getContentSize(destFile) - replacedSize - reserved);
+        }
+    }
+
+    /**
+     * Deletes the selected files the same way {@link FileObject#delete(FileSelector)} does,
+     * releasing the size of each deleted file.
+     */
+    private int deleteAccounted(FileObject file, FileSelector selector) throws FileSystemException {
+        final List<FileObject> files = new ArrayList<FileObject>();
+        file.findFiles(selector, true, files);
+        int deleted = 0;
+        for (FileObject selected : files) {
+            // folders are deleted once empty, files not selected may be left in them
+            if (selected.getType().hasChildren() && selected.getChildren().length != 0) {
+                continue;
+            }
+            final long size = getContentSize(selected);
+            if (selected.delete()) {
+                quota.release(getAppId(), size);
+                deleted++;
+            }
+        }
+        return deleted;
+    }
+
+    @Override
+    public void moveTo(FileObject destFile) throws FileSystemException {
+        final DataSpacesLimitingFileObject limitingDest = destFile instanceof DataSpacesLimitingFileObject ? (DataSpacesLimitingFileObject) destFile
+                                                                                                           : null;
+        if (memoryTier != null) {
+            memoryTier.invalidateTree(this);
+        }
+        if (limitingDest != null && limitingDest.memoryTier != null) {
+            limitingDest.memoryTier.invalidateTree(limitingDest);
+        }
+
+        final ScratchSpaceQuota destQuota = limitingDest == null || limitingDest.isReadOnly() ? null
+                                                                                              : limitingDest.quota;
+        if ((quota == null && destQuota == null) || isReadOnly()) {
+            super.moveTo(destFile);
+            return;
+        }
+
+        // the move is made on the undecorated destination, so that replacing it is not accounted twice
+        final FileObject target = destQuota == null ? destFile : limitingDest.getDecoratedFileObject();
+        final long size = getTreeSize(getDecoratedFileObject());
+        final long destSizeBefore = destQuota == null ? 0 : getTreeSize(target);
+        final long reserved = size - destSizeBefore;
+        if (destQuota != null) {
+            destQuota.reserve(limitingDest.getAppId(), reserved);
+        }
+        boolean moved = false;
+        try {
+            super.moveTo(target);
+            moved = true;
+        } finally {
+            // the moved files keep their size, a failed move is assumed to have changed nothing
+            if (destQuota != null && !moved) {
+                destQuota.release(limitingDest.getAppId(), reserved);
+            }
+        }
+        if (quota != null) {
+            quota.release(getAppId(), size);
+        }
+    }
+
+    private String getAppId() {
+        return spaceRootUri.getAppId();
+    }
+
+    /**
+     * @return size of the content of the file, 0 if it is not a file
+     */
+    private static long getContentSize(FileObject file) throws FileSystemException {
+        return file.getType() == FileType.FILE ? file.getContent().getSize() : 0;
+    }
+
+    /**
+     * @return size of the content of the file or of all the files of the folder
+     */
+    private static long getTreeSize(FileObject file) throws FileSystemException {
+        final FileType type = file.getType();
+        if (type == FileType.FILE) {
+            return file.getContent().getSize();
+        }
+        if (!type.hasChildren()) {
+            return 0;
+        }
+        final FileObject[] selected = file.findFiles(Selectors.SELECT_ALL);
+        if (selected == null) {
+            return 0;
+        }
+        long size = 0;
+        for (FileObject selectedFile : selected) {
+            size += getContentSize(selectedFile);
+        }
+        return size;
+    }
+
+    /**
+     * Accounts for the size change of a file written through random access content, once the
+     * content is closed. The handler is not bound to a particular version of the
+     * {@link RandomAccessContent} interface.
+     */
+    private class AccountingRandomAccessHandler implements InvocationHandler {
+        private final RandomAccessContent content;
+
+        private final long initialSize;
+
+        private boolean closed;
+
+        private AccountingRandomAccessHandler(RandomAccessContent content, long initialSize) {
+            this.content = content;
+            this.initialSize = initialSize;
+        }
+
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            if ("close".equals(method.getName()) && !closed) {
+                closed = true;
+                final long length;
+                try {
+                    length = content.length();
+                } finally {
+                    content.close();
+                }
+                quota.charge(getAppId(), length - initialSize);
+                return null;
+            }
+            try {
+                return method.invoke(content, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
     }
 
     private boolean computeIsReadOnly() {
@@ -0,0 +1,355 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.objectweb.proactive.extensions.dataspaces.vfs;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.vfs2.FileContent;
+import org.apache.commons.vfs2.FileObject;
+import org.apache.commons.vfs2.FileSystemException;
+import org.apache.log4j.Logger;
+import org.objectweb.proactive.core.util.log.Loggers;
+import org.objectweb.proactive.core.util.log.ProActiveLogger;
+import org.objectweb.proactive.extensions.dataspaces.core.DataSpacesURI;
+import org.objectweb.proactive.extensions.dataspaces.core.SpaceType;
+
+
+/**
+ * Memory tier of a node scratch space, keeping the content of its small files so that reading
+ * them again does not go to the disk.
+ * <p>
+ * Files are always written to the disk, where the file system server of the scratch space serves
+ * them to other nodes. Content written through {@link DataSpacesLimitingFileObject} is kept in
+ * memory as long as it does not exceed the maximum size of a file, and the bytes are handed to the
+ * disk when the stream is flushed or closed. Bigger files go to the disk as they are written.
+ * <p>
+ * Content kept in memory is used only if the size and the modification time of the file on the
+ * disk are still those of the content, so that changes made behind data spaces are seen. Changes
+ * made through data spaces drop the content of the changed files at once.
+ * <p>
+ * The memory tier is bounded in size, least recently used files are dropped first.
+ * <p>
+ * Instances of this class are thread-safe.
+ */
+public class ScratchMemoryTier {
+    private static final Logger logger = ProActiveLogger.getLogger(Loggers.DATASPACES);
+
+    private final String runtimeId;
+
+    private final String nodeId;
+
+    private final long maxSize;
+
+    private final int maxFileSize;
+
+    // file URI -> content, in access order
+    private final LinkedHashMap<String, CachedContent> entries = new LinkedHashMap<String, CachedContent>(16, 0.75f, true);
+
+    private long size;
+
+    private final AtomicLong hits = new AtomicLong();
+
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * @param runtimeId
+     *            id of the runtime of the node scratch space
+     * @param nodeId
+     *            id of the node of the node scratch space
+     * @param maxSize
+     *            maximum size, in bytes, of the content kept in memory
+     * @param maxFileSize
+     *            maximum size, in bytes, of a file kept in memory
+     */
+    public ScratchMemoryTier(String runtimeId, String nodeId, long maxSize, int maxFileSize) {
+        this.runtimeId = runtimeId;
+        this.nodeId = nodeId;
+        this.maxSize = maxSize;
+        this.maxFileSize = maxFileSize;
+    }
+
+    /**
+     * @return <code>true</code> if the given URI belongs to a scratch space of the node of this
+     *         memory tier
+     */
+    public boolean isLocalScratch(DataSpacesURI uri) {
+        return uri.getSpaceType() == SpaceType.SCRATCH && runtimeId.equals(uri.getRuntimeId()) &&
+               nodeId.equals(uri.getNodeId());
+    }
+
+    /**
+     * Opens the content of a file for reading, from memory if it is kept there. Small files not
+     * kept in memory yet are read entirely and kept.
+     *
+     * @param file
+     *            file to read
+     * @param content
+     *            content of the file on the disk
+     * @return stream of the content of the file
+     * @throws FileSystemException
+     *             when the file cannot be read
+     */
+    InputStream getInputStream(FileObject file, FileContent content) throws FileSystemException {
+        if (!file.getType().hasContent()) {
+            return content.getInputStream();
+        }
+
+        final String key = file.getName().getURI();
+        final long fileSize = content.getSize();
+        final long lastModified = content.getLastModifiedTime();
+        final CachedContent entry = get(key);
+        if (entry != null && entry.data.length == fileSize && entry.lastModified == lastModified) {
+            hits.incrementAndGet();
+            return new ByteArrayInputStream(entry.data);
+        }
+
+        misses.incrementAndGet();
+        if (fileSize > maxFileSize) {
+            return content.getInputStream();
+        }
+
+        final ByteArrayOutputStream out = new ByteArrayOutputStream((int) fileSize);
+        try {
+            content.write(out);
+        } catch (FileSystemException e) {
+            throw e;
+        } catch (IOException e) {
+            throw new FileSystemException(e);
+        }
+        final byte[] data = out.toByteArray();
+        if (data.length == fileSize) {
+            put(key, data, lastModified);
+        }
+        return new ByteArrayInputStream(data);
+    }
+
+    /**
+     * Wraps a stream writing the content of a file from its beginning, so that the written content
+     * is kept in memory once the stream is closed, if small enough.
+     *
+     * @param file
+     *            file written
+     * @param content
+     *            content of the file on the disk
+     * @param out
+     *            stream writing to the disk
+     * @return stream to write the content of the file
+     */
+    OutputStream getOutputStream(FileObject file, FileContent content, OutputStream out) {
+        return new CachingOutputStream(file.getName().getURI(), content, out);
+    }
+
+    /**
+     * Drops the content of a file from memory.
+     */
+    void invalidate(FileObject file) {
+        remove(file.getName().getURI());
+    }
+
+    /**
+     * Drops the content of a file and of all its descendants from memory.
+     */
+    synchronized void invalidateTree(FileObject file) {
+        final String key = file.getName().getURI();
+        final String prefix = key.endsWith("/") ? key : key + '/';
+        for (Iterator<Map.Entry<String, CachedContent>> it = entries.entrySet().iterator(); it.hasNext();) {
+            final Map.Entry<String, CachedContent> entry = it.next();
+            if (entry.getKey().equals(key) || entry.getKey().startsWith(prefix)) {
+                it.remove();
+                size -= entry.getValue().data.length;
+            }
+        }
+    }
+
+    /**
+     * @return number of reads served from memory
+     */
+    public long getHits() {
+        return hits.get();
+    }
+
+    /**
+     * @return number of reads that went to the disk
+     */
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * @return size, in bytes, of the content kept in memory
+     */
+    public synchronized long getSize() {
+        return size;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d hits, %d misses, %d bytes in memory", getHits(), getMisses(), getSize());
+    }
+
+    private synchronized CachedContent get(String key) {
+        return entries.get(key);
+    }
+
+    private synchronized void put(String key, byte[] data, long lastModified) {
+        if (data.length > maxSize) {
+            return;
+        }
+        final CachedContent previous = entries.put(key, new CachedContent(data, lastModified));
+        if (previous != null) {
+            size -= previous.data.length;
+        }
+        size += data.length;
+
+        for (Iterator<CachedContent> it = entries.values().iterator(); size > maxSize && it.hasNext();) {
+            size -= it.next().data.length;
+            it.remove();
+        }
+    }
+
+    private synchronized void remove(String key) {
+        final CachedContent removed = entries.remove(key);
+        if (removed != null) {
+            size -= removed.data.length;
+        }
+    }
+
+    private static class CachedContent {
+        private final byte[] data;
+
+        private final long lastModified;
+
+        private CachedContent(byte[] data, long lastModified) {
+            this.data = data;
+            this.lastModified = lastModified;
+        }
+    }
+
+    private static class Buffer extends ByteArrayOutputStream {
+        private Buffer(int size) {
+            super(size);
+        }
+
+        private void writeTo(OutputStream out, int offset) throws IOException {
+            out.write(buf, offset, count - offset);
+        }
+    }
+
+    /**
+     * Stream keeping the content in memory until it gets too big, the content is handed to the
+     * disk on flush and close.
+     */
+    private class CachingOutputStream extends OutputStream {
+        private final String key;
+
+        private final FileContent content;
+
+        private final OutputStream out;
+
+        // null once the content is too big to be kept in memory
+        private Buffer buffer = new Buffer(Math.min(maxFileSize, 8192));
+
+        // number of bytes of the buffer already written to the disk
+        private int written;
+
+        private boolean closed;
+
+        private CachingOutputStream(String key, FileContent content, OutputStream out) {
+            this.key = key;
+            this.content = content;
+            this.out = out;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            if (buffer != null && buffer.size() < maxFileSize) {
+                buffer.write(b);
+                return;
+            }
+            spill();
+            out.write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (buffer != null && buffer.size() + len <= maxFileSize) {
+                buffer.write(b, off, len);
+                return;
+            }
+            spill();
+            out.write(b, off, len);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            writeBuffer();
+            out.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            try {
+                writeBuffer();
+            } finally {
+                out.close();
+            }
+
+            if (buffer != null) {
+                try {
+                    put(key, buffer.toByteArray(), content.getLastModifiedTime());
+                } catch (FileSystemException e) {
+                    ProActiveLogger.logEatedException(logger, "Could not keep " + key + " in memory", e);
+                }
+            }
+        }
+
+        private void writeBuffer() throws IOException {
+            if (buffer != null && written < buffer.size()) {
+                buffer.writeTo(out, written);
+                written = buffer.size();
+            }
+        }
+
+        private void spill() throws IOException {
+            if (buffer != null) {
+                writeBuffer();
+                buffer = null;
+            }
+        }
+    }
+}
@@ -0,0 +1,267 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.objectweb.proactive.extensions.dataspaces.vfs;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.vfs2.FileSystemException;
+import org.objectweb.proactive.extensions.dataspaces.core.DataSpacesURI;
+import org.objectweb.proactive.extensions.dataspaces.core.SpaceType;
+
+
+/**
+ * Accounting of the size of the files kept by each application in the scratch space of a node,
+ * limited by a quota.
+ * <p>
+ * Usage is updated incrementally by {@link DataSpacesLimitingFileObject} as files are written,
+ * copied, moved or deleted, so that enforcing the quota never requires to walk the scratch space:
+ * only the files a copy, a move or a deletion applies to are looked at. Writes through output
+ * streams and copies are checked against the quota before they happen, file by file and for the
+ * size they add to the files they replace; writes through random access content are accounted
+ * once the content is closed.
+ * <p>
+ * Instances of this class are thread-safe.
+ */
+public class ScratchSpaceQuota {
+    private final String runtimeId;
+
+    private final String nodeId;
+
+    private final long limit;
+
+    private final ConcurrentMap<String, ApplicationUsage> usages = new ConcurrentHashMap<String, ApplicationUsage>();
+
+    /**
+     * @param runtimeId
+     *            id of the runtime of the node scratch space
+     * @param nodeId
+     *            id of the node of the node scratch space
+     * @param limit
+     *            maximum size, in bytes, of the files of each application; 0 for no limit
+     */
+    public ScratchSpaceQuota(String runtimeId, String nodeId, long limit) {
+        this.runtimeId = runtimeId;
+        this.nodeId = nodeId;
+        this.limit = limit;
+    }
+
+    /**
+     * @return <code>true</code> if the given URI belongs to a scratch space of the node of this
+     *         quota
+     */
+    public boolean isLocalScratch(DataSpacesURI uri) {
+        return uri.getSpaceType() == SpaceType.SCRATCH && runtimeId.equals(uri.getRuntimeId()) &&
+               nodeId.equals(uri.getNodeId());
+    }
+
+    /**
+     * @return maximum size, in bytes, of the files of each application; 0 for no limit
+     */
+    public long getLimit() {
+        return limit;
+    }
+
+    /**
+     * Accounts for bytes about to be written by an application.
+     *
+     * @throws FileSystemException
+     *             when the quota of the application would be exceeded; nothing is accounted then
+     */
+    public void reserve(String appId, long bytes) throws FileSystemException {
+        final ApplicationUsage usage = getOrCreateUsage(appId);
+        if (limit == 0 || bytes <= 0) {
+            usage.add(bytes);
+            return;
+        }
+
+        long used;
+        do {
+            used = usage.used.get();
+            if (used + bytes > limit) {
+                usage.rejected.incrementAndGet();
+                throw new FileSystemException("Scratch space quota of " + limit + " bytes exceeded by application " +
+                                              appId + " (" + used + " bytes used, " + bytes + " more requested)");
+            }
+        } while (!usage.used.compareAndSet(used, used + bytes));
+        usage.updatePeak(used + bytes);
+    }
+
+    /**
+     * Accounts for bytes written or freed by an application, whatever its quota.
+     *
+     * @param bytes
+     *            number of bytes written, negative if freed
+     */
+    public void charge(String appId, long bytes) {
+        if (bytes != 0) {
+            getOrCreateUsage(appId).add(bytes);
+        }
+    }
+
+    /**
+     * Accounts for bytes freed by an application.
+     */
+    public void release(String appId, long bytes) {
+        charge(appId, -bytes);
+    }
+
+    /**
+     * @return usage of the scratch space by the application, <code>null</code> if it is not known
+     */
+    public ApplicationUsage getApplicationUsage(String appId) {
+        return usages.get(appId);
+    }
+
+    /**
+     * @return view of the usages of the scratch space, by application id
+     */
+    public Map<String, ApplicationUsage> getApplicationUsages() {
+        return Collections.unmodifiableMap(usages);
+    }
+
+    /**
+     * Forgets the usage of an application, once its scratch space is emptied.
+     *
+     * @return the last usage of the application, <code>null</code> if it was not known
+     */
+    public ApplicationUsage removeApplication(String appId) {
+        return usages.remove(appId);
+    }
+
+    /**
+     * @return stream writing to the given one, with every write checked against the quota of the
+     *         application
+     */
+    OutputStream getOutputStream(String appId, OutputStream out) {
+        return new QuotaOutputStream(appId, out);
+    }
+
+    private ApplicationUsage getOrCreateUsage(String appId) {
+        final ApplicationUsage usage = usages.get(appId);
+        if (usage != null) {
+            return usage;
+        }
+        final ApplicationUsage newUsage = new ApplicationUsage();
+        final ApplicationUsage existingUsage = usages.putIfAbsent(appId, newUsage);
+        return existingUsage == null ? newUsage : existingUsage;
+    }
+
+    /**
+     * Usage of the scratch space of a node by an application.
+     */
+    public static class ApplicationUsage {
+        private final AtomicLong used = new AtomicLong();
+
+        private final AtomicLong peak = new AtomicLong();
+
+        private final AtomicLong rejected = new AtomicLong();
+
+        private void add(long bytes) {
+            long current;
+            long updated;
+            do {
+                current = used.get();
+                // files changed behind data spaces may make the accounting drift below 0
+                updated = Math.max(0, current + bytes);
+            } while (!used.compareAndSet(current, updated));
+            updatePeak(updated);
+        }
+
+        private void updatePeak(long value) {
+            long current;
+            do {
+                current = peak.get();
+            } while (value > current && !peak.compareAndSet(current, value));
+        }
+
+        /**
+         * @return size, in bytes, of the files of the application
+         */
+        public long getUsedBytes() {
+            return used.get();
+        }
+
+        /**
+         * @return highest size, in bytes, reached by the files of the application
+         */
+        public long getPeakBytes() {
+            return peak.get();
+        }
+
+        /**
+         * @return number of writes rejected because of the quota
+         */
+        public long getRejectedWrites() {
+            return rejected.get();
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d bytes used, %d bytes at peak, %d writes rejected",
+                                 getUsedBytes(),
+                                 getPeakBytes(),
+                                 getRejectedWrites());
+        }
+    }
+
+    private class QuotaOutputStream extends FilterOutputStream {
+        private final String appId;
+
+        private QuotaOutputStream(String appId, OutputStream out) {
+            super(out);
+            this.appId = appId;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            reserve(appId, 1);
+            try {
+                out.write(b);
+            } catch (IOException e) {
+                release(appId, 1);
+                throw e;
+            }
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            reserve(appId, len);
+            try {
+                out.write(b, off, len);
+            } catch (IOException e) {
+                release(appId, len);
+                throw e;
+            }
+        }
+    }
+}
@@ -39,6 +39,7 @@ import org.apache.commons.vfs2.impl.DefaultFileSystemManager;
 import org.apache.log4j.Logger;
 import org.objectweb.proactive.Body;
 import org.objectweb.proactive.core.ProActiveRuntimeException;
+import org.objectweb.proactive.core.config.CentralPAPropertyRepository;
 import org.objectweb.proactive.core.node.Node;
 import org.objectweb.proactive.core.util.log.Loggers;
 import org.objectweb.proactive.core.util.log.ProActiveLogger;
@@ -69,10 +70,18 @@ public class VFSNodeScratchSpaceImpl implements NodeScratchSpace {
 
     private DefaultFileSystemManager fileSystemManager;
 
+    private ContentAddressedStore contentStore;
+
+    private ScratchSpaceQuota quota;
+
+    private ScratchMemoryTier memoryTier;
+
     /**
      * Inner class to implement {@link ApplicationScratchSpace} interface.
      */
     private class AppScratchSpaceImpl implements ApplicationScratchSpace {
+        private final String appId;
+
         private final FileObject spaceFile;
 
         private final Map<String, DataSpacesURI> scratches = new HashMap<String, DataSpacesURI>();
@@ -81,12 +90,16 @@ public class VFSNodeScratchSpaceImpl implements NodeScratchSpace {
 
         private AppScratchSpaceImpl(final String appId) throws FileSystemException {
             logger.debug("Initializing application node scratch space");
+            this.appId = appId;
             final String runtimeId = Utils.getRuntimeId(node);
             final String nodeId = Utils.getNodeId(node);
 
             try {
                 this.spaceFile = createEmptyDirectoryRelative(partialSpaceFile, appId);
                 spaceFile.close();
+                // the application starts with an empty scratch space
+                if (quota != null)
+                    quota.removeApplication(appId);
             } catch (org.apache.commons.vfs2.FileSystemException x) {
                 logger.error("Could not create directory for application scratch space", x);
                 throw new FileSystemException(x);
@@ -113,6 +126,7 @@ public class VFSNodeScratchSpaceImpl implements NodeScratchSpace {
             } catch (org.apache.commons.vfs2.FileSystemException e) {
                 logger.warn("Could not delete " + spaceFile, e);
             } finally {
+                releaseApplication();
                 try {
                     // the close operation is just a hint to the implementation
                     // that it can release any resources associated with the file.
@@ -125,6 +139,18 @@ public class VFSNodeScratchSpaceImpl implements NodeScratchSpace {
             logger.debug("Closed application scratch space");
         }
 
+        private void releaseApplication() {
+            final ScratchSpaceQuota appQuota = getQuota();
+            if (appQuota != null) {
+                final ScratchSpaceQuota.ApplicationUsage usage = appQuota.removeApplication(appId);
+                if (usage != null && logger.isDebugEnabled())
+                    logger.debug("Scratch space usage of application " + appId + ": " + usage);
+            }
+            final ScratchMemoryTier appMemoryTier = getMemoryTier();
+            if (appMemoryTier != null)
+                appMemoryTier.invalidateTree(spaceFile);
+        }
+
         public synchronized DataSpacesURI getScratchForAO(Body body) throws FileSystemException {
             // TODO performance can be improved using more fine-grained synchronization
             final String aoid = Utils.getActiveObjectId(body);
@@ -233,6 +259,29 @@ public class VFSNodeScratchSpaceImpl implements NodeScratchSpace {
                 // the close operation is just a hint to the implementation
                 // that it can release any resources associated with the file.
                 partialSpaceFile.close();
+
+                final long contentStoreSize = CentralPAPropertyRepository.PA_DATASPACES_CONTENT_STORE_SIZE_MB.getValue() *
+                                              1024L * 1024L;
+                if (contentStoreSize > 0) {
+                    contentStore = new ContentAddressedStore(partialSpaceFile.resolveFile(ContentAddressedStore.DIRECTORY_NAME),
+                                                             runtimeId,
+                                                             nodeId,
+                                                             contentStoreSize);
+                }
+
+                final long quotaSize = CentralPAPropertyRepository.PA_DATASPACES_SCRATCH_QUOTA_MB.getValue() * 1024L *
+                                       1024L;
+                if (quotaSize > 0) {
+                    quota = new ScratchSpaceQuota(runtimeId, nodeId, quotaSize);
+                }
+
+                final long memorySize = CentralPAPropertyRepository.PA_DATASPACES_SCRATCH_MEMORY_SIZE_MB.getValue() *
+                                        1024L * 1024L;
+                if (memorySize > 0) {
+                    final int memoryFileSize = CentralPAPropertyRepository.PA_DATASPACES_SCRATCH_MEMORY_FILE_SIZE_KB.getValue() *
+                                               1024;
+                    memoryTier = new ScratchMemoryTier(runtimeId, nodeId, memorySize, memoryFileSize);
+                }
             } catch (org.apache.commons.vfs2.FileSystemException x) {
                 logger.error("Could not initialize scratch space at: " + partialSpacePath);
                 throw new FileSystemException(x);
@@ -252,9 +301,42 @@ public class VFSNodeScratchSpaceImpl implements NodeScratchSpace {
         return new AppScratchSpaceImpl(appId);
     }
 
+    /**
+     * Returns the content-addressed store of this node scratch space, if enabled by
+     * {@link CentralPAPropertyRepository#PA_DATASPACES_CONTENT_STORE_SIZE_MB}.
+     *
+     * @return the store, or <code>null</code> if disabled or not configured
+     */
+    public synchronized ContentAddressedStore getContentStore() {
+        return contentStore;
+    }
+
+    /**
+     * Returns the quota of this node scratch space, accounting for the usage of each application,
+     * if enabled by {@link CentralPAPropertyRepository#PA_DATASPACES_SCRATCH_QUOTA_MB}.
+     *
+     * @return the quota, or <code>null</code> if disabled or not configured
+     */
+    public synchronized ScratchSpaceQuota getQuota() {
+        return quota;
+    }
+
+    /**
+     * Returns the memory tier of this node scratch space, if enabled by
+     * {@link CentralPAPropertyRepository#PA_DATASPACES_SCRATCH_MEMORY_SIZE_MB}.
+     *
+     * @return the memory tier, or <code>null</code> if disabled or not configured
+     */
+    public synchronized ScratchMemoryTier getMemoryTier() {
+        return memoryTier;
+    }
+
     public synchronized void close() throws IllegalStateException {
         logger.debug("Closing node scratch space");
         checkIfConfigured();
+        contentStore = null;
+        quota = null;
+        memoryTier = null;
 
         try {
             final FileObject fRuntime = partialSpaceFile.getParent();
@@ -26,14 +26,14 @@
 package org.objectweb.proactive.extensions.dataspaces.vfs;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
 
-import org.apache.commons.vfs2.FileName;
 import org.apache.commons.vfs2.FileObject;
 import org.apache.log4j.Logger;
 import org.objectweb.proactive.core.ProActiveRuntimeException;
@@ -43,6 +43,7 @@ import org.objectweb.proactive.extensions.dataspaces.Utils;
 import org.objectweb.proactive.extensions.dataspaces.api.DataSpacesFileObject;
 import org.objectweb.proactive.extensions.dataspaces.core.DataSpacesURI;
 import org.objectweb.proactive.extensions.dataspaces.core.SpaceInstanceInfo;
+import org.objectweb.proactive.extensions.dataspaces.core.SpaceType;
 import org.objectweb.proactive.extensions.dataspaces.core.SpacesMountManager;
 import org.objectweb.proactive.extensions.dataspaces.core.naming.SpacesDirectory;
 import org.objectweb.proactive.extensions.dataspaces.exceptions.FileSystemException;
@@ -63,43 +64,52 @@ import org.objectweb.proactive.extensions.dataspaces.vfs.adapter.VFSFileObjectAd
  * providers. VFSSpacesMountManagerImpl applies also restriction policies for returned FileObjects,
  * to conform with general Data Spaces guarantees, as implemented in
  * {@link DataSpacesLimitingFileObject}.
+ * <p/>
+ * Requests for already mounted data spaces are served without locking, while concurrent requests
+ * for a data space that is not mounted yet result in a single mount.
  */
 public class VFSSpacesMountManagerImpl implements SpacesMountManager {
     private static final Logger logger = ProActiveLogger.getLogger(Loggers.DATASPACES_MOUNT_MANAGER);
 
     /*
-     * readLock secures access to mountedSpaces and vfs instances. It is the only lock used for read
-     * queries for already mounted data spaces. It is used to avoid heavy synchronization on queries
-     * for already mounted data spaces.
+     * Queries for already mounted data spaces only read the concurrent maps below, without any
+     * locking: a space is published in mountedSpaces only once its accessible URLs are known.
      *
-     * writeLock is responsible for potentially costly synchronization of queries requiring mounting
-     * data spaces or on unmount. Therefore, only one data space can be mounted or unmounted at a
-     * time.
+     * Mounting or unmounting file systems of a data space is performed while holding the mount lock
+     * of that space only (see getMountLock()). Concurrent requests for a space that is not mounted
+     * yet wait for a single lookup and mount, while other spaces can be mounted at the same time.
      *
-     * Phantom read phenomena can occur for some execution paths acquiring only readLock, for 2
-     * times. Now it is not an issue actually, as unmount takes place only within close() method,
-     * that is supposed to be called when object is not used anymore.
+     * Unmount takes place only within close() method, that is supposed to be called when object is
+     * not used anymore.
      */
-    private final ReentrantReadWriteLock rwlock = new ReentrantReadWriteLock();
-
-    private final ReentrantReadWriteLock.ReadLock readLock = rwlock.readLock();
-
-    private final ReentrantReadWriteLock.WriteLock writeLock = rwlock.writeLock();
+    private final ConcurrentHashMap<DataSpacesURI, Object> mountLocks = new ConcurrentHashMap<DataSpacesURI, Object>();
 
     /**
      * The directory of dataspaces
      */
     private final SpacesDirectory directory;
 
+    private final ContentAddressedStore contentStore;
+
+    private final ScratchSpaceQuota scratchQuota;
+
+    private final ScratchMemoryTier scratchMemoryTier;
+
     /**
      * stores all already mounted vfs for each virtual uri
      */
-    private final Map<DataSpacesURI, ConcurrentHashMap<String, FileObject>> mountedSpaces = new HashMap<DataSpacesURI, ConcurrentHashMap<String, FileObject>>();
+    private final ConcurrentHashMap<DataSpacesURI, ConcurrentHashMap<String, FileObject>> mountedSpaces = new ConcurrentHashMap<DataSpacesURI, ConcurrentHashMap<String, FileObject>>();
+
+    /**
+     * For each virtual dataspace, it stores the list of accessible Apache FileObject Urls; the lists
+     * are never modified once stored, they are replaced instead
+     */
+    private final ConcurrentHashMap<DataSpacesURI, ArrayList<String>> accessibleFileObjectUris = new ConcurrentHashMap<DataSpacesURI, ArrayList<String>>();
 
     /**
-     * For each virtual dataspace, it stores the list of accessible Apache FileObject Urls
+     * Urls of the content-addressed stores of other nodes mounted by this manager
      */
-    private final Map<DataSpacesURI, LinkedHashSet<String>> accessibleFileObjectUris = new HashMap<DataSpacesURI, LinkedHashSet<String>>();
+    private final Set<String> peerContentStoreUris = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
 
     /**
      * Creates SpaceMountManager instance, that must be finally closed through {@link #close()}
@@ -109,7 +119,65 @@ public class VFSSpacesMountManagerImpl implements SpacesMountManager {
      * @throws FileSystemException when VFS configuration fails
      */
     public VFSSpacesMountManagerImpl(SpacesDirectory directory) throws FileSystemException {
+        this(directory, null);
+    }
+
+    /**
+     * Creates SpaceMountManager instance, that must be finally closed through {@link #close()}
+     * method.
+     *
+     * @param directory data spaces directory to use for serving requests
+     * @param contentStore content-addressed store of the local node scratch space, used when
+     *        copying files into that scratch space; may be <code>null</code>
+     * @throws FileSystemException when VFS configuration fails
+     */
+    public VFSSpacesMountManagerImpl(SpacesDirectory directory, ContentAddressedStore contentStore)
+            throws FileSystemException {
+        this(directory, contentStore, null, null);
+    }
+
+    /**
+     * Creates SpaceMountManager instance, that must be finally closed through {@link #close()}
+     * method.
+     *
+     * @param directory data spaces directory to use for serving requests
+     * @param contentStore content-addressed store of the local node scratch space, used when
+     *        copying files into that scratch space; may be <code>null</code>
+     * @param scratchQuota quota accounting for the files of the local node scratch space; may be
+     *        <code>null</code>
+     * @param scratchMemoryTier memory tier keeping the small files of the local node scratch
+     *        space; may be <code>null</code>
+     * @throws FileSystemException when VFS configuration fails
+     */
+    public VFSSpacesMountManagerImpl(SpacesDirectory directory, ContentAddressedStore contentStore,
+            ScratchSpaceQuota scratchQuota, ScratchMemoryTier scratchMemoryTier) throws FileSystemException {
         this.directory = directory;
+        this.contentStore = contentStore;
+        this.scratchQuota = scratchQuota;
+        this.scratchMemoryTier = scratchMemoryTier;
+    }
+
+    /**
+     * @return content-addressed store of the local node scratch space, <code>null</code> if none
+     */
+    public ContentAddressedStore getContentStore() {
+        return contentStore;
+    }
+
+    /**
+     * Returns the content-addressed stores of the other nodes of an application, as found through
+     * the scratch spaces they registered in the spaces directory. The stores are looked up each
+     * time they are requested, in random order so that the load is spread among the nodes.
+     *
+     * @param appId id of the application
+     * @return stores of the other nodes of the application
+     */
+    public ContentAddressedStore.Peers getContentStorePeers(final String appId) {
+        return new ContentAddressedStore.Peers() {
+            public List<FileObject> getStores(int max) {
+                return findPeerContentStores(appId, max);
+            }
+        };
     }
 
     /**
@@ -206,16 +274,97 @@ public class VFSSpacesMountManagerImpl implements SpacesMountManager {
      */
     public void close() {
         logger.debug("[VFSMountManager] Closing mount manager");
+        for (final DataSpacesURI spaceUri : new ArrayList<DataSpacesURI>(mountedSpaces.keySet())) {
+            unmountAllFileSystems(spaceUri);
+        }
+        VFSMountManagerHelper.closeFileSystems(new ArrayList<String>(peerContentStoreUris));
+        peerContentStoreUris.clear();
+        logger.debug("[VFSMountManager] Mount manager closed");
+    }
+
+    /**
+     * Mounts the content-addressed stores of at most max other nodes of the given application
+     * @param appId id of the application
+     * @param max maximum number of stores to mount
+     * @return the mounted stores roots
+     */
+    private List<FileObject> findPeerContentStores(final String appId, final int max) {
+        final List<FileObject> stores = new ArrayList<FileObject>();
+        final Set<SpaceInstanceInfo> scratches;
         try {
-            writeLock.lock();
-            for (final DataSpacesURI spaceUri : new ArrayList<DataSpacesURI>(mountedSpaces.keySet())) {
-                unmountAllFileSystems(spaceUri);
+            scratches = directory.lookupMany(DataSpacesURI.createURI(appId, SpaceType.SCRATCH));
+        } catch (RuntimeException e) {
+            // other stores are only used to offload the origin of the files
+            ProActiveLogger.logEatedException(logger, "Could not look up scratch spaces of application " + appId, e);
+            return stores;
+        }
+        if (scratches == null) {
+            return stores;
+        }
+
+        final List<SpaceInstanceInfo> candidates = new ArrayList<SpaceInstanceInfo>(scratches);
+        Collections.shuffle(candidates);
+        for (final SpaceInstanceInfo scratch : candidates) {
+            if (stores.size() >= max) {
+                break;
+            }
+            if (contentStore != null && contentStore.isLocalScratch(scratch.getMountingPoint())) {
+                continue;
             }
+            for (final String url : scratch.getUrls()) {
+                // files accessed through the local file system do not provide content hashes
+                if (url.startsWith("file:")) {
+                    continue;
+                }
+                final String storeUri = getContentStoreUri(url);
+                peerContentStoreUris.add(storeUri);
+                try {
+                    stores.add(VFSMountManagerHelper.mount(storeUri));
+                    break;
+                } catch (org.apache.commons.vfs2.FileSystemException e) {
+                    logger.debug("[VFSMountManager] Could not access content store " + storeUri, e);
+                }
+            }
+        }
+        return stores;
+    }
+
+    /**
+     * @param appScratchUri url of the scratch space of an application on a node
+     * @return url of the content-addressed store of the node, next to the scratch spaces of its
+     *         applications
+     */
+    private static String getContentStoreUri(final String appScratchUri) {
+        String uri = appScratchUri;
+        while (uri.endsWith("/")) {
+            uri = uri.substring(0, uri.length() - 1);
+        }
+        return uri.substring(0, uri.lastIndexOf('/') + 1) + ContentAddressedStore.DIRECTORY_NAME;
+    }
 
-        } finally {
-            writeLock.unlock();
+    /**
+     * Returns the lock serializing the mounts and unmounts of the given dataspace
+     * @param spacePart uri of the virtual space
+     * @return the lock
+     */
+    private Object getMountLock(final DataSpacesURI spacePart) {
+        final Object lock = mountLocks.get(spacePart);
+        if (lock != null) {
+            return lock;
         }
-        logger.debug("[VFSMountManager] Mount manager closed");
+        final Object newLock = new Object();
+        final Object existingLock = mountLocks.putIfAbsent(spacePart, newLock);
+        return existingLock == null ? newLock : existingLock;
+    }
+
+    /**
+     * Tells whether at least one VFS file system is mounted for the given virtual space
+     * @param spacePart uri of the virtual space
+     * @return true if the space can be accessed
+     */
+    private boolean isVirtualSpaceMounted(final DataSpacesURI spacePart) {
+        final ConcurrentHashMap<String, FileObject> fileSystems = mountedSpaces.get(spacePart);
+        return fileSystems != null && !fileSystems.isEmpty() && accessibleFileObjectUris.containsKey(spacePart);
     }
 
     /**
@@ -228,17 +377,17 @@ public class VFSSpacesMountManagerImpl implements SpacesMountManager {
     private void ensureVirtualSpaceIsMounted(final DataSpacesURI spaceURI, SpaceInstanceInfo info)
             throws SpaceNotFoundException, FileSystemException {
 
-        final boolean mounted;
-        DataSpacesURI spacePart = spaceURI.getSpacePartOnly();
-
-        try {
-            readLock.lock();
-            mounted = mountedSpaces.containsKey(spacePart);
-        } finally {
-            readLock.unlock();
+        final DataSpacesURI spacePart = spaceURI.getSpacePartOnly();
+        if (isVirtualSpaceMounted(spacePart)) {
+            return;
         }
 
-        if (!mounted) {
+        synchronized (getMountLock(spacePart)) {
+            // mounted by a concurrent request
+            if (isVirtualSpaceMounted(spacePart)) {
+                return;
+            }
+
             if (info == null) {
                 info = directory.lookupOne(spaceURI);
             }
@@ -246,21 +395,13 @@ public class VFSSpacesMountManagerImpl implements SpacesMountManager {
                 logger.warn("[VFSMountManager] Could not find data space in spaces directory: " + spacePart);
                 throw new SpaceNotFoundException("Requested data space is not registered in spaces directory.");
             }
-
-            try {
-                readLock.lock();
-                if (mountedSpaces.containsKey(spacePart) && (mountedSpaces.get(spacePart).size() > 0))
-                    return;
-            } finally {
-                readLock.unlock();
-            }
             mountFirstAvailableFileSystem(info);
-
         }
     }
 
     /**
-     * Mounts the first available VFS file system on the given dataspace
+     * Mounts the first available VFS file system on the given dataspace, must be called while
+     * holding the mount lock of the dataspace
      * @param spaceInfo space information
      * @throws FileSystemException if no file system could be mounted
      */
@@ -268,57 +409,51 @@ public class VFSSpacesMountManagerImpl implements SpacesMountManager {
 
         final DataSpacesURI mountingPoint = spaceInfo.getMountingPoint();
 
-        try {
-            writeLock.lock();
-            if (!mountedSpaces.containsKey(mountingPoint)) {
-                mountedSpaces.put(mountingPoint, new ConcurrentHashMap<String, FileObject>());
-            }
-            ConcurrentHashMap<String, FileObject> fileSystems = mountedSpaces.get(mountingPoint);
-
-            if (spaceInfo.getUrls().size() == 0) {
-                throw new IllegalStateException("Empty Space configuration");
-            }
+        ConcurrentHashMap<String, FileObject> fileSystems = mountedSpaces.get(mountingPoint);
+        if (fileSystems == null) {
+            fileSystems = new ConcurrentHashMap<String, FileObject>();
+        }
 
-            DataSpacesURI spacePart = mountingPoint.getSpacePartOnly();
-            ArrayList<String> urls = new ArrayList<String>(spaceInfo.getUrls());
-            if (urls.size() == 1) {
-                urls.add(0, Utils.getLocalAccessURL(urls.get(0), spaceInfo.getPath(), spaceInfo.getHostname()));
-            }
+        if (spaceInfo.getUrls().size() == 0) {
+            throw new IllegalStateException("Empty Space configuration");
+        }
 
-            logger.debug("[VFSMountManager] Request mounting VFS root list : " + urls);
+        DataSpacesURI spacePart = mountingPoint.getSpacePartOnly();
+        ArrayList<String> urls = new ArrayList<String>(spaceInfo.getUrls());
+        if (urls.size() == 1) {
+            urls.add(0, Utils.getLocalAccessURL(urls.get(0), spaceInfo.getPath(), spaceInfo.getHostname()));
+        }
 
-            try {
-                VFSMountManagerHelper.mountAny(urls, fileSystems);
+        logger.debug("[VFSMountManager] Request mounting VFS root list : " + urls);
 
-                if (!accessibleFileObjectUris.containsKey(mountingPoint)) {
-                    LinkedHashSet<String> srl = new LinkedHashSet<String>();
-                    accessibleFileObjectUris.put(mountingPoint, srl);
-                }
+        try {
+            VFSMountManagerHelper.mountAny(urls, fileSystems);
 
-                LinkedHashSet<String> srl = accessibleFileObjectUris.get(mountingPoint);
+            final LinkedHashSet<String> srl = new LinkedHashSet<String>();
+            final ArrayList<String> previousSrl = accessibleFileObjectUris.get(mountingPoint);
+            if (previousSrl != null) {
+                srl.addAll(previousSrl);
+            }
 
-                for (String uri : urls) {
-                    if (fileSystems.containsKey(uri)) {
-                        srl.add(uri);
-                    }
-                }
-                if (srl.isEmpty()) {
-                    throw new IllegalStateException("Invalid empty size list when trying to mount " + urls +
-                                                    " mounted map content is " + fileSystems);
+            for (String uri : urls) {
+                if (fileSystems.containsKey(uri)) {
+                    srl.add(uri);
                 }
-                accessibleFileObjectUris.put(mountingPoint, srl);
+            }
+            if (srl.isEmpty()) {
+                throw new IllegalStateException("Invalid empty size list when trying to mount " + urls +
+                                                " mounted map content is " + fileSystems);
+            }
+            accessibleFileObjectUris.put(mountingPoint, new ArrayList<String>(srl));
 
-                if (logger.isDebugEnabled())
-                    logger.debug(String.format("[VFSMountManager] Mounted space: %s (access URL: %s)", spacePart, srl));
+            if (logger.isDebugEnabled())
+                logger.debug(String.format("[VFSMountManager] Mounted space: %s (access URL: %s)", spacePart, srl));
 
-                mountedSpaces.put(mountingPoint, fileSystems);
+            // publishes the space to the lock-free readers
+            mountedSpaces.put(mountingPoint, fileSystems);
 
-            } catch (org.apache.commons.vfs2.FileSystemException e) {
-                mountedSpaces.remove(mountingPoint);
-                throw new FileSystemException("An error occurred while trying to mount " + spaceInfo.getName(), e);
-            }
-        } finally {
-            writeLock.unlock();
+        } catch (org.apache.commons.vfs2.FileSystemException e) {
+            throw new FileSystemException("An error occurred while trying to mount " + spaceInfo.getName(), e);
         }
     }
 
@@ -326,65 +461,70 @@ public class VFSSpacesMountManagerImpl implements SpacesMountManager {
      * Makes sure that the provided file system is mounted for the given dataspace (identified by its root url)
      * @param mountingPoint dataspace uri
      * @param spaceRootFOUri file system root
-     * @return true if the file system is mounted
+     * @return the mounted root of the file system
      * @throws FileSystemException
      */
-    private boolean ensureFileSystemIsMounted(final DataSpacesURI mountingPoint, final String spaceRootFOUri)
+    private FileObject ensureFileSystemIsMounted(final DataSpacesURI mountingPoint, final String spaceRootFOUri)
             throws FileSystemException {
-        ConcurrentHashMap<String, FileObject> fileSystems = null;
         DataSpacesURI spacePart = mountingPoint.getSpacePartOnly();
-        try {
-            readLock.lock();
+        ConcurrentHashMap<String, FileObject> fileSystems = mountedSpaces.get(spacePart);
+        // already mounted
+        FileObject mountedRoot = fileSystems == null ? null : fileSystems.get(spaceRootFOUri);
+        if (mountedRoot != null) {
+            return mountedRoot;
+        }
+
+        synchronized (getMountLock(spacePart)) {
             fileSystems = mountedSpaces.get(spacePart);
-            // already mounted
-            if (fileSystems.get(spaceRootFOUri) != null) {
-                return true;
+            if (fileSystems == null) {
+                throw new FileSystemException("Could not access file that should exist (be mounted)");
+            }
+            // mounted by a concurrent request
+            mountedRoot = fileSystems.get(spaceRootFOUri);
+            if (mountedRoot != null) {
+                return mountedRoot;
             }
-        } finally {
-            readLock.unlock();
-        }
-        logger.debug("[VFSMountManager] Request mounting VFS root = " + spaceRootFOUri);
-        FileObject mountedRoot;
-        try {
-            mountedRoot = VFSMountManagerHelper.mount(spaceRootFOUri);
 
-            // the fs is accessible
+            logger.debug("[VFSMountManager] Request mounting VFS root = " + spaceRootFOUri);
             try {
-                writeLock.lock();
-                fileSystems.put(spaceRootFOUri, mountedRoot);
-                mountedSpaces.put(spacePart, fileSystems);
-            } finally {
-                writeLock.unlock();
-            }
-            if (logger.isDebugEnabled())
-                logger.debug(String.format("[VFSMountManager] Mounted space: %s (access URL: %s)",
-                                           spacePart,
-                                           spaceRootFOUri));
-            return true;
+                mountedRoot = VFSMountManagerHelper.mount(spaceRootFOUri);
 
-        } catch (org.apache.commons.vfs2.FileSystemException x) {
-            String err = String.format("[VFSMountManager] Could not access URL %s to mount %s",
-                                       spaceRootFOUri,
-                                       spacePart);
-            logger.info(err);
-            removeSpaceRootUri(spacePart, spaceRootFOUri);
-            throw new FileSystemException(err, x);
+                // the fs is accessible
+                fileSystems.put(spaceRootFOUri, mountedRoot);
+                if (logger.isDebugEnabled())
+                    logger.debug(String.format("[VFSMountManager] Mounted space: %s (access URL: %s)",
+                                               spacePart,
+                                               spaceRootFOUri));
+                return mountedRoot;
 
+            } catch (org.apache.commons.vfs2.FileSystemException x) {
+                String err = String.format("[VFSMountManager] Could not access URL %s to mount %s",
+                                           spaceRootFOUri,
+                                           spacePart);
+                logger.info(err);
+                removeSpaceRootUri(spacePart, spaceRootFOUri);
+                throw new FileSystemException(err, x);
+            }
         }
     }
 
     /**
-     * Removes the
+     * Removes the given file system root from the accessible ones of the dataspace, must be called
+     * while holding the mount lock of the dataspace
      * @param spacePart
      * @param spaceRootFOUri
      */
     private void removeSpaceRootUri(DataSpacesURI spacePart, String spaceRootFOUri) {
-        LinkedHashSet<String> allRootUris = accessibleFileObjectUris.get(spacePart);
-        allRootUris.remove(spaceRootFOUri);
-        if (allRootUris.isEmpty()) {
+        final ArrayList<String> allRootUris = accessibleFileObjectUris.get(spacePart);
+        if (allRootUris == null) {
+            return;
+        }
+        final ArrayList<String> remainingRootUris = new ArrayList<String>(allRootUris);
+        remainingRootUris.remove(spaceRootFOUri);
+        if (remainingRootUris.isEmpty()) {
             accessibleFileObjectUris.remove(spacePart);
         } else {
-            accessibleFileObjectUris.put(spacePart, allRootUris);
+            accessibleFileObjectUris.put(spacePart, remainingRootUris);
         }
     }
 
@@ -396,9 +536,14 @@ public class VFSSpacesMountManagerImpl implements SpacesMountManager {
 
         DataSpacesURI spacePart = spaceUri.getSpacePartOnly();
 
-        final Map<String, FileObject> spaceRoots = mountedSpaces.remove(spacePart);
+        synchronized (getMountLock(spacePart)) {
+            final Map<String, FileObject> spaceRoots = mountedSpaces.remove(spacePart);
+            accessibleFileObjectUris.remove(spacePart);
 
-        VFSMountManagerHelper.closeFileSystems(spaceRoots.keySet());
+            if (spaceRoots != null) {
+                VFSMountManagerHelper.closeFileSystems(spaceRoots.keySet());
+            }
+        }
     }
 
     /**
@@ -414,63 +559,48 @@ public class VFSSpacesMountManagerImpl implements SpacesMountManager {
 
         DataSpacesURI spacePart = uri.getSpacePartOnly();
 
-        if (spaceRootFOUri != null) {
-            ensureFileSystemIsMounted(spacePart, spaceRootFOUri);
-        } else {
-            try {
-                readLock.lock();
-                LinkedHashSet<String> los = accessibleFileObjectUris.get(spacePart);
-                spaceRootFOUri = los.iterator().next();
-            } finally {
-                readLock.unlock();
-            }
-            ensureFileSystemIsMounted(spacePart, spaceRootFOUri);
+        final ArrayList<String> spaceRootUris = accessibleFileObjectUris.get(spacePart);
+        if (spaceRootUris == null) {
+            throw new FileSystemException("Could not access file that should exist (be mounted)");
+        }
+        if (spaceRootFOUri == null) {
+            spaceRootFOUri = spaceRootUris.get(0);
         }
+        final FileObject spaceRoot = ensureFileSystemIsMounted(spacePart, spaceRootFOUri);
 
         final String relativeToSpace = uri.getRelativeToSpace();
         try {
-            readLock.lock();
-
-            if (!mountedSpaces.containsKey(spacePart)) {
-                throw new FileSystemException("Could not access file that should exist (be mounted)");
-            }
-
-            final ConcurrentHashMap<String, FileObject> spaceRoots = mountedSpaces.get(spacePart);
-            FileObject spaceRoot = spaceRoots.get(spaceRootFOUri);
-            FileName dataSpaceVFSFileName = null;
-
             final FileObject file;
+            if (relativeToSpace == null)
+                file = spaceRoot;
+            else
+                file = spaceRoot.resolveFile(relativeToSpace);
+            final ScratchSpaceQuota quota = scratchQuota != null && scratchQuota.isLocalScratch(spacePart) ? scratchQuota
+                                                                                                          : null;
+            final ScratchMemoryTier memoryTier = scratchMemoryTier != null &&
+                                                 scratchMemoryTier.isLocalScratch(spacePart) ? scratchMemoryTier
+                                                                                             : null;
+            final DataSpacesLimitingFileObject limitingFile = new DataSpacesLimitingFileObject(file,
+                                                                                               spacePart,
+                                                                                               spaceRoot.getName(),
+                                                                                               ownerActiveObjectId,
+                                                                                               quota,
+                                                                                               memoryTier);
             // the dataspace "File name" (it is actually a File Path) is computed using the Virtual Space root
-            if (dataSpaceVFSFileName == null) {
-                dataSpaceVFSFileName = spaceRoot.getName();
-            }
-            try {
-                if (relativeToSpace == null)
-                    file = spaceRoot;
-                else
-                    file = spaceRoot.resolveFile(relativeToSpace);
-                final DataSpacesLimitingFileObject limitingFile = new DataSpacesLimitingFileObject(file,
-                                                                                                   spacePart,
-                                                                                                   spaceRoot.getName(),
-                                                                                                   ownerActiveObjectId);
-                return new VFSFileObjectAdapter(limitingFile,
-                                                spacePart,
-                                                dataSpaceVFSFileName,
-                                                new ArrayList<String>(accessibleFileObjectUris.get(spacePart)),
-                                                spaceRootFOUri,
-                                                this,
-                                                ownerActiveObjectId);
-            } catch (org.apache.commons.vfs2.FileSystemException x) {
-                logger.error("[VFSMountManager] Could not access file within a space: " + uri);
-
-                throw new FileSystemException(x);
-            } catch (FileSystemException e) {
-                ProActiveLogger.logImpossibleException(logger, e);
-                throw new ProActiveRuntimeException(e);
-            }
+            return new VFSFileObjectAdapter(limitingFile,
+                                            spacePart,
+                                            spaceRoot.getName(),
+                                            spaceRootUris,
+                                            spaceRootFOUri,
+                                            this,
+                                            ownerActiveObjectId);
+        } catch (org.apache.commons.vfs2.FileSystemException x) {
+            logger.error("[VFSMountManager] Could not access file within a space: " + uri);
 
-        } finally {
-            readLock.unlock();
+            throw new FileSystemException(x);
+        } catch (FileSystemException e) {
+            ProActiveLogger.logImpossibleException(logger, e);
+            throw new ProActiveRuntimeException(e);
         }
     }
 }
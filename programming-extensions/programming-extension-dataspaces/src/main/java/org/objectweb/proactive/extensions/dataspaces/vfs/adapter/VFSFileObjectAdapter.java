@@ -52,6 +52,7 @@ import org.objectweb.proactive.extensions.dataspaces.core.DataSpacesURI;
 import org.objectweb.proactive.extensions.dataspaces.exceptions.DataSpacesException;
 import org.objectweb.proactive.extensions.dataspaces.exceptions.FileSystemException;
 import org.objectweb.proactive.extensions.dataspaces.exceptions.SpaceNotFoundException;
+import org.objectweb.proactive.extensions.dataspaces.vfs.ContentAddressedStore;
 import org.objectweb.proactive.extensions.dataspaces.vfs.VFSSpacesMountManagerImpl;
 import org.objectweb.proactive.extensions.vfsprovider.util.URIHelper;
 
@@ -148,9 +149,17 @@ public class VFSFileObjectAdapter implements DataSpacesFileObject {
     public void copyFrom(DataSpacesFileObject srcFile, FileSelector selector) throws FileSystemException {
         final FileObject srcAdaptee = getVFSAdapteeOrWound(srcFile);
         final org.apache.commons.vfs2.FileSelector vfsSelector = buildFVSSelector(selector);
+        final ContentAddressedStore contentStore = manager == null ? null : manager.getContentStore();
 
         try {
-            currentFileObject.copyFrom(srcAdaptee, vfsSelector);
+            if (contentStore != null && contentStore.isLocalScratch(dataSpaceURI) && currentFileObject.isWriteable()) {
+                contentStore.copyFrom(currentFileObject,
+                                      srcAdaptee,
+                                      vfsSelector,
+                                      manager.getContentStorePeers(dataSpaceURI.getAppId()));
+            } else {
+                currentFileObject.copyFrom(srcAdaptee, vfsSelector);
+            }
         } catch (Exception e) {
             throw new FileSystemException(e);
         }
@@ -25,15 +25,135 @@
  */
 package dataspaces;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Collections;
+import java.util.Set;
+
+import org.junit.Test;
+import org.objectweb.proactive.extensions.dataspaces.core.DataSpacesURI;
+import org.objectweb.proactive.extensions.dataspaces.core.SpaceInstanceInfo;
+import org.objectweb.proactive.extensions.dataspaces.core.SpaceType;
 import org.objectweb.proactive.extensions.dataspaces.core.naming.CachingSpacesDirectory;
+import org.objectweb.proactive.extensions.dataspaces.core.naming.NamingService;
 import org.objectweb.proactive.extensions.dataspaces.core.naming.SpacesDirectory;
 import org.objectweb.proactive.extensions.dataspaces.core.naming.SpacesDirectoryImpl;
+import org.objectweb.proactive.extensions.dataspaces.core.naming.SpacesDirectoryListener;
 
 
 public class CachingSpacesDirectoryTest extends SpacesDirectoryAbstractBase {
 
+    private SpacesDirectoryImpl source;
+
+    private CachingSpacesDirectory cache;
+
     @Override
     protected SpacesDirectory getSource() throws Exception {
-        return new CachingSpacesDirectory(new SpacesDirectoryImpl());
+        source = new SpacesDirectoryImpl();
+        cache = new CachingSpacesDirectory(source, 60000);
+        return cache;
+    }
+
+    @Test
+    public void testLookupManyCached() throws Exception {
+        final DataSpacesURI query = DataSpacesURI.createURI(MAIN_APPID, SpaceType.OUTPUT);
+        assertEquals(1, cache.lookupMany(query).size());
+
+        // registered by another client of the source directory
+        source.register(spaceInstanceOutput2);
+        final Set<SpaceInstanceInfo> cached = cache.lookupMany(query);
+        assertEquals(1, cached.size());
+
+        // the returned sets are copies
+        cached.clear();
+        assertEquals(1, cache.lookupMany(query).size());
+    }
+
+    @Test
+    public void testLookupManyInvalidatedOnRegister() throws Exception {
+        final DataSpacesURI query = DataSpacesURI.createURI(ANOTHER_APPID1, SpaceType.OUTPUT);
+        assertNull(cache.lookupMany(query));
+
+        cache.register(spaceInstanceOutput1b);
+        assertEquals(1, cache.lookupMany(query).size());
+
+        assertTrue(cache.unregister(spaceInstanceOutput1b.getMountingPoint()));
+        assertNull(cache.lookupMany(query));
+    }
+
+    @Test
+    public void testLookupManyNotCached() throws Exception {
+        final CachingSpacesDirectory uncached = new CachingSpacesDirectory(source, 0);
+        final DataSpacesURI query = DataSpacesURI.createURI(MAIN_APPID, SpaceType.OUTPUT);
+        assertEquals(1, uncached.lookupMany(query).size());
+
+        source.register(spaceInstanceOutput2);
+        assertEquals(2, uncached.lookupMany(query).size());
+    }
+
+    @Test
+    public void testLookupManySubscribed() throws Exception {
+        final NamingService ns = new NamingService();
+        ns.registerApplication(MAIN_APPID, Collections.singleton(spaceInstanceOutput1));
+        final CachingSpacesDirectory subscribed = new CachingSpacesDirectory(ns, 0);
+        final DataSpacesURI query = DataSpacesURI.createURI(MAIN_APPID, SpaceType.OUTPUT);
+
+        subscribed.subscribe(ns, "subscriber", Collections.singleton(query), subscribed);
+        assertEquals(1, subscribed.lookupMany(query).size());
+
+        ns.register(spaceInstanceOutput2);
+        waitForLookupManySize(subscribed, query, 2);
+
+        assertTrue(ns.unregister(spaceInstanceOutput1.getMountingPoint()));
+        waitForLookupManySize(subscribed, query, 1);
+
+        subscribed.unsubscribe(ns, "subscriber");
+        assertFalse(ns.unsubscribe("subscriber"));
+    }
+
+    @Test
+    public void testLookupManySubscriptionDropped() throws Exception {
+        final NamingService ns = new NamingService();
+        ns.registerApplication(MAIN_APPID, Collections.singleton(spaceInstanceOutput1));
+        final CachingSpacesDirectory subscribed = new CachingSpacesDirectory(ns, 0, 0);
+        final DataSpacesURI query = DataSpacesURI.createURI(MAIN_APPID, SpaceType.OUTPUT);
+
+        // the naming service cannot notify this listener, and drops it
+        final SpacesDirectoryListener failingListener = new SpacesDirectoryListener() {
+            public void spacesRegistered(Set<SpaceInstanceInfo> spaces) {
+                throw new IllegalStateException("Unreachable listener");
+            }
+
+            public void spacesUnregistered(Set<DataSpacesURI> uris) {
+                throw new IllegalStateException("Unreachable listener");
+            }
+        };
+        subscribed.subscribe(ns, "subscriber", Collections.singleton(query), failingListener);
+        assertEquals(1, subscribed.lookupMany(query).size());
+
+        ns.register(spaceInstanceOutput2);
+        for (int i = 0; i < 100 && ns.isSubscribed("subscriber"); i++)
+            Thread.sleep(100);
+        assertFalse(ns.isSubscribed("subscriber"));
+
+        // the missed change is seen by querying the naming service
+        assertEquals(2, subscribed.lookupMany(query).size());
+        assertTrue(ns.unregister(spaceInstanceOutput1.getMountingPoint()));
+        assertEquals(1, subscribed.lookupMany(query).size());
+    }
+
+    private static void waitForLookupManySize(SpacesDirectory directory, DataSpacesURI query, int size)
+            throws InterruptedException {
+        for (int i = 0; i < 100; i++) {
+            final Set<SpaceInstanceInfo> spaces = directory.lookupMany(query);
+            if (spaces != null && spaces.size() == size)
+                return;
+            Thread.sleep(100);
+        }
+        fail("Notification expected");
     }
 }
@@ -31,14 +31,21 @@ import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 
 import org.junit.Before;
 import org.junit.Test;
+import org.objectweb.proactive.extensions.dataspaces.core.DataSpacesURI;
 import org.objectweb.proactive.extensions.dataspaces.core.SpaceInstanceInfo;
+import org.objectweb.proactive.extensions.dataspaces.core.SpaceType;
 import org.objectweb.proactive.extensions.dataspaces.core.naming.NamingService;
 import org.objectweb.proactive.extensions.dataspaces.core.naming.SpacesDirectory;
+import org.objectweb.proactive.extensions.dataspaces.core.naming.SpacesDirectoryListener;
 import org.objectweb.proactive.extensions.dataspaces.exceptions.ApplicationAlreadyRegisteredException;
 import org.objectweb.proactive.extensions.dataspaces.exceptions.SpaceAlreadyRegisteredException;
 import org.objectweb.proactive.extensions.dataspaces.exceptions.WrongApplicationIdException;
@@ -290,6 +297,118 @@ public class NamingServiceTest extends SpacesDirectoryAbstractBase {
         assertFalse(ns.unregister(spaceInstanceInput1b.getMountingPoint()));
     }
 
+    @Test
+    public void testRegisterMany() throws Exception {
+        Set<SpaceInstanceInfo> spaces = new HashSet<SpaceInstanceInfo>();
+        spaces.add(spaceInstanceInput1);
+        spaces.add(spaceInstanceOutput1);
+        spaces.add(spaceInstanceInput1b);
+
+        ns.registerApplication(MAIN_APPID, null);
+        ns.registerApplication(ANOTHER_APPID1, null);
+        ns.registerMany(spaces);
+
+        assertIsSpaceRegistered(spaceInstanceInput1);
+        assertIsSpaceRegistered(spaceInstanceOutput1);
+        assertIsSpaceRegistered(spaceInstanceInput1b);
+    }
+
+    @Test
+    public void testRegisterManyAlreadyRegistered() throws Exception {
+        Set<SpaceInstanceInfo> spaces = new HashSet<SpaceInstanceInfo>();
+        spaces.add(spaceInstanceInput1);
+        spaces.add(spaceInstanceOutput1);
+
+        ns.registerApplication(MAIN_APPID, null);
+        ns.register(spaceInstanceInput1);
+        try {
+            ns.registerMany(spaces);
+            fail("Exception expected");
+        } catch (SpaceAlreadyRegisteredException e) {
+        }
+        // none registered
+        assertIsSpaceUnregistered(spaceInstanceOutput1);
+    }
+
+    @Test
+    public void testRegisterManyWrongAppid() throws Exception {
+        Set<SpaceInstanceInfo> spaces = new HashSet<SpaceInstanceInfo>();
+        spaces.add(spaceInstanceInput1);
+        spaces.add(spaceInstanceInput1b);
+
+        ns.registerApplication(MAIN_APPID, null);
+        try {
+            ns.registerMany(spaces);
+            fail("Exception expected");
+        } catch (WrongApplicationIdException e) {
+        }
+        assertIsSpaceUnregistered(spaceInstanceInput1);
+    }
+
+    @Test
+    public void testSubscribe() throws Exception {
+        final RecordingListener listener = new RecordingListener();
+        ns.registerApplication(MAIN_APPID, Collections.singleton(spaceInstanceInput1));
+
+        final Set<DataSpacesURI> queries = Collections.singleton(DataSpacesURI.createURI(MAIN_APPID,
+                                                                                         SpaceType.INPUT));
+        final Set<SpaceInstanceInfo> current = ns.subscribe("subscriber", queries, listener);
+        assertEquals(Collections.singleton(spaceInstanceInput1), current);
+
+        // not matching
+        ns.register(spaceInstanceOutput1);
+        ns.register(spaceInstanceInput2);
+        assertEquals(Collections.singleton(spaceInstanceInput2), listener.poll());
+
+        assertTrue(ns.unregister(spaceInstanceInput2.getMountingPoint()));
+        assertEquals(Collections.singleton(spaceInstanceInput2.getMountingPoint()), listener.poll());
+
+        assertTrue(ns.unsubscribe("subscriber"));
+        ns.register(spaceInstanceInput2);
+        assertNull(listener.events.poll(100, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void testSubscribeApplicationUnregistered() throws Exception {
+        final RecordingListener listener = new RecordingListener();
+        ns.registerApplication(MAIN_APPID, Collections.singleton(spaceInstanceInput1));
+        ns.subscribe("subscriber", Collections.singleton(DataSpacesURI.createURI(MAIN_APPID)), listener);
+
+        ns.unregisterApplication(MAIN_APPID);
+        assertEquals(Collections.singleton(spaceInstanceInput1.getMountingPoint()), listener.poll());
+        assertFalse(ns.unsubscribe("subscriber"));
+    }
+
+    @Test
+    public void testSubscribeWrongAppid() throws Exception {
+        try {
+            ns.subscribe("subscriber",
+                         Collections.singleton(DataSpacesURI.createURI(MAIN_APPID)),
+                         new RecordingListener());
+            fail("Exception expected");
+        } catch (WrongApplicationIdException e) {
+        }
+    }
+
+    private static class RecordingListener implements SpacesDirectoryListener {
+        private final BlockingQueue<Set<?>> events = new LinkedBlockingQueue<Set<?>>();
+
+        public void spacesRegistered(Set<SpaceInstanceInfo> spaces) {
+            events.add(spaces);
+        }
+
+        public void spacesUnregistered(Set<DataSpacesURI> uris) {
+            events.add(uris);
+        }
+
+        private Set<?> poll() throws InterruptedException {
+            final Set<?> event = events.poll(10, TimeUnit.SECONDS);
+            if (event == null)
+                fail("Notification expected");
+            return event;
+        }
+    }
+
     private void assertIsSpaceRegistered(SpaceInstanceInfo expected) {
         SpaceInstanceInfo actual = ns.lookupOne(expected.getMountingPoint());
         assertEquals(actual.getMountingPoint(), expected.getMountingPoint());
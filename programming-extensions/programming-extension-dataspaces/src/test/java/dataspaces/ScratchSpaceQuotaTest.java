@@ -0,0 +1,322 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package dataspaces;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import org.apache.commons.vfs2.FileObject;
+import org.apache.commons.vfs2.FileSystemException;
+import org.apache.commons.vfs2.RandomAccessContent;
+import org.apache.commons.vfs2.Selectors;
+import org.apache.commons.vfs2.impl.DefaultFileSystemManager;
+import org.apache.commons.vfs2.provider.temp.TemporaryFileProvider;
+import org.apache.commons.vfs2.util.RandomAccessMode;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TestName;
+import org.objectweb.proactive.extensions.dataspaces.core.DataSpacesURI;
+import org.objectweb.proactive.extensions.dataspaces.core.SpaceType;
+import org.objectweb.proactive.extensions.dataspaces.vfs.DataSpacesLimitingFileObject;
+import org.objectweb.proactive.extensions.dataspaces.vfs.ScratchMemoryTier;
+import org.objectweb.proactive.extensions.dataspaces.vfs.ScratchSpaceQuota;
+import org.objectweb.proactive.extensions.dataspaces.vfs.VFSFactory;
+
+
+/**
+ * Test for accounting of scratch space usage by {@link ScratchSpaceQuota} through
+ * {@link DataSpacesLimitingFileObject}, and for {@link ScratchMemoryTier}.
+ */
+public class ScratchSpaceQuotaTest {
+
+    @Rule
+    public TestName name = new TestName();
+
+    private static final String APP_ID = "1";
+
+    private static final String RUNTIME_ID = "rt1";
+
+    private static final String NODE_ID = "node1";
+
+    private static final String AO_ID = "ao1";
+
+    private static final long LIMIT = 100;
+
+    private final DataSpacesURI spaceURI = DataSpacesURI.createScratchSpaceURI(APP_ID, RUNTIME_ID, NODE_ID);
+
+    private DefaultFileSystemManager manager;
+
+    private ScratchSpaceQuota quota;
+
+    private ScratchMemoryTier memoryTier;
+
+    private FileObject scratchRoot;
+
+    private FileObject aoScratch;
+
+    @Before
+    public void setUp() throws Exception {
+        manager = VFSFactory.createDefaultFileSystemManager();
+        manager.addProvider("tmpfs", new TemporaryFileProvider());
+
+        final FileObject realRoot = manager.resolveFile("tmpfs:///" + name.getMethodName());
+        realRoot.delete(Selectors.SELECT_ALL);
+        realRoot.resolveFile(AO_ID).createFolder();
+
+        quota = new ScratchSpaceQuota(RUNTIME_ID, NODE_ID, LIMIT);
+        memoryTier = new ScratchMemoryTier(RUNTIME_ID, NODE_ID, 1024, 16);
+        scratchRoot = new DataSpacesLimitingFileObject(realRoot,
+                                                       spaceURI,
+                                                       realRoot.getName(),
+                                                       AO_ID,
+                                                       quota,
+                                                       memoryTier);
+        aoScratch = scratchRoot.resolveFile(AO_ID);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        if (scratchRoot != null) {
+            scratchRoot.delete(Selectors.SELECT_ALL);
+            scratchRoot.close();
+            scratchRoot = null;
+        }
+        if (manager != null) {
+            manager.close();
+            manager = null;
+        }
+    }
+
+    @Test
+    public void testIsLocalScratch() {
+        assertTrue(quota.isLocalScratch(spaceURI.withActiveObjectId(AO_ID)));
+        assertFalse(quota.isLocalScratch(DataSpacesURI.createScratchSpaceURI(APP_ID, RUNTIME_ID, "node2")));
+        assertFalse(quota.isLocalScratch(DataSpacesURI.createInOutSpaceURI(APP_ID, SpaceType.OUTPUT, "out")));
+    }
+
+    @Test
+    public void testReserveAndRelease() throws FileSystemException {
+        assertNull(quota.getApplicationUsage(APP_ID));
+        quota.reserve(APP_ID, 60);
+        quota.release(APP_ID, 20);
+        assertEquals(40, quota.getApplicationUsage(APP_ID).getUsedBytes());
+        assertEquals(60, quota.getApplicationUsage(APP_ID).getPeakBytes());
+
+        try {
+            quota.reserve(APP_ID, 61);
+            fail("Expected exception");
+        } catch (FileSystemException e) {
+        }
+        assertEquals(40, quota.getApplicationUsage(APP_ID).getUsedBytes());
+        assertEquals(1, quota.getApplicationUsage(APP_ID).getRejectedWrites());
+
+        // other applications have their own quota
+        quota.reserve("2", 100);
+        assertEquals(40, quota.getApplicationUsage(APP_ID).getUsedBytes());
+
+        quota.release(APP_ID, 1000);
+        assertEquals(0, quota.getApplicationUsage(APP_ID).getUsedBytes());
+
+        assertEquals(0, quota.removeApplication(APP_ID).getUsedBytes());
+        assertNull(quota.getApplicationUsage(APP_ID));
+    }
+
+    @Test
+    public void testWriteAccounted() throws IOException {
+        final FileObject file = aoScratch.resolveFile("file");
+        write(file, 30, false);
+        assertEquals(30, getUsedBytes());
+
+        // content is replaced
+        write(file, 20, false);
+        assertEquals(20, getUsedBytes());
+
+        write(file, 10, true);
+        assertEquals(30, getUsedBytes());
+        assertEquals(30, file.getContent().getSize());
+    }
+
+    @Test
+    public void testWriteOverQuota() throws IOException {
+        final FileObject file = aoScratch.resolveFile("file");
+        try {
+            write(file, LIMIT + 1, false);
+            fail("Expected exception");
+        } catch (FileSystemException e) {
+        }
+        // bytes written up to the quota are kept
+        assertEquals(LIMIT, getUsedBytes());
+        assertEquals(LIMIT, file.getContent().getSize());
+        assertEquals(1, quota.getApplicationUsage(APP_ID).getRejectedWrites());
+    }
+
+    @Test
+    public void testDeleteAccounted() throws IOException {
+        final FileObject file = aoScratch.resolveFile("dir/file1");
+        write(file, 30, false);
+        write(aoScratch.resolveFile("dir/file2"), 20, false);
+        assertEquals(50, getUsedBytes());
+
+        assertTrue(file.delete());
+        assertEquals(20, getUsedBytes());
+
+        aoScratch.resolveFile("dir").delete(Selectors.SELECT_ALL);
+        assertEquals(0, getUsedBytes());
+    }
+
+    @Test
+    public void testCopyFromAccounted() throws IOException {
+        final FileObject file = aoScratch.resolveFile("file");
+        write(file, 30, false);
+
+        aoScratch.resolveFile("copy").copyFrom(file, Selectors.SELECT_SELF);
+        assertEquals(60, getUsedBytes());
+
+        // the copy replaces the previous content
+        aoScratch.resolveFile("copy").copyFrom(file, Selectors.SELECT_SELF);
+        assertEquals(60, getUsedBytes());
+    }
+
+    @Test
+    public void testCopyFromOverQuota() throws IOException {
+        final FileObject file = aoScratch.resolveFile("file");
+        write(file, 60, false);
+
+        try {
+            aoScratch.resolveFile("copy").copyFrom(file, Selectors.SELECT_SELF);
+            fail("Expected exception");
+        } catch (FileSystemException e) {
+        }
+        assertFalse(aoScratch.resolveFile("copy").exists());
+        assertEquals(60, getUsedBytes());
+    }
+
+    @Test
+    public void testCopyFromReplacingWithinQuota() throws IOException {
+        write(aoScratch.resolveFile("dir/file1"), 40, false);
+        write(aoScratch.resolveFile("dir/file2"), 10, false);
+        write(aoScratch.resolveFile("copy/file1"), 40, false);
+        assertEquals(90, getUsedBytes());
+
+        // only the 10 bytes of file2 are added
+        aoScratch.resolveFile("copy").copyFrom(aoScratch.resolveFile("dir"), Selectors.SELECT_ALL);
+        assertEquals(100, getUsedBytes());
+        assertEquals(10, aoScratch.resolveFile("copy/file2").getContent().getSize());
+    }
+
+    @Test
+    public void testMoveToAccounted() throws IOException {
+        final FileObject file = aoScratch.resolveFile("file");
+        write(file, 30, false);
+        write(aoScratch.resolveFile("replaced"), 20, false);
+
+        file.moveTo(aoScratch.resolveFile("replaced"));
+        assertEquals(30, getUsedBytes());
+    }
+
+    @Test
+    public void testRandomAccessAccounted() throws IOException {
+        final FileObject file = aoScratch.resolveFile("file");
+        write(file, 30, false);
+
+        final RandomAccessContent content = file.getContent().getRandomAccessContent(RandomAccessMode.READWRITE);
+        content.seek(30);
+        content.write(new byte[10]);
+        content.close();
+        assertEquals(40, getUsedBytes());
+    }
+
+    @Test
+    public void testMemoryTierRead() throws IOException {
+        final FileObject file = aoScratch.resolveFile("file");
+        write(file, 10, false);
+
+        assertEquals(10, read(file));
+        assertEquals(10, read(file));
+        assertEquals(2, memoryTier.getHits());
+        assertEquals(0, memoryTier.getMisses());
+        assertEquals(10, memoryTier.getSize());
+
+        // bigger files are not kept in memory
+        final FileObject bigFile = aoScratch.resolveFile("bigFile");
+        write(bigFile, 20, false);
+        assertEquals(20, read(bigFile));
+        assertEquals(1, memoryTier.getMisses());
+        assertEquals(10, memoryTier.getSize());
+    }
+
+    @Test
+    public void testMemoryTierInvalidated() throws IOException {
+        final FileObject file = aoScratch.resolveFile("file");
+        write(file, 10, false);
+        write(file, 5, true);
+
+        assertEquals(15, read(file));
+        assertEquals(1, memoryTier.getMisses());
+        assertEquals(15, read(file));
+        assertEquals(1, memoryTier.getHits());
+
+        assertTrue(file.delete());
+        assertEquals(0, memoryTier.getSize());
+    }
+
+    private long getUsedBytes() {
+        return quota.getApplicationUsage(APP_ID).getUsedBytes();
+    }
+
+    private static void write(FileObject file, long size, boolean append) throws IOException {
+        final OutputStream out = file.getContent().getOutputStream(append);
+        try {
+            for (long i = 0; i < size; i++) {
+                out.write((int) i);
+            }
+        } finally {
+            out.close();
+        }
+    }
+
+    private static int read(FileObject file) throws IOException {
+        final InputStream in = file.getContent().getInputStream();
+        try {
+            int size = 0;
+            while (in.read() != -1) {
+                size++;
+            }
+            return size;
+        } finally {
+            in.close();
+        }
+    }
+}
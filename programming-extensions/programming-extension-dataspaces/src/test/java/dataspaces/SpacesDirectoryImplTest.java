@@ -25,12 +25,67 @@
  */
 package dataspaces;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+import org.objectweb.proactive.extensions.dataspaces.core.DataSpacesURI;
+import org.objectweb.proactive.extensions.dataspaces.core.InputOutputSpaceConfiguration;
+import org.objectweb.proactive.extensions.dataspaces.core.SpaceInstanceInfo;
+import org.objectweb.proactive.extensions.dataspaces.core.SpaceType;
 import org.objectweb.proactive.extensions.dataspaces.core.naming.SpacesDirectory;
 import org.objectweb.proactive.extensions.dataspaces.core.naming.SpacesDirectoryImpl;
 
 
 public class SpacesDirectoryImplTest extends SpacesDirectoryAbstractBase {
 
+    /**
+     * Registers and unregisters concurrently the spaces of an application, emptying its shard.
+     */
+    @Test
+    public void testRegisterConcurrently() throws Exception {
+        final SpacesDirectoryImpl directory = new SpacesDirectoryImpl();
+        final int threads = 8;
+        final ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            final List<Future<Void>> futures = new ArrayList<Future<Void>>();
+            for (int i = 0; i < threads; i++) {
+                final SpaceInstanceInfo info = new SpaceInstanceInfo("app",
+                                                                     InputOutputSpaceConfiguration.createInputSpaceConfiguration("http://host",
+                                                                                                                                 "/tmp",
+                                                                                                                                 "h1",
+                                                                                                                                 "input" +
+                                                                                                                                       i));
+                futures.add(executor.submit(new Callable<Void>() {
+                    public Void call() throws Exception {
+                        for (int j = 0; j < 1000; j++) {
+                            directory.register(info);
+                            assertEquals(info, directory.lookupOne(info.getMountingPoint()));
+                            directory.unregister(info.getMountingPoint());
+                        }
+                        directory.register(info);
+                        return null;
+                    }
+                }));
+            }
+            for (Future<Void> future : futures)
+                future.get();
+        } finally {
+            executor.shutdownNow();
+        }
+
+        final DataSpacesURI query = DataSpacesURI.createURI("app", SpaceType.INPUT);
+        assertEquals(threads, directory.lookupMany(query).size());
+        assertNull(directory.lookupMany(DataSpacesURI.createURI("app", SpaceType.OUTPUT)));
+    }
+
     @Override
     protected SpacesDirectory getSource() {
         return new SpacesDirectoryImpl();
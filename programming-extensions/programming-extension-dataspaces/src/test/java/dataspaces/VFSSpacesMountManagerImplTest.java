@@ -36,7 +36,12 @@ import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.OutputStreamWriter;
 import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.apache.commons.vfs2.FileObject;
 import org.apache.commons.vfs2.impl.DefaultFileSystemManager;
@@ -288,6 +293,26 @@ public class VFSSpacesMountManagerImplTest {
         assertNotSame(fileObject1, fileObject2);
     }
 
+    @Test
+    public void testResolveFileConcurrently() throws Exception {
+        final ExecutorService executor = Executors.newFixedThreadPool(16);
+        try {
+            final List<Future<DataSpacesFileObject>> results = new ArrayList<Future<DataSpacesFileObject>>();
+            for (int i = 0; i < 64; i++) {
+                results.add(executor.submit(new Callable<DataSpacesFileObject>() {
+                    public DataSpacesFileObject call() throws Exception {
+                        return manager.resolveFile(inputUri, null);
+                    }
+                }));
+            }
+            for (Future<DataSpacesFileObject> result : results) {
+                assertIsWorkingInputSpaceDir(result.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
     @Test
     public void testResolveFileForUnexistingSpace() throws SpaceNotFoundException, IOException {
         try {
@@ -29,6 +29,7 @@ import java.io.IOException;
 import java.lang.reflect.InvocationTargetException;
 import java.rmi.AlreadyBoundException;
 import java.util.List;
+import java.util.Map;
 
 import org.objectweb.proactive.Body;
 import org.objectweb.proactive.core.ProActiveException;
@@ -246,4 +247,12 @@ public class MOCKProActiveRuntime implements ProActiveRuntime {
         return null;
     }
 
+    public Map<String, String> getClassDataDigests(String className) {
+        return null;
+    }
+
+    public byte[] getClassDataBundle(String[] classNames) {
+        return null;
+    }
+
 }
@@ -0,0 +1,397 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.objectweb.proactive.extensions.dataspaces.vfs;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.vfs2.FileObject;
+import org.apache.commons.vfs2.FileSystemException;
+import org.apache.commons.vfs2.Selectors;
+import org.apache.commons.vfs2.impl.DefaultFileSystemManager;
+import org.apache.commons.vfs2.provider.temp.TemporaryFileProvider;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TestName;
+
+
+/**
+ * Test for {@link ContentAddressedStore}, with files whose content is their own hash and version.
+ */
+public class ContentAddressedStoreTest {
+
+    @Rule
+    public TestName name = new TestName();
+
+    private static final String RUNTIME_ID = "rt1";
+
+    private static final String NODE_ID = "node1";
+
+    // every content is 10 bytes long
+    private static final long ENTRY_SIZE = 10;
+
+    private static final String CONTENT_A = "content-aa";
+
+    private static final String CONTENT_B = "content-bb";
+
+    private static final String CONTENT_C = "content-cc";
+
+    private static final String CHANGED_CONTENT = "changed-cc";
+
+    private DefaultFileSystemManager manager;
+
+    private FileObject testRoot;
+
+    private FileObject origin;
+
+    private FileObject destination;
+
+    // changed contents whose version is asked for block until this latch is released
+    private volatile CountDownLatch versionGate;
+
+    private final AtomicInteger blockedVersions = new AtomicInteger();
+
+    @Before
+    public void setUp() throws Exception {
+        manager = VFSFactory.createDefaultFileSystemManager();
+        manager.addProvider("tmpfs", new TemporaryFileProvider());
+
+        testRoot = manager.resolveFile("tmpfs:///" + name.getMethodName());
+        testRoot.delete(Selectors.SELECT_ALL);
+        origin = testRoot.resolveFile("origin");
+        destination = testRoot.resolveFile("destination");
+        for (String content : new String[] { CONTENT_A, CONTENT_B, CONTENT_C }) {
+            write(origin.resolveFile(content), content);
+        }
+        destination.createFolder();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        if (testRoot != null) {
+            testRoot.delete(Selectors.SELECT_ALL);
+            testRoot.close();
+            testRoot = null;
+        }
+        if (manager != null) {
+            manager.close();
+            manager = null;
+        }
+    }
+
+    @Test
+    public void testLeastRecentlyUsedEvicted() throws Exception {
+        final ContentAddressedStore store = createStore("store", 2 * ENTRY_SIZE);
+        copy(store, CONTENT_A);
+        copy(store, CONTENT_B);
+        // A becomes more recently used than B
+        copy(store, CONTENT_A);
+        assertEquals(2, store.getFetchCount());
+
+        copy(store, CONTENT_C);
+        assertTrue(store.contains(CONTENT_A));
+        assertFalse(store.contains(CONTENT_B));
+        assertTrue(store.contains(CONTENT_C));
+        assertEquals(2 * ENTRY_SIZE, store.getSize());
+        assertFalse(testRoot.resolveFile("store/" + CONTENT_B).exists());
+        assertEquals(3, store.getFetchCount());
+
+        // evicted content is fetched again
+        copy(store, CONTENT_B);
+        assertEquals(4, store.getFetchCount());
+        assertFalse(store.contains(CONTENT_A));
+        assertEquals(CONTENT_B, read(destination.resolveFile(CONTENT_B)));
+    }
+
+    @Test
+    public void testPinnedEntriesNotEvicted() throws Exception {
+        final ContentAddressedStore store = createStore("store", ENTRY_SIZE);
+        final FileObject entryA = store.acquire(CONTENT_A, origin.resolveFile(CONTENT_A), CONTENT_A, null);
+
+        // the store goes beyond its maximum size while A is being copied
+        copy(store, CONTENT_B);
+        assertTrue(store.contains(CONTENT_A));
+        assertFalse(store.contains(CONTENT_B));
+        assertEquals(ENTRY_SIZE, store.getSize());
+        assertEquals(CONTENT_A, read(entryA));
+
+        store.release(CONTENT_A);
+        assertTrue(store.contains(CONTENT_A));
+
+        copy(store, CONTENT_C);
+        assertFalse(store.contains(CONTENT_A));
+        assertFalse(entryA.exists());
+        assertTrue(store.contains(CONTENT_C));
+        assertEquals(ENTRY_SIZE, store.getSize());
+    }
+
+    @Test
+    public void testConcurrentCopiesFetchedOnce() throws Exception {
+        final ContentAddressedStore store = createStore("store", 10 * ENTRY_SIZE);
+        final int copies = 8;
+        final CountDownLatch start = new CountDownLatch(1);
+        final List<Throwable> failures = Collections.synchronizedList(new ArrayList<Throwable>());
+        final List<Thread> threads = new ArrayList<Thread>();
+        for (int i = 0; i < copies; i++) {
+            final FileObject copyDestination = destination.resolveFile("copy" + i);
+            threads.add(startThread(new Runnable() {
+                public void run() {
+                    try {
+                        start.await();
+                        store.copyFrom(copyDestination, origin.resolveFile(CONTENT_A), Selectors.SELECT_SELF);
+                    } catch (Throwable e) {
+                        failures.add(e);
+                    }
+                }
+            }));
+        }
+        start.countDown();
+        join(threads);
+
+        assertEquals(Collections.emptyList(), failures);
+        assertEquals(1, store.getFetchCount());
+        assertEquals(ENTRY_SIZE, store.getSize());
+        for (int i = 0; i < copies; i++) {
+            assertEquals(CONTENT_A, read(destination.resolveFile("copy" + i)));
+        }
+    }
+
+    @Test
+    public void testFailedFetchNotShared() throws Exception {
+        final ContentAddressedStore store = createStore("store", 10 * ENTRY_SIZE);
+        // the source was hashed when its content was C and has been changed since
+        final FileObject changedSource = origin.resolveFile(CHANGED_CONTENT);
+        write(changedSource, CHANGED_CONTENT);
+        final List<Throwable> failures = Collections.synchronizedList(new ArrayList<Throwable>());
+        final List<Thread> threads = new ArrayList<Thread>();
+
+        // the fetch from the changed source holds the fetch lock until its version is checked
+        versionGate = new CountDownLatch(1);
+        final Thread failedFetch = startThread(new Runnable() {
+            public void run() {
+                try {
+                    store.acquire(CONTENT_C, changedSource, CONTENT_C, null);
+                    fail("Expected exception");
+                } catch (FileSystemException e) {
+                } catch (Throwable e) {
+                    failures.add(e);
+                }
+            }
+        });
+        waitUntil(new Condition() {
+            public boolean isTrue() {
+                return blockedVersions.get() == 1;
+            }
+        });
+
+        final Runnable acquire = new Runnable() {
+            public void run() {
+                try {
+                    store.acquire(CONTENT_C, origin.resolveFile(CONTENT_C), CONTENT_C, null);
+                } catch (Throwable e) {
+                    failures.add(e);
+                }
+            }
+        };
+        for (int i = 0; i < 4; i++) {
+            threads.add(startThread(acquire));
+        }
+        waitUntil(new Condition() {
+            public boolean isTrue() {
+                for (Thread thread : threads) {
+                    if (thread.getState() != Thread.State.BLOCKED) {
+                        return false;
+                    }
+                }
+                return true;
+            }
+        });
+
+        versionGate.countDown();
+        // threads arriving while the waiting ones take over the fetch
+        for (int i = 0; i < 4; i++) {
+            threads.add(startThread(acquire));
+        }
+        failedFetch.join(TimeUnit.SECONDS.toMillis(30));
+        join(threads);
+
+        assertEquals(Collections.emptyList(), failures);
+        assertEquals(1, store.getFetchCount());
+        assertTrue(store.contains(CONTENT_C));
+        assertEquals(ENTRY_SIZE, store.getSize());
+        assertEquals(CONTENT_C, read(testRoot.resolveFile("store/" + CONTENT_C)));
+
+        for (int i = 0; i < threads.size(); i++) {
+            store.release(CONTENT_C);
+        }
+        // no partial content is left behind
+        assertEquals(1, testRoot.resolveFile("store").getChildren().length);
+    }
+
+    @Test
+    public void testFetchedFromPeer() throws Exception {
+        final ContentAddressedStore peerStore = createStore("peer", 10 * ENTRY_SIZE);
+        copy(peerStore, CONTENT_A);
+        final ContentAddressedStore store = createStore("store", 10 * ENTRY_SIZE);
+
+        store.copyFrom(destination.resolveFile(CONTENT_A),
+                       origin.resolveFile(CONTENT_A),
+                       Selectors.SELECT_SELF,
+                       peers("peer"));
+        assertEquals(1, store.getFetchCount());
+        assertEquals(1, store.getPeerFetchCount());
+        assertEquals(CONTENT_A, read(destination.resolveFile(CONTENT_A)));
+    }
+
+    @Test
+    public void testInvalidPeerContentIgnored() throws Exception {
+        final ContentAddressedStore store = createStore("store", 10 * ENTRY_SIZE);
+        // content of the peer store does not match its name
+        write(testRoot.resolveFile("peer/" + CONTENT_A), CONTENT_B);
+
+        store.copyFrom(destination.resolveFile(CONTENT_A),
+                       origin.resolveFile(CONTENT_A),
+                       Selectors.SELECT_SELF,
+                       peers("missing", "peer"));
+        assertEquals(1, store.getFetchCount());
+        assertEquals(0, store.getPeerFetchCount());
+        assertEquals(CONTENT_A, read(destination.resolveFile(CONTENT_A)));
+    }
+
+    private ContentAddressedStore createStore(String directory, long maxSize) throws FileSystemException {
+        return new ContentAddressedStore(testRoot.resolveFile(directory), RUNTIME_ID, NODE_ID, maxSize) {
+            @Override
+            String contentHash(FileObject file) throws FileSystemException {
+                return read(file);
+            }
+
+            @Override
+            String contentVersion(FileObject file) throws FileSystemException {
+                final CountDownLatch gate = versionGate;
+                final String content = read(file);
+                if (gate != null && CHANGED_CONTENT.equals(content)) {
+                    blockedVersions.incrementAndGet();
+                    try {
+                        gate.await();
+                    } catch (InterruptedException e) {
+                        throw new FileSystemException(e);
+                    }
+                }
+                return content;
+            }
+        };
+    }
+
+    private ContentAddressedStore.Peers peers(final String... directories) {
+        return new ContentAddressedStore.Peers() {
+            public List<FileObject> getStores(int max) {
+                final List<FileObject> stores = new ArrayList<FileObject>();
+                try {
+                    for (String directory : directories) {
+                        stores.add(testRoot.resolveFile(directory));
+                    }
+                } catch (FileSystemException e) {
+                    throw new IllegalStateException(e);
+                }
+                return stores;
+            }
+        };
+    }
+
+    private void copy(ContentAddressedStore store, String content) throws FileSystemException {
+        store.copyFrom(destination.resolveFile(content), origin.resolveFile(content), Selectors.SELECT_SELF);
+    }
+
+    private static void write(FileObject file, String content) throws IOException {
+        final OutputStream out = file.getContent().getOutputStream();
+        try {
+            out.write(content.getBytes("UTF-8"));
+        } finally {
+            out.close();
+        }
+    }
+
+    private static String read(FileObject file) throws FileSystemException {
+        try {
+            final InputStream in = file.getContent().getInputStream();
+            try {
+                final ByteArrayOutputStream out = new ByteArrayOutputStream();
+                final byte[] buffer = new byte[64];
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    out.write(buffer, 0, read);
+                }
+                return out.toString("UTF-8");
+            } finally {
+                in.close();
+            }
+        } catch (IOException e) {
+            throw new FileSystemException(e);
+        }
+    }
+
+    private static Thread startThread(Runnable runnable) {
+        final Thread thread = new Thread(runnable);
+        thread.start();
+        return thread;
+    }
+
+    private static void join(List<Thread> threads) throws InterruptedException {
+        for (Thread thread : threads) {
+            thread.join(TimeUnit.SECONDS.toMillis(30));
+            assertFalse(thread.isAlive());
+        }
+    }
+
+    private interface Condition {
+        boolean isTrue();
+    }
+
+    private static void waitUntil(Condition condition) throws InterruptedException {
+        final long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(30);
+        while (!condition.isTrue()) {
+            if (System.currentTimeMillis() > deadline) {
+                fail("Timed out");
+            }
+            Thread.sleep(10);
+        }
+    }
+}
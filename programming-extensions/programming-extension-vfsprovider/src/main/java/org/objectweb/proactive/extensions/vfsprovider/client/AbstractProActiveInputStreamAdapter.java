@@ -27,23 +27,69 @@ package org.objectweb.proactive.extensions.vfsprovider.client;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.ArrayDeque;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.commons.vfs2.FileSystemException;
+import org.objectweb.proactive.core.config.CentralPAPropertyRepository;
+import org.objectweb.proactive.core.exceptions.IOException6;
+import org.objectweb.proactive.core.util.compression.BlockCodec;
+import org.objectweb.proactive.core.util.compression.CompressedBlock;
 import org.objectweb.proactive.extensions.vfsprovider.exceptions.StreamNotFoundException;
 import org.objectweb.proactive.extensions.vfsprovider.exceptions.WrongStreamTypeException;
 import org.objectweb.proactive.extensions.vfsprovider.protocol.FileSystemServer;
+import org.objectweb.proactive.utils.NamedThreadFactory;
 
 
 /**
  * Generic adapter of remotely accessed {@link FileSystemServer} to {@link InputStream} class.
+ * <p>
+ * Adapters of sequential streams may enable a read-ahead: a background task keeps reading the
+ * stream from the server while the caller consumes the data already received, so that the caller
+ * does not pay a round trip per read. Up to
+ * {@link CentralPAPropertyRepository#PA_VFSPROVIDER_CLIENT_READ_AHEAD_KB} are read in advance, in
+ * chunks whose size starts with the size of the first read and doubles up to a quarter of that
+ * window. As the server serves the reads of a stream one after the other, the chunks are fetched
+ * by a single task per stream. When the read-ahead is enabled, {@link #notifyBytesRead(long)}
+ * accounts for the bytes received from the server, not for the bytes consumed by the caller, and
+ * {@link #cancelReadAhead()} must be called before closing the remote stream.
+ * <p>
+ * Data are read compressed by the server when {@link #getCodec()} returns a codec.
  */
 abstract class AbstractProActiveInputStreamAdapter extends InputStream {
     private static final Log log = LogFactory.getLog(AbstractProActiveInputStreamAdapter.class);
 
+    private static final int MIN_CHUNK_SIZE = 8 * 1024;
+
+    private static final ExecutorService readAheadExecutor = Executors.newCachedThreadPool(new NamedThreadFactory("ProActive VFS provider read-ahead",
+                                                                                                                  true));
+
     private final byte[] SINGLE_BYTE_BUF = new byte[1];
 
+    private final ReadAhead readAhead;
+
+    protected AbstractProActiveInputStreamAdapter() {
+        this(false);
+    }
+
+    /**
+     * @param sequential
+     *            whether the stream is only read sequentially, enables the read-ahead if it is
+     *            not disabled by {@link CentralPAPropertyRepository#PA_VFSPROVIDER_CLIENT_READ_AHEAD_KB}
+     */
+    protected AbstractProActiveInputStreamAdapter(boolean sequential) {
+        final int windowKB = CentralPAPropertyRepository.PA_VFSPROVIDER_CLIENT_READ_AHEAD_KB.getValue();
+        if (sequential && windowKB > 0) {
+            readAhead = new ReadAhead(windowKB * 1024);
+        } else {
+            readAhead = null;
+        }
+    }
+
     @Override
     public synchronized int read(byte[] b, int off, int len) throws IOException {
         if (b == null) {
@@ -54,25 +100,15 @@ abstract class AbstractProActiveInputStreamAdapter extends InputStream {
             return 0;
         }
 
-        byte result[];
-        try {
-            try {
-                result = getServer().streamRead(getStreamId(), len);
-            } catch (StreamNotFoundException e) {
-                reopenStream();
-                result = getServer().streamRead(getStreamId(), len);
-            }
-        } catch (WrongStreamTypeException e) {
-            throw Utils.generateAndLogIOExceptionWrongStreamType(log, e);
-        } catch (StreamNotFoundException e) {
-            throw Utils.generateAndLogIOExceptionStreamNotFound(log, e);
+        if (readAhead != null) {
+            return readAhead.read(b, off, len);
         }
 
+        final byte result[] = readFromServer(len);
         if (result == null) {
             return -1;
         }
         System.arraycopy(result, 0, b, off, result.length);
-        notifyBytesRead(result.length);
         return result.length;
     }
 
@@ -90,16 +126,24 @@ abstract class AbstractProActiveInputStreamAdapter extends InputStream {
             return 0;
         }
 
+        long skippedBytes = 0;
+        if (readAhead != null) {
+            skippedBytes = readAhead.discard(n);
+            if (skippedBytes == n || readAhead.isEndOfStream()) {
+                return skippedBytes;
+            }
+        }
+
         try {
-            long skippedBytes;
+            long skippedOnServer;
             try {
-                skippedBytes = getServer().streamSkip(getStreamId(), n);
+                skippedOnServer = getServer().streamSkip(getStreamId(), n - skippedBytes);
             } catch (StreamNotFoundException e) {
                 reopenStream();
-                skippedBytes = getServer().streamSkip(getStreamId(), n);
+                skippedOnServer = getServer().streamSkip(getStreamId(), n - skippedBytes);
             }
-            notifyBytesRead(skippedBytes);
-            return skippedBytes;
+            notifyBytesRead(skippedOnServer);
+            return skippedBytes + skippedOnServer;
         } catch (StreamNotFoundException e) {
             throw Utils.generateAndLogIOExceptionStreamNotFound(log, e);
         } catch (WrongStreamTypeException e) {
@@ -107,6 +151,75 @@ abstract class AbstractProActiveInputStreamAdapter extends InputStream {
         }
     }
 
+    @Override
+    public int available() throws IOException {
+        if (readAhead != null) {
+            return readAhead.available();
+        }
+        return super.available();
+    }
+
+    /**
+     * Stops the read-ahead, waiting for the read in progress if any. Subclasses enabling the
+     * read-ahead must call this method before closing the remote stream.
+     *
+     * @throws InterruptedIOException
+     *             if interrupted while waiting for the read in progress
+     */
+    protected void cancelReadAhead() throws InterruptedIOException {
+        if (readAhead != null) {
+            readAhead.cancel();
+        }
+    }
+
+    private byte[] readFromServer(int len) throws IOException {
+        final BlockCodec codec = getCodec();
+        byte result[];
+        try {
+            try {
+                result = readFromServer(codec, len);
+            } catch (StreamNotFoundException e) {
+                reopenStream();
+                result = readFromServer(codec, len);
+            }
+        } catch (WrongStreamTypeException e) {
+            throw Utils.generateAndLogIOExceptionWrongStreamType(log, e);
+        } catch (StreamNotFoundException e) {
+            throw Utils.generateAndLogIOExceptionStreamNotFound(log, e);
+        }
+
+        if (result != null) {
+            notifyBytesRead(result.length);
+        }
+        return result;
+    }
+
+    private byte[] readFromServer(BlockCodec codec, int len)
+            throws IOException, StreamNotFoundException, WrongStreamTypeException {
+        if (codec == null) {
+            return streamRead(len);
+        }
+        final CompressedBlock block = getServer().streamReadCompressed(getStreamId(), len, codec.getName());
+        return block == null ? null : block.decompress();
+    }
+
+    /**
+     * Reads uncompressed data from the server, at the position of the remote stream unless
+     * subclasses track the position on their side.
+     */
+    protected byte[] streamRead(int len) throws IOException, StreamNotFoundException, WrongStreamTypeException {
+        return getServer().streamRead(getStreamId(), len);
+    }
+
+    /**
+     * @return the codec the server compresses the data read with, <code>null</code> for none
+     * @throws FileSystemException
+     *             when the codec cannot be negotiated with the server
+     */
+    protected BlockCodec getCodec() throws FileSystemException {
+        return null;
+    }
+
     protected abstract long getStreamId();
 
     protected abstract FileSystemServer getServer() throws FileSystemException;
@@ -117,4 +230,172 @@ abstract class AbstractProActiveInputStreamAdapter extends InputStream {
     protected abstract void notifyBytesRead(long bytesNumber);
 
     protected abstract void reopenStream() throws IOException;
+
+    /**
+     * Chunks read in advance and the task reading them. All the fields are guarded by the instance
+     * monitor, the remote calls are performed outside of it.
+     */
+    private class ReadAhead implements Runnable {
+        private final int window;
+
+        private final ArrayDeque<byte[]> chunks = new ArrayDeque<byte[]>();
+
+        private int headOffset;
+
+        private int buffered;
+
+        private int chunkSize;
+
+        private boolean fetching;
+
+        private boolean endOfStream;
+
+        private boolean cancelled;
+
+        private IOException error;
+
+        ReadAhead(int window) {
+            this.window = window;
+        }
+
+        synchronized int read(byte[] b, int off, int len) throws IOException {
+            while (chunks.isEmpty()) {
+                checkError();
+                if (endOfStream) {
+                    return -1;
+                }
+                startFetching(len);
+                waitForFetcher();
+            }
+
+            int count = 0;
+            while (count < len && !chunks.isEmpty()) {
+                final byte[] head = chunks.peekFirst();
+                final int n = Math.min(len - count, head.length - headOffset);
+                System.arraycopy(head, headOffset, b, off + count, n);
+                count += n;
+                consume(n);
+            }
+            startFetching(len);
+            return count;
+        }
+
+        /**
+         * Discards up to n buffered bytes. If less bytes are buffered, waits for the read in
+         * progress so that the remote stream position is stable and discards its result too.
+         */
+        synchronized long discard(long n) throws IOException {
+            long discarded = discardBuffered(n);
+            if (discarded < n) {
+                while (fetching) {
+                    waitForFetcher();
+                }
+                discarded += discardBuffered(n - discarded);
+                checkError();
+            }
+            return discarded;
+        }
+
+        synchronized boolean isEndOfStream() {
+            return endOfStream && chunks.isEmpty();
+        }
+
+        synchronized int available() throws IOException {
+            checkError();
+            return buffered;
+        }
+
+        synchronized void cancel() throws InterruptedIOException {
+            cancelled = true;
+            while (fetching) {
+                waitForFetcher();
+            }
+            chunks.clear();
+            buffered = 0;
+        }
+
+        public void run() {
+            while (true) {
+                final int size;
+                synchronized (this) {
+                    if (cancelled || endOfStream || error != null || buffered >= window) {
+                        fetching = false;
+                        notifyAll();
+                        return;
+                    }
+                    size = Math.min(chunkSize, window - buffered);
+                }
+
+                byte[] data = null;
+                IOException failure = null;
+                try {
+                    data = readFromServer(size);
+                } catch (IOException e) {
+                    failure = e;
+                } catch (Throwable t) {
+                    failure = new IOException6("Read-ahead failed", t);
+                }
+
+                synchronized (this) {
+                    if (failure != null) {
+                        error = failure;
+                    } else if (data == null) {
+                        endOfStream = true;
+                    } else if (data.length > 0) {
+                        chunks.addLast(data);
+                        buffered += data.length;
+                        if (data.length == size && chunkSize < window / 4) {
+                            chunkSize = Math.min(chunkSize * 2, window / 4);
+                        }
+                    }
+                    notifyAll();
+                }
+            }
+        }
+
+        private void startFetching(int hint) {
+            if (fetching || cancelled || endOfStream || error != null || buffered >= window) {
+                return;
+            }
+            if (chunkSize == 0) {
+                chunkSize = Math.max(Math.min(hint, window), Math.min(MIN_CHUNK_SIZE, window));
+            }
+            fetching = true;
+            readAheadExecutor.execute(this);
+        }
+
+        private long discardBuffered(long n) {
+            long discarded = 0;
+            while (discarded < n && !chunks.isEmpty()) {
+                final int n2 = (int) Math.min(n - discarded, chunks.peekFirst().length - headOffset);
+                discarded += n2;
+                consume(n2);
+            }
+            return discarded;
+        }
+
+        private void consume(int n) {
+            headOffset += n;
+            buffered -= n;
+            if (headOffset == chunks.peekFirst().length) {
+                chunks.removeFirst();
+                headOffset = 0;
+            }
+        }
+
+        private void checkError() throws IOException {
+            if (error != null) {
+                throw new IOException6(error.getMessage(), error);
+            }
+        }
+
+        private void waitForFetcher() throws InterruptedIOException {
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for the read-ahead");
+            }
+        }
+    }
 }
@@ -26,24 +26,70 @@
 package org.objectweb.proactive.extensions.vfsprovider.client;
 
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.commons.vfs2.FileSystemException;
+import org.objectweb.proactive.core.config.CentralPAPropertyRepository;
+import org.objectweb.proactive.core.exceptions.IOException6;
+import org.objectweb.proactive.core.util.compression.BlockCodec;
+import org.objectweb.proactive.core.util.compression.CompressedBlock;
 import org.objectweb.proactive.extensions.vfsprovider.exceptions.StreamNotFoundException;
 import org.objectweb.proactive.extensions.vfsprovider.exceptions.WrongStreamTypeException;
 import org.objectweb.proactive.extensions.vfsprovider.protocol.FileSystemServer;
+import org.objectweb.proactive.utils.NamedThreadFactory;
 
 
 /**
  * Generic adapter of remotely accessed {@link FileSystemServer} to {@link OutputStream} class.
+ * <p>
+ * Adapters of sequential streams may enable a write-behind: written data are queued and sent to
+ * the server by a background task, so that the caller does not wait for a round trip per write.
+ * Up to {@link CentralPAPropertyRepository#PA_VFSPROVIDER_CLIENT_WRITE_BEHIND_KB} may be queued
+ * or in flight, writers block beyond that. Consecutive small writes are sent in a single call. A
+ * failure of the background task is reported by the next {@link #write(byte[], int, int)},
+ * {@link #flush()} or {@link #drainWriteBehind()} call, the latter having to be called by
+ * subclasses before closing the remote stream.
+ * <p>
+ * Data are sent compressed when {@link #getCodec()} returns a codec, raw when it does not shrink
+ * them.
  */
 abstract class AbstractProActiveOutputStreamAdapter extends OutputStream {
     private static final Log log = LogFactory.getLog(AbstractProActiveOutputStreamAdapter.class);
 
+    private static final int MAX_COALESCED_SIZE = 256 * 1024;
+
+    private static final ExecutorService writeBehindExecutor = Executors.newCachedThreadPool(new NamedThreadFactory("ProActive VFS provider write-behind",
+                                                                                                                    true));
+
     private final byte[] SINGLE_BYTE_BUF = new byte[1];
 
+    private final WriteBehind writeBehind;
+
+    protected AbstractProActiveOutputStreamAdapter() {
+        this(false);
+    }
+
+    /**
+     * @param sequential
+     *            whether the stream is only written sequentially, enables the write-behind if it
+     *            is not disabled by {@link CentralPAPropertyRepository#PA_VFSPROVIDER_CLIENT_WRITE_BEHIND_KB}
+     */
+    protected AbstractProActiveOutputStreamAdapter(boolean sequential) {
+        final int limitKB = CentralPAPropertyRepository.PA_VFSPROVIDER_CLIENT_WRITE_BEHIND_KB.getValue();
+        if (sequential && limitKB > 0) {
+            writeBehind = new WriteBehind(limitKB * 1024);
+        } else {
+            writeBehind = null;
+        }
+    }
+
     @Override
     public synchronized void write(byte[] b, int off, int len) throws IOException {
         if (b == null) {
@@ -54,6 +100,12 @@ abstract class AbstractProActiveOutputStreamAdapter extends OutputStream {
             return;
         }
 
+        if (writeBehind != null) {
+            // the caller may reuse its buffer as soon as we return
+            writeBehind.enqueue(Arrays.copyOfRange(b, off, off + len));
+            return;
+        }
+
         final byte bytesToSent[];
         if (off != 0 || len != b.length) {
             bytesToSent = new byte[len];
@@ -61,20 +113,7 @@ abstract class AbstractProActiveOutputStreamAdapter extends OutputStream {
         } else {
             bytesToSent = b;
         }
-
-        try {
-            try {
-                getServer().streamWrite(getStreamId(), bytesToSent);
-            } catch (StreamNotFoundException e) {
-                reopenStream();
-                getServer().streamWrite(getStreamId(), bytesToSent);
-            }
-            notifyBytesWritten(bytesToSent.length);
-        } catch (WrongStreamTypeException e) {
-            throw Utils.generateAndLogIOExceptionWrongStreamType(log, e);
-        } catch (StreamNotFoundException e) {
-            throw Utils.generateAndLogIOExceptionStreamNotFound(log, e);
-        }
+        writeToServer(bytesToSent);
     }
 
     @Override
@@ -85,6 +124,7 @@ abstract class AbstractProActiveOutputStreamAdapter extends OutputStream {
 
     @Override
     public synchronized void flush() throws IOException {
+        drainWriteBehind();
         try {
             getServer().streamFlush(getStreamId());
         } catch (WrongStreamTypeException e) {
@@ -96,6 +136,55 @@ abstract class AbstractProActiveOutputStreamAdapter extends OutputStream {
         }
     }
 
+    /**
+     * Waits until all the queued data have been sent to the server. Subclasses enabling the
+     * write-behind must call this method before closing the remote stream.
+     *
+     * @throws IOException
+     *             if sending queued data failed, or if interrupted while waiting
+     */
+    protected void drainWriteBehind() throws IOException {
+        if (writeBehind != null) {
+            writeBehind.drain();
+        }
+    }
+
+    private void writeToServer(byte[] bytesToSent) throws IOException {
+        final BlockCodec codec = getCodec();
+        final CompressedBlock block = codec == null ? null : CompressedBlock.encode(codec, bytesToSent);
+        try {
+            try {
+                writeToServer(block, bytesToSent);
+            } catch (StreamNotFoundException e) {
+                reopenStream();
+                writeToServer(block, bytesToSent);
+            }
+            notifyBytesWritten(bytesToSent.length);
+        } catch (WrongStreamTypeException e) {
+            throw Utils.generateAndLogIOExceptionWrongStreamType(log, e);
+        } catch (StreamNotFoundException e) {
+            throw Utils.generateAndLogIOExceptionStreamNotFound(log, e);
+        }
+    }
+
+    private void writeToServer(CompressedBlock block, byte[] bytesToSent)
+            throws IOException, StreamNotFoundException, WrongStreamTypeException {
+        if (block == null) {
+            getServer().streamWrite(getStreamId(), bytesToSent);
+        } else {
+            getServer().streamWriteCompressed(getStreamId(), block);
+        }
+    }
+
+    /**
+     * @return the codec to compress the data sent with, <code>null</code> for none
+     * @throws FileSystemException
+     *             when the codec cannot be negotiated with the server
+     */
+    protected BlockCodec getCodec() throws FileSystemException {
+        return null;
+    }
+
     protected abstract long getStreamId();
 
     protected abstract FileSystemServer getServer() throws FileSystemException;
@@ -106,4 +195,119 @@ abstract class AbstractProActiveOutputStreamAdapter extends OutputStream {
     protected abstract void notifyBytesWritten(long bytesNumber);
 
     protected abstract void reopenStream() throws IOException;
+
+    /**
+     * Data queued for sending and the task sending them. All the fields are guarded by the
+     * instance monitor, the remote calls are performed outside of it.
+     */
+    private class WriteBehind implements Runnable {
+        private final int limit;
+
+        private final ArrayDeque<byte[]> queue = new ArrayDeque<byte[]>();
+
+        // bytes queued or being sent
+        private int pending;
+
+        private boolean writing;
+
+        private IOException error;
+
+        WriteBehind(int limit) {
+            this.limit = limit;
+        }
+
+        synchronized void enqueue(byte[] data) throws IOException {
+            checkError();
+            while (pending > 0 && pending + data.length > limit) {
+                waitForWriter();
+                checkError();
+            }
+            queue.addLast(data);
+            pending += data.length;
+            if (!writing) {
+                writing = true;
+                writeBehindExecutor.execute(this);
+            }
+        }
+
+        synchronized void drain() throws IOException {
+            while (writing) {
+                waitForWriter();
+            }
+            checkError();
+        }
+
+        public void run() {
+            while (true) {
+                final byte[] data;
+                synchronized (this) {
+                    if (queue.isEmpty() || error != null) {
+                        writing = false;
+                        notifyAll();
+                        return;
+                    }
+                    data = poll();
+                }
+
+                IOException failure = null;
+                try {
+                    writeToServer(data);
+                } catch (IOException e) {
+                    failure = e;
+                } catch (Throwable t) {
+                    failure = new IOException6("Write-behind failed", t);
+                }
+
+                synchronized (this) {
+                    pending -= data.length;
+                    if (failure != null) {
+                        error = failure;
+                        queue.clear();
+                        pending = 0;
+                    }
+                    notifyAll();
+                }
+            }
+        }
+
+        // takes the head of the queue, merged with the following small chunks
+        private byte[] poll() {
+            final byte[] head = queue.pollFirst();
+            if (head.length >= MAX_COALESCED_SIZE || queue.isEmpty() ||
+                head.length + queue.peekFirst().length > MAX_COALESCED_SIZE) {
+                return head;
+            }
+
+            int size = head.length;
+            for (byte[] chunk : queue) {
+                if (size + chunk.length > MAX_COALESCED_SIZE) {
+                    break;
+                }
+                size += chunk.length;
+            }
+            final byte[] merged = Arrays.copyOf(head, size);
+            int offset = head.length;
+            while (offset < size) {
+                final byte[] chunk = queue.pollFirst();
+                System.arraycopy(chunk, 0, merged, offset, chunk.length);
+                offset += chunk.length;
+            }
+            return merged;
+        }
+
+        private void checkError() throws IOException {
+            if (error != null) {
+                throw new IOException6(error.getMessage(), error);
+            }
+        }
+
+        private void waitForWriter() throws InterruptedIOException {
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for the write-behind");
+            }
+        }
+    }
 }
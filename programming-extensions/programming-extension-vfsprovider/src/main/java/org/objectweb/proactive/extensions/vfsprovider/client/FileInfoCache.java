@@ -0,0 +1,179 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.objectweb.proactive.extensions.vfsprovider.client;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.objectweb.proactive.extensions.vfsprovider.protocol.FileInfo;
+
+
+/**
+ * Cache of file information shared by the file objects of one {@link ProActiveFileSystem}.
+ * <p>
+ * Entries expire after a fixed period. Paths are the decoded absolute paths of the file objects,
+ * changes made through the file system invalidate the entries of the changed file and of its
+ * parent listing.
+ */
+class FileInfoCache {
+    // beyond that, expired entries are purged, and everything if none has expired
+    private static final int MAX_ENTRIES = 65536;
+
+    private final long ttlNanos;
+
+    private final ConcurrentHashMap<String, Cached<FileInfo>> infos;
+
+    private final ConcurrentHashMap<String, Cached<Map<String, FileInfo>>> children;
+
+    FileInfoCache(long ttlMillis) {
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMillis);
+        this.infos = new ConcurrentHashMap<String, Cached<FileInfo>>();
+        this.children = new ConcurrentHashMap<String, Cached<Map<String, FileInfo>>>();
+    }
+
+    boolean isEnabled() {
+        return ttlNanos > 0;
+    }
+
+    /**
+     * @return cached information of the file, <code>null</code> if unknown or expired
+     */
+    FileInfo getInfo(String path) {
+        return getValid(infos, path);
+    }
+
+    void putInfo(String path, FileInfo info) {
+        if (isEnabled()) {
+            put(infos, path, info);
+        }
+    }
+
+    /**
+     * @return cached information of the children of the directory, <code>null</code> if unknown or
+     *         expired
+     */
+    Map<String, FileInfo> getChildren(String path) {
+        return getValid(children, path);
+    }
+
+    /**
+     * Caches the listing of a directory, and the information of each of its children.
+     */
+    void putChildren(String path, Map<String, FileInfo> childrenInfos) {
+        if (!isEnabled()) {
+            return;
+        }
+        put(children, path, Collections.unmodifiableMap(childrenInfos));
+        for (Entry<String, FileInfo> child : childrenInfos.entrySet()) {
+            put(infos, childPath(path, child.getKey()), child.getValue());
+        }
+    }
+
+    /**
+     * Forgets the information of a file and the listing of its parent directory.
+     */
+    void invalidate(String path) {
+        if (!isEnabled()) {
+            return;
+        }
+        infos.remove(path);
+        children.remove(path);
+        final String parent = parentPath(path);
+        if (parent != null) {
+            children.remove(parent);
+        }
+    }
+
+    void clear() {
+        infos.clear();
+        children.clear();
+    }
+
+    private <T> T getValid(ConcurrentHashMap<String, Cached<T>> map, String path) {
+        if (!isEnabled()) {
+            return null;
+        }
+        final Cached<T> cached = map.get(path);
+        if (cached == null) {
+            return null;
+        }
+        if (cached.isExpired(System.nanoTime())) {
+            map.remove(path, cached);
+            return null;
+        }
+        return cached.value;
+    }
+
+    private <T> void put(ConcurrentHashMap<String, Cached<T>> map, String path, T value) {
+        if (map.size() >= MAX_ENTRIES) {
+            purge(map);
+        }
+        map.put(path, new Cached<T>(value, System.nanoTime() + ttlNanos));
+    }
+
+    private static <T> void purge(ConcurrentHashMap<String, Cached<T>> map) {
+        final long now = System.nanoTime();
+        for (Iterator<Cached<T>> it = map.values().iterator(); it.hasNext();) {
+            if (it.next().isExpired(now)) {
+                it.remove();
+            }
+        }
+        if (map.size() >= MAX_ENTRIES) {
+            map.clear();
+        }
+    }
+
+    static String childPath(String parent, String name) {
+        return parent.endsWith("/") ? parent + name : parent + '/' + name;
+    }
+
+    static String parentPath(String path) {
+        final int separator = path.lastIndexOf('/');
+        if (separator < 0 || path.length() == 1) {
+            return null;
+        }
+        return separator == 0 ? "/" : path.substring(0, separator);
+    }
+
+    private static class Cached<T> {
+        final T value;
+
+        final long expiry;
+
+        Cached(T value, long expiry) {
+            this.value = value;
+            this.expiry = expiry;
+        }
+
+        boolean isExpired(long now) {
+            return now - expiry >= 0;
+        }
+    }
+}
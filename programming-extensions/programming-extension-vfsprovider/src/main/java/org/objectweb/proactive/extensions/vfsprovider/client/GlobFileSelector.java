@@ -0,0 +1,101 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.objectweb.proactive.extensions.vfsprovider.client;
+
+import java.util.regex.Pattern;
+
+import org.apache.commons.vfs2.FileSelectInfo;
+import org.apache.commons.vfs2.FileSelector;
+import org.apache.commons.vfs2.provider.UriParser;
+import org.objectweb.proactive.extensions.vfsprovider.util.GlobPattern;
+
+
+/**
+ * File selector that includes the descendants whose path relative to the base folder matches a
+ * glob pattern, see {@link GlobPattern} for the syntax.
+ * <p>
+ * When used with {@link ProActiveFileObject#findFiles(FileSelector, boolean, java.util.List)}, the
+ * pattern is evaluated by the file system server, so that the whole selection is fetched in one
+ * remote call. With any other file object it is evaluated locally.
+ */
+public class GlobFileSelector implements FileSelector {
+    private final String glob;
+
+    private final Pattern pattern;
+
+    private final int maxDepth;
+
+    /**
+     * Creates selector of all the descendants matching the pattern.
+     *
+     * @param glob
+     *            pattern matched against relative paths, cannot be <code>null</code>
+     */
+    public GlobFileSelector(String glob) {
+        this(glob, -1);
+    }
+
+    /**
+     * Creates selector of the descendants up to a given depth, matching the pattern.
+     *
+     * @param glob
+     *            pattern matched against relative paths, cannot be <code>null</code>
+     * @param maxDepth
+     *            maximum depth of selected descendants, 1 for the direct children, a negative
+     *            value for no limit
+     */
+    public GlobFileSelector(String glob, int maxDepth) {
+        this.glob = glob;
+        this.pattern = GlobPattern.compile(glob);
+        this.maxDepth = maxDepth;
+    }
+
+    public String getGlob() {
+        return glob;
+    }
+
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    public boolean includeFile(FileSelectInfo fileInfo) throws Exception {
+        if (fileInfo.getDepth() == 0) {
+            return false;
+        }
+        final String relativePath = fileInfo.getBaseFolder().getName().getRelativeName(fileInfo.getFile()
+                                                                                                .getName());
+        return pattern.matcher(UriParser.decode(relativePath)).matches();
+    }
+
+    public boolean traverseDescendents(FileSelectInfo fileInfo) throws Exception {
+        return maxDepth < 0 || fileInfo.getDepth() < maxDepth;
+    }
+
+    @Override
+    public String toString() {
+        return "GlobFileSelector[" + glob + ", maxDepth=" + maxDepth + "]";
+    }
+}
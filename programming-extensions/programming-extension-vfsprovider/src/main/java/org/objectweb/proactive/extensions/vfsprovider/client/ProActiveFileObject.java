@@ -31,13 +31,25 @@ import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
 import java.util.Set;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.apache.commons.vfs2.FileName;
+import org.apache.commons.vfs2.FileObject;
+import org.apache.commons.vfs2.FileSelectInfo;
+import org.apache.commons.vfs2.FileSelector;
 import org.apache.commons.vfs2.FileSystemException;
 import org.apache.commons.vfs2.FileType;
+import org.apache.commons.vfs2.NameScope;
 import org.apache.commons.vfs2.RandomAccessContent;
+import org.apache.commons.vfs2.Selectors;
 import org.apache.commons.vfs2.provider.AbstractFileName;
 import org.apache.commons.vfs2.provider.AbstractFileObject;
 import org.apache.commons.vfs2.provider.AbstractRandomAccessStreamContent;
@@ -45,6 +57,7 @@ import org.apache.commons.vfs2.provider.UriParser;
 import org.apache.commons.vfs2.util.MonitorInputStream;
 import org.apache.commons.vfs2.util.MonitorOutputStream;
 import org.apache.commons.vfs2.util.RandomAccessMode;
+import org.objectweb.proactive.core.util.compression.BlockCodec;
 import org.objectweb.proactive.extensions.vfsprovider.exceptions.StreamNotFoundException;
 import org.objectweb.proactive.extensions.vfsprovider.exceptions.WrongStreamTypeException;
 import org.objectweb.proactive.extensions.vfsprovider.protocol.FileInfo;
@@ -90,6 +103,9 @@ public class ProActiveFileObject extends AbstractFileObject {
 
     private FileInfo fileInfo;
 
+    // children information fetched together with an ancestor, consumed by the next listing
+    private Map<String, FileInfo> primedChildren;
+
     private ProActiveFileSystem proactiveFS;
 
     protected ProActiveFileObject(AbstractFileName name, ProActiveFileSystem fs) {
@@ -107,13 +123,27 @@ public class ProActiveFileObject extends AbstractFileObject {
         return ((ProActiveFileName) getName()).getPathDecoded();
     }
 
+    private FileInfoCache getCache() {
+        return proactiveFS.getFileInfoCache();
+    }
+
+    // to be called when this file may have been changed through this file system
+    private void invalidateCache() throws FileSystemException {
+        getCache().invalidate(getPath());
+    }
+
     @Override
     protected void doAttach() throws Exception {
         synchronized (proactiveFS) {
             if (fileInfo == null) {
-                fileInfo = getServer().fileGetInfo(getPath());
+                final String path = getPath();
+                fileInfo = getCache().getInfo(path);
                 if (fileInfo == null) {
-                    fileInfo = IMAGINARY_FILE_INFO;
+                    fileInfo = getServer().fileGetInfo(path);
+                    if (fileInfo == null) {
+                        fileInfo = IMAGINARY_FILE_INFO;
+                    }
+                    getCache().putInfo(path, fileInfo);
                 }
             }
         }
@@ -123,6 +153,60 @@ public class ProActiveFileObject extends AbstractFileObject {
     protected void doDetach() throws Exception {
         synchronized (proactiveFS) {
             fileInfo = null;
+            primedChildren = null;
+        }
+    }
+
+    /**
+     * Sets file information fetched by a bulk operation, so that attaching this file does not
+     * require another call to the server.
+     *
+     * @param info
+     *            information of the file, <code>null</code> if it does not exist
+     * @param cache
+     *            whether the information is fresh and has to be cached by the file system
+     */
+    void primeFileInfo(FileInfo info, boolean cache) throws FileSystemException {
+        synchronized (proactiveFS) {
+            fileInfo = info == null ? IMAGINARY_FILE_INFO : info;
+            if (cache) {
+                getCache().putInfo(getPath(), fileInfo);
+            }
+        }
+    }
+
+    /**
+     * Returns the hash of the content of this file, computed by the file system server without
+     * transferring the content.
+     *
+     * @return hexadecimal SHA-256 of the content, <code>null</code> if this file is not an existing
+     *         regular file
+     * @throws FileSystemException
+     *             when the hash could not be computed
+     * @see org.objectweb.proactive.extensions.vfsprovider.protocol.FileOperations#fileGetContentHash(String)
+     */
+    public String getContentHash() throws FileSystemException {
+        try {
+            return getServer().fileGetContentHash(getPath());
+        } catch (IOException e) {
+            throw new FileSystemException("vfs.provider/read.error", getName(), e);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Information cached by the file system is dropped as well.
+     */
+    @Override
+    public void refresh() throws FileSystemException {
+        invalidateCache();
+        super.refresh();
+    }
+
+    private void primeChildren(Map<String, FileInfo> infos) {
+        synchronized (proactiveFS) {
+            primedChildren = infos;
         }
     }
 
@@ -204,14 +288,202 @@ public class ProActiveFileObject extends AbstractFileObject {
         return result;
     }
 
+    @Override
+    protected FileObject[] doListChildrenResolved() throws Exception {
+        Map<String, FileInfo> infos;
+        synchronized (proactiveFS) {
+            infos = primedChildren;
+            primedChildren = null;
+        }
+        final String path = getPath();
+        if (infos != null) {
+            getCache().putChildren(path, infos);
+        } else {
+            infos = getCache().getChildren(path);
+        }
+        if (infos == null) {
+            infos = getServer().fileListChildrenInfo(path);
+            if (infos == null) {
+                return null;
+            }
+            getCache().putChildren(path, infos);
+        }
+
+        final FileObject[] result = new FileObject[infos.size()];
+        int i = 0;
+        for (final Entry<String, FileInfo> child : infos.entrySet()) {
+            // already cached with the listing
+            result[i++] = resolveDescendant(child.getKey(), NameScope.CHILD, child.getValue(), false);
+        }
+        return result;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The information of all the descendants that may be traversed is fetched in one call to the
+     * server before the selector is applied. When the selector is a {@link GlobFileSelector}, it is
+     * evaluated by the server.
+     */
+    @Override
+    public void findFiles(FileSelector selector, boolean depthwise, List<FileObject> selected)
+            throws FileSystemException {
+        if (selector == Selectors.SELECT_SELF || !exists() || !getType().hasChildren()) {
+            super.findFiles(selector, depthwise, selected);
+            return;
+        }
+
+        try {
+            if (selector instanceof GlobFileSelector) {
+                final GlobFileSelector glob = (GlobFileSelector) selector;
+                selectMatching(glob.getGlob(), glob.getMaxDepth(), depthwise, selected);
+                return;
+            }
+            if (!selector.traverseDescendents(new BaseFolderSelectInfo())) {
+                super.findFiles(selector, depthwise, selected);
+                return;
+            }
+        } catch (FileSystemException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new FileSystemException("vfs.provider/find-files.error", getName(), e);
+        }
+
+        final int maxDepth = selector == Selectors.SELECT_CHILDREN ||
+                             selector == Selectors.SELECT_SELF_AND_CHILDREN ? 1 : -1;
+        final List<ProActiveFileObject> primedFolders = prefetchDescendants(maxDepth);
+        try {
+            super.findFiles(selector, depthwise, selected);
+        } finally {
+            for (final ProActiveFileObject folder : primedFolders) {
+                folder.primeChildren(null);
+            }
+        }
+    }
+
+    private void selectMatching(String glob, int maxDepth, boolean depthwise, List<FileObject> selected)
+            throws Exception {
+        final Map<String, FileInfo> infos = getServer().fileListDescendantsInfo(getPath(), glob, maxDepth);
+        if (infos == null) {
+            return;
+        }
+
+        final List<FileObject> matching = new ArrayList<FileObject>(infos.size());
+        for (final Entry<String, FileInfo> descendant : infos.entrySet()) {
+            matching.add(resolveDescendant(descendant.getKey(), NameScope.DESCENDENT, descendant.getValue(),
+                                           true));
+        }
+        if (depthwise) {
+            // descendants are listed before their ancestors, like super.findFiles() does
+            Collections.reverse(matching);
+        }
+        selected.addAll(matching);
+    }
+
+    private List<ProActiveFileObject> prefetchDescendants(int maxDepth) throws FileSystemException {
+        final Map<String, FileInfo> infos;
+        try {
+            infos = getServer().fileListDescendantsInfo(getPath(), null, maxDepth);
+        } catch (IOException e) {
+            throw new FileSystemException("vfs.provider/find-files.error", getName(), e);
+        }
+        if (infos == null) {
+            return Collections.emptyList();
+        }
+
+        // group the descendants by their parent folder
+        final Map<String, Map<String, FileInfo>> childrenByFolder = new HashMap<String, Map<String, FileInfo>>();
+        childrenByFolder.put("", new HashMap<String, FileInfo>());
+        for (final Entry<String, FileInfo> descendant : infos.entrySet()) {
+            final String relativePath = descendant.getKey();
+            final FileInfo info = descendant.getValue();
+            final int separator = relativePath.lastIndexOf('/');
+            final String parent = separator < 0 ? "" : relativePath.substring(0, separator);
+            final Map<String, FileInfo> siblings = childrenByFolder.get(parent);
+            if (siblings == null) {
+                continue;
+            }
+            siblings.put(relativePath.substring(separator + 1), info);
+
+            final int depth = separator < 0 ? 1 : countSegments(relativePath);
+            if (info.getType() == org.objectweb.proactive.extensions.vfsprovider.protocol.FileType.DIRECTORY &&
+                (maxDepth < 0 || depth < maxDepth)) {
+                // children of an empty folder are known as well
+                childrenByFolder.put(relativePath, new HashMap<String, FileInfo>());
+            }
+        }
+
+        final List<ProActiveFileObject> primedFolders = new ArrayList<ProActiveFileObject>(childrenByFolder.size());
+        for (final Entry<String, Map<String, FileInfo>> folder : childrenByFolder.entrySet()) {
+            final FileObject folderObject;
+            if (folder.getKey().length() == 0) {
+                folderObject = this;
+            } else {
+                folderObject = resolveDescendant(folder.getKey(), NameScope.DESCENDENT, infos.get(folder.getKey()),
+                                                 true);
+            }
+            if (folderObject instanceof ProActiveFileObject) {
+                final ProActiveFileObject proactiveFolder = (ProActiveFileObject) folderObject;
+                proactiveFolder.primeChildren(folder.getValue());
+                primedFolders.add(proactiveFolder);
+            }
+        }
+        return primedFolders;
+    }
+
+    private static int countSegments(String relativePath) {
+        int segments = 1;
+        for (int i = 0; i < relativePath.length(); i++) {
+            if (relativePath.charAt(i) == '/') {
+                segments++;
+            }
+        }
+        return segments;
+    }
+
+    private FileObject resolveDescendant(String relativePath, NameScope scope, FileInfo info, boolean cache)
+            throws FileSystemException {
+        final FileName name = getFileSystem().getFileSystemManager().resolveName(getName(),
+                                                                                 UriParser.encode(relativePath),
+                                                                                 scope);
+        final FileObject file = proactiveFS.resolveFile(name);
+        if (file instanceof ProActiveFileObject) {
+            ((ProActiveFileObject) file).primeFileInfo(info, cache);
+        }
+        return file;
+    }
+
+    private class BaseFolderSelectInfo implements FileSelectInfo {
+        public FileObject getBaseFolder() {
+            return ProActiveFileObject.this;
+        }
+
+        public FileObject getFile() {
+            return ProActiveFileObject.this;
+        }
+
+        public int getDepth() {
+            return 0;
+        }
+    }
+
     @Override
     protected void doCreateFolder() throws Exception {
-        getServer().fileCreate(getPath(), org.objectweb.proactive.extensions.vfsprovider.protocol.FileType.DIRECTORY);
+        try {
+            getServer().fileCreate(getPath(),
+                                   org.objectweb.proactive.extensions.vfsprovider.protocol.FileType.DIRECTORY);
+        } finally {
+            invalidateCache();
+        }
     }
 
     @Override
     protected void doDelete() throws Exception {
-        getServer().fileDelete(getPath(), false);
+        try {
+            getServer().fileDelete(getPath(), false);
+        } finally {
+            invalidateCache();
+        }
     }
 
     @Override
@@ -234,7 +506,11 @@ public class ProActiveFileObject extends AbstractFileObject {
 
         private long streamId;
 
+        private final BlockCodec codec;
+
         public ProActiveInputStream() throws IOException {
+            super(true);
+            codec = proactiveFS.getStreamCodec();
             streamId = getServer().streamOpen(getPath(), StreamMode.SEQUENTIAL_READ);
         }
 
@@ -248,8 +524,19 @@ public class ProActiveFileObject extends AbstractFileObject {
             return ProActiveFileObject.this.getServer();
         }
 
+        @Override
+        protected BlockCodec getCodec() {
+            return codec;
+        }
+
         @Override
         public synchronized void close() throws IOException {
+            cancelReadAhead();
+            closeStream();
+        }
+
+        // may be called by the read-ahead task, hence not synchronized
+        private void closeStream() throws IOException {
             try {
                 getServer().streamClose(streamId);
             } catch (StreamNotFoundException e) {
@@ -270,7 +557,7 @@ public class ProActiveFileObject extends AbstractFileObject {
                 if (position > 0) {
                     final long skipped = getServer().streamSkip(streamId, position);
                     if (skipped != position) {
-                        close();
+                        closeStream();
                         throw new IOException("Could not skip proper number of bytes");
                     }
                 }
@@ -283,9 +570,17 @@ public class ProActiveFileObject extends AbstractFileObject {
     private class ProActiveOutputStream extends AbstractProActiveOutputStreamAdapter {
         private long streamId;
 
+        private final BlockCodec codec;
+
         private ProActiveOutputStream(final boolean append) throws IOException {
+            super(true);
+            codec = proactiveFS.getStreamCodec();
             final StreamMode mode = append ? StreamMode.SEQUENTIAL_APPEND : StreamMode.SEQUENTIAL_WRITE;
-            streamId = getServer().streamOpen(getPath(), mode);
+            try {
+                streamId = getServer().streamOpen(getPath(), mode);
+            } finally {
+                invalidateCache();
+            }
         }
 
         @Override
@@ -298,12 +593,23 @@ public class ProActiveFileObject extends AbstractFileObject {
             return ProActiveFileObject.this.getServer();
         }
 
+        @Override
+        protected BlockCodec getCodec() {
+            return codec;
+        }
+
         @Override
         public synchronized void close() throws IOException {
             try {
-                getServer().streamClose(streamId);
-            } catch (StreamNotFoundException e) {
-                // ignore
+                drainWriteBehind();
+            } finally {
+                try {
+                    getServer().streamClose(streamId);
+                } catch (StreamNotFoundException e) {
+                    // ignore
+                } finally {
+                    invalidateCache();
+                }
             }
         }
 
@@ -330,8 +636,12 @@ public class ProActiveFileObject extends AbstractFileObject {
 
         private long bufInputStreamPosition;
 
+        // reads are performed at this position, the remote stream pointer is used by writes only
         private long position;
 
+        // position of the remote stream pointer
+        private long serverPosition;
+
         private DataInputStream dis;
 
         private DataOutputStream dos;
@@ -345,7 +655,13 @@ public class ProActiveFileObject extends AbstractFileObject {
             } else {
                 throw new IllegalArgumentException("Unexpected random access mode");
             }
-            streamId = getServer().streamOpen(getPath(), streamMode);
+            try {
+                streamId = getServer().streamOpen(getPath(), streamMode);
+            } finally {
+                if (streamMode == StreamMode.RANDOM_ACCESS_READ_WRITE) {
+                    invalidateCache();
+                }
+            }
         }
 
         @Override
@@ -378,6 +694,12 @@ public class ProActiveFileObject extends AbstractFileObject {
                     position += bytes;
                 }
 
+                @Override
+                protected byte[] streamRead(int len)
+                        throws IOException, StreamNotFoundException, WrongStreamTypeException {
+                    return getServer().streamRead(streamId, position, len);
+                }
+
                 @Override
                 protected void reopenStream() throws IOException {
                     ProActiveRandomAccessContent.this.reopenStream();
@@ -404,7 +726,13 @@ public class ProActiveFileObject extends AbstractFileObject {
                 @Override
                 public synchronized long skip(long n) throws IOException {
                     checkNotClosed();
-                    return super.skip(n);
+                    if (n <= 0) {
+                        return 0;
+                    }
+                    final long skipped = Math.max(0, Math.min(n, ProActiveRandomAccessContent.this.length() -
+                                                                 position));
+                    position += skipped;
+                    return skipped;
                 }
 
                 @Override
@@ -464,6 +792,9 @@ public class ProActiveFileObject extends AbstractFileObject {
         }
 
         private DataOutputStream getDataOutputStream() throws IOException {
+            if (serverPosition != position) {
+                seekServer();
+            }
             if (dos == null) {
                 dos = createDataOutputStream();
             }
@@ -490,6 +821,7 @@ public class ProActiveFileObject extends AbstractFileObject {
                 @Override
                 protected void notifyBytesWritten(long bytes) {
                     position += bytes;
+                    serverPosition += bytes;
                 }
 
                 @Override
@@ -531,10 +863,12 @@ public class ProActiveFileObject extends AbstractFileObject {
             } catch (Exception x) {
                 throw Utils.generateAndLogIOExceptionCouldNotReopen(log, x);
             }
+            serverPosition = 0;
 
-            if (position > 0) {
+            if (streamMode == StreamMode.RANDOM_ACCESS_READ_WRITE && position > 0) {
                 try {
                     getServer().streamSeek(streamId, position);
+                    serverPosition = position;
                 } catch (Exception x) {
                     close();
                     throw Utils.generateAndLogIOExceptionCouldNotReopen(log, x);
@@ -542,6 +876,22 @@ public class ProActiveFileObject extends AbstractFileObject {
             }
         }
 
+        private void seekServer() throws IOException {
+            try {
+                try {
+                    getServer().streamSeek(streamId, position);
+                } catch (StreamNotFoundException e) {
+                    reopenStream();
+                    getServer().streamSeek(streamId, position);
+                }
+                serverPosition = position;
+            } catch (WrongStreamTypeException e) {
+                throw Utils.generateAndLogIOExceptionWrongStreamType(log, e);
+            } catch (StreamNotFoundException e) {
+                throw Utils.generateAndLogIOExceptionStreamNotFound(log, e);
+            }
+        }
+
         private void checkStreamModeReadWrite() throws IOException {
             if (streamMode != StreamMode.RANDOM_ACCESS_READ_WRITE) {
                 throw new IOException("Incorrect stream mode");
@@ -562,6 +912,10 @@ public class ProActiveFileObject extends AbstractFileObject {
                     getServer().streamClose(streamId);
                 } catch (StreamNotFoundException e) {
                     // ignore
+                } finally {
+                    if (streamMode == StreamMode.RANDOM_ACCESS_READ_WRITE) {
+                        invalidateCache();
+                    }
                 }
             }
         }
@@ -589,22 +943,14 @@ public class ProActiveFileObject extends AbstractFileObject {
         }
 
         public void seek(long pos) throws IOException {
-            try {
-                try {
-                    getServer().streamSeek(streamId, pos);
-                } catch (StreamNotFoundException e) {
-                    reopenStream();
-                    getServer().streamSeek(streamId, pos);
-                }
-                this.position = pos;
-                if (streamMode == StreamMode.RANDOM_ACCESS_READ) {
-                    this.bufInputStreamPosition = pos;
-                    getDataInputStream().close();
-                }
-            } catch (WrongStreamTypeException e) {
-                throw Utils.generateAndLogIOExceptionWrongStreamType(log, e);
-            } catch (StreamNotFoundException e) {
-                throw Utils.generateAndLogIOExceptionStreamNotFound(log, e);
+            if (pos < 0) {
+                throw new IOException("Negative seek position: " + pos);
+            }
+            // the remote stream pointer is moved by the next write only
+            this.position = pos;
+            if (streamMode == StreamMode.RANDOM_ACCESS_READ) {
+                this.bufInputStreamPosition = pos;
+                getDataInputStream().close();
             }
         }
 
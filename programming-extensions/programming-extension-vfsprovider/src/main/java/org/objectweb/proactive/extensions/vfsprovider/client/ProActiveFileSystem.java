@@ -27,8 +27,14 @@ package org.objectweb.proactive.extensions.vfsprovider.client;
 
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
 import org.apache.commons.vfs2.FileName;
 import org.apache.commons.vfs2.FileObject;
 import org.apache.commons.vfs2.FileSystemException;
@@ -37,6 +43,10 @@ import org.apache.commons.vfs2.provider.AbstractFileName;
 import org.apache.commons.vfs2.provider.AbstractFileSystem;
 import org.objectweb.proactive.api.PARemoteObject;
 import org.objectweb.proactive.core.ProActiveException;
+import org.objectweb.proactive.core.config.CentralPAPropertyRepository;
+import org.objectweb.proactive.core.util.compression.BlockCodec;
+import org.objectweb.proactive.core.util.compression.BlockCodecs;
+import org.objectweb.proactive.extensions.vfsprovider.protocol.FileInfo;
 import org.objectweb.proactive.extensions.vfsprovider.protocol.FileSystemServer;
 
 
@@ -47,11 +57,18 @@ import org.objectweb.proactive.extensions.vfsprovider.protocol.FileSystemServer;
  * @see ProActiveFileProvider
  */
 public class ProActiveFileSystem extends AbstractFileSystem {
+    private static final Log log = LogFactory.getLog(ProActiveFileSystem.class);
+
     private FileSystemServer server;
 
+    private final FileInfoCache fileInfoCache;
+
+    private List<String> serverCodecs;
+
     protected ProActiveFileSystem(FileName rootName, FileSystemOptions fileSystemOptions) throws FileSystemException {
         super(rootName, null, fileSystemOptions);
         this.server = createServerStub();
+        this.fileInfoCache = new FileInfoCache(CentralPAPropertyRepository.PA_VFSPROVIDER_CLIENT_METADATA_CACHE_TTL_MILLIS.getValue());
     }
 
     @SuppressWarnings("unchecked")
@@ -65,6 +82,80 @@ public class ProActiveFileSystem extends AbstractFileSystem {
         return new ProActiveFileObject(name, this);
     }
 
+    /**
+     * Fetches the information of several files of this file system in one call to the server, so
+     * that they can be attached without further communication. Files that do not belong to this
+     * file system are ignored.
+     *
+     * @param files
+     *            files to fetch the information of
+     * @throws FileSystemException
+     *             when the information could not be fetched
+     */
+    public void prefetchFileInfos(Collection<? extends FileObject> files) throws FileSystemException {
+        final List<ProActiveFileObject> proactiveFiles = new ArrayList<ProActiveFileObject>(files.size());
+        final List<String> paths = new ArrayList<String>(files.size());
+        for (final FileObject file : files) {
+            if (file instanceof ProActiveFileObject && file.getFileSystem() == this) {
+                proactiveFiles.add((ProActiveFileObject) file);
+                paths.add(((ProActiveFileName) file.getName()).getPathDecoded());
+            }
+        }
+        if (paths.isEmpty()) {
+            return;
+        }
+
+        final Map<String, FileInfo> infos;
+        try {
+            infos = getServer().fileGetInfos(paths);
+        } catch (Exception e) {
+            throw new FileSystemException("vfs.provider/get-attributes.error", getRootName(), e);
+        }
+        for (int i = 0; i < proactiveFiles.size(); i++) {
+            proactiveFiles.get(i).primeFileInfo(infos.get(paths.get(i)), true);
+        }
+    }
+
+    /**
+     * Returns the codec compressing the data of the sequential streams: the first codec of
+     * {@link CentralPAPropertyRepository#PA_VFSPROVIDER_CLIENT_COMPRESSION} that is also supported
+     * by the server. The codecs supported by the server are fetched once.
+     *
+     * @return the codec, or <code>null</code> for no compression
+     * @throws FileSystemException
+     *             when the server cannot be reached
+     */
+    BlockCodec getStreamCodec() throws FileSystemException {
+        final String preferences = CentralPAPropertyRepository.PA_VFSPROVIDER_CLIENT_COMPRESSION.getValue();
+        if (BlockCodecs.parse(preferences).isEmpty()) {
+            return null;
+        }
+
+        final String name = BlockCodecs.negotiate(preferences, getServerCodecs());
+        return name == null ? null : BlockCodecs.getCodec(name);
+    }
+
+    private List<String> getServerCodecs() throws FileSystemException {
+        final FileSystemServer fsServer = getServer();
+        synchronized (this) {
+            if (serverCodecs == null) {
+                try {
+                    serverCodecs = fsServer.streamGetCodecs();
+                } catch (Exception e) {
+                    // e.g. a server without compression support
+                    log.warn("Could not get the codecs supported by the file system server, compression disabled", e);
+                    serverCodecs = Collections.emptyList();
+                }
+                log.debug("Codecs supported by the file system server: " + serverCodecs);
+            }
+            return serverCodecs;
+        }
+    }
+
+    FileInfoCache getFileInfoCache() {
+        return fileInfoCache;
+    }
+
     protected FileSystemServer getServer() throws FileSystemException {
         synchronized (this) {
             if (server == null) {
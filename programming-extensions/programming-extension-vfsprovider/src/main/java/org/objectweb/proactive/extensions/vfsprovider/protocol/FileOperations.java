@@ -26,6 +26,7 @@
 package org.objectweb.proactive.extensions.vfsprovider.protocol;
 
 import java.io.IOException;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -83,6 +84,65 @@ public interface FileOperations {
      */
     public abstract FileInfo fileGetInfo(String path) throws IOException;
 
+    /**
+     * Reads the information of several files in one operation, see {@link #fileGetInfo(String)}.
+     *
+     * @param paths
+     *            of the files, cannot be <code>null</code>
+     * @return map of the given paths and their file information, the information is
+     *         <code>null</code> when a file does not exist
+     * @throws IOException
+     *             when unable to read "last modified time" attribute or security exception occurred
+     */
+    public abstract Map<String, FileInfo> fileGetInfos(List<String> paths) throws IOException;
+
+    /**
+     * List paths and information of the descendants of an existing directory specified by given
+     * abstract <code>path</code>, in one operation. Directories are listed before their content.
+     * <p>
+     * Descendants are identified by their path relative to the directory, using <code>/</code>
+     * separators. When a <code>glob</code> pattern is given, only the descendants whose relative
+     * path matches it are returned, although the whole tree is walked; see
+     * {@link org.objectweb.proactive.extensions.vfsprovider.util.GlobPattern} for the syntax.
+     * Directories reached through a symbolic link to one of their ancestors are not walked.
+     * <p>
+     * Returned set of information may be not coherent, as the simultaneous file system operations
+     * are not prohibited.
+     *
+     * @param path
+     *            of a directory, cannot be <code>null</code>
+     * @param glob
+     *            pattern that the relative paths of the returned descendants match,
+     *            <code>null</code> to return all of them
+     * @param maxDepth
+     *            maximum depth of the returned descendants, 1 for the direct children, a negative
+     *            value for no limit
+     * @return ordered map of relative paths and file information of the descendants, may be empty;
+     *         <code>null</code> when specified file is not an existing directory or cannot be
+     *         accessed
+     * @throws IOException
+     *             when unable to read "last modified time" attribute, or when an security or I/O
+     *             error occurred
+     */
+    public abstract Map<String, FileInfo> fileListDescendantsInfo(String path, String glob, int maxDepth)
+            throws IOException;
+
+    /**
+     * Computes a hash of the content of an existing regular file specified by given abstract
+     * <code>path</code>, identifying this content independently of its location.
+     * <p>
+     * Hashes are remembered as long as the size and last modification time of the file do not
+     * change, so that the content of a file is read only once.
+     *
+     * @param path
+     *            of a file, cannot be <code>null</code>
+     * @return lower case hexadecimal SHA-256 of the file content; <code>null</code> when specified
+     *         file is not an existing regular file
+     * @throws IOException
+     *             when an security or I/O error occurred
+     */
+    public abstract String fileGetContentHash(String path) throws IOException;
+
     /**
      * Create a file of a <code>type</code> with given abstract <code>path</code>, along with the
      * ancestor directories if they hasn't existed yet. If file is already created, it remains
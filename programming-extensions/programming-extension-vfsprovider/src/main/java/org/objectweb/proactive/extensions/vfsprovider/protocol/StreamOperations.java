@@ -26,6 +26,10 @@
 package org.objectweb.proactive.extensions.vfsprovider.protocol;
 
 import java.io.IOException;
+import java.util.List;
+
+import org.objectweb.proactive.core.util.compression.BlockCodecs;
+import org.objectweb.proactive.core.util.compression.CompressedBlock;
 
 import org.objectweb.proactive.extensions.vfsprovider.exceptions.StreamNotFoundException;
 import org.objectweb.proactive.extensions.vfsprovider.exceptions.WrongStreamTypeException;
@@ -95,6 +99,35 @@ public interface StreamOperations {
     public abstract byte[] streamRead(long stream, int bytes)
             throws IOException, StreamNotFoundException, WrongStreamTypeException;
 
+    /**
+     * Read number of bytes <code>bytes</code> starting at the absolute <code>position</code> of an
+     * open stream defined by unique id that was previously returned by
+     * {@link #streamOpen(String, StreamMode)} method call. The stream pointer is not changed, hence
+     * several such reads of the same stream may be performed concurrently.
+     * <p>
+     * This method guarantees, that if {@link StreamNotFoundException} is thrown, a corresponding
+     * stream has been closed
+     *
+     * @param stream
+     *            an unique id of an open stream
+     * @param position
+     *            an absolute position within a file, measured in bytes; cannot be negative number
+     * @param bytes
+     *            number of bytes that are to be read
+     * @return an array of bytes read or <code>null</code> when <code>position</code> is at or
+     *         beyond the EOF; length of this array indicates how many bytes has been read
+     *         successfully
+     * @throws IOException
+     *             if an I/O error occurred while performing this method or position is a negative
+     *             number
+     * @throws StreamNotFoundException
+     *             if specified stream unique id has not been found or it has been already closed
+     * @throws WrongStreamTypeException
+     *             when mode of a stream does not allow to call this method
+     */
+    public abstract byte[] streamRead(long stream, long position, int bytes)
+            throws IOException, StreamNotFoundException, WrongStreamTypeException;
+
     /**
      * Write an array of bytes into an open stream specified by an unique id that was previously
      * returned by {@link #streamOpen(String, StreamMode)} method call.
@@ -116,6 +149,66 @@ public interface StreamOperations {
     public abstract void streamWrite(long stream, byte[] data)
             throws IOException, StreamNotFoundException, WrongStreamTypeException;
 
+    /**
+     * Return the names of the codecs that data read by
+     * {@link #streamReadCompressed(long, int, String)} or written by
+     * {@link #streamWriteCompressed(long, CompressedBlock)} may be compressed with.
+     *
+     * @return names of the codecs, as known by {@link BlockCodecs}
+     * @throws IOException
+     *             if an I/O error occurred while performing this method
+     */
+    public abstract List<String> streamGetCodecs() throws IOException;
+
+    /**
+     * Read number of bytes <code>bytes</code> from an open stream like
+     * {@link #streamRead(long, int)} does, compressing them with the given codec unless it does
+     * not shrink them.
+     * <p>
+     * This method guarantees, that if {@link StreamNotFoundException} is thrown, a corresponding
+     * stream has been closed
+     *
+     * @param stream
+     *            an unique id of an open stream
+     * @param bytes
+     *            number of bytes that are to be read
+     * @param codec
+     *            name of the codec, one of {@link #streamGetCodecs()}
+     * @return the bytes read, compressed or raw, or <code>null</code> when an EOF occurred and
+     *         nothing has been read
+     * @throws IOException
+     *             if an I/O error occurred while performing this method or the codec is unknown
+     * @throws StreamNotFoundException
+     *             if specified stream unique id has not been found or it has been already closed
+     * @throws WrongStreamTypeException
+     *             when mode of a stream does not allow to call this method
+     */
+    public abstract CompressedBlock streamReadCompressed(long stream, int bytes, String codec)
+            throws IOException, StreamNotFoundException, WrongStreamTypeException;
+
+    /**
+     * Write a possibly compressed block of bytes into an open stream like
+     * {@link #streamWrite(long, byte[])} does.
+     * <p>
+     * This method guarantees, that if {@link StreamNotFoundException} is thrown, a corresponding
+     * stream has been closed
+     *
+     * @param stream
+     *            an unique id of an open stream
+     * @param data
+     *            block of bytes that is to be written, compressed by one of
+     *            {@link #streamGetCodecs()} or raw, cannot be <code>null</code>
+     * @throws IOException
+     *             if an I/O error occurred while performing this method or the block cannot be
+     *             decompressed
+     * @throws StreamNotFoundException
+     *             if specified stream unique id has not been found or it has been already closed
+     * @throws WrongStreamTypeException
+     *             when mode of a stream does not allow to call this method
+     */
+    public abstract void streamWriteCompressed(long stream, CompressedBlock data)
+            throws IOException, StreamNotFoundException, WrongStreamTypeException;
+
     /**
      * Change the position of a file stream pointer specified by an unique id that was previously
      * returned by {@link #streamOpen(String, StreamMode)} method call. This stream pointer
@@ -0,0 +1,158 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.objectweb.proactive.extensions.vfsprovider.server;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+
+/**
+ * Reads of file streams through their {@link FileChannel}, shared by the {@link Stream} adapters.
+ * <p>
+ * The returned array is allocated with the number of bytes available in the file whenever the
+ * size of the file is known, so the data are read directly into the array that is sent back to
+ * the client, without intermediate copy. Files that do not report their size (devices, pipes)
+ * get an array of the requested size, trimmed if the read is short.
+ * <p>
+ * Large sequential reads can be served from a memory mapped region of the file, see
+ * {@link MappedRegion}, which saves the copy of the data from the kernel to a temporary direct
+ * buffer.
+ */
+final class FileChannelReader {
+
+    private FileChannelReader() {
+    }
+
+    /**
+     * Read from the current position of the channel, advancing it.
+     *
+     * @see Stream#read(int)
+     */
+    static byte[] read(FileChannel channel, int bytes) throws IOException {
+        return read(channel, -1, bytes);
+    }
+
+    /**
+     * Read from an absolute position, leaving the position of the channel unchanged. Positional
+     * reads can run concurrently on the same channel.
+     *
+     * @see Stream#read(long, int)
+     */
+    static byte[] read(FileChannel channel, long position, int bytes) throws IOException {
+        if (position < -1) {
+            throw new IOException("Negative position: " + position);
+        }
+        if (bytes == 0) {
+            return new byte[0];
+        }
+
+        final long size = channel.size();
+        final long start = position == -1 ? channel.position() : position;
+        int length = bytes;
+        if (size > 0) {
+            if (start >= size) {
+                return null;
+            }
+            length = (int) Math.min(bytes, size - start);
+        }
+
+        final byte[] data = new byte[length];
+        final ByteBuffer dst = ByteBuffer.wrap(data);
+        while (dst.hasRemaining()) {
+            final int count = position == -1 ? channel.read(dst) : channel.read(dst, position + dst.position());
+            if (count <= 0) {
+                break;
+            }
+        }
+
+        final int count = dst.position();
+        if (count == 0) {
+            return null;
+        }
+        if (count < length) {
+            return Arrays.copyOf(data, count);
+        }
+        return data;
+    }
+
+    /**
+     * A read only mapped window of a file, remapped when a read leaves it. The mapping is released
+     * by the garbage collector once the window moves or the stream is closed.
+     */
+    static final class MappedRegion {
+        private final int windowSize;
+
+        private MappedByteBuffer buffer;
+
+        private long start;
+
+        MappedRegion(int windowSize) {
+            this.windowSize = windowSize;
+        }
+
+        /**
+         * Read from the current position of the channel, advancing it. Falls back to a regular
+         * read for files that do not report their size.
+         */
+        byte[] read(FileChannel channel, int bytes) throws IOException {
+            final long size = channel.size();
+            final long position = channel.position();
+            if (size <= 0 || bytes == 0) {
+                return FileChannelReader.read(channel, bytes);
+            }
+            if (position >= size) {
+                return null;
+            }
+
+            final int length = (int) Math.min(bytes, size - position);
+            final byte[] data = new byte[length];
+            int copied = 0;
+            while (copied < length) {
+                final long current = position + copied;
+                if (buffer == null || current < start || current >= start + buffer.limit()) {
+                    start = current;
+                    buffer = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(windowSize, size - start));
+                }
+                final int offset = (int) (current - start);
+                final int count = Math.min(length - copied, buffer.limit() - offset);
+                // absolute positioning on a duplicate, the shared buffer is never moved
+                final ByteBuffer src = buffer.duplicate();
+                src.position(offset);
+                src.get(data, copied, count);
+                copied += count;
+            }
+            channel.position(position + length);
+            return data;
+        }
+
+        void release() {
+            buffer = null;
+        }
+    }
+}
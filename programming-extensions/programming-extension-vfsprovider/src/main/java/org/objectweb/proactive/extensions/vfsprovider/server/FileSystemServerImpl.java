@@ -28,22 +28,37 @@ package org.objectweb.proactive.extensions.vfsprovider.server;
 import static java.util.Collections.sort;
 
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.regex.Pattern;
 
 import org.apache.log4j.Logger;
 import org.objectweb.proactive.core.config.CentralPAPropertyRepository;
 import org.objectweb.proactive.core.config.PAProperties;
 import org.objectweb.proactive.core.exceptions.IOException6;
+import org.objectweb.proactive.core.util.compression.BlockCodec;
+import org.objectweb.proactive.core.util.compression.BlockCodecs;
+import org.objectweb.proactive.core.util.compression.CompressedBlock;
 import org.objectweb.proactive.core.util.log.Loggers;
 import org.objectweb.proactive.core.util.log.ProActiveLogger;
 import org.objectweb.proactive.extensions.annotation.RemoteObject;
@@ -53,6 +68,7 @@ import org.objectweb.proactive.extensions.vfsprovider.protocol.FileInfo;
 import org.objectweb.proactive.extensions.vfsprovider.protocol.FileSystemServer;
 import org.objectweb.proactive.extensions.vfsprovider.protocol.FileType;
 import org.objectweb.proactive.extensions.vfsprovider.protocol.StreamMode;
+import org.objectweb.proactive.extensions.vfsprovider.util.GlobPattern;
 
 
 // TODO idea: now we export existing directory, shall we allow to export a file?
@@ -71,7 +87,8 @@ import org.objectweb.proactive.extensions.vfsprovider.protocol.StreamMode;
  * Operations performed on {@link #streams} map are synchronized trough explicit synchronization. To
  * fulfill protocol's thread-safety, an explicit {@link Stream} operations synchronization is
  * required with double checking if map contains an open stream. Generating unique identifiers is
- * atomic.
+ * atomic. Positional reads are the exception: they do not depend on the stream pointer and are
+ * performed without synchronization on the {@link Stream}, so that they can run concurrently.
  * <p>
  * To guarantee that {@link #streamFlush(long)} method throws {@link StreamNotFoundException} only
  * if stream has been closed correctly, an "in progress state" map is hold. Flush requests are
@@ -95,6 +112,10 @@ public class FileSystemServerImpl implements FileSystemServer {
 
     public static final long DEFAULT_STREAM_OPEN_MAXIMUM_PERIOD_MILLIS = 1000 * 60;
 
+    private static final int CONTENT_HASHES_CACHE_SIZE = 4096;
+
+    private static final int CONTENT_HASH_BUFFER_SIZE = 1024 * 1024;
+
     private long streamOpenMaximumPeriodMillis = DEFAULT_STREAM_OPEN_MAXIMUM_PERIOD_MILLIS;
 
     private long streamAutocloseCheckingIntervalMillis = DEFAULT_STREAM_AUTOCLOSE_CHECKING_INTERVAL_MILLIS;
@@ -105,6 +126,14 @@ public class FileSystemServerImpl implements FileSystemServer {
 
     private final Map<Long, Long> streamLastUsedTimestamp = new HashMap<Long, Long>();
 
+    // canonical path -> content hash, computed or being computed, least recently used evicted first
+    private final Map<String, ContentHash> contentHashes = new LinkedHashMap<String, ContentHash>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Entry<String, ContentHash> eldest) {
+            return size() > CONTENT_HASHES_CACHE_SIZE;
+        }
+    };
+
     private File rootFile;
 
     private String rootCanonicalPath;
@@ -281,6 +310,23 @@ public class FileSystemServerImpl implements FileSystemServer {
         }
     }
 
+    public byte[] streamRead(long stream, long position, int bytes)
+            throws IOException, StreamNotFoundException, WrongStreamTypeException {
+        try {
+            final Stream instance = tryGetStreamOrWound(stream);
+            try {
+                return instance.read(position, bytes);
+            } catch (ClosedChannelException e) {
+                // closed concurrently
+                checkContainsStreamOrWound(stream);
+                throw e;
+            }
+        } catch (StreamNotFoundException notFound) {
+            waitUntilStreamIsClosed(stream);
+            throw notFound;
+        }
+    }
+
     public void streamSeek(long stream, long position)
             throws IOException, StreamNotFoundException, WrongStreamTypeException {
         try {
@@ -324,6 +370,27 @@ public class FileSystemServerImpl implements FileSystemServer {
         }
     }
 
+    public List<String> streamGetCodecs() {
+        return BlockCodecs.getCodecNames();
+    }
+
+    public CompressedBlock streamReadCompressed(long stream, int bytes, String codec)
+            throws IOException, StreamNotFoundException, WrongStreamTypeException {
+        final BlockCodec blockCodec = BlockCodecs.getCodec(codec);
+        if (blockCodec == null) {
+            throw new IOException("Unknown block codec: " + codec);
+        }
+
+        // compressed outside of the stream lock
+        final byte[] data = streamRead(stream, bytes);
+        return data == null ? null : CompressedBlock.encode(blockCodec, data);
+    }
+
+    public void streamWriteCompressed(long stream, CompressedBlock data)
+            throws IOException, StreamNotFoundException, WrongStreamTypeException {
+        streamWrite(stream, data.decompress());
+    }
+
     public void streamFlush(long stream) throws IOException, StreamNotFoundException, WrongStreamTypeException {
 
         try {
@@ -379,6 +446,92 @@ public class FileSystemServerImpl implements FileSystemServer {
         return null;
     }
 
+    public Map<String, FileInfo> fileGetInfos(List<String> paths) throws IOException {
+        final Map<String, FileInfo> infos = new HashMap<String, FileInfo>(paths.size() * 4 / 3 + 1);
+        for (String path : paths) {
+            infos.put(path, fileGetInfo(path));
+        }
+        return infos;
+    }
+
+    public Map<String, FileInfo> fileListDescendantsInfo(String path, String glob, int maxDepth)
+            throws IOException {
+        final File file = resolvePath(path);
+        final Pattern pattern = glob == null ? null : GlobPattern.compile(glob);
+
+        try {
+            if (!file.isDirectory()) {
+                return null;
+            }
+        } catch (SecurityException sec) {
+            throw new IOException6(sec);
+        }
+        final Map<String, FileInfo> infos = new LinkedHashMap<String, FileInfo>();
+        final Set<String> ancestors = new HashSet<String>();
+        ancestors.add(file.getCanonicalPath());
+        listDescendantsInfo(file, "", pattern, maxDepth, ancestors, infos);
+        return infos;
+    }
+
+    public String fileGetContentHash(String path) throws IOException {
+        final File file = resolvePath(path);
+        final String canonicalPath;
+        final long length;
+        final long lastModified;
+        try {
+            if (!file.isFile()) {
+                return null;
+            }
+            canonicalPath = file.getCanonicalPath();
+            length = file.length();
+            lastModified = file.lastModified();
+        } catch (SecurityException sec) {
+            throw new IOException6(sec);
+        }
+
+        // concurrent requests for the same version of a file wait for a single computation
+        final ContentHash contentHash;
+        boolean computing = false;
+        synchronized (contentHashes) {
+            final ContentHash cached = contentHashes.get(canonicalPath);
+            if (cached != null && cached.length == length && cached.lastModified == lastModified) {
+                contentHash = cached;
+            } else {
+                contentHash = new ContentHash(file, length, lastModified);
+                contentHashes.put(canonicalPath, contentHash);
+                computing = true;
+            }
+        }
+        if (computing) {
+            contentHash.hash.run();
+        }
+
+        try {
+            final String hash = contentHash.hash.get();
+            // the file may have been changed while its hash was computed
+            if (computing && (file.length() != length || file.lastModified() != lastModified)) {
+                forgetContentHash(canonicalPath, contentHash);
+            }
+            return hash;
+        } catch (ExecutionException e) {
+            forgetContentHash(canonicalPath, contentHash);
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException6("Could not compute the content hash of " + path, e.getCause());
+        } catch (InterruptedException e) {
+            throw new IOException6("Interrupted while computing the content hash of " + path, e);
+        }
+    }
+
+    private void forgetContentHash(String canonicalPath, ContentHash contentHash) {
+        synchronized (contentHashes) {
+            if (contentHashes.get(canonicalPath) == contentHash) {
+                contentHashes.remove(canonicalPath);
+            }
+        }
+    }
+
     public Set<String> fileListChildren(String path) throws IOException {
         final File file = resolvePath(path);
         final String[] list;
@@ -438,6 +591,82 @@ public class FileSystemServerImpl implements FileSystemServer {
         }
     }
 
+    private static String computeContentHash(File file) throws IOException {
+        final MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IOException6("SHA-256 is not available", e);
+        }
+
+        final FileInputStream fis;
+        try {
+            fis = new FileInputStream(file);
+        } catch (SecurityException sec) {
+            throw new IOException6(sec);
+        }
+        try {
+            final FileChannel channel = fis.getChannel();
+            final ByteBuffer buffer = ByteBuffer.allocate(CONTENT_HASH_BUFFER_SIZE);
+            while (channel.read(buffer) >= 0) {
+                buffer.flip();
+                digest.update(buffer);
+                buffer.clear();
+            }
+        } finally {
+            fis.close();
+        }
+
+        final StringBuilder hex = new StringBuilder(64);
+        for (byte b : digest.digest()) {
+            hex.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+        }
+        return hex.toString();
+    }
+
+    private static void listDescendantsInfo(File directory, String prefix, Pattern pattern, int maxDepth,
+            Set<String> ancestors, Map<String, FileInfo> infos) throws IOException {
+        if (maxDepth == 0) {
+            return;
+        }
+
+        final File[] children;
+        try {
+            children = directory.listFiles();
+        } catch (SecurityException sec) {
+            throw new IOException6(sec);
+        }
+        if (children == null) {
+            return;
+        }
+
+        for (File ch : children) {
+            final String relativePath = prefix + ch.getName();
+            final FileInfo info;
+            try {
+                info = new FileInfoImpl(ch);
+            } catch (IOException e) {
+                if (!ch.exists()) {
+                    // deleted in the meantime
+                    continue;
+                }
+                throw e;
+            }
+
+            if (pattern == null || pattern.matcher(relativePath).matches()) {
+                infos.put(relativePath, info);
+            }
+            if (info.getType() == FileType.DIRECTORY) {
+                // symbolic links to an ancestor would loop forever
+                final String canonicalPath = ch.getCanonicalPath();
+                if (ancestors.add(canonicalPath)) {
+                    listDescendantsInfo(ch, relativePath + '/', pattern, maxDepth - 1, ancestors, infos);
+                    ancestors.remove(canonicalPath);
+                }
+            }
+        }
+    }
+
     private void waitUntilStreamIsClosed(long stream) {
         // be sure that a stream instance is closed successfully
         final Stream instance = streamsToClose.get(stream);
@@ -541,6 +770,28 @@ public class FileSystemServerImpl implements FileSystemServer {
         }
     }
 
+    /**
+     * Hash of a file content, valid as long as the file size and last modification time are the
+     * same. The hash is computed by the first request for it.
+     */
+    private static class ContentHash {
+        private final long length;
+
+        private final long lastModified;
+
+        private final FutureTask<String> hash;
+
+        private ContentHash(final File file, long length, long lastModified) {
+            this.length = length;
+            this.lastModified = lastModified;
+            this.hash = new FutureTask<String>(new Callable<String>() {
+                public String call() throws IOException {
+                    return computeContentHash(file);
+                }
+            });
+        }
+    }
+
     /**
      * An private inner class that plays a role of a factory for particular stream modes adapters.
      *
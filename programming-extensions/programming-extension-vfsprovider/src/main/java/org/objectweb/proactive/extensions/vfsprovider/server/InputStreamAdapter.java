@@ -30,16 +30,31 @@ import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.channels.FileChannel;
+
+import org.objectweb.proactive.core.config.CentralPAPropertyRepository;
 
 import org.objectweb.proactive.extensions.vfsprovider.exceptions.WrongStreamTypeException;
 
 
 /**
  * Stream adapter for {@link InputStream} of a {@link File}, allowing the sequential readings.
+ * <p>
+ * Reads go through the {@link FileChannel} of the stream. Reads of at least
+ * {@link CentralPAPropertyRepository#PA_VFSPROVIDER_SERVER_MAPPED_READ_KB} are served from a
+ * memory mapped region of the file.
  */
 public class InputStreamAdapter implements Stream {
 
-    private final InputStream adaptee;
+    private static final int MAPPED_REGION_SIZE = 32 * 1024 * 1024;
+
+    private final FileInputStream adaptee;
+
+    private final FileChannel channel;
+
+    private final int mappedReadThreshold;
+
+    private FileChannelReader.MappedRegion mappedRegion;
 
     /**
      * Adapt input stream of a specified file.
@@ -51,9 +66,14 @@ public class InputStreamAdapter implements Stream {
      */
     public InputStreamAdapter(File file) throws FileNotFoundException {
         adaptee = new FileInputStream(file);
+        channel = adaptee.getChannel();
+        mappedReadThreshold = CentralPAPropertyRepository.PA_VFSPROVIDER_SERVER_MAPPED_READ_KB.getValue() * 1024;
     }
 
     public void close() throws IOException {
+        if (mappedRegion != null) {
+            mappedRegion.release();
+        }
         adaptee.close();
     }
 
@@ -66,18 +86,17 @@ public class InputStreamAdapter implements Stream {
     }
 
     public byte[] read(int bytes) throws IOException {
-        final byte[] data = new byte[bytes];
-        final int count = adaptee.read(data);
-
-        if (count == -1)
-            return null;
-        if (count < bytes) {
-            byte[] ret = new byte[count];
-            System.arraycopy(data, 0, ret, 0, ret.length);
-            return ret;
+        if (mappedReadThreshold > 0 && bytes >= mappedReadThreshold) {
+            if (mappedRegion == null) {
+                mappedRegion = new FileChannelReader.MappedRegion(Math.max(MAPPED_REGION_SIZE, bytes));
+            }
+            return mappedRegion.read(channel, bytes);
         }
+        return FileChannelReader.read(channel, bytes);
+    }
 
-        return data;
+    public byte[] read(long position, int bytes) throws IOException {
+        return FileChannelReader.read(channel, position, bytes);
     }
 
     public void seek(long position) throws WrongStreamTypeException {
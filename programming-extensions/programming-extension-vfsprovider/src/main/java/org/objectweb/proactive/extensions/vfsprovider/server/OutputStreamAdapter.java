@@ -71,6 +71,10 @@ public class OutputStreamAdapter implements Stream {
         throw new WrongStreamTypeException();
     }
 
+    public byte[] read(long position, int bytes) throws IOException, WrongStreamTypeException {
+        throw new WrongStreamTypeException();
+    }
+
     public void seek(long position) throws IOException, WrongStreamTypeException {
         throw new WrongStreamTypeException();
     }
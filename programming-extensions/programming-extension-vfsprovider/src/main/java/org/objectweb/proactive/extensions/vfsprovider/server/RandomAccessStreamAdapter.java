@@ -29,6 +29,7 @@ import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
 
 import org.objectweb.proactive.extensions.vfsprovider.exceptions.WrongStreamTypeException;
 
@@ -37,11 +38,16 @@ import org.objectweb.proactive.extensions.vfsprovider.exceptions.WrongStreamType
  * Stream adapter for {@link RandomAccessFile} created from specified {@link File}, allowing the
  * random readings and/or writings. Two different static factory methods provided for different
  * access mode.
+ * <p>
+ * Reads go through the {@link FileChannel} of the file, positional reads do not depend on the file
+ * pointer and can therefore run concurrently with the other operations.
  */
 public class RandomAccessStreamAdapter implements Stream {
 
     private final RandomAccessFile randomFile;
 
+    private final FileChannel channel;
+
     private final boolean writable;
 
     /**
@@ -76,6 +82,7 @@ public class RandomAccessStreamAdapter implements Stream {
         final String mode = writable ? "rw" : "r";
 
         this.randomFile = new RandomAccessFile(file, mode);
+        this.channel = randomFile.getChannel();
         this.writable = writable;
     }
 
@@ -92,18 +99,12 @@ public class RandomAccessStreamAdapter implements Stream {
     }
 
     public byte[] read(int bytes) throws IOException, WrongStreamTypeException {
-        final byte[] data = new byte[bytes];
-        final int count = randomFile.read(data);
-
-        if (count == -1)
-            return null;
-        if (count < bytes) {
-            byte[] ret = new byte[count];
-            System.arraycopy(data, 0, ret, 0, ret.length);
-            return ret;
-        }
+        // the channel shares the file pointer of the random access file
+        return FileChannelReader.read(channel, bytes);
+    }
 
-        return data;
+    public byte[] read(long position, int bytes) throws IOException, WrongStreamTypeException {
+        return FileChannelReader.read(channel, position, bytes);
     }
 
     public void seek(long position) throws IOException {
@@ -130,7 +131,7 @@ public class RandomAccessStreamAdapter implements Stream {
 
     public void flush() throws IOException, WrongStreamTypeException {
         assureIsWritable();
-        randomFile.getChannel().force(true);
+        channel.force(true);
     }
 
     private void assureIsWritable() throws WrongStreamTypeException {
@@ -70,6 +70,18 @@ public interface Stream {
      */
     public abstract byte[] read(int bytes) throws IOException, WrongStreamTypeException;
 
+    /**
+     * Implementations must not move the stream pointer and must allow concurrent calls, as they
+     * are performed without exclusive access to the stream.
+     *
+     * @param position
+     * @param bytes
+     * @throws IOException
+     * @throws WrongStreamTypeException
+     * @see StreamOperations#streamRead(long, long, int)
+     */
+    public abstract byte[] read(long position, int bytes) throws IOException, WrongStreamTypeException;
+
     /**
      * @param position
      * @throws IOException
@@ -0,0 +1,104 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.objectweb.proactive.extensions.vfsprovider.util;
+
+import java.util.regex.Pattern;
+
+
+/**
+ * Glob patterns matched against <code>/</code> separated relative paths, evaluated the same way by
+ * the file system server and by the clients.
+ * <ul>
+ * <li><code>*</code> matches any sequence of characters within a path segment</li>
+ * <li><code>**</code> matches any sequence of characters, across segments; <code>**&#47;</code>
+ * also matches no segment at all</li>
+ * <li><code>?</code> matches a single character within a path segment</li>
+ * <li><code>{a,b}</code> matches any of the comma separated alternatives</li>
+ * </ul>
+ * Any other character matches itself.
+ */
+public class GlobPattern {
+
+    /**
+     * Compile a glob pattern into an equivalent regular expression.
+     *
+     * @param glob
+     *            the glob pattern, cannot be <code>null</code>
+     * @return the compiled pattern
+     * @throws IllegalArgumentException
+     *             when the pattern contains unbalanced braces
+     */
+    public static Pattern compile(String glob) {
+        final StringBuilder regex = new StringBuilder(glob.length() * 2);
+        int alternatives = 0;
+        for (int i = 0; i < glob.length(); i++) {
+            final char c = glob.charAt(i);
+            switch (c) {
+                case '*':
+                    if (i + 1 < glob.length() && glob.charAt(i + 1) == '*') {
+                        i++;
+                        if (i + 1 < glob.length() && glob.charAt(i + 1) == '/') {
+                            i++;
+                            regex.append("(?:.*/)?");
+                        } else {
+                            regex.append(".*");
+                        }
+                    } else {
+                        regex.append("[^/]*");
+                    }
+                    break;
+                case '?':
+                    regex.append("[^/]");
+                    break;
+                case '{':
+                    alternatives++;
+                    regex.append("(?:");
+                    break;
+                case '}':
+                    if (alternatives == 0) {
+                        throw new IllegalArgumentException("Unbalanced braces in glob pattern: " + glob);
+                    }
+                    alternatives--;
+                    regex.append(')');
+                    break;
+                case ',':
+                    regex.append(alternatives > 0 ? "|" : ",");
+                    break;
+                default:
+                    if (Character.isLetterOrDigit(c)) {
+                        regex.append(c);
+                    } else {
+                        // a backslash before a non alphabetic character always denotes the character itself
+                        regex.append('\\').append(c);
+                    }
+            }
+        }
+        if (alternatives != 0) {
+            throw new IllegalArgumentException("Unbalanced braces in glob pattern: " + glob);
+        }
+        return Pattern.compile(regex.toString());
+    }
+}
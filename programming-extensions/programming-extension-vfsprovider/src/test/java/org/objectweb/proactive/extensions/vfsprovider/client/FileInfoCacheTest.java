@@ -0,0 +1,167 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.objectweb.proactive.extensions.vfsprovider.client;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Test;
+import org.objectweb.proactive.extensions.vfsprovider.protocol.FileInfo;
+import org.objectweb.proactive.extensions.vfsprovider.protocol.FileType;
+
+
+/**
+ * Test suite for {@link FileInfoCache}.
+ */
+public class FileInfoCacheTest {
+
+    private static final FileInfo FILE = new TestFileInfo(FileType.FILE, 6);
+
+    private static final FileInfo DIRECTORY = new TestFileInfo(FileType.DIRECTORY, 0);
+
+    @Test
+    public void infoExpiresAfterTtl() throws Exception {
+        final FileInfoCache cache = new FileInfoCache(100);
+        cache.putInfo("/a", FILE);
+        assertSame(FILE, cache.getInfo("/a"));
+
+        Thread.sleep(200);
+        assertNull(cache.getInfo("/a"));
+    }
+
+    @Test
+    public void childrenExpireAfterTtl() throws Exception {
+        final FileInfoCache cache = new FileInfoCache(100);
+        cache.putChildren("/dir", children("a", FILE));
+        assertNotNull(cache.getChildren("/dir"));
+        assertSame(FILE, cache.getInfo("/dir/a"));
+
+        Thread.sleep(200);
+        assertNull(cache.getChildren("/dir"));
+        assertNull(cache.getInfo("/dir/a"));
+    }
+
+    @Test
+    public void disabledCacheKeepsNothing() {
+        final FileInfoCache cache = new FileInfoCache(0);
+        cache.putInfo("/a", FILE);
+        cache.putChildren("/", children("a", FILE));
+        assertNull(cache.getInfo("/a"));
+        assertNull(cache.getChildren("/"));
+    }
+
+    @Test
+    public void invalidateFileDropsParentListing() {
+        final FileInfoCache cache = new FileInfoCache(60000);
+        cache.putInfo("/dir", DIRECTORY);
+        cache.putChildren("/dir", children("a", FILE, "b", FILE));
+
+        cache.invalidate("/dir/a");
+        assertNull(cache.getInfo("/dir/a"));
+        assertNull(cache.getChildren("/dir"));
+        // siblings and parent are not changed
+        assertSame(FILE, cache.getInfo("/dir/b"));
+        assertSame(DIRECTORY, cache.getInfo("/dir"));
+    }
+
+    @Test
+    public void invalidateDirectoryDropsItsListing() {
+        final FileInfoCache cache = new FileInfoCache(60000);
+        cache.putChildren("/", children("dir", DIRECTORY));
+        cache.putChildren("/dir", children("a", FILE));
+
+        cache.invalidate("/dir");
+        assertNull(cache.getInfo("/dir"));
+        assertNull(cache.getChildren("/dir"));
+        assertNull(cache.getChildren("/"));
+    }
+
+    @Test
+    public void clearDropsEverything() {
+        final FileInfoCache cache = new FileInfoCache(60000);
+        cache.putChildren("/", children("a", FILE));
+        cache.clear();
+        assertNull(cache.getInfo("/a"));
+        assertNull(cache.getChildren("/"));
+    }
+
+    @Test
+    public void paths() {
+        assertEquals("/a", FileInfoCache.childPath("/", "a"));
+        assertEquals("/dir/a", FileInfoCache.childPath("/dir", "a"));
+        assertEquals("/dir", FileInfoCache.parentPath("/dir/a"));
+        assertEquals("/", FileInfoCache.parentPath("/dir"));
+        assertNull(FileInfoCache.parentPath("/"));
+    }
+
+    private static Map<String, FileInfo> children(Object... namesAndInfos) {
+        final Map<String, FileInfo> children = new HashMap<String, FileInfo>();
+        for (int i = 0; i < namesAndInfos.length; i += 2) {
+            children.put((String) namesAndInfos[i], (FileInfo) namesAndInfos[i + 1]);
+        }
+        return children;
+    }
+
+    private static class TestFileInfo implements FileInfo {
+        private final FileType type;
+
+        private final long size;
+
+        TestFileInfo(FileType type, long size) {
+            this.type = type;
+            this.size = size;
+        }
+
+        public FileType getType() {
+            return type;
+        }
+
+        public long getSize() {
+            return size;
+        }
+
+        public long getLastModifiedTime() {
+            return 0;
+        }
+
+        public boolean isReadable() {
+            return true;
+        }
+
+        public boolean isWritable() {
+            return true;
+        }
+
+        public boolean isHidden() {
+            return false;
+        }
+    }
+}
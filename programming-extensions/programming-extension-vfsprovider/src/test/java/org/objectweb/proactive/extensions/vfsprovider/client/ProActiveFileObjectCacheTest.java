@@ -0,0 +1,186 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.objectweb.proactive.extensions.vfsprovider.client;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.OutputStream;
+import java.io.Writer;
+
+import org.apache.commons.vfs2.FileObject;
+import org.apache.commons.vfs2.FileSystemException;
+import org.apache.commons.vfs2.impl.DefaultFileSystemManager;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.objectweb.proactive.core.config.CentralPAPropertyRepository;
+import org.objectweb.proactive.extensions.dataspaces.vfs.VFSFactory;
+import org.objectweb.proactive.extensions.vfsprovider.FileSystemServerDeployer;
+import org.objectweb.proactive.extensions.vfsprovider.protocol.FileInfo;
+import org.objectweb.proactive.extensions.vfsprovider.protocol.FileType;
+
+import vfsprovider.AbstractIOOperationsBase;
+
+
+/**
+ * Invalidation of the {@link FileInfoCache} of a {@link ProActiveFileSystem} by the changes made
+ * through its file objects.
+ */
+public class ProActiveFileObjectCacheTest extends AbstractIOOperationsBase {
+
+    private FileSystemServerDeployer serverDeployer;
+
+    private DefaultFileSystemManager vfsManager;
+
+    private FileObject root;
+
+    private FileInfoCache cache;
+
+    @Override
+    public String getTestDirFilename() {
+        return "ProActive-ProActiveFileObjectCacheTest";
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        // long enough not to expire during a test
+        CentralPAPropertyRepository.PA_VFSPROVIDER_CLIENT_METADATA_CACHE_TTL_MILLIS.setValue(600000);
+        serverDeployer = new FileSystemServerDeployer(testDir.getAbsolutePath(), false);
+        vfsManager = VFSFactory.createDefaultFileSystemManager();
+        root = vfsManager.resolveFile(serverDeployer.getVFSRootURL());
+        cache = ((ProActiveFileSystem) root.getFileSystem()).getFileInfoCache();
+        assertTrue(cache.isEnabled());
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        CentralPAPropertyRepository.PA_VFSPROVIDER_CLIENT_METADATA_CACHE_TTL_MILLIS.setValue(0);
+        if (vfsManager != null) {
+            vfsManager.close();
+            vfsManager = null;
+        }
+
+        if (serverDeployer != null) {
+            serverDeployer.terminate();
+            serverDeployer = null;
+        }
+    }
+
+    @Test
+    public void listingIsCached() throws Exception {
+        assertEquals(1, root.getChildren().length);
+        assertNotNull(cache.getChildren(path(root)));
+        assertEquals(FileType.FILE, cache.getInfo(path(root.resolveFile(TEST_FILENAME))).getType());
+    }
+
+    @Test
+    public void createInvalidates() throws Exception {
+        root.getChildren();
+        final FileObject file = root.resolveFile("created.txt");
+        assertFalse(file.exists());
+
+        file.createFile();
+        assertNull(cache.getChildren(path(root)));
+        assertCachedTypeIsNullOr(FileType.FILE, file);
+        assertTrue(file.exists());
+        assertEquals(2, root.getChildren().length);
+
+        final FileObject folder = root.resolveFile("folder");
+        assertFalse(folder.exists());
+        folder.createFolder();
+        assertNull(cache.getChildren(path(root)));
+        assertCachedTypeIsNullOr(FileType.DIRECTORY, folder);
+        assertTrue(folder.exists());
+    }
+
+    @Test
+    public void deleteInvalidates() throws Exception {
+        root.getChildren();
+        final FileObject file = root.resolveFile(TEST_FILENAME);
+        assertTrue(file.exists());
+
+        assertTrue(file.delete());
+        assertNull(cache.getChildren(path(root)));
+        final FileInfo info = cache.getInfo(path(file));
+        assertTrue(info == null || info.getType() == null);
+        assertFalse(file.exists());
+        assertEquals(0, root.getChildren().length);
+    }
+
+    @Test
+    public void writeInvalidatesOnOpenAndClose() throws Exception {
+        root.getChildren();
+        final FileObject file = root.resolveFile(TEST_FILENAME);
+        assertEquals(TEST_FILE_CONTENT_LEN, file.getContent().getSize());
+
+        final OutputStream os = file.getContent().getOutputStream(true);
+        try {
+            assertNull(cache.getInfo(path(file)));
+            assertNull(cache.getChildren(path(root)));
+            os.write("uiop".getBytes());
+        } finally {
+            os.close();
+        }
+
+        final FileInfo info = cache.getInfo(path(file));
+        assertTrue(info == null || info.getSize() == TEST_FILE_CONTENT_LEN + 4);
+        assertEquals(TEST_FILE_CONTENT_LEN + 4, file.getContent().getSize());
+    }
+
+    @Test
+    public void refreshInvalidates() throws Exception {
+        final FileObject file = root.resolveFile(TEST_FILENAME);
+        assertEquals(TEST_FILE_CONTENT_LEN, file.getContent().getSize());
+
+        // changed behind the file system, not seen until the entry expires or is refreshed
+        final Writer writer = new FileWriter(new File(testDir, TEST_FILENAME), true);
+        try {
+            writer.write("uiop");
+        } finally {
+            writer.close();
+        }
+        assertEquals(TEST_FILE_CONTENT_LEN, cache.getInfo(path(file)).getSize());
+
+        file.refresh();
+        assertEquals(TEST_FILE_CONTENT_LEN + 4, file.getContent().getSize());
+        assertEquals(TEST_FILE_CONTENT_LEN + 4, cache.getInfo(path(file)).getSize());
+    }
+
+    private void assertCachedTypeIsNullOr(FileType type, FileObject file) throws FileSystemException {
+        final FileInfo info = cache.getInfo(path(file));
+        assertTrue(info == null || info.getType() == type);
+    }
+
+    private static String path(FileObject file) throws FileSystemException {
+        return ((ProActiveFileName) file.getName()).getPathDecoded();
+    }
+}
@@ -145,6 +145,19 @@ public abstract class AbstractStreamBase extends AbstractIOOperationsBase {
         assertArrayEquals(TEST_FILE_CONTENT.getBytes(), content);
     }
 
+    /**
+     * Override it if reading is not supported.
+     */
+    @Test
+    public void positionalReadTest() throws IOException, WrongStreamTypeException {
+        final byte[] content = stream.read(2, TEST_FILE_CONTENT_LEN);
+        assertArrayEquals(TEST_FILE_CONTENT.substring(2).getBytes(), content);
+        assertNull(stream.read(TEST_FILE_CONTENT_LEN, 1));
+
+        // stream pointer is not affected
+        assertArrayEquals(TEST_FILE_CONTENT.getBytes(), stream.read(TEST_FILE_CONTENT_LEN));
+    }
+
     /**
      * Override it if reading is not supported.
      */
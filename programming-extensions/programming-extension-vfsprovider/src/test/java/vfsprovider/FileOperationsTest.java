@@ -26,14 +26,19 @@
 package vfsprovider;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assume.assumeFalse;
 
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Calendar;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -189,6 +194,88 @@ public class FileOperationsTest extends AbstractIOOperationsBase {
         assertFileInfoMatch(fi, FileType.FILE, false, true, true);
     }
 
+    @Test
+    public void getInfos() throws IOException {
+        final String notExisting = TEST_SEPARATOR + "not_existing";
+        final String dir = TEST_SEPARATOR + DIR_FILENAME;
+        final String readonly = TEST_SEPARATOR + READONLY_FILENAME;
+        Map<String, FileInfo> infos = server.fileGetInfos(Arrays.asList(dir, readonly, notExisting));
+        assertEquals(3, infos.size());
+        assertFileInfoMatch(infos.get(dir), FileType.DIRECTORY, false, true, true);
+        assertFileInfoMatch(infos.get(readonly), FileType.FILE, false, true, false);
+        assertTrue(infos.containsKey(notExisting));
+        assertNull(infos.get(notExisting));
+    }
+
+    @Test
+    public void listDescendantsInfoNotExisting() throws IOException {
+        assertNull(server.fileListDescendantsInfo(TEST_SEPARATOR + "not_existing", null, -1));
+        assertNull(server.fileListDescendantsInfo(TEST_SEPARATOR + TEST_FILENAME, null, -1));
+    }
+
+    @Test
+    public void listDescendantsInfo() throws IOException {
+        createDescendants();
+        Map<String, FileInfo> files = server.fileListDescendantsInfo(TEST_SEPARATOR, null, -1);
+
+        final Set<String> expected = new HashSet<String>(ROOT_FILENAMES_EXPECTED);
+        expected.addAll(Arrays.asList("dir/a.txt", "dir/sub", "dir/sub/b.log", "dir/sub/c.txt"));
+        assertEquals(expected, files.keySet());
+        assertFileInfoMatch(files.get("dir/sub"), FileType.DIRECTORY, false, true, true);
+        assertFileInfoMatch(files.get("dir/sub/c.txt"), FileType.FILE, false, true, true);
+
+        // directories are listed before their content
+        final List<String> order = new ArrayList<String>(files.keySet());
+        assertTrue(order.indexOf("dir") < order.indexOf("dir/sub"));
+        assertTrue(order.indexOf("dir/sub") < order.indexOf("dir/sub/b.log"));
+    }
+
+    @Test
+    public void listDescendantsInfoDepth() throws IOException {
+        createDescendants();
+        Map<String, FileInfo> files = server.fileListDescendantsInfo(TEST_SEPARATOR, null, 1);
+        assertEquals(ROOT_FILENAMES_EXPECTED, files.keySet());
+
+        files = server.fileListDescendantsInfo(TEST_SEPARATOR + DIR_FILENAME, null, 1);
+        assertEquals(new HashSet<String>(Arrays.asList("a.txt", "sub")), files.keySet());
+    }
+
+    @Test
+    public void listDescendantsInfoGlob() throws IOException {
+        createDescendants();
+        Map<String, FileInfo> files = server.fileListDescendantsInfo(TEST_SEPARATOR, "**/*.txt", -1);
+        assertEquals(new HashSet<String>(Arrays.asList(TEST_FILENAME, READONLY_FILENAME, "dir/a.txt",
+                                                       "dir/sub/c.txt")),
+                     files.keySet());
+
+        files = server.fileListDescendantsInfo(TEST_SEPARATOR, "dir/*/{b.log,c.txt}", -1);
+        assertEquals(new HashSet<String>(Arrays.asList("dir/sub/b.log", "dir/sub/c.txt")), files.keySet());
+
+        files = server.fileListDescendantsInfo(TEST_SEPARATOR, "dir/*", -1);
+        assertEquals(new HashSet<String>(Arrays.asList("dir/a.txt", "dir/sub")), files.keySet());
+        assertFalse(files.containsKey(DIR_FILENAME));
+    }
+
+    @Test
+    public void getContentHash() throws IOException {
+        final String path = TEST_SEPARATOR + TEST_FILENAME;
+        assertEquals("65e84be33532fb784c48129675f9eff3a682b27168c0ea744b2cf58ee02337c5",
+                     server.fileGetContentHash(path));
+
+        final FileOutputStream fos = new FileOutputStream(testFile, true);
+        fos.write("uiop".getBytes());
+        fos.close();
+        assertTrue(testFile.setLastModified(testFile.lastModified() + 2000));
+        assertEquals("9a900403ac313ba27a1bc81f0932652b8020dac92c234d98fa0b06bf0040ecfd",
+                     server.fileGetContentHash(path));
+    }
+
+    @Test
+    public void getContentHashNotFile() throws IOException {
+        assertNull(server.fileGetContentHash(TEST_SEPARATOR + DIR_FILENAME));
+        assertNull(server.fileGetContentHash(TEST_SEPARATOR + "not_existing"));
+    }
+
     @Test
     public void createFile() throws IOException {
         final String path = TEST_SEPARATOR + DIR_FILENAME + "/newfile";
@@ -348,6 +435,14 @@ public class FileOperationsTest extends AbstractIOOperationsBase {
         assertEquals(time / 1000, timeRead / 1000);
     }
 
+    private void createDescendants() throws IOException {
+        final File subDir = new File(anotherDir, "sub");
+        assertTrue(subDir.mkdir());
+        assertTrue(new File(anotherDir, "a.txt").createNewFile());
+        assertTrue(new File(subDir, "b.log").createNewFile());
+        assertTrue(new File(subDir, "c.txt").createNewFile());
+    }
+
     private void testCreateFile(final String path, final FileType fileType) throws IOException {
         final FileInfo fi;
         server.fileCreate(path, fileType);
@@ -25,11 +25,15 @@
  */
 package vfsprovider;
 
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertNull;
+
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 
 import org.junit.Test;
+import org.objectweb.proactive.core.config.CentralPAPropertyRepository;
 import org.objectweb.proactive.extensions.vfsprovider.exceptions.WrongStreamTypeException;
 import org.objectweb.proactive.extensions.vfsprovider.server.InputStreamAdapter;
 import org.objectweb.proactive.extensions.vfsprovider.server.Stream;
@@ -89,6 +93,23 @@ public class InputStreamAdapterTest extends AbstractStreamBase {
         super.getLengthAfterChange();
     }
 
+    @Test
+    public void mappedReadTest() throws Exception {
+        CentralPAPropertyRepository.PA_VFSPROVIDER_SERVER_MAPPED_READ_KB.setValue(1);
+        try {
+            final Stream mapped = getInstance(testFile);
+            try {
+                mapped.skip(1);
+                assertArrayEquals(TEST_FILE_CONTENT.substring(1).getBytes(), mapped.read(1024));
+                assertNull(mapped.read(1024));
+            } finally {
+                mapped.close();
+            }
+        } finally {
+            CentralPAPropertyRepository.PA_VFSPROVIDER_SERVER_MAPPED_READ_KB.setValue(0);
+        }
+    }
+
     @Override
     protected Stream getInstance(File f) throws Exception {
         return new InputStreamAdapter(f);
@@ -65,6 +65,12 @@ public class OutputStreamAdapterTest extends AbstractStreamBase {
         super.readMoreTest();
     }
 
+    @Override
+    @Test(expected = WrongStreamTypeException.class)
+    public void positionalReadTest() throws IOException, WrongStreamTypeException {
+        super.positionalReadTest();
+    }
+
     @Override
     @Test(expected = WrongStreamTypeException.class)
     public void readTest() throws IOException, WrongStreamTypeException {
@@ -29,6 +29,10 @@ import java.io.IOException;
 
 import org.junit.Assert;
 import org.junit.Test;
+import org.objectweb.proactive.core.util.compression.BlockCodec;
+import org.objectweb.proactive.core.util.compression.BlockCodecs;
+import org.objectweb.proactive.core.util.compression.CompressedBlock;
+import org.objectweb.proactive.core.util.compression.DeflateBlockCodec;
 import org.objectweb.proactive.extensions.vfsprovider.exceptions.StreamNotFoundException;
 import org.objectweb.proactive.extensions.vfsprovider.exceptions.WrongStreamTypeException;
 import org.objectweb.proactive.extensions.vfsprovider.protocol.StreamMode;
@@ -57,4 +61,38 @@ public class TestFileSystemServer extends AbstractIOOperationsBase {
         server.streamClose(stream);
         server.stopServer();
     }
+
+    @Test
+    public void compressedStreams() throws IOException, StreamNotFoundException, WrongStreamTypeException {
+        FileSystemServerImpl server = new FileSystemServerImpl(testDir.getAbsolutePath());
+        Assert.assertTrue(server.streamGetCodecs().contains(DeflateBlockCodec.NAME));
+        final BlockCodec codec = BlockCodecs.getCodec(DeflateBlockCodec.NAME);
+
+        final StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            sb.append("INFO task ").append(i % 10).append(" finished\n");
+        }
+        final byte[] text = sb.toString().getBytes();
+        final String path = "/compressed.log";
+        long stream = server.streamOpen(path, StreamMode.SEQUENTIAL_WRITE);
+        final CompressedBlock written = CompressedBlock.encode(codec, text);
+        Assert.assertTrue(written.isCompressed());
+        server.streamWriteCompressed(stream, written);
+        server.streamClose(stream);
+
+        stream = server.streamOpen(path, StreamMode.SEQUENTIAL_READ);
+        final CompressedBlock read = server.streamReadCompressed(stream, text.length, DeflateBlockCodec.NAME);
+        Assert.assertTrue(read.isCompressed());
+        Assert.assertArrayEquals(text, read.decompress());
+        Assert.assertNull(server.streamReadCompressed(stream, text.length, DeflateBlockCodec.NAME));
+        server.streamClose(stream);
+
+        // too small to be shrunk
+        stream = server.streamOpen("/" + TEST_FILENAME, StreamMode.SEQUENTIAL_READ);
+        final CompressedBlock raw = server.streamReadCompressed(stream, TEST_FILE_CONTENT_LEN, DeflateBlockCodec.NAME);
+        Assert.assertFalse(raw.isCompressed());
+        Assert.assertArrayEquals(TEST_FILE_CONTENT.getBytes(), raw.decompress());
+        server.streamClose(stream);
+        server.stopServer();
+    }
 }
@@ -0,0 +1,327 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package vfsprovider;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.vfs2.FileObject;
+import org.apache.commons.vfs2.FileSystemException;
+import org.apache.commons.vfs2.RandomAccessContent;
+import org.apache.commons.vfs2.impl.DefaultFileSystemManager;
+import org.apache.commons.vfs2.util.RandomAccessMode;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.objectweb.proactive.api.PARemoteObject;
+import org.objectweb.proactive.core.remoteobject.RemoteObjectExposer;
+import org.objectweb.proactive.extensions.dataspaces.vfs.VFSFactory;
+import org.objectweb.proactive.extensions.vfsprovider.client.ProActiveFileName;
+import org.objectweb.proactive.extensions.vfsprovider.exceptions.StreamNotFoundException;
+import org.objectweb.proactive.extensions.vfsprovider.exceptions.WrongStreamTypeException;
+import org.objectweb.proactive.extensions.vfsprovider.protocol.FileSystemServer;
+import org.objectweb.proactive.extensions.vfsprovider.server.FileSystemServerImpl;
+
+
+/**
+ * ProActiveProvider tests for the read-ahead and write-behind of the sequential streams, with
+ * their default settings.
+ */
+public class TestProActiveProviderPipelining extends AbstractIOOperationsBase {
+    // larger than the default read-ahead window
+    private static final int LARGE_FILE_LENGTH = 12 * 1024 * 1024;
+
+    private static final int CHUNK_LENGTH = 8 * 1024;
+
+    private static final int CHUNKS_NUMBER = 200;
+
+    private static final long TIMEOUT = 10000;
+
+    private static byte contentAt(long position) {
+        return (byte) (position % 251);
+    }
+
+    private static byte[] contentOf(long position, int length) {
+        final byte[] content = new byte[length];
+        for (int i = 0; i < length; i++) {
+            content[i] = contentAt(position + i);
+        }
+        return content;
+    }
+
+    private static byte[] readFully(final InputStream is, final int length) throws IOException {
+        final byte[] buf = new byte[length];
+        int count = 0;
+        while (count < length) {
+            final int n = is.read(buf, count, length - count);
+            if (n == -1) {
+                fail("Unexpected end of stream after " + count + " bytes");
+            }
+            count += n;
+        }
+        return buf;
+    }
+
+    private InstrumentedFileSystemServer server;
+
+    private RemoteObjectExposer<FileSystemServer> roe;
+
+    private String vfsRootURL;
+
+    private DefaultFileSystemManager vfsManager;
+
+    @Override
+    public String getTestDirFilename() {
+        return "ProActive-TestProActiveProviderPipelining";
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        final OutputStream os = new FileOutputStream(new File(testDir, TEST_FILENAME));
+        try {
+            os.write(contentOf(0, LARGE_FILE_LENGTH));
+        } finally {
+            os.close();
+        }
+
+        server = new InstrumentedFileSystemServer(testDir.getAbsolutePath());
+        roe = PARemoteObject.newRemoteObject(FileSystemServer.class.getName(), (FileSystemServer) server);
+        roe.createRemoteObject("pipeliningFileSystemServer", true);
+        vfsRootURL = ProActiveFileName.getServerVFSRootURLs(roe.getURLs())[0];
+
+        vfsManager = VFSFactory.createDefaultFileSystemManager();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        if (vfsManager != null) {
+            vfsManager.close();
+            vfsManager = null;
+        }
+
+        if (roe != null) {
+            roe.unexportAll();
+            roe.unregisterAll();
+            roe = null;
+            server.stopServer();
+            server = null;
+        }
+    }
+
+    @Test
+    public void testInputStreamReadAheadSkip() throws Exception {
+        final FileObject fo = openFileObject(TEST_FILENAME);
+        final InputStream is = fo.getContent().getInputStream();
+        try {
+            assertEquals(contentAt(0), (byte) is.read());
+            waitForReadBytes(2 * CHUNK_LENGTH);
+
+            // within the data read in advance
+            assertEquals(1000, is.skip(1000));
+            assertArrayEquals(contentOf(1001, 100), readFully(is, 100));
+
+            // beyond the data read in advance
+            final long position = LARGE_FILE_LENGTH * 3 / 4;
+            assertEquals(position - 1101, is.skip(position - 1101));
+            assertArrayEquals(contentOf(position, 100), readFully(is, 100));
+
+            // beyond the end of the file
+            assertEquals(LARGE_FILE_LENGTH - position - 100, is.skip(LARGE_FILE_LENGTH));
+            assertEquals(-1, is.read());
+        } finally {
+            is.close();
+        }
+        fo.close();
+    }
+
+    @Test
+    public void testInputStreamReadAheadSeekRandomAccess() throws Exception {
+        final FileObject fo = openFileObject(TEST_FILENAME);
+        final InputStream is = fo.getContent().getInputStream();
+        try {
+            assertArrayEquals(contentOf(0, 100), readFully(is, 100));
+            waitForReadBytes(2 * CHUNK_LENGTH);
+
+            // a random access content of the same file is not affected by the read-ahead
+            final RandomAccessContent rac = fo.getContent().getRandomAccessContent(RandomAccessMode.READ);
+            try {
+                rac.seek(LARGE_FILE_LENGTH - 10);
+                assertEquals(contentAt(LARGE_FILE_LENGTH - 10), rac.readByte());
+                rac.seek(10);
+                assertEquals(contentAt(10), rac.readByte());
+                assertArrayEquals(contentOf(11, 100), readFully(rac.getInputStream(), 100));
+            } finally {
+                rac.close();
+            }
+
+            assertArrayEquals(contentOf(100, LARGE_FILE_LENGTH - 100), readFully(is, LARGE_FILE_LENGTH - 100));
+            assertEquals(-1, is.read());
+        } finally {
+            is.close();
+        }
+        fo.close();
+    }
+
+    @Test
+    public void testOutputStreamWriteBehindCoalescing() throws Exception {
+        server.writeDelayMillis = 5;
+        final FileObject fo = openFileObject("out.bin");
+        final OutputStream os = fo.getContent().getOutputStream();
+        try {
+            for (int i = 0; i < CHUNKS_NUMBER; i++) {
+                os.write(contentOf(i * CHUNK_LENGTH, CHUNK_LENGTH));
+            }
+        } finally {
+            os.close();
+        }
+
+        assertTrue(server.writes.get() + " writes for " + CHUNKS_NUMBER + " chunks",
+                   server.writes.get() < CHUNKS_NUMBER / 2);
+        final InputStream is = fo.getContent().getInputStream();
+        try {
+            assertArrayEquals(contentOf(0, CHUNKS_NUMBER * CHUNK_LENGTH), readFully(is, CHUNKS_NUMBER * CHUNK_LENGTH));
+            assertEquals(-1, is.read());
+        } finally {
+            is.close();
+        }
+        fo.close();
+    }
+
+    @Test
+    public void testOutputStreamWriteBehindErrorOnFlush() throws Exception {
+        final FileObject fo = openFileObject("out.bin");
+        final OutputStream os = fo.getContent().getOutputStream();
+        try {
+            server.failWrites = true;
+            // the error happens in the background
+            os.write(contentOf(0, CHUNK_LENGTH));
+            try {
+                os.flush();
+                fail("The write error must be reported by flush");
+            } catch (IOException e) {
+                // expected
+            }
+        } finally {
+            server.failWrites = false;
+            closeQuietly(os);
+        }
+        fo.close();
+    }
+
+    @Test
+    public void testOutputStreamWriteBehindErrorOnClose() throws Exception {
+        final FileObject fo = openFileObject("out.bin");
+        final OutputStream os = fo.getContent().getOutputStream();
+        server.failWrites = true;
+        os.write(contentOf(0, CHUNK_LENGTH));
+        try {
+            os.close();
+            fail("The write error must be reported by close");
+        } catch (IOException e) {
+            // expected
+        }
+        fo.close();
+    }
+
+    private FileObject openFileObject(final String fileName) throws FileSystemException {
+        return vfsManager.resolveFile(vfsRootURL).resolveFile(fileName);
+    }
+
+    private void waitForReadBytes(long bytes) throws InterruptedException {
+        final long deadline = System.currentTimeMillis() + TIMEOUT;
+        while (server.readBytes.get() < bytes && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue("No read-ahead: " + server.readBytes.get() + " bytes read", server.readBytes.get() >= bytes);
+    }
+
+    private static void closeQuietly(final OutputStream os) {
+        try {
+            os.close();
+        } catch (IOException e) {
+            // the failure has already been checked
+        }
+    }
+
+    /**
+     * Counts the data read and the write calls, and may slow down or fail the writes. The
+     * compressed reads and writes are performed through the uncompressed ones.
+     */
+    private static class InstrumentedFileSystemServer extends FileSystemServerImpl {
+        final AtomicLong readBytes = new AtomicLong();
+
+        final AtomicInteger writes = new AtomicInteger();
+
+        volatile long writeDelayMillis;
+
+        volatile boolean failWrites;
+
+        InstrumentedFileSystemServer(String rootPath) throws IOException {
+            super(rootPath);
+        }
+
+        @Override
+        public byte[] streamRead(long stream, int bytes)
+                throws IOException, StreamNotFoundException, WrongStreamTypeException {
+            final byte[] data = super.streamRead(stream, bytes);
+            if (data != null) {
+                readBytes.addAndGet(data.length);
+            }
+            return data;
+        }
+
+        @Override
+        public void streamWrite(long stream, byte[] data)
+                throws IOException, StreamNotFoundException, WrongStreamTypeException {
+            beforeWrite();
+            super.streamWrite(stream, data);
+        }
+
+        private void beforeWrite() throws IOException {
+            writes.incrementAndGet();
+            if (failWrites) {
+                throw new IOException("No space left on device");
+            }
+            if (writeDelayMillis > 0) {
+                try {
+                    Thread.sleep(writeDelayMillis);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,150 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package functionalTests.group.concurrentcall;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Before;
+import org.objectweb.proactive.api.PAActiveObject;
+import org.objectweb.proactive.api.PAGroup;
+import org.objectweb.proactive.core.ProActiveException;
+import org.objectweb.proactive.core.group.Group;
+import org.objectweb.proactive.core.node.Node;
+import org.objectweb.proactive.core.node.NodeFactory;
+
+import functionalTests.GCMFunctionalTest;
+import functionalTests.group.A;
+
+
+/**
+ * do (a)synchronous calls on the same typed group from several threads at the same time,
+ * while the membership of the group changes
+ * @author The ProActive Team
+ */
+
+public class TestConcurrentCall extends GCMFunctionalTest {
+    private static final int NB_CALLERS = 8;
+
+    private static final int NB_CALLS = 20;
+
+    private A typedGroup = null;
+
+    public TestConcurrentCall() throws ProActiveException {
+        super(2, 1);
+        super.startDeployment();
+    }
+
+    @Before
+    public void preConditions() throws Exception {
+        Object[][] params = { { "Agent0" }, { "Agent1" }, { "Agent2" } };
+        Node[] nodes = { NodeFactory.getDefaultNode(), super.getANode(), super.getANode() };
+        this.typedGroup = (A) PAGroup.newGroup(A.class.getName(), params, nodes);
+
+        assertTrue(this.typedGroup != null);
+    }
+
+    @org.junit.Test
+    public void action() throws Exception {
+        final Group<A> group = PAGroup.getGroup(this.typedGroup);
+        // name the last member, its name must follow it while other members come and go
+        group.addNamedElement("agent2", group.remove(2));
+        final A namedExtraMember = PAActiveObject.newActive(A.class, new Object[] { "Agent3" });
+        final A extraMember = PAActiveObject.newActive(A.class, new Object[] { "Agent4" });
+
+        ExecutorService callers = Executors.newFixedThreadPool(NB_CALLERS + 2);
+        List<Future<Boolean>> outcomes = new ArrayList<Future<Boolean>>();
+        for (int i = 0; i < NB_CALLERS; i++) {
+            outcomes.add(callers.submit(new Callable<Boolean>() {
+                public Boolean call() throws Exception {
+                    boolean consistent = true;
+                    for (int j = 0; j < NB_CALLS; j++) {
+                        Group<A> groupOfResult = PAGroup.getGroup(typedGroup.asynchronousCall());
+                        // one result per member of the snapshot used by the call
+                        consistent &= (groupOfResult.size() >= 3 && groupOfResult.size() <= 5);
+                        for (int k = 0; k < groupOfResult.size(); k++) {
+                            consistent &= groupOfResult.get(k).getName().endsWith("_Clone");
+                        }
+                    }
+                    return consistent;
+                }
+            }));
+        }
+
+        // membership changes must not disturb the calls in flight
+        Future<?> namedMutator = callers.submit(new Runnable() {
+            public void run() {
+                for (int j = 0; j < NB_CALLS; j++) {
+                    group.addNamedElement("agent3", namedExtraMember);
+                    group.removeNamedElement("agent3");
+                }
+            }
+        });
+        Future<?> mutator = callers.submit(new Runnable() {
+            public void run() {
+                for (int j = 0; j < NB_CALLS; j++) {
+                    group.add(0, extraMember);
+                    group.remove(extraMember);
+                }
+            }
+        });
+
+        for (Future<Boolean> outcome : outcomes) {
+            assertTrue(outcome.get());
+        }
+        namedMutator.get();
+        mutator.get();
+        callers.shutdown();
+
+        assertEquals(3, group.size());
+        assertFalse(group.containsKey("agent3"));
+        assertEquals("Agent2", group.getNamedElement("agent2").getName());
+        assertEquals("Agent0", group.get(0).getName());
+
+        // removals and replacements through iterators are applied to the group and its names
+        Iterator<A> iterator = group.iterator();
+        assertEquals("Agent0", iterator.next().getName());
+        iterator.remove();
+        assertEquals(2, group.size());
+        assertEquals("Agent2", group.getNamedElement("agent2").getName());
+
+        ListIterator<A> listIterator = group.listIterator();
+        assertEquals("Agent1", listIterator.next().getName());
+        listIterator.set(extraMember);
+        assertEquals("Agent4", group.get(0).getName());
+        assertEquals("Agent2", group.getNamedElement("agent2").getName());
+    }
+}
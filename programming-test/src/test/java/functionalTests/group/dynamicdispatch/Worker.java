@@ -57,4 +57,9 @@ public class Worker {
         return executeTask(t);
     }
 
+    @Dispatch(mode = DispatchMode.WORK_STEALING)
+    public Task executeByWorkStealing(Task t) {
+        return executeTask(t);
+    }
+
 }
@@ -0,0 +1,92 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package functionalTests.group.oneserialization;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.objectweb.proactive.api.PAActiveObject;
+import org.objectweb.proactive.api.PAFuture;
+import org.objectweb.proactive.api.PAGroup;
+import org.objectweb.proactive.core.ProActiveException;
+import org.objectweb.proactive.core.group.Group;
+import org.objectweb.proactive.core.group.ProxyForGroup;
+import org.objectweb.proactive.core.node.Node;
+import org.objectweb.proactive.core.node.NodeFactory;
+
+import functionalTests.GCMFunctionalTest;
+import functionalTests.group.A;
+
+
+/**
+ * broadcast an awaited future with unique serialization on: the call must not wait for the
+ * future, which reaches the members through automatic continuations
+ *
+ * @author The ProActive Team
+ */
+
+public class TestFutureArgument extends GCMFunctionalTest {
+    private static final long DELAY = 5000;
+
+    private A typedGroup = null;
+
+    private Producer producer = null;
+
+    public TestFutureArgument() throws ProActiveException {
+        super(2, 1);
+        super.startDeployment();
+    }
+
+    @Before
+    public void preConditions() throws Exception {
+        Object[][] params = { { "Agent0" }, { "Agent1" }, { "Agent2" } };
+        Node[] nodes = { NodeFactory.getDefaultNode(), super.getANode(), super.getANode() };
+        this.typedGroup = (A) PAGroup.newGroup(A.class.getName(), params, nodes);
+        this.producer = PAActiveObject.newActive(Producer.class, new Object[0]);
+
+        assertTrue(((ProxyForGroup<?>) PAGroup.getGroup(this.typedGroup)).isUniqueSerializationOn());
+    }
+
+    @org.junit.Test
+    public void action() throws Exception {
+        A future = this.producer.produce("Value", DELAY);
+        assertTrue(PAFuture.isAwaited(future));
+
+        long start = System.currentTimeMillis();
+        A resultGroup = this.typedGroup.asynchronousCall(future);
+        long elapsed = System.currentTimeMillis() - start;
+
+        assertTrue("The broadcast waited for its future argument (" + elapsed + " ms)", elapsed < DELAY / 2);
+        assertTrue(PAFuture.isAwaited(future));
+
+        Group<A> groupOfResult = PAGroup.getGroup(resultGroup);
+        assertEquals(3, groupOfResult.size());
+        for (int i = 0; i < groupOfResult.size(); i++) {
+            assertEquals("Value_Clone", groupOfResult.get(i).getName());
+        }
+    }
+}
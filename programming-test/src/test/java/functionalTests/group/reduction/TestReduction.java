@@ -0,0 +1,117 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package functionalTests.group.reduction;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.objectweb.proactive.api.PAFuture;
+import org.objectweb.proactive.api.PAGroup;
+import org.objectweb.proactive.core.ProActiveException;
+import org.objectweb.proactive.core.group.reduction.Reduction;
+import org.objectweb.proactive.core.group.tree.BinomialTree;
+import org.objectweb.proactive.core.group.tree.KAryTree;
+import org.objectweb.proactive.core.node.Node;
+import org.objectweb.proactive.core.node.NodeFactory;
+
+import functionalTests.GCMFunctionalTest;
+import functionalTests.group.A;
+
+
+/**
+ * folds the results of calls on a group into a single future, with and without broadcast trees
+ * @author The ProActive Team
+ */
+
+public class TestReduction extends GCMFunctionalTest {
+    private static final int NB_MEMBERS = 7;
+
+    private A typedGroup = null;
+
+    private String expected;
+
+    public TestReduction() throws ProActiveException {
+        super(2, 1);
+        super.startDeployment();
+    }
+
+    @Before
+    public void preConditions() throws Exception {
+        Object[][] params = new Object[NB_MEMBERS][];
+        Node[] nodes = new Node[NB_MEMBERS];
+        StringBuilder names = new StringBuilder();
+        for (int i = 0; i < NB_MEMBERS; i++) {
+            params[i] = new Object[] { "Agent" + i };
+            nodes[i] = (i % 2 == 0) ? NodeFactory.getDefaultNode() : super.getANode();
+            names.append(i == 0 ? "" : ",").append("Agent" + i + "_Clone");
+        }
+        this.typedGroup = (A) PAGroup.newGroup(A.class.getName(), params, nodes);
+        this.expected = names.toString();
+
+        assertTrue(this.typedGroup != null);
+    }
+
+    private void checkReducedCall() {
+        PAGroup.setReduction(this.typedGroup, new JoinNames());
+        A result = this.typedGroup.asynchronousCall();
+        assertFalse(PAGroup.isGroup(result));
+        assertEquals(this.expected, result.getName());
+        PAGroup.unsetReduction(this.typedGroup);
+    }
+
+    @org.junit.Test
+    public void flatReduction() throws Exception {
+        checkReducedCall();
+    }
+
+    @org.junit.Test
+    public void treeReduction() throws Exception {
+        PAGroup.setTreeBroadcast(this.typedGroup, new KAryTree(2));
+        checkReducedCall();
+        PAGroup.setTreeBroadcast(this.typedGroup, new BinomialTree());
+        checkReducedCall();
+        PAGroup.unsetTreeBroadcast(this.typedGroup);
+    }
+
+    @org.junit.Test
+    public void reduceGroupOfResults() throws Exception {
+        A resultTypedGroup = this.typedGroup.asynchronousCall();
+        A result = (A) PAGroup.reduce(resultTypedGroup, new JoinNames());
+        PAFuture.waitFor(result);
+        assertEquals(this.expected, result.getName());
+    }
+
+    /**
+     * joins the names of the results, in order
+     */
+    public static class JoinNames implements Reduction<A> {
+        public A combine(A first, A second) {
+            return new A(first.getName() + "," + second.getName());
+        }
+    }
+}
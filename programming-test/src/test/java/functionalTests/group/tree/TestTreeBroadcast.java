@@ -0,0 +1,134 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package functionalTests.group.tree;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.objectweb.proactive.api.PAGroup;
+import org.objectweb.proactive.core.ProActiveException;
+import org.objectweb.proactive.core.group.Group;
+import org.objectweb.proactive.core.group.tree.BinomialTree;
+import org.objectweb.proactive.core.group.tree.BroadcastTree;
+import org.objectweb.proactive.core.group.tree.KAryTree;
+import org.objectweb.proactive.core.node.Node;
+import org.objectweb.proactive.core.node.NodeFactory;
+
+import functionalTests.GCMFunctionalTest;
+import functionalTests.group.A;
+
+
+/**
+ * relays calls on a group along k-ary and binomial trees of its members
+ * @author The ProActive Team
+ */
+
+public class TestTreeBroadcast extends GCMFunctionalTest {
+    private static final int NB_MEMBERS = 11;
+
+    private A typedGroup = null;
+
+    public TestTreeBroadcast() throws ProActiveException {
+        super(2, 1);
+        super.startDeployment();
+    }
+
+    @Before
+    public void preConditions() throws Exception {
+        Object[][] params = new Object[NB_MEMBERS][];
+        Node[] nodes = new Node[NB_MEMBERS];
+        for (int i = 0; i < NB_MEMBERS; i++) {
+            params[i] = new Object[] { "Agent" + i };
+            nodes[i] = (i % 3 == 0) ? NodeFactory.getDefaultNode() : super.getANode();
+        }
+        this.typedGroup = (A) PAGroup.newGroup(A.class.getName(), params, nodes);
+
+        assertTrue(this.typedGroup != null);
+    }
+
+    private void checkRelayedCalls(BroadcastTree tree) throws Exception {
+        PAGroup.setTreeBroadcast(this.typedGroup, tree);
+        assertTrue(PAGroup.isTreeBroadcastOn(this.typedGroup));
+
+        this.typedGroup.onewayCall();
+
+        A resultTypedGroup = this.typedGroup.asynchronousCall();
+        Group<A> groupOfResult = PAGroup.getGroup(resultTypedGroup);
+        // has the result group the same size as the caller group ?
+        assertEquals(NB_MEMBERS, groupOfResult.size());
+        // is the result of the n-th group member at the n-th position in the result group ?
+        for (int i = 0; i < NB_MEMBERS; i++) {
+            assertEquals("Agent" + i + "_Clone", groupOfResult.get(i).getName());
+        }
+
+        // the parameter is relayed along with the call
+        A parameterTypedGroup = this.typedGroup.asynchronousCall(new A("Parameter"));
+        Group<A> groupOfParameterResult = PAGroup.getGroup(parameterTypedGroup);
+        for (int i = 0; i < NB_MEMBERS; i++) {
+            assertEquals("Parameter_Clone", groupOfParameterResult.get(i).getName());
+        }
+
+        // the one way call was relayed before the others, along the same paths
+        Group<A> group = PAGroup.getGroup(this.typedGroup);
+        for (int i = 0; i < NB_MEMBERS; i++) {
+            assertTrue(group.get(i).isOnewayCallReceived());
+        }
+
+        PAGroup.unsetTreeBroadcast(this.typedGroup);
+    }
+
+    @org.junit.Test
+    public void kAryTree() throws Exception {
+        checkRelayedCalls(new KAryTree(2));
+        checkRelayedCalls(new KAryTree(3));
+    }
+
+    @org.junit.Test
+    public void binomialTree() throws Exception {
+        checkRelayedCalls(new BinomialTree());
+    }
+
+    /**
+     * a member present twice cannot relay to itself: the call is sent to each member by the caller
+     */
+    @org.junit.Test(timeout = 120000)
+    public void duplicatedMember() throws Exception {
+        Group<A> group = PAGroup.getGroup(this.typedGroup);
+        group.add(group.get(0));
+        PAGroup.setTreeBroadcast(this.typedGroup, new KAryTree(2));
+
+        A resultTypedGroup = this.typedGroup.asynchronousCall();
+        Group<A> groupOfResult = PAGroup.getGroup(resultTypedGroup);
+        assertEquals(NB_MEMBERS + 1, groupOfResult.size());
+        for (int i = 0; i < NB_MEMBERS; i++) {
+            assertEquals("Agent" + i + "_Clone", groupOfResult.get(i).getName());
+        }
+        assertEquals("Agent0_Clone", groupOfResult.get(NB_MEMBERS).getName());
+
+        PAGroup.unsetTreeBroadcast(this.typedGroup);
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package functionalTests.group.workstealing;
+
+import org.junit.Assert;
+import org.objectweb.proactive.api.PAGroup;
+import org.objectweb.proactive.core.group.DispatchMode;
+import org.objectweb.proactive.core.group.DispatchMonitor;
+import org.objectweb.proactive.core.group.Group;
+import org.objectweb.proactive.core.node.Node;
+
+import functionalTests.FunctionalTest;
+import functionalTests.descriptor.defaultnodes.TestNodes;
+import functionalTests.group.dynamicdispatch.Task;
+import functionalTests.group.dynamicdispatch.Worker;
+
+
+// dispatch n tasks between 2 workers by work stealing, each worker starting with n/2 tasks
+// task 0 on worker 0 sleeps for a while
+// --> check that worker 1 stole and processed the n/2-1 other tasks of worker 0
+public class Test extends FunctionalTest {
+    int nbTasks = 10;
+
+    @org.junit.Test
+    public void action() throws Exception {
+        TestNodes tn = new TestNodes();
+        tn.action();
+
+        Object[][] params = { { 0 }, { 1 } };
+
+        Node[] nodes = { TestNodes.getSameVMNode(), TestNodes.getLocalVMNode(), TestNodes.getRemoteVMNode() };
+
+        // with the api
+        Worker workers = (Worker) PAGroup.newGroup(Worker.class.getName(), params, nodes);
+        PAGroup.setDispatchMode(workers, DispatchMode.WORK_STEALING, 1);
+        validateStolenTasks(workers, workers.executeTask(newTasks()));
+
+        // with the annotation
+        Worker workers2 = (Worker) PAGroup.newGroup(Worker.class.getName(), params, nodes);
+        validateStolenTasks(workers2, workers2.executeByWorkStealing(newTasks()));
+    }
+
+    private Task newTasks() throws Exception {
+        Task tasks = (Task) PAGroup.newGroup(Task.class.getName());
+        Group<Task> taskGroup = PAGroup.getGroup(tasks);
+        for (int i = 0; i < nbTasks; i++) {
+            taskGroup.add(new Task(i));
+        }
+        PAGroup.setScatterGroup(tasks);
+        return tasks;
+    }
+
+    private void validateStolenTasks(Worker workers, Task results) {
+        Group<Task> resultGroup = PAGroup.getGroup(results);
+
+        Assert.assertEquals(nbTasks, resultGroup.size());
+
+        PAGroup.waitAll(results);
+        int nbTasksForWorker0 = 0;
+        int nbTasksForWorker1 = 0;
+        for (int i = 0; i < nbTasks; i++) {
+            if (resultGroup.get(i).getExecutionWorker() == 0) {
+                nbTasksForWorker0++;
+            } else if (resultGroup.get(i).getExecutionWorker() == 1) {
+                nbTasksForWorker1++;
+            }
+        }
+        System.out.println("worker 0: " + nbTasksForWorker0);
+        System.out.println("worker 1: " + nbTasksForWorker1);
+        Assert.assertEquals(1, nbTasksForWorker0);
+        Assert.assertEquals(nbTasks - 1, nbTasksForWorker1);
+
+        // the throughput of each worker is reported by the monitor of the call
+        DispatchMonitor monitor = PAGroup.getLastDispatchMonitor(workers);
+        Assert.assertNotNull(monitor);
+        Assert.assertEquals(nbTasks - 1, monitor.getCompletedTasks(1));
+        Assert.assertTrue(monitor.getThroughput(1) > monitor.getThroughput(0));
+    }
+
+}
@@ -0,0 +1,168 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package functionalTests.mop.invoker;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.objectweb.proactive.core.mop.MethodCall;
+import org.objectweb.proactive.core.mop.MethodCallExecutionFailedException;
+
+
+/**
+ * Checks that method calls served through the generated invokers behave as calls served by
+ * reflection: wrapping of primitive types, arrays, overloading, exceptions, and methods that are
+ * not accessible to a generated class.
+ *
+ * @author The ProActive Team
+ */
+public class TestDirectInvocation {
+
+    public static class Target {
+        private String value = "";
+
+        public int add(int a, int b) {
+            return a + b;
+        }
+
+        public long add(long a, long b) {
+            return a + b + 1;
+        }
+
+        public String[] reverse(String[] values) {
+            String[] reversed = new String[values.length];
+            for (int i = 0; i < values.length; i++) {
+                reversed[i] = values[values.length - 1 - i];
+            }
+            return reversed;
+        }
+
+        public void setValue(String value) {
+            this.value = value;
+        }
+
+        public String getValue() {
+            return this.value;
+        }
+
+        public boolean fail(char c) throws Exception {
+            throw new Exception("failed with " + c);
+        }
+
+        protected double half(double d) {
+            return d / 2;
+        }
+
+        public String getCaller() {
+            return new Throwable().getStackTrace()[1].getClassName();
+        }
+    }
+
+    public static class SubTarget extends Target {
+        @Override
+        public String getValue() {
+            return "sub" + super.getValue();
+        }
+    }
+
+    private static Object execute(Object target, String name, Class<?>[] types, Object... args)
+            throws Exception {
+        Method method = Target.class.getDeclaredMethod(name, types);
+        return new MethodCall(method, null, args).execute(target);
+    }
+
+    @Test
+    public void generatedInvoker() throws Exception {
+        String caller = (String) execute(new Target(), "getCaller", new Class<?>[0]);
+        Assert.assertTrue("called from " + caller, caller.endsWith(Target.class.getName() + "_PAInvoker"));
+    }
+
+    @Test
+    public void primitivesAndOverloading() throws Exception {
+        Target target = new Target();
+        Assert.assertEquals(5, execute(target, "add", new Class<?>[] { int.class, int.class }, 2, 3));
+        Assert.assertEquals(6L, execute(target, "add", new Class<?>[] { long.class, long.class }, 2L, 3L));
+    }
+
+    @Test
+    public void arraysAndVoid() throws Exception {
+        Target target = new Target();
+        Object reversed = execute(target,
+                                  "reverse",
+                                  new Class<?>[] { String[].class },
+                                  new Object[] { new String[] { "a", "b", "c" } });
+        Assert.assertTrue(Arrays.equals(new String[] { "c", "b", "a" }, (String[]) reversed));
+
+        Assert.assertNull(execute(target, "setValue", new Class<?>[] { String.class }, "value"));
+        Assert.assertEquals("value", execute(target, "getValue", new Class<?>[0]));
+    }
+
+    @Test
+    public void overriddenMethod() throws Exception {
+        SubTarget target = new SubTarget();
+        execute(target, "setValue", new Class<?>[] { String.class }, "value");
+        Assert.assertEquals("subvalue", execute(target, "getValue", new Class<?>[0]));
+    }
+
+    @Test
+    public void exception() throws Exception {
+        try {
+            execute(new Target(), "fail", new Class<?>[] { char.class }, 'x');
+            Assert.fail("the exception of the method should be raised");
+        } catch (InvocationTargetException e) {
+            Assert.assertEquals("failed with x", e.getTargetException().getMessage());
+        }
+    }
+
+    @Test
+    public void wideningConversion() throws Exception {
+        // accepted by reflection, although the invoker expects a Long
+        Assert.assertEquals(6L, execute(new Target(), "add", new Class<?>[] { long.class, long.class }, 2, 3));
+    }
+
+    @Test(expected = MethodCallExecutionFailedException.class)
+    public void nullPrimitive() throws Exception {
+        execute(new Target(), "add", new Class<?>[] { int.class, int.class }, null, 3);
+    }
+
+    @Test(expected = MethodCallExecutionFailedException.class)
+    public void wrongArgumentType() throws Exception {
+        execute(new Target(), "setValue", new Class<?>[] { String.class }, 3);
+    }
+
+    @Test(expected = MethodCallExecutionFailedException.class)
+    public void wrongPrimitiveType() throws Exception {
+        execute(new Target(), "add", new Class<?>[] { int.class, int.class }, "2", 3);
+    }
+
+    @Test
+    public void protectedMethod() throws Exception {
+        Assert.assertEquals(1.5d, execute(new Target(), "half", new Class<?>[] { double.class }, 3d));
+    }
+}
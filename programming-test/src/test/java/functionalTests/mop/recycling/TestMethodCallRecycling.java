@@ -0,0 +1,94 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package functionalTests.mop.recycling;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Test;
+import org.objectweb.proactive.core.body.future.FutureProxy;
+import org.objectweb.proactive.core.body.future.MethodCallResult;
+import org.objectweb.proactive.core.mop.ConstructionOfReifiedObjectFailedException;
+import org.objectweb.proactive.core.mop.ConstructorCall;
+import org.objectweb.proactive.core.mop.MOP;
+import org.objectweb.proactive.core.mop.MethodCall;
+import org.objectweb.proactive.core.mop.StubObject;
+
+
+/**
+ * Checks that the MethodCall of a stub call served by the calling thread, here a call on an
+ * available future, is reused by the next call of this thread.
+ *
+ * @author The ProActive Team
+ */
+public class TestMethodCallRecycling {
+
+    public static class Target {
+        public Target() {
+        }
+
+        public int call(int value) {
+            return value;
+        }
+    }
+
+    /**
+     * A future recording the last call it reified
+     */
+    public static class RecordingFutureProxy extends FutureProxy {
+        MethodCall lastCall;
+
+        public RecordingFutureProxy(ConstructorCall c, Object[] p) throws ConstructionOfReifiedObjectFailedException {
+            super(c, p);
+        }
+
+        @Override
+        public Object reify(MethodCall c) throws java.lang.reflect.InvocationTargetException {
+            this.lastCall = c;
+            return super.reify(c);
+        }
+    }
+
+    @Test
+    public void secondCallReusesMethodCall() throws Exception {
+        MethodCall.setRecycleMethodCallObject(true);
+        Target stub = (Target) MOP.newInstance(Target.class.getName(),
+                                               null,
+                                               null,
+                                               RecordingFutureProxy.class.getName(),
+                                               null);
+        RecordingFutureProxy future = (RecordingFutureProxy) ((StubObject) stub).getProxy();
+        future.receiveReply(new MethodCallResult(new Target(), null));
+
+        assertEquals(1, stub.call(1));
+        MethodCall first = future.lastCall;
+        assertNotNull(first);
+
+        assertEquals(2, stub.call(2));
+        assertSame(first, future.lastCall);
+    }
+}
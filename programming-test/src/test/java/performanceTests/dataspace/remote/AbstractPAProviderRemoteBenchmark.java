@@ -27,6 +27,7 @@ package performanceTests.dataspace.remote;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.io.Serializable;
 import java.net.URISyntaxException;
 
@@ -38,7 +39,9 @@ import org.objectweb.proactive.InitActive;
 import org.objectweb.proactive.api.PAActiveObject;
 import org.objectweb.proactive.api.PAFuture;
 import org.objectweb.proactive.core.ProActiveException;
+import org.objectweb.proactive.core.config.CentralPAPropertyRepository;
 import org.objectweb.proactive.core.node.Node;
+import org.objectweb.proactive.core.util.compression.CompressionStatistics;
 import org.objectweb.proactive.core.util.wrapper.BooleanWrapper;
 import org.objectweb.proactive.extensions.dataspaces.api.DataSpacesFileObject;
 import org.objectweb.proactive.extensions.dataspaces.api.PADataSpaces;
@@ -114,6 +117,7 @@ public abstract class AbstractPAProviderRemoteBenchmark extends GCMFunctionalTes
                 DataSpacesNodes.configureApplication(node, Long.toString(appId), namingService);
 
                 PADataSpaces.addDefaultInput(vfsRootUrl, null);
+                PADataSpaces.addDefaultOutput(vfsRootUrl, null);
 
             } catch (Throwable t) {
                 logger.error("ERROR", t);
@@ -152,6 +156,128 @@ public abstract class AbstractPAProviderRemoteBenchmark extends GCMFunctionalTes
             return new BooleanWrapper(true);
         }
 
+        /**
+         * Compares the sequential throughput with and without read-ahead and write-behind
+         */
+        public BooleanWrapper testPipelining()
+                throws SpaceNotFoundException, NotConfiguredException, ConfigurationException, IOException {
+            final DataSpacesFileObject in = PADataSpaces.resolveDefaultInput("/zero");
+            final DataSpacesFileObject out = PADataSpaces.resolveDefaultOutput("/null");
+            final int bs = 1 << 16;
+            final long volume = 1L << 28;
+            final byte[] buf = new byte[bs];
+
+            for (int windowKB : new int[] { 0, 1024, 4096, 16384 }) {
+                // read when the streams are created
+                CentralPAPropertyRepository.PA_VFSPROVIDER_CLIENT_READ_AHEAD_KB.setValue(windowKB);
+                CentralPAPropertyRepository.PA_VFSPROVIDER_CLIENT_WRITE_BEHIND_KB.setValue(windowKB);
+
+                long before = System.currentTimeMillis();
+                final InputStream is = in.getContent().getInputStream();
+                long tx = 0;
+                while (tx < volume) {
+                    final int count = is.read(buf);
+                    if (count == -1) {
+                        throw new IOException("Unexpected end of stream");
+                    }
+                    tx += count;
+                }
+                is.close();
+                long after = System.currentTimeMillis();
+                printThroughput("Read ", windowKB, tx, after - before);
+
+                before = System.currentTimeMillis();
+                final OutputStream os = out.getContent().getOutputStream();
+                for (tx = 0; tx < volume; tx += bs) {
+                    os.write(buf);
+                }
+                os.close();
+                after = System.currentTimeMillis();
+                printThroughput("Write", windowKB, tx, after - before);
+            }
+
+            return new BooleanWrapper(true);
+        }
+
+        /**
+         * Compares the sequential throughput with and without compression, for content that
+         * compresses well (zeros, text) and content that does not (random bytes)
+         */
+        public BooleanWrapper testCompression()
+                throws SpaceNotFoundException, NotConfiguredException, ConfigurationException, IOException {
+            final DataSpacesFileObject zero = PADataSpaces.resolveDefaultInput("/zero");
+            final DataSpacesFileObject random = PADataSpaces.resolveDefaultInput("/urandom");
+            final DataSpacesFileObject out = PADataSpaces.resolveDefaultOutput("/null");
+            final int bs = 1 << 16;
+            final long volume = 1L << 26;
+
+            final byte[] text = new byte[bs];
+            final byte[] line = "2016-01-01 12:00:00,000 INFO [task 42] step completed\n".getBytes();
+            for (int i = 0; i < bs; i++) {
+                text[i] = line[i % line.length];
+            }
+
+            final CompressionStatistics decompression = CompressionStatistics.getDecompressionStatistics();
+            final CompressionStatistics compression = CompressionStatistics.getCompressionStatistics();
+            for (String codec : new String[] { "", "deflate" }) {
+                // read when the streams are created
+                CentralPAPropertyRepository.PA_VFSPROVIDER_CLIENT_COMPRESSION.setValue(codec);
+
+                for (DataSpacesFileObject in : new DataSpacesFileObject[] { zero, random }) {
+                    decompression.reset();
+                    long before = System.currentTimeMillis();
+                    final InputStream is = in.getContent().getInputStream();
+                    final byte[] buf = new byte[bs];
+                    long tx = 0;
+                    while (tx < volume) {
+                        final int count = is.read(buf);
+                        if (count == -1) {
+                            throw new IOException("Unexpected end of stream");
+                        }
+                        tx += count;
+                    }
+                    is.close();
+                    long after = System.currentTimeMillis();
+                    printCompression("Read  " + in.getVirtualURI(), codec, tx, after - before, decompression);
+                }
+
+                compression.reset();
+                long before = System.currentTimeMillis();
+                final OutputStream os = out.getContent().getOutputStream();
+                long tx;
+                for (tx = 0; tx < volume; tx += bs) {
+                    os.write(text);
+                }
+                os.close();
+                long after = System.currentTimeMillis();
+                printCompression("Write text", codec, tx, after - before, compression);
+            }
+            CentralPAPropertyRepository.PA_VFSPROVIDER_CLIENT_COMPRESSION.setValue("");
+
+            return new BooleanWrapper(true);
+        }
+
+        private static void printCompression(String operation, String codec, long tx, long elapsed,
+                CompressionStatistics statistics) {
+            final double bw = ((tx * 1000.0) / Math.max(1, elapsed)) / (1 << 20);
+            System.out.printf("%s codec: %8s, bandwidth: %8.2f MiB/s, TX: %5d MiB, Time elapsed: %d ms, %s\n",
+                              operation,
+                              codec.length() == 0 ? "none" : codec,
+                              bw,
+                              (tx / (1 << 20)),
+                              elapsed,
+                              statistics);
+        }
+
+        private static void printThroughput(String operation, int windowKB, long tx, long elapsed) {
+            final double bw = ((tx * 1000.0) / Math.max(1, elapsed)) / (1 << 20);
+            System.out.printf("%s window: %6d KiB, bandwidth: %8.2f MiB/s, TX: %5d MiB, Time elapsed: %d ms\n",
+                              operation,
+                              windowKB,
+                              bw,
+                              (tx / (1 << 20)),
+                              elapsed);
+        }
     }
 
     @Test
@@ -159,6 +285,18 @@ public abstract class AbstractPAProviderRemoteBenchmark extends GCMFunctionalTes
         PAFuture.waitFor(ao.test());
     }
 
+    @Test
+    public void testPipelining()
+            throws SpaceNotFoundException, NotConfiguredException, ConfigurationException, IOException {
+        PAFuture.waitFor(ao.testPipelining());
+    }
+
+    @Test
+    public void testCompression()
+            throws SpaceNotFoundException, NotConfiguredException, ConfigurationException, IOException {
+        PAFuture.waitFor(ao.testCompression());
+    }
+
     @After
     public void after() throws ProActiveException {
         this.stopDataSpace();
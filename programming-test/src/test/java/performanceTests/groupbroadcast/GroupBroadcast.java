@@ -0,0 +1,123 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package performanceTests.groupbroadcast;
+
+import java.io.Serializable;
+
+import org.junit.Test;
+import org.objectweb.proactive.api.PAGroup;
+import org.objectweb.proactive.core.ProActiveException;
+import org.objectweb.proactive.core.config.CentralPAPropertyRepository;
+import org.objectweb.proactive.core.group.tree.BinomialTree;
+import org.objectweb.proactive.core.group.tree.BroadcastTree;
+import org.objectweb.proactive.core.group.tree.KAryTree;
+import org.objectweb.proactive.core.node.Node;
+
+import functionalTests.GCMFunctionalTest;
+import performanceTests.HudsonReport;
+
+
+/**
+ * Measures the time taken by a call on a group to reach all its members and to come back, when
+ * the caller sends it to every member and when it is relayed along a tree. The reported value is
+ * the number of calls per second on the group relayed along a binomial tree.
+ */
+public abstract class GroupBroadcast extends GCMFunctionalTest {
+
+    private static final byte[] PAYLOAD = new byte[1024];
+
+    private Class<?> cl;
+
+    private int nbMembers;
+
+    public GroupBroadcast(Class<?> cl, int nbMembers) throws ProActiveException {
+        super(2, 2);
+        super.startDeployment();
+        this.cl = cl;
+        this.nbMembers = nbMembers;
+    }
+
+    @Test
+    public void test() throws Exception {
+        Object[][] params = new Object[this.nbMembers][];
+        Node[] nodes = new Node[this.nbMembers];
+        for (int i = 0; i < this.nbMembers; i++) {
+            params[i] = new Object[] {};
+            nodes[i] = super.getANode();
+        }
+        Member group = (Member) PAGroup.newGroupInParallel(Member.class.getName(), params, nodes);
+
+        double flat = run(group, null);
+        run(group, new KAryTree(4));
+        double tree = run(group, new BinomialTree());
+
+        System.out.println("Speedup of the binomial tree with " + this.nbMembers + " members: " + (tree / flat));
+        HudsonReport.reportToHudson(this.cl, tree);
+    }
+
+    /**
+     * @return the number of calls on the group per second
+     */
+    private double run(Member group, BroadcastTree tree) {
+        if (tree == null) {
+            PAGroup.unsetTreeBroadcast(group);
+        } else {
+            PAGroup.setTreeBroadcast(group, tree);
+        }
+
+        // Warmup
+        for (int i = 0; i < 10; i++) {
+            PAGroup.waitAll(group.receive(PAYLOAD));
+        }
+
+        long count = 0;
+        long startTime = System.currentTimeMillis();
+        final long testDuration = CentralPAPropertyRepository.PA_TEST_PERF_DURATION.getValue();
+        while (System.currentTimeMillis() - startTime < testDuration) {
+            PAGroup.waitAll(group.receive(PAYLOAD));
+            count++;
+        }
+        double throughput = (1000.0 * count) / (System.currentTimeMillis() - startTime);
+
+        System.out.println((tree == null ? "Flat" : tree.toString()) + " with " + this.nbMembers + " members: " +
+                           throughput + " calls/s");
+        return throughput;
+    }
+
+    static public class Member implements Serializable {
+        public Member() {
+        }
+
+        public Ack receive(byte[] payload) {
+            return new Ack();
+        }
+    }
+
+    static public class Ack implements Serializable {
+        public Ack() {
+        }
+    }
+}
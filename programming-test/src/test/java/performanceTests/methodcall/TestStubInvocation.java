@@ -0,0 +1,128 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package performanceTests.methodcall;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+import org.objectweb.proactive.core.Constants;
+import org.objectweb.proactive.core.body.future.FutureProxy;
+import org.objectweb.proactive.core.body.future.MethodCallResult;
+import org.objectweb.proactive.core.config.CentralPAPropertyRepository;
+import org.objectweb.proactive.core.mop.MOP;
+import org.objectweb.proactive.core.mop.StubObject;
+
+import performanceTests.HudsonReport;
+
+
+/**
+ * Measures the cost of an invocation on a stub, i.e. the creation of its MethodCall, from 1 and 32
+ * threads. The stub is an available future, whose calls are served and recycled by the calling
+ * thread. The reported value is the number of invocations per second and per thread with 32
+ * threads.
+ */
+public class TestStubInvocation {
+
+    public static final int[] NB_THREADS = { 1, 32 };
+
+    @Test
+    public void test() throws Exception {
+        double throughput = 0;
+        for (int nbThreads : NB_THREADS) {
+            // Warmup
+            run(nbThreads, CentralPAPropertyRepository.PA_TEST_PERF_DURATION.getValue() / 4);
+            throughput = run(nbThreads, CentralPAPropertyRepository.PA_TEST_PERF_DURATION.getValue());
+            System.out.println("Stub invocations with " + nbThreads + " threads: " + throughput +
+                               " calls/s/thread, " + (1000000000.0 / throughput) + " ns/call");
+        }
+        HudsonReport.reportToHudson(TestStubInvocation.class, throughput);
+    }
+
+    /**
+     * @return the number of invocations per second and per thread
+     */
+    private double run(final int nbThreads, final long duration) throws Exception {
+        ExecutorService threadPool = Executors.newFixedThreadPool(nbThreads);
+        final CountDownLatch latch = new CountDownLatch(nbThreads);
+        try {
+            List<Callable<Double>> tasks = new ArrayList<Callable<Double>>();
+            for (int i = 0; i < nbThreads; i++) {
+                tasks.add(new Callable<Double>() {
+                    public Double call() throws Exception {
+                        Target stub = (Target) MOP.newInstance(Target.class.getName(),
+                                                               null,
+                                                               null,
+                                                               Constants.DEFAULT_FUTURE_PROXY_CLASS_NAME,
+                                                               null);
+                        ((FutureProxy) ((StubObject) stub).getProxy()).receiveReply(new MethodCallResult(new Target(),
+                                                                                                         null));
+                        latch.countDown();
+                        latch.await();
+
+                        long count = 0;
+                        int sum = 0;
+                        long startTime = System.nanoTime();
+                        long endTime = startTime + (duration * 1000000L);
+                        while (System.nanoTime() < endTime) {
+                            for (int j = 0; j < 1000; j++) {
+                                sum += stub.call(j);
+                            }
+                            count += 1000;
+                        }
+                        if (sum == 42) {
+                            // keeps the calls from being optimized away
+                            System.out.println(sum);
+                        }
+                        return (1000000000.0 * count) / (System.nanoTime() - startTime);
+                    }
+                });
+            }
+
+            double total = 0;
+            for (Future<Double> result : threadPool.invokeAll(tasks)) {
+                total += result.get();
+            }
+            return total / nbThreads;
+        } finally {
+            threadPool.shutdownNow();
+        }
+    }
+
+    static public class Target {
+        public Target() {
+        }
+
+        public int call(int value) {
+            return value;
+        }
+    }
+}
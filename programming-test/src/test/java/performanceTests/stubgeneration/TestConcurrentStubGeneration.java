@@ -0,0 +1,152 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package performanceTests.stubgeneration;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import javassist.ClassPool;
+import javassist.CtClass;
+import javassist.CtNewConstructor;
+import javassist.CtNewMethod;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.objectweb.proactive.api.PAActiveObject;
+
+import functionalTests.FunctionalTest;
+import performanceTests.HudsonReport;
+
+
+/**
+ * Measures the creation of active objects of 1000 distinct types, whose stubs are all generated
+ * during the test, first from a single thread then from many threads at once. Every thread also
+ * creates an active object of a shared type, whose stub must be generated only once. The reported
+ * value is the number of types per second when created concurrently.
+ */
+public class TestConcurrentStubGeneration extends FunctionalTest {
+
+    public static final int NB_TYPES = 1000;
+
+    public static final int NB_THREADS = 32;
+
+    @Test
+    public void test() throws Exception {
+        List<String> sequentialTypes = makeTypes("Sequential", NB_TYPES);
+        List<String> concurrentTypes = makeTypes("Concurrent", NB_TYPES);
+        String sharedType = makeTypes("Shared", 1).get(0);
+
+        double sequential = createActiveObjects(sequentialTypes, null, 1);
+        double concurrent = createActiveObjects(concurrentTypes, sharedType, NB_THREADS);
+
+        System.out.println("Sequential creation of " + NB_TYPES + " types: " + sequential + " types/s");
+        System.out.println("Concurrent creation of " + NB_TYPES + " types with " + NB_THREADS + " threads: " +
+                           concurrent + " types/s");
+        System.out.println("Speedup: " + (concurrent / sequential));
+        HudsonReport.reportToHudson(TestConcurrentStubGeneration.class, concurrent);
+    }
+
+    /**
+     * @return the number of types per second
+     */
+    private double createActiveObjects(final List<String> types, final String sharedType, int nbThreads)
+            throws Exception {
+        ExecutorService threadPool = Executors.newFixedThreadPool(nbThreads);
+        final CountDownLatch latch = new CountDownLatch(nbThreads);
+        final List<Object> activeObjects = new ArrayList<Object>();
+        try {
+            List<Callable<Class<?>>> tasks = new ArrayList<Callable<Class<?>>>();
+            for (int i = 0; i < nbThreads; i++) {
+                final int first = i;
+                final int step = nbThreads;
+                tasks.add(new Callable<Class<?>>() {
+                    public Class<?> call() throws Exception {
+                        // start all the threads at once to maximize the contention
+                        latch.countDown();
+                        latch.await();
+
+                        Class<?> sharedStubClass = null;
+                        if (sharedType != null) {
+                            sharedStubClass = newActive(sharedType, activeObjects).getClass();
+                        }
+                        for (int j = first; j < types.size(); j += step) {
+                            newActive(types.get(j), activeObjects);
+                        }
+                        return sharedStubClass;
+                    }
+                });
+            }
+
+            long startTime = System.nanoTime();
+            List<Future<Class<?>>> results = threadPool.invokeAll(tasks);
+            Class<?> sharedStubClass = results.get(0).get();
+            for (Future<Class<?>> result : results) {
+                Assert.assertSame("The stub of a type must be generated once", sharedStubClass, result.get());
+            }
+            long duration = System.nanoTime() - startTime;
+            return (1000000000.0 * types.size()) / duration;
+        } finally {
+            threadPool.shutdownNow();
+            for (Object activeObject : activeObjects) {
+                PAActiveObject.terminateActiveObject(activeObject, true);
+            }
+        }
+    }
+
+    private static Object newActive(String type, List<Object> activeObjects) throws Exception {
+        Object activeObject = PAActiveObject.newActive(type, new Object[] {});
+        synchronized (activeObjects) {
+            activeObjects.add(activeObject);
+        }
+        return activeObject;
+    }
+
+    /**
+     * Makes new reifiable classes, so that their stubs are generated by the test.
+     */
+    private static List<String> makeTypes(String prefix, int nbTypes) throws Exception {
+        ClassPool pool = ClassPool.getDefault();
+        CtClass serializableClass = pool.get(Serializable.class.getName());
+        List<String> types = new ArrayList<String>(nbTypes);
+        for (int i = 0; i < nbTypes; i++) {
+            String className = TestConcurrentStubGeneration.class.getName() + prefix + i;
+            CtClass cc = pool.makeClass(className);
+            cc.addInterface(serializableClass);
+            cc.addConstructor(CtNewConstructor.defaultConstructor(cc));
+            cc.addMethod(CtNewMethod.make("public int getIndex() { return " + i + "; }", cc));
+            pool.toClass(cc);
+            cc.defrost();
+            types.add(className);
+        }
+        return types;
+    }
+}
@@ -25,15 +25,22 @@
  */
 package org.objectweb.proactive.core;
 
+import java.nio.ByteBuffer;
+import java.security.SecureRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
 import org.objectweb.proactive.annotation.PublicAPI;
 
 
 /**
  * <p>
- * UniqueID is a unique object identifier across all jvm. It is made of a unique VMID combined
- * with a unique UID on that VM.
+ * UniqueID is a unique object identifier across all jvm. It is made of a random 64-bit prefix
+ * drawn once per VM combined with a 64-bit counter on that VM.
  * </p><p>
  * The UniqueID is used to identify object globally, even in case of migration.
+ * </p><p>
+ * Its binary form is a fixed size of {@link #BYTES} bytes (see {@link #toByteArray()}), to which
+ * the serialized form only adds the optional identifier.
  * </p>
  * @author The ProActive Team
  * @version 1.0,  2001/10/23
@@ -43,15 +50,24 @@ import org.objectweb.proactive.annotation.PublicAPI;
 
 @PublicAPI
 public class UniqueID implements java.io.Serializable, Comparable<UniqueID> {
-    private java.rmi.server.UID id;
 
-    private java.rmi.dgc.VMID vmID;
+    /** The size of the binary form of a UniqueID */
+    public static final int BYTES = 16;
+
+    private long vmPrefix;
+
+    private long counter;
 
     private String identifier;
 
     //the Unique ID of the JVM
     private static java.rmi.dgc.VMID uniqueVMID = new java.rmi.dgc.VMID();
 
+    // the prefix of the UniqueIDs created by the JVM
+    private static final long uniqueVMPrefix = new SecureRandom().nextLong();
+
+    private static final AtomicLong nextCounter = new AtomicLong();
+
     // Optim
     private transient String cachedShortString;
 
@@ -70,8 +86,12 @@ public class UniqueID implements java.io.Serializable, Comparable<UniqueID> {
      * Creates a new UniqueID
      */
     public UniqueID() {
-        this.id = new java.rmi.server.UID();
-        this.vmID = uniqueVMID;
+        this(uniqueVMPrefix, nextCounter.incrementAndGet());
+    }
+
+    private UniqueID(long vmPrefix, long counter) {
+        this.vmPrefix = vmPrefix;
+        this.counter = counter;
     }
 
     //
@@ -86,26 +106,59 @@ public class UniqueID implements java.io.Serializable, Comparable<UniqueID> {
         return uniqueVMID;
     }
 
+    /**
+     * Reads a UniqueID from its binary form. The identifier, that is not part of the identity of
+     * a UniqueID, is not restored.
+     * @param bytes the binary form, see {@link #toByteArray()}
+     * @return the UniqueID
+     */
+    public static UniqueID fromByteArray(byte[] bytes) {
+        if (bytes.length != BYTES) {
+            throw new IllegalArgumentException("A UniqueID is " + BYTES + " bytes long, not " + bytes.length);
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        return new UniqueID(buffer.getLong(), buffer.getLong());
+    }
+
     //
     // -- PUBLIC METHODS -----------------------------------------------
     //
 
     /**
-     * Returns the VMID of this UniqueID. Note that the VMID of one UniqueID may differ
-     * from the local VMID (that one can get using <code>getCurrentVMID()</code> in case
-     * this UniqueID is attached to an object that has migrated.
-     * @return the VMID part of this UniqueID
+     * Returns the VMID of this UniqueID, if it was created by the current VM.
+     * @return the VMID of the current VM if this UniqueID was created by it, <code>null</code>
+     * otherwise
+     * @deprecated a UniqueID is no longer made of a VMID, use {@link #isLocal()}
      */
+    @Deprecated
     public java.rmi.dgc.VMID getVMID() {
-        return this.vmID;
+        return isLocal() ? uniqueVMID : null;
     }
 
     /**
      * Returns the UID part of this UniqueID.
-     * @return the UID part of this UniqueID
+     * @return <code>null</code>
+     * @deprecated a UniqueID is no longer made of a UID
      */
+    @Deprecated
     public java.rmi.server.UID getUID() {
-        return this.id;
+        return null;
+    }
+
+    /**
+     * @return <code>true</code> if this UniqueID was created by the current VM
+     */
+    public boolean isLocal() {
+        return this.vmPrefix == uniqueVMPrefix;
+    }
+
+    /**
+     * Returns the binary form of this UniqueID: its VM prefix and its counter, in big-endian
+     * order.
+     * @return the {@link #BYTES} bytes of this UniqueID
+     */
+    public byte[] toByteArray() {
+        return ByteBuffer.allocate(BYTES).putLong(this.vmPrefix).putLong(this.counter).array();
     }
 
     /**
@@ -132,7 +185,8 @@ public class UniqueID implements java.io.Serializable, Comparable<UniqueID> {
         // Date-race initialization. Initialization in the ctor is to heavy
         String s = this.cachedCanonString;
         if (s == null) {
-            s = ((identifier != null ? identifier : "") + this.id + "--" + this.vmID).replace(':', '-');
+            s = (identifier != null ? identifier : "") + Long.toHexString(this.counter) + "--" +
+                Long.toHexString(this.vmPrefix);
             this.cachedCanonString = s;
         }
 
@@ -149,7 +203,8 @@ public class UniqueID implements java.io.Serializable, Comparable<UniqueID> {
      */
     @Override
     public int hashCode() {
-        return this.id.hashCode() + this.vmID.hashCode();
+        long h = (this.vmPrefix * 31) + this.counter;
+        return (int) (h ^ (h >>> 32));
     }
 
     /**
@@ -158,9 +213,12 @@ public class UniqueID implements java.io.Serializable, Comparable<UniqueID> {
      */
     @Override
     public boolean equals(Object o) {
-        //System.out.println("Now checking for equality");
+        if (this == o) {
+            return true;
+        }
         if (o instanceof UniqueID) {
-            return ((this.id.equals(((UniqueID) o).getUID())) && (this.vmID.equals(((UniqueID) o).getVMID())));
+            UniqueID u = (UniqueID) o;
+            return (this.counter == u.counter) && (this.vmPrefix == u.vmPrefix);
         } else {
             return false;
         }
@@ -170,6 +228,7 @@ public class UniqueID implements java.io.Serializable, Comparable<UniqueID> {
      * for debug purpose
      */
     public void echo() {
-        System.out.println("UniqueID The Id is " + this.id + " and the address is " + this.vmID);
+        System.out.println("UniqueID The Id is " + this.counter + " and the VM prefix is " +
+                           Long.toHexString(this.vmPrefix));
     }
 }
@@ -0,0 +1,81 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.objectweb.proactive.core;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+
+public class TestUniqueID {
+
+    @Test
+    public void testUniqueness() {
+        UniqueID id1 = new UniqueID();
+        UniqueID id2 = new UniqueID("name");
+        Assert.assertFalse(id1.equals(id2));
+        Assert.assertFalse(id1.getCanonString().equals(id2.getCanonString()));
+        Assert.assertTrue(id1.isLocal());
+    }
+
+    @Test
+    public void testBinaryForm() {
+        UniqueID id = new UniqueID("name");
+        byte[] bytes = id.toByteArray();
+        Assert.assertEquals(UniqueID.BYTES, bytes.length);
+
+        UniqueID read = UniqueID.fromByteArray(bytes);
+        Assert.assertEquals(id, read);
+        Assert.assertEquals(id.hashCode(), read.hashCode());
+        Assert.assertTrue(read.isLocal());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidBinaryForm() {
+        UniqueID.fromByteArray(new byte[UniqueID.BYTES - 1]);
+    }
+
+    @Test
+    public void testSerialization() throws Exception {
+        UniqueID id = new UniqueID("name");
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ObjectOutputStream out = new ObjectOutputStream(bytes);
+        out.writeObject(id);
+        out.close();
+        ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+        UniqueID read = (UniqueID) in.readObject();
+
+        Assert.assertEquals(id, read);
+        Assert.assertEquals(id.hashCode(), read.hashCode());
+        Assert.assertEquals(id.getCanonString(), read.getCanonString());
+        Assert.assertEquals(0, id.compareTo(read));
+    }
+}